@@ -0,0 +1,194 @@
+package au.edu.wehi.idsv;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.util.Log;
+
+/**
+ * Schedules genomic chunks for parallel processing based on their estimated processing cost.
+ *
+ * Chunks with an estimated cost much greater than the median chunk are split into
+ * smaller chunks of approximately equal cost, and chunks are executed in order of
+ * decreasing estimated cost so the most expensive chunks are not left until last.
+ *
+ * Split chunks partition the bases of the original chunk so the chunk boundary
+ * handling of the chunk processing is unchanged.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class AdaptiveChunkScheduler {
+	private static final Log log = Log.getInstance(AdaptiveChunkScheduler.class);
+	/**
+	 * Number of cost estimation bins for each chunk created by splitting
+	 */
+	private static final int BINS_PER_SPLIT_CHUNK = 8;
+	@FunctionalInterface
+	public interface CostEstimator {
+		/**
+		 * Estimates the relative processing cost of each of the given chunks
+		 * @param chunks chunks to estimate
+		 * @return estimated cost of each chunk
+		 */
+		long[] estimateProcessingCost(List<QueryInterval[]> chunks) throws IOException;
+	}
+	private final CostEstimator estimator;
+	private final double splitCostMultiple;
+	private final int minSplitChunkSize;
+	private final List<QueryInterval[]> chunks = new ArrayList<>();
+	private final List<Long> cost = new ArrayList<>();
+	/**
+	 * Schedules the given chunks based on the size of the evidence of the given evidence sources
+	 * @param context processing context
+	 * @param initialChunks chunks in genomic order
+	 * @param sources evidence to be processed
+	 * @throws IOException
+	 */
+	public AdaptiveChunkScheduler(ProcessingContext context, List<QueryInterval[]> initialChunks, List<? extends SAMEvidenceSource> sources) throws IOException {
+		this(initialChunks, c -> estimateProcessingCost(sources, c), context.getConfig().chunkSplitCostMultiple, context.getConfig().minSplitChunkSize);
+	}
+	/**
+	 * Schedules the given chunks
+	 * @param initialChunks chunks in genomic order
+	 * @param estimator chunk cost estimator
+	 * @param splitCostMultiple chunks with a cost greater than this multiple of the median chunk cost are split
+	 * @param minSplitChunkSize minimum size of chunks created by splitting
+	 * @throws IOException
+	 */
+	public AdaptiveChunkScheduler(List<QueryInterval[]> initialChunks, CostEstimator estimator, double splitCostMultiple, int minSplitChunkSize) throws IOException {
+		this.estimator = estimator;
+		this.splitCostMultiple = splitCostMultiple;
+		this.minSplitChunkSize = Math.max(1, minSplitChunkSize);
+		long[] initialCost = estimator.estimateProcessingCost(initialChunks);
+		long medianCost = median(initialCost);
+		int splitCount = 0;
+		for (int i = 0; i < initialChunks.size(); i++) {
+			QueryInterval[] chunk = initialChunks.get(i);
+			int pieces = 1;
+			if (splitCostMultiple > 0 && medianCost > 0 && initialCost[i] > splitCostMultiple * medianCost) {
+				pieces = (int)Math.min((initialCost[i] + medianCost - 1) / medianCost, size(chunk) / this.minSplitChunkSize);
+			}
+			if (pieces > 1) {
+				splitCount++;
+				split(chunk, pieces);
+			} else {
+				chunks.add(chunk);
+				cost.add(initialCost[i]);
+			}
+		}
+		if (splitCount > 0) {
+			log.info(String.format("Split %d of %d chunks with an estimated processing cost over %.1f times the median into %d chunks.",
+					splitCount, initialChunks.size(), splitCostMultiple, chunks.size() - initialChunks.size() + splitCount));
+		}
+	}
+	private static long[] estimateProcessingCost(List<? extends SAMEvidenceSource> sources, List<QueryInterval[]> chunks) throws IOException {
+		long[] total = new long[chunks.size()];
+		for (SAMEvidenceSource source : sources) {
+			long[] cost = source.estimateProcessingCost(chunks);
+			for (int i = 0; i < total.length; i++) {
+				total[i] += cost[i];
+			}
+		}
+		return total;
+	}
+	private static long median(long[] values) {
+		if (values.length == 0) return 0;
+		long[] sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+	private static long size(QueryInterval[] chunk) {
+		long size = 0;
+		for (QueryInterval qi : chunk) {
+			size += qi.end - qi.start + 1;
+		}
+		return size;
+	}
+	/**
+	 * Splits the given chunk into contiguous chunks of approximately equal cost
+	 * @param chunk chunk to split
+	 * @param pieces number of chunks to split into
+	 */
+	private void split(QueryInterval[] chunk, int pieces) throws IOException {
+		long binSize = Math.max(1, size(chunk) / (pieces * BINS_PER_SPLIT_CHUNK));
+		List<QueryInterval> bins = new ArrayList<>();
+		for (QueryInterval qi : chunk) {
+			for (long start = qi.start; start <= qi.end; start += binSize) {
+				bins.add(new QueryInterval(qi.referenceIndex, (int)start, (int)Math.min(qi.end, start + binSize - 1)));
+			}
+		}
+		long[] binCost = estimator.estimateProcessingCost(bins.stream().map(qi -> new QueryInterval[] { qi }).collect(Collectors.toList()));
+		long remainingCost = Arrays.stream(binCost).sum();
+		long remainingSize = size(chunk);
+		int remainingPieces = pieces;
+		List<QueryInterval> current = new ArrayList<>();
+		long currentCost = 0;
+		long currentSize = 0;
+		for (int i = 0; i < bins.size(); i++) {
+			QueryInterval bin = bins.get(i);
+			add(current, bin);
+			currentCost += binCost[i];
+			currentSize += bin.end - bin.start + 1;
+			if (remainingPieces > 1
+					&& currentCost * remainingPieces >= remainingCost
+					&& currentSize >= minSplitChunkSize
+					&& remainingSize - currentSize >= minSplitChunkSize) {
+				chunks.add(current.toArray(new QueryInterval[0]));
+				cost.add(currentCost);
+				remainingCost -= currentCost;
+				remainingSize -= currentSize;
+				remainingPieces--;
+				current = new ArrayList<>();
+				currentCost = 0;
+				currentSize = 0;
+			}
+		}
+		chunks.add(current.toArray(new QueryInterval[0]));
+		cost.add(currentCost);
+	}
+	/**
+	 * Adds the given interval to the chunk, extending the final interval if they are adjacent
+	 */
+	private static void add(List<QueryInterval> chunk, QueryInterval qi) {
+		if (!chunk.isEmpty()) {
+			QueryInterval last = chunk.get(chunk.size() - 1);
+			if (last.referenceIndex == qi.referenceIndex && last.end + 1 == qi.start) {
+				chunk.set(chunk.size() - 1, new QueryInterval(last.referenceIndex, last.start, qi.end));
+				return;
+			}
+		}
+		chunk.add(qi);
+	}
+	/**
+	 * Chunks to process
+	 * @return chunks in genomic order
+	 */
+	public List<QueryInterval[]> getChunks() {
+		return chunks;
+	}
+	/**
+	 * Estimated processing cost of the given chunk
+	 * @param chunkNumber index of chunk
+	 * @return estimated cost
+	 */
+	public long getEstimatedCost(int chunkNumber) {
+		return cost.get(chunkNumber);
+	}
+	/**
+	 * Order in which chunks should be processed
+	 * @return chunk indices in order of decreasing estimated cost
+	 */
+	public List<Integer> getExecutionOrder() {
+		return IntStream.range(0, chunks.size())
+				.boxed()
+				.sorted(Comparator.comparing((Integer i) -> cost.get(i)).reversed().thenComparing(i -> i))
+				.collect(Collectors.toList());
+	}
+}
@@ -22,6 +22,15 @@ public class AggregateEvidenceSource extends EvidenceSource implements Iterable<
 	public CloseableIterator<DirectedEvidence> iterator(QueryInterval[] intervals) {
 		return SAMEvidenceSource.mergedIterator(all, intervals);
 	}
+	/**
+	 * Iterates over the evidence overlapping the given intervals
+	 * @param intervals intervals to return evidence for
+	 * @param lowBreakpointOnly only return the low breakend half of breakpoint evidence
+	 * @return evidence overlapping the given intervals
+	 */
+	public CloseableIterator<DirectedEvidence> iterator(QueryInterval[] intervals, boolean lowBreakpointOnly) {
+		return SAMEvidenceSource.mergedIterator(all, intervals, lowBreakpointOnly);
+	}
 	@Override
 	public int getMaxConcordantFragmentSize() {
 		return all.stream().mapToInt(source -> source.getMaxConcordantFragmentSize()).max().getAsInt();
@@ -3,9 +3,6 @@ package au.edu.wehi.idsv;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.NotImplementedException;
 
@@ -16,11 +13,12 @@ import htsjdk.samtools.util.Log;
 
 public class AssemblyAttributes {
 	private static final Log log = Log.getInstance(AssemblyAttributes.class);
-	private static final String COMPONENT_EVIDENCEID_SEPARATOR = " ";
 	private final SAMRecord record;
-	private HashSet<String> evidenceIDs = null;
+	private EvidenceIdentifier[] evidenceIdentifiers = null;
+	private EvidenceIdentifierBloomFilter evidenceIdentifierFilter = null;
 	public static boolean isAssembly(SAMRecord record) {
-		return record.getAttribute(SamTags.EVIDENCEID) != null;
+		return record.getAttribute(SamTags.EVIDENCE_IDENTIFIER) != null
+				|| record.getAttribute(SamTags.EVIDENCEID) != null;
 	}
 	public static boolean isAssembly(DirectedEvidence record) {
 		if (record instanceof SingleReadEvidence) {
@@ -44,19 +42,47 @@ public class AssemblyAttributes {
 	 * @return true if the record is likely part of the breakend, false if definitely not
 	 */
 	public boolean isPartOfAssembly(DirectedEvidence e) {
-		return getEvidenceIDs().contains(e.getEvidenceID());
+		EvidenceIdentifier id = e.getEvidenceIdentifier();
+		if (evidenceIdentifiers == null) {
+			// filter check avoids decoding the evidence identifiers of assemblies the evidence is not part of
+			EvidenceIdentifierBloomFilter filter = getEvidenceIdentifierFilter();
+			if (filter != null && !filter.mightContain(id)) {
+				return false;
+			}
+		}
+		return Arrays.binarySearch(getSortedEvidenceIdentifiers(), id) >= 0;
+	}
+	private EvidenceIdentifierBloomFilter getEvidenceIdentifierFilter() {
+		if (evidenceIdentifierFilter == null) {
+			Object encoded = record.getAttribute(SamTags.EVIDENCE_IDENTIFIER_FILTER);
+			if (encoded instanceof int[] && ((int[])encoded).length > 0) {
+				evidenceIdentifierFilter = EvidenceIdentifierBloomFilter.decode((int[])encoded);
+			}
+		}
+		return evidenceIdentifierFilter;
 	}
-	public Collection<String> getEvidenceIDs() {
-		if (evidenceIDs == null) {
-			String encoded = record.getStringAttribute(SamTags.EVIDENCEID);
-			if (encoded == null) {
-				throw new IllegalStateException("Unable to get constituent evidenceIDs from assembly with evidence tracking disabled");
+	/**
+	 * Gets the identifiers of the evidence supporting this assembly
+	 * @return evidence identifiers
+	 */
+	public Collection<EvidenceIdentifier> getEvidenceIdentifiers() {
+		return Arrays.asList(getSortedEvidenceIdentifiers());
+	}
+	private EvidenceIdentifier[] getSortedEvidenceIdentifiers() {
+		if (evidenceIdentifiers == null) {
+			Object encoded = record.getAttribute(SamTags.EVIDENCE_IDENTIFIER);
+			if (encoded instanceof int[]) {
+				evidenceIdentifiers = EvidenceIdentifier.decode((int[])encoded);
+			} else {
+				String evidenceID = record.getStringAttribute(SamTags.EVIDENCEID);
+				if (evidenceID != null && !evidenceID.isEmpty()) {
+					throw new IllegalStateException(String.format("Assembly %s was written by an earlier version of GRIDSS and has no evidence identifiers. Delete the assembly to regenerate it.", record.getReadName()));
+				}
+				evidenceIdentifiers = new EvidenceIdentifier[0];
 			}
-			String[] ids = encoded.split(COMPONENT_EVIDENCEID_SEPARATOR);
-			evidenceIDs = new HashSet<String>(Arrays.asList(ids));
-			evidenceIDs.remove("");
+			Arrays.sort(evidenceIdentifiers);
 		}
-		return evidenceIDs;
+		return evidenceIdentifiers;
 	}
 	public static void annotateNonSupporting(ProcessingContext context, BreakpointSummary assemblyBreakpoint, SAMRecord record, Collection<DirectedEvidence> support) {
 		int n = context.getCategoryCount();
@@ -126,11 +152,20 @@ public class AssemblyAttributes {
 			}
 		}
 		ensureUniqueEvidenceID(record.getReadName(), support);
-		String evidenceString = support.stream()
-				.map(e -> e.getEvidenceID())
-				.sorted()
-				.collect(Collectors.joining(COMPONENT_EVIDENCEID_SEPARATOR));
-		record.setAttribute(SamTags.EVIDENCEID, evidenceString);
+		if (!support.isEmpty()) {
+			EvidenceIdentifier[] ids = support.stream()
+					.map(e -> e.getEvidenceIdentifier())
+					.sorted()
+					.toArray(EvidenceIdentifier[]::new);
+			record.setAttribute(SamTags.EVIDENCEID, null);
+			record.setAttribute(SamTags.EVIDENCE_IDENTIFIER, EvidenceIdentifier.encode(ids));
+			record.setAttribute(SamTags.EVIDENCE_IDENTIFIER_FILTER, EvidenceIdentifierBloomFilter.create(Arrays.asList(ids)).encode());
+		} else {
+			// empty evidenceID string marks the record as an assembly
+			record.setAttribute(SamTags.EVIDENCEID, "");
+			record.setAttribute(SamTags.EVIDENCE_IDENTIFIER, null);
+			record.setAttribute(SamTags.EVIDENCE_IDENTIFIER_FILTER, null);
+		}
 		record.setAttribute(SamTags.ASSEMBLY_READPAIR_COUNT, rpCount);
 		record.setAttribute(SamTags.ASSEMBLY_READPAIR_LENGTH_MAX, rpMaxLen);
 		record.setAttribute(SamTags.ASSEMBLY_SOFTCLIP_COUNT, scCount);
@@ -148,15 +183,14 @@ public class AssemblyAttributes {
 	}
 	private static boolean ensureUniqueEvidenceID(String assemblyName, Collection<DirectedEvidence> support) {
 		boolean isUnique = true;
-		Set<String> map = new HashSet<String>();
+		EvidenceIdentifierSet map = new EvidenceIdentifierSet(support.size());
 		for (DirectedEvidence id : support) {
-			if (map.contains(id.getEvidenceID())) {
+			if (!map.add(id.getEvidenceIdentifier())) {
 				if (!MessageThrottler.Current.shouldSupress(log, "duplicated evidenceIDs")) {
 					log.error("Found evidenceID " + id.getEvidenceID() + " multiple times in assembly " + assemblyName);
 				}
 				isUnique = false;
 			}
-			map.add(id.getEvidenceID());
 		}
 		return isUnique;
 	}
@@ -5,8 +5,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -23,10 +25,11 @@ import au.edu.wehi.idsv.debruijn.positional.PositionalAssembler;
 import au.edu.wehi.idsv.sam.CigarUtil;
 import au.edu.wehi.idsv.sam.SAMFileUtil;
 import au.edu.wehi.idsv.sam.SAMRecordUtil;
+import au.edu.wehi.idsv.util.AsyncPartitionedIterator;
 import au.edu.wehi.idsv.util.FileHelper;
 import au.edu.wehi.idsv.visualisation.AssemblyTelemetry;
 import gridss.SoftClipsToSplitReads;
-import gridss.cmdline.CommandLineProgramHelper;
+import htsjdk.samtools.BamFileIoUtils;
 import htsjdk.samtools.QueryInterval;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
@@ -38,7 +41,6 @@ import htsjdk.samtools.SamReader;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.ProgressLogger;
-import picard.sam.GatherBamFiles;
 
 /**
  * Structural variant supporting contigs generated from assembly
@@ -67,7 +69,7 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 	public AssemblyEvidenceSource(ProcessingContext processContext, List<SAMEvidenceSource> evidence, File assemblyFile) {
 		super(processContext, assemblyFile, null, -1);
 		this.source = evidence;
-		this.throttled = new IntervalBed(getContext().getDictionary(), getContext().getLinear());
+		this.throttled = new IntervalBed(getContext().getDictionary());
 	}
 	/**
 	 * Perform breakend assembly 
@@ -82,18 +84,33 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 		if (getContext().getConfig().getVisualisation().assemblyTelemetry) {
 			telemetry = new AssemblyTelemetry(getContext().getFileSystemContext().getAssemblyTelemetry(getFile()), getContext().getDictionary());
 		}
-		List<QueryInterval[]> chunks = getContext().getReference().getIntervals(getContext().getConfig().chunkSize, getContext().getConfig().chunkSequenceChangePenalty);
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(getContext(),
+				getContext().getReference().getIntervals(getContext().getConfig().chunkSize, getContext().getConfig().chunkSequenceChangePenalty),
+				source);
+		List<QueryInterval[]> chunks = scheduler.getChunks();
 		List<File> assembledChunk = new ArrayList<>();
-		List<Future<Void>> tasks = new ArrayList<>();
 		for (int i = 0; i < chunks.size(); i++) {
+			assembledChunk.add(getContext().getFileSystemContext().getAssemblyChunkBam(getFile(), i));
+		}
+		CheckpointManifest checkpoints = getContext().getCheckpointManifest();
+		String evidence = CheckpointManifest.describe(source.stream()
+				.filter(ses -> ses.getFile() != null)
+				.map(ses -> getContext().getFileSystemContext().getSVBam(ses.getFile()))
+				.toArray(File[]::new));
+		List<Future<Void>> tasks = new ArrayList<>();
+		for (int i : scheduler.getExecutionOrder()) {
 			QueryInterval[] chunck = chunks.get(i);
-			File f = getContext().getFileSystemContext().getAssemblyChunkBam(getFile(), i);
+			File f = assembledChunk.get(i);
 			int chunkNumber = i;
-			assembledChunk.add(f);
-			if (!f.exists()) {
-				tasks.add(threadpool.submit(() -> { assembleChunk(f, chunkNumber, chunck); return null; }));
+			String checkpoint = "assembly.chunk" + chunkNumber;
+			String description = CheckpointManifest.describe(chunck) + " " + evidence;
+			if (!checkpoints.isComplete(checkpoint, description, f)) {
+				tasks.add(threadpool.submit(() -> {
+					assembleChunk(f, chunkNumber, chunck);
+					checkpoints.complete(checkpoint, description, f);
+					return null;
+				}));
 			}
-			
 		}
 		runTasks(tasks);
 		if (telemetry != null) {
@@ -122,9 +139,9 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 							m.UNMAPPED_MATE_READ_ALIGNMENTS +
 							m.STRUCTURAL_VARIANT_READ_ALIGNMENTS)
 					.sum();
-				try (GreedyAssemblyAllocationCache cache = new GreedyAssemblyAllocationCache(svReadAlignmentCount)) {
+				try (GreedyAssemblyAllocationCache cache = new GreedyAssemblyAllocationCache(svReadAlignmentCount, getContext().getConfig().allocationCache)) {
 					tasks = new ArrayList<>();
-					for (int i = 0; i < chunks.size(); i++) {
+					for (int i : scheduler.getExecutionOrder()) {
 						QueryInterval[] chunk = chunks.get(i);
 						File in = assembledChunk.get(i);
 						tasks.add(threadpool.submit(() -> { loadAssemblyEvidenceAllocation(cache, in, chunk); return null; }));
@@ -133,12 +150,18 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 					
 					log.info("Allocating multi-mapping reads to assemblies");
 					tasks = new ArrayList<>();
-					for (int i = 0; i < chunks.size(); i++) {
+					for (int i : scheduler.getExecutionOrder()) {
 						QueryInterval[] chunk = chunks.get(i);
 						File in = assembledChunk.get(i);
 						File out = deduplicatedChunks.get(i);
-						if (!out.exists()) {
-							tasks.add(threadpool.submit(() -> { deduplicateChunk(in, out, chunk, cache); return null; }));
+						String checkpoint = "assembly.deduplicated.chunk" + i;
+						String description = CheckpointManifest.describe(assembledChunk.toArray(new File[0]));
+						if (!checkpoints.isComplete(checkpoint, description, out)) {
+							tasks.add(threadpool.submit(() -> {
+								deduplicateChunk(in, out, chunk, cache);
+								checkpoints.complete(checkpoint, description, out);
+								return null;
+							}));
 						}
 					}
 					runTasks(tasks);
@@ -148,21 +171,8 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 		log.info("Merging assembly files");
 		// Merge chunk files
 		File tmpout = FileSystemContext.getWorkingFileFor(getFile());
-		GatherBamFiles gather = new picard.sam.GatherBamFiles();
-		List<String> args = new ArrayList<>();
-		for (File f : deduplicatedChunks) {
-			args.add("INPUT=" + f.getAbsolutePath());
-		}
-		args.add("OUTPUT=" + tmpout.getAbsolutePath());
-		if (getContext().getCommandLineProgram() != null) {
-			args.addAll(CommandLineProgramHelper.getCommonArgs(getContext().getCommandLineProgram()));
-		}
-		int returnCode = gather.instanceMain(args.toArray(new String[] {}));
-		if (returnCode != 0) {
-			String msg = String.format("Error executing GatherBamFiles. GatherBamFiles returned status code %d", returnCode);
-			log.error(msg);
-			throw new RuntimeException(msg);
-		}
+		// Each chunk is a BAM so the compressed blocks can be copied directly without decoding the records
+		BamFileIoUtils.gatherWithBlockCopying(deduplicatedChunks, tmpout, false, false);
 		// Sorting is not required since each chunk was already sorted, and each chunk
 		// contains sequential genomic coordinates. We also don't need to index as we only need assembly.sv.bam indexed
 		// SAMFileUtil.sort(getContext().getFileSystemContext(), tmpout, getFile(), SortOrder.coordinate);
@@ -205,7 +215,7 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 		}
 	}
 	private void assembleChunk(File output, int chunkNumber, QueryInterval[] qi) throws IOException {
-		AssemblyIdGenerator assemblyNameGenerator = new SequentialIdGenerator(String.format("asm%d-", chunkNumber));
+		SequentialIdGenerator assemblyNameGenerator = new SequentialIdGenerator(String.format("asm%d-", chunkNumber));
 		String chuckName = String.format("chunk %d (%s:%d-%s:%d)", chunkNumber,
 			getContext().getDictionary().getSequence(qi[0].referenceIndex).getSequenceName(), qi[0].start,
 			getContext().getDictionary().getSequence(qi[qi.length-1].referenceIndex).getSequenceName(), qi[qi.length-1].end);
@@ -218,14 +228,10 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 		try (SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(header, false, tmpout)) {
 			if (getContext().getAssemblyParameters().writeFiltered) {
 				try (SAMFileWriter filteredWriter = new SAMFileWriterFactory().makeSAMOrBAMWriter(header, false, filteredout)) {
-					for (BreakendDirection direction : BreakendDirection.values()) {
-						assembleChunk(writer, filteredWriter, chunkNumber, qi, direction, assemblyNameGenerator);
-					}
+					assembleChunk(writer, filteredWriter, chunkNumber, qi, assemblyNameGenerator);
 				}
 			} else {
-				for (BreakendDirection direction : BreakendDirection.values()) {
-					assembleChunk(writer, null, chunkNumber, qi, direction, assemblyNameGenerator);
-				}
+				assembleChunk(writer, null, chunkNumber, qi, assemblyNameGenerator);
 			}
 		} catch (Exception e) {
 			log.error(e, "Error assembling ", chuckName);
@@ -256,6 +262,15 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 				(int)(2 * getMaxConcordantFragmentSize() * getContext().getConfig().getAssembly().maxExpectedBreakendLengthMultiple) + 1);
 		return expanded;
 	}
+	private void assembleChunk(SAMFileWriter writer, SAMFileWriter filteredWriter, int chunkNumber, QueryInterval[] intervals, SequentialIdGenerator assemblyNameGenerator) {
+		if (getContext().getAssemblyParameters().singlePassBidirectionalAssembly) {
+			assembleChunkBidirectional(writer, filteredWriter, chunkNumber, intervals, assemblyNameGenerator);
+		} else {
+			for (BreakendDirection direction : BreakendDirection.values()) {
+				assembleChunk(writer, filteredWriter, chunkNumber, intervals, direction, assemblyNameGenerator);
+			}
+		}
+	}
 	private void assembleChunk(SAMFileWriter writer, SAMFileWriter filteredWriter, int chunkNumber, QueryInterval[] intervals, BreakendDirection direction, AssemblyIdGenerator assemblyNameGenerator) {
 		QueryInterval[] expanded = getExpanded(intervals);
 		try (CloseableIterator<DirectedEvidence> input = mergedIterator(source, expanded)) {
@@ -265,16 +280,67 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 			while (assembler.hasNext()) {
 				SAMRecord asm = assembler.next();
 				asm = transformAssembly(asm); // transform before chunk bounds checking as the position may have moved
-				if (QueryIntervalUtil.overlaps(intervals, asm.getReferenceIndex(), asm.getAlignmentStart())) {
-					// only output assemblies that start within our chunk
-					if (shouldFilterAssembly(asm)) {
-						if (filteredWriter != null) {
-							filteredWriter.addAlignment(asm);
-						}
-					} else {
-						writer.addAlignment(asm);
+				writeAssembly(writer, filteredWriter, intervals, asm);
+			}
+		}
+	}
+	/**
+	 * Assembles both breakend directions from a single pass over the chunk evidence.
+	 * 
+	 * Backward breakends are assembled on a background thread and renamed once
+	 * forward assembly is complete so assembly names match those of sequential
+	 * per-direction assembly.
+	 */
+	private void assembleChunkBidirectional(SAMFileWriter writer, SAMFileWriter filteredWriter, int chunkNumber, QueryInterval[] intervals, SequentialIdGenerator assemblyNameGenerator) {
+		QueryInterval[] expanded = getExpanded(intervals);
+		String threadName = String.format("Assembly chunk %d", chunkNumber);
+		try (CloseableIterator<DirectedEvidence> input = mergedIterator(source, expanded)) {
+			Iterator<DirectedEvidence> throttledIt = throttled(input);
+			try (AsyncPartitionedIterator<DirectedEvidence> partitioned = new AsyncPartitionedIterator<>(throttledIt, threadName + " reader", BreakendDirection.values().length,
+					e -> e.getBreakendSummary() == null ? -1 : e.getBreakendSummary().direction.ordinal())) {
+				PositionalAssembler backwardAssembler = new PositionalAssembler(getContext(), AssemblyEvidenceSource.this, new SequentialIdGenerator("asm"),
+						partitioned.getPartition(BreakendDirection.Backward.ordinal()), BreakendDirection.Backward);
+				backwardAssembler.setTelemetry(telemetry.getTelemetry(chunkNumber, BreakendDirection.Backward));
+				FutureTask<List<SAMRecord>> backward = new FutureTask<>(() -> {
+					List<SAMRecord> assemblies = new ArrayList<>();
+					while (backwardAssembler.hasNext()) {
+						assemblies.add(transformAssembly(backwardAssembler.next()));
 					}
+					return assemblies;
+				});
+				Thread backwardThread = new Thread(backward, threadName + " " + BreakendDirection.Backward.name());
+				backwardThread.setDaemon(true);
+				backwardThread.start();
+				PositionalAssembler forwardAssembler = new PositionalAssembler(getContext(), AssemblyEvidenceSource.this, assemblyNameGenerator,
+						partitioned.getPartition(BreakendDirection.Forward.ordinal()), BreakendDirection.Forward);
+				forwardAssembler.setTelemetry(telemetry.getTelemetry(chunkNumber, BreakendDirection.Forward));
+				while (forwardAssembler.hasNext()) {
+					SAMRecord asm = forwardAssembler.next();
+					asm = transformAssembly(asm);
+					writeAssembly(writer, filteredWriter, intervals, asm);
+				}
+				List<SAMRecord> backwardAssemblies;
+				try {
+					backwardAssemblies = backward.get();
+				} catch (InterruptedException | ExecutionException e) {
+					throw new RuntimeException(e);
 				}
+				for (SAMRecord asm : backwardAssemblies) {
+					asm.setReadName(assemblyNameGenerator.generate());
+					writeAssembly(writer, filteredWriter, intervals, asm);
+				}
+			}
+		}
+	}
+	private void writeAssembly(SAMFileWriter writer, SAMFileWriter filteredWriter, QueryInterval[] intervals, SAMRecord asm) {
+		if (QueryIntervalUtil.overlaps(intervals, asm.getReferenceIndex(), asm.getAlignmentStart())) {
+			// only output assemblies that start within our chunk
+			if (shouldFilterAssembly(asm)) {
+				if (filteredWriter != null) {
+					filteredWriter.addAlignment(asm);
+				}
+			} else {
+				writer.addAlignment(asm);
 			}
 		}
 	}
@@ -357,6 +423,7 @@ public class AssemblyEvidenceSource extends SAMEvidenceSource {
 			execute(new SoftClipsToSplitReads(), args);
 		}
 		SAMFileUtil.sort(getContext().getFileSystemContext(), withsplitreadsFile, svFile, SortOrder.coordinate);
+		ensureEvidenceCache();
 	}
 	public boolean shouldFilterAssembly(SAMRecord asm) {
 		AssemblyConfiguration ap = getContext().getAssemblyParameters();
@@ -0,0 +1,479 @@
+package au.edu.wehi.idsv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.AbstractIterator;
+
+import au.edu.wehi.idsv.util.FileHelper;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.Log;
+import htsjdk.samtools.util.StringLineReader;
+
+/**
+ * Binary cache of the evidence of an evidence source.
+ *
+ * Evidence is stored in evidence sort order. Each record contains the linear genomic
+ * coordinate of the breakend start, the breakend width, the ordinal of the evidence
+ * within the evidence generated from the underlying read, and the file offset of the
+ * underlying read. Each read is written in BAM record encoding only once, immediately
+ * after its first evidence record, and subsequent evidence from the same read refers back
+ * to it. Reads are decoded, and evidence generated from them, only once when reading.
+ * Reads have already been transformed and filtered and evidence has already been sorted
+ * so reading evidence from the cache does not require either the read-level or
+ * evidence-level filters, nor the windowed evidence sort to be applied.
+ *
+ * The file header records a fingerprint of the configuration used to generate the
+ * evidence so a cache generated with different settings can be detected.
+ *
+ * A separate index of the file offset of the first record in each linear coordinate bin
+ * allows evidence for a genomic chunk to be read without traversing the full file.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class BinaryEvidenceFile {
+	private static final Log log = Log.getInstance(BinaryEvidenceFile.class);
+	private static final String MAGIC = "GRIDSSEV";
+	private static final int VERSION = 2;
+	private static final String INDEX_SUFFIX = ".idx";
+	/**
+	 * Indexing bin width
+	 */
+	private static final int BIN_SIZE = 16384;
+	/**
+	 * Record start sentinel indicating the end of the evidence records
+	 */
+	private static final long EOF_SENTINEL = Long.MAX_VALUE;
+	/**
+	 * Record offset indicating the underlying read immediately follows the evidence record
+	 */
+	private static final long INLINE_RECORD = -1;
+	private final SAMEvidenceSource source;
+	private final File file;
+	private final int minIndelSize;
+	private volatile Index index = null;
+	/**
+	 * @param source source of the evidence
+	 * @param file evidence cache file
+	 * @param minIndelSize minimum indel size used to generate evidence
+	 */
+	public BinaryEvidenceFile(SAMEvidenceSource source, File file, int minIndelSize) {
+		this.source = source;
+		this.file = file;
+		this.minIndelSize = minIndelSize;
+	}
+	public File getFile() {
+		return file;
+	}
+	public File getIndexFile() {
+		return new File(file.getAbsolutePath() + INDEX_SUFFIX);
+	}
+	public boolean exists() {
+		return file.exists() && getIndexFile().exists();
+	}
+	/**
+	 * Removes any existing cache files
+	 */
+	public void delete() throws IOException {
+		index = null;
+		// the cache index is deleted explicitly as generic index handling could match
+		// the index of an unrelated file with the same base name 
+		FileHelper.delete(file, false);
+		FileHelper.delete(getIndexFile(), false);
+	}
+	/**
+	 * Writes the given evidence to the cache file
+	 * @param header header of the evidence reads
+	 * @param it evidence in evidence sort order
+	 * @param fingerprint fingerprint of the configuration used to generate the evidence
+	 */
+	public void write(SAMFileHeader header, Iterator<DirectedEvidence> it, String fingerprint) throws IOException {
+		File tmp = FileSystemContext.getWorkingFileFor(file);
+		File tmpIndex = FileSystemContext.getWorkingFileFor(getIndexFile());
+		LinearGenomicCoordinate linear = source.getContext().getLinear();
+		long[] bins = new long[1024];
+		long[] offsets = new long[1024];
+		int binCount = 0;
+		int maxWidth = 0;
+		long maxRecordSpan = 0;
+		// Evidence from the same read is generated from the same SAMRecord instance
+		Map<SAMRecord, WrittenRecord> written = new IdentityHashMap<>();
+		Deque<WrittenRecord> writtenOrder = new ArrayDeque<>();
+		int evictionDistance = source.getSortWindowSize();
+		try (BlockCompressedOutputStream os = new BlockCompressedOutputStream(tmp)) {
+			BinaryCodec codec = new BinaryCodec(os);
+			codec.writeBytes(MAGIC.getBytes());
+			codec.writeInt(VERSION);
+			codec.writeString(fingerprint, true, false);
+			StringWriter headerText = new StringWriter();
+			new SAMTextHeaderCodec().encode(headerText, header);
+			codec.writeString(headerText.toString(), true, false);
+			BAMRecordCodec recordCodec = new BAMRecordCodec(header);
+			recordCodec.setOutputStream(os);
+			while (it.hasNext()) {
+				DirectedEvidence e = it.next();
+				BreakendSummary bs = e.getBreakendSummary();
+				long start = linear.getStartLinearCoordinate(bs);
+				int width = bs.end - bs.start;
+				while (!writtenOrder.isEmpty() && writtenOrder.peekFirst().start < start - evictionDistance) {
+					written.remove(writtenOrder.pollFirst().record);
+				}
+				long bin = start / BIN_SIZE;
+				if (binCount == 0 || bins[binCount - 1] != bin) {
+					if (binCount == bins.length) {
+						bins = Arrays.copyOf(bins, 2 * binCount);
+						offsets = Arrays.copyOf(offsets, 2 * binCount);
+					}
+					bins[binCount] = bin;
+					offsets[binCount] = os.getFilePointer();
+					binCount++;
+				}
+				maxWidth = Math.max(maxWidth, width);
+				SAMRecord r = getUnderlyingRecord(e);
+				WrittenRecord wr = written.get(r);
+				if (wr == null) {
+					codec.writeLong(start);
+					codec.writeInt(width);
+					codec.writeInt(getOrdinal(e, r, null));
+					codec.writeLong(INLINE_RECORD);
+					wr = new WrittenRecord(r, start, os.getFilePointer());
+					recordCodec.encode(r);
+					written.put(r, wr);
+					writtenOrder.addLast(wr);
+				} else {
+					maxRecordSpan = Math.max(maxRecordSpan, start - wr.start);
+					codec.writeLong(start);
+					codec.writeInt(width);
+					codec.writeInt(getOrdinal(e, r, wr));
+					codec.writeLong(wr.offset);
+				}
+			}
+			codec.writeLong(EOF_SENTINEL);
+		}
+		try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpIndex)))) {
+			os.write(MAGIC.getBytes());
+			os.writeInt(VERSION);
+			os.writeInt(BIN_SIZE);
+			os.writeInt(maxWidth);
+			os.writeLong(maxRecordSpan);
+			os.writeInt(binCount);
+			for (int i = 0; i < binCount; i++) {
+				os.writeLong(bins[i]);
+				os.writeLong(offsets[i]);
+			}
+		}
+		index = null;
+		FileHelper.move(tmpIndex, getIndexFile(), false);
+		FileHelper.move(tmp, file, false);
+	}
+	/**
+	 * Read already written to the cache file
+	 */
+	private static class WrittenRecord {
+		private final SAMRecord record;
+		/**
+		 * Linear start coordinate of the first evidence generated from the read
+		 */
+		private final long start;
+		/**
+		 * File offset of the encoded read
+		 */
+		private final long offset;
+		/**
+		 * Evidence regenerated from the read
+		 */
+		private List<DirectedEvidence> evidence;
+		public WrittenRecord(SAMRecord record, long start, long offset) {
+			this.record = record;
+			this.start = start;
+			this.offset = offset;
+		}
+	}
+	private static SAMRecord getUnderlyingRecord(DirectedEvidence e) {
+		if (e instanceof SingleReadEvidence) {
+			return ((SingleReadEvidence)e).getSAMRecord();
+		} else if (e instanceof NonReferenceReadPair) {
+			return ((NonReferenceReadPair)e).getLocalledMappedRead();
+		}
+		throw new IllegalArgumentException(String.format("Unable to cache evidence %s of type %s", e.getEvidenceID(), e.getClass().getName()));
+	}
+	/**
+	 * Determines the ordinal of the given evidence within the evidence generated from the underlying read
+	 * @param wr previously written read. Evidence regenerated from the read is retained so
+	 * the read is only processed once.
+	 */
+	private int getOrdinal(DirectedEvidence e, SAMRecord r, WrittenRecord wr) {
+		List<DirectedEvidence> list = wr == null ? null : wr.evidence;
+		if (list == null) {
+			list = DirectedEvidenceIterator.createEvidence(source, minIndelSize, r);
+			if (wr != null) {
+				wr.evidence = list;
+			}
+		}
+		for (int i = 0; i < list.size(); i++) {
+			DirectedEvidence candidate = list.get(i);
+			if (candidate.getClass() == e.getClass() && candidate.getEvidenceID().equals(e.getEvidenceID())) {
+				return i;
+			}
+		}
+		throw new IllegalStateException(String.format("Evidence %s could not be regenerated from %s", e.getEvidenceID(), r.getReadName()));
+	}
+	/**
+	 * Fingerprint of the configuration used to generate the cached evidence
+	 * @return fingerprint supplied when the cache was written
+	 * @throws IOException if the cache cannot be read
+	 */
+	public String getFingerprint() throws IOException {
+		return getIndex().fingerprint;
+	}
+	private Index getIndex() throws IOException {
+		if (index == null) {
+			synchronized (this) {
+				if (index == null) {
+					index = new Index();
+				}
+			}
+		}
+		return index;
+	}
+	/**
+	 * Iterates over all cached evidence
+	 */
+	public CloseableIterator<DirectedEvidence> iterator() {
+		try {
+			return new EvidenceIterator(getIndex(), null);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	/**
+	 * Iterates over cached evidence with breakends overlapping the given intervals
+	 * @param intervals sorted intervals
+	 */
+	public CloseableIterator<DirectedEvidence> iterator(QueryInterval[] intervals) {
+		try {
+			return new EvidenceIterator(getIndex(), intervals);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	private class Index {
+		private final SAMFileHeader header;
+		private final String fingerprint;
+		private final int binSize;
+		private final int maxWidth;
+		/**
+		 * Maximum linear distance between the first and subsequent evidence of a read
+		 */
+		private final long maxRecordSpan;
+		private final long[] bins;
+		private final long[] offsets;
+		private final long firstRecordOffset;
+		public Index() throws IOException {
+			try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(getIndexFile())))) {
+				byte[] magic = new byte[MAGIC.length()];
+				is.readFully(magic);
+				checkHeader(getIndexFile(), magic, is.readInt());
+				binSize = is.readInt();
+				maxWidth = is.readInt();
+				maxRecordSpan = is.readLong();
+				int binCount = is.readInt();
+				bins = new long[binCount];
+				offsets = new long[binCount];
+				for (int i = 0; i < binCount; i++) {
+					bins[i] = is.readLong();
+					offsets[i] = is.readLong();
+				}
+			}
+			try (BlockCompressedInputStream is = new BlockCompressedInputStream(file)) {
+				BinaryCodec codec = new BinaryCodec(is);
+				byte[] magic = new byte[MAGIC.length()];
+				codec.readBytes(magic);
+				checkHeader(file, magic, codec.readInt());
+				fingerprint = codec.readLengthAndString(false);
+				String headerText = codec.readLengthAndString(false);
+				header = new SAMTextHeaderCodec().decode(new StringLineReader(headerText), file.getAbsolutePath());
+				firstRecordOffset = is.getFilePointer();
+			}
+		}
+		private void checkHeader(File f, byte[] magic, int version) throws IOException {
+			if (!MAGIC.equals(new String(magic))) {
+				throw new IOException(f.getAbsolutePath() + " is not a GRIDSS binary evidence file.");
+			}
+			if (version != VERSION) {
+				throw new IOException(String.format("%s has version %d. Expected version %d. Please delete this file so it can be regenerated.", f.getAbsolutePath(), version, VERSION));
+			}
+		}
+		/**
+		 * File offset from which all records starting at or after the given position can be found
+		 */
+		public long getOffset(long linearPosition) {
+			int i = Arrays.binarySearch(bins, linearPosition / binSize);
+			if (i < 0) {
+				i = -i - 1;
+			}
+			if (i >= bins.length) return -1;
+			return offsets[i];
+		}
+	}
+	/**
+	 * Read decoded from the cache file
+	 */
+	private class DecodedRecord {
+		private final SAMRecord record;
+		/**
+		 * Linear start coordinate of the evidence record at which the read was decoded
+		 */
+		private final long start;
+		private List<DirectedEvidence> evidence;
+		public DecodedRecord(SAMRecord record, long start) {
+			this.record = record;
+			this.start = start;
+		}
+		public DirectedEvidence getEvidence(int ordinal) {
+			if (evidence == null) {
+				evidence = DirectedEvidenceIterator.createEvidence(source, minIndelSize, record);
+			}
+			return evidence.get(ordinal);
+		}
+	}
+	private class EvidenceIterator extends AbstractIterator<DirectedEvidence> implements CloseableIterator<DirectedEvidence> {
+		private final Index index;
+		private final QueryInterval[] intervals;
+		private final long minStart;
+		private final long maxStart;
+		/**
+		 * Reads decoded by this iterator that may still be referenced by subsequent evidence records
+		 */
+		private final LinkedHashMap<Long, DecodedRecord> decoded = new LinkedHashMap<>();
+		private BlockCompressedInputStream is;
+		private BinaryCodec codec;
+		private BAMRecordCodec recordCodec;
+		/**
+		 * Stream used to decode reads written before the initial seek offset
+		 */
+		private BlockCompressedInputStream lookbackIs;
+		private BAMRecordCodec lookbackRecordCodec;
+		public EvidenceIterator(Index index, QueryInterval[] intervals) throws IOException {
+			this.index = index;
+			this.intervals = intervals;
+			long offset = index.firstRecordOffset;
+			if (intervals == null || intervals.length == 0) {
+				minStart = Long.MIN_VALUE;
+				maxStart = Long.MAX_VALUE;
+			} else {
+				LinearGenomicCoordinate linear = source.getContext().getLinear();
+				// breakends can start before the interval and still overlap it
+				minStart = linear.getLinearCoordinate(intervals[0].referenceIndex, intervals[0].start) - index.maxWidth;
+				maxStart = linear.getLinearCoordinate(intervals[intervals.length - 1].referenceIndex, intervals[intervals.length - 1].end);
+				offset = index.getOffset(minStart);
+			}
+			if (offset >= 0) {
+				is = new BlockCompressedInputStream(file);
+				is.seek(offset);
+				codec = new BinaryCodec(is);
+				recordCodec = new BAMRecordCodec(index.header);
+				recordCodec.setInputStream(is, file.getAbsolutePath());
+			}
+		}
+		@Override
+		protected DirectedEvidence computeNext() {
+			while (is != null) {
+				long start = codec.readLong();
+				if (start == EOF_SENTINEL || start > maxStart) {
+					close();
+					break;
+				}
+				int width = codec.readInt();
+				int ordinal = codec.readInt();
+				long recordOffset = codec.readLong();
+				evict(start);
+				DecodedRecord dr;
+				if (recordOffset == INLINE_RECORD) {
+					recordOffset = is.getFilePointer();
+					dr = new DecodedRecord(recordCodec.decode(), start);
+					decoded.put(recordOffset, dr);
+					if (start + width < minStart) continue;
+				} else {
+					if (start + width < minStart) continue;
+					dr = decoded.get(recordOffset);
+					if (dr == null) {
+						dr = new DecodedRecord(lookback(recordOffset), start);
+						decoded.put(recordOffset, dr);
+					}
+				}
+				DirectedEvidence e = dr.getEvidence(ordinal);
+				if (intervals != null && !QueryIntervalUtil.overlaps(intervals, e.getBreakendSummary())) continue;
+				return e;
+			}
+			return endOfData();
+		}
+		/**
+		 * Removes reads that can no longer be referenced
+		 */
+		private void evict(long start) {
+			Iterator<DecodedRecord> it = decoded.values().iterator();
+			while (it.hasNext()) {
+				if (it.next().start >= start - index.maxRecordSpan) break;
+				it.remove();
+			}
+		}
+		private SAMRecord lookback(long recordOffset) {
+			try {
+				if (lookbackIs == null) {
+					lookbackIs = new BlockCompressedInputStream(file);
+					lookbackRecordCodec = new BAMRecordCodec(index.header);
+					lookbackRecordCodec.setInputStream(lookbackIs, file.getAbsolutePath());
+				}
+				lookbackIs.seek(recordOffset);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			return lookbackRecordCodec.decode();
+		}
+		@Override
+		public void close() {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (IOException e) {
+					log.warn(e, "Error closing ", file);
+				}
+				is = null;
+			}
+			if (lookbackIs != null) {
+				try {
+					lookbackIs.close();
+				} catch (IOException e) {
+					log.warn(e, "Error closing ", file);
+				}
+				lookbackIs = null;
+			}
+			decoded.clear();
+		}
+	}
+}
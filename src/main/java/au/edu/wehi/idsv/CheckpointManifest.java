@@ -0,0 +1,136 @@
+package au.edu.wehi.idsv;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import au.edu.wehi.idsv.util.FileHelper;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.util.Log;
+
+/**
+ * Records the completed stages of a multi-stage computation so an interrupted
+ * computation can be resumed without relying on the existence of intermediate files.
+ *
+ * Each checkpoint records a description of the inputs used to generate the checkpoint
+ * output as well as the size and modification time of the output when the checkpoint
+ * was completed. A checkpoint is only considered complete if all of these are unchanged.
+ * All checkpoints are invalidated if the manifest fingerprint changes.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class CheckpointManifest {
+	private static final Log log = Log.getInstance(CheckpointManifest.class);
+	private static final String FINGERPRINT_KEY = "fingerprint";
+	/**
+	 * Manifest that does not record checkpoints. Outputs are considered complete if they exist.
+	 */
+	public static final CheckpointManifest UNTRACKED = new CheckpointManifest();
+	private final File file;
+	private final Properties checkpoints = new Properties();
+	private CheckpointManifest() {
+		this.file = null;
+	}
+	/**
+	 * Opens the given checkpoint manifest, creating it if it does not exist
+	 * @param file manifest file
+	 * @param fingerprint fingerprint of the configuration and inputs of the computation.
+	 * @throws IOException
+	 */
+	public CheckpointManifest(File file, String fingerprint) throws IOException {
+		this.file = file;
+		if (file.exists()) {
+			try (InputStream in = new FileInputStream(file)) {
+				checkpoints.load(in);
+			}
+			if (!fingerprint.equals(checkpoints.getProperty(FINGERPRINT_KEY))) {
+				log.info("Configuration or inputs have changed since " + file + " was written. Ignoring existing checkpoints.");
+				checkpoints.clear();
+			}
+		}
+		checkpoints.setProperty(FINGERPRINT_KEY, fingerprint);
+		write();
+	}
+	/**
+	 * Determines whether the given checkpoint has been completed.
+	 * Any output of an incomplete or out of date checkpoint is deleted.
+	 * @param checkpoint checkpoint name
+	 * @param description description of the inputs used to generate the checkpoint output
+	 * @param output checkpoint output
+	 * @return true if the existing output can be used, false if it needs to be regenerated
+	 * @throws IOException
+	 */
+	public synchronized boolean isComplete(String checkpoint, String description, File output) throws IOException {
+		if (file == null) {
+			return output.exists();
+		}
+		String expected = checkpoints.getProperty(checkpoint);
+		if (expected != null) {
+			if (output.exists()) {
+				if (expected.equals(entry(description, output))) {
+					return true;
+				}
+				log.info("Checkpoint " + checkpoint + " is out of date.");
+			}
+			checkpoints.remove(checkpoint);
+			write();
+		}
+		if (output.exists()) {
+			log.info("Deleting " + output + " as it was not written by a completed checkpoint.");
+			FileHelper.delete(output, true);
+		}
+		return false;
+	}
+	/**
+	 * Records the completion of the given checkpoint
+	 * @param checkpoint checkpoint name
+	 * @param description description of the inputs used to generate the checkpoint output
+	 * @param output checkpoint output
+	 * @throws IOException
+	 */
+	public synchronized void complete(String checkpoint, String description, File output) throws IOException {
+		if (file == null) return;
+		if (!output.exists()) {
+			throw new IllegalStateException("Missing output " + output + " of checkpoint " + checkpoint);
+		}
+		checkpoints.setProperty(checkpoint, entry(description, output));
+		write();
+	}
+	private void write() throws IOException {
+		File tmp = FileSystemContext.getWorkingFileFor(file);
+		try (OutputStream out = new FileOutputStream(tmp)) {
+			checkpoints.store(out, "GRIDSS checkpoints");
+		}
+		FileHelper.move(tmp, file, false);
+	}
+	private static String entry(String description, File output) {
+		return description + " " + output.length() + " " + output.lastModified();
+	}
+	/**
+	 * Describes the given files for use as a checkpoint description
+	 * @param files checkpoint inputs
+	 * @return description that changes whenever any of the inputs change
+	 */
+	public static String describe(File... files) {
+		return Stream.of(files)
+				.map(f -> f.getAbsolutePath() + ":" + f.length() + ":" + f.lastModified())
+				.collect(Collectors.joining(","));
+	}
+	/**
+	 * Describes the given genomic chunk for use as a checkpoint description
+	 * @param chunk chunk intervals
+	 * @return description of the chunk
+	 */
+	public static String describe(QueryInterval[] chunk) {
+		return Stream.of(chunk)
+				.map(qi -> String.format("%d:%d-%d", qi.referenceIndex, qi.start, qi.end))
+				.collect(Collectors.joining(","));
+	}
+}
@@ -12,6 +12,7 @@ public class Defaults {
 	public static final boolean NO_LIBSSW;
 	public static final boolean ASYNC_CACHE_REFERENCE;
 	public static final boolean ATTEMPT_ASSEMBLY_RECOVERY;
+	public static final boolean MEMORY_MAPPED_REFERENCE;
 	static {
 		SANITY_CHECK_DE_BRUIJN = Boolean.valueOf(System.getProperty("sanitycheck.debruijn", "false"));
 		SANITY_CHECK_CLIQUE = Boolean.valueOf(System.getProperty("sanitycheck.clique", "false"));
@@ -22,5 +23,6 @@ public class Defaults {
 		NO_LIBSSW = Boolean.valueOf(System.getProperty("sswjni.disable", "false"));
 		ASYNC_CACHE_REFERENCE = !Boolean.valueOf(System.getProperty("reference.loading.sync", "false"));
 		ATTEMPT_ASSEMBLY_RECOVERY = Boolean.valueOf(System.getProperty("assembly.recover", "true"));
+		MEMORY_MAPPED_REFERENCE = Boolean.valueOf(System.getProperty("reference.mmap", "false"));
 	}
 }
\ No newline at end of file
@@ -38,6 +38,12 @@ public interface DirectedEvidence {
 	 * @return Unique breakpoint identifier string
 	 */
 	String getEvidenceID();
+	/**
+	 * Fixed-width identifier of this evidence.
+	 * Implementations should cache the identifier as it is a hash of the evidenceID.
+	 * @return 128-bit identifier of the evidenceID
+	 */
+	EvidenceIdentifier getEvidenceIdentifier();
 	/**
 	 * Source of this evidence
 	 * @return Source providing this evidence
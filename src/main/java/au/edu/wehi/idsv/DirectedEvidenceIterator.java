@@ -1,7 +1,9 @@
 package au.edu.wehi.idsv;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 
@@ -33,13 +35,22 @@ public class DirectedEvidenceIterator implements CloseableIterator<DirectedEvide
 		}
 	}
 	private void addToBuffer(SAMRecord record) {
-		buffer.addAll(SingleReadEvidence.createEvidence(source, minIndelSize, record));
+		buffer.addAll(createEvidence(source, minIndelSize, record));
+	}
+	/**
+	 * Creates all evidence supported by the given record
+	 * @param record record
+	 * @return evidence in a deterministic order
+	 */
+	public static List<DirectedEvidence> createEvidence(SAMEvidenceSource source, int minIndelSize, SAMRecord record) {
+		List<DirectedEvidence> list = new ArrayList<>(SingleReadEvidence.createEvidence(source, minIndelSize, record));
 		if (!record.getSupplementaryAlignmentFlag()) {
 			NonReferenceReadPair nrrp = NonReferenceReadPair.create(source, record);
 			if (nrrp != null) {
-				buffer.add(nrrp);
+				list.add(nrrp);
 			}
 		}
+		return list;
 	}
 
 	@Override
@@ -0,0 +1,99 @@
+package au.edu.wehi.idsv;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+
+/**
+ * Fixed-width 128-bit evidence identifier.
+ *
+ * The identifier is the 128-bit hash of the evidenceID string so
+ * evidence can be compared and stored without retaining the full
+ * evidenceID string.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public final class EvidenceIdentifier implements Comparable<EvidenceIdentifier> {
+	private static final HashFunction hf = Hashing.murmur3_128();
+	/**
+	 * Number of ints required to encode an identifier
+	 */
+	public static final int INT_WIDTH = 4;
+	public final long high;
+	public final long low;
+	public EvidenceIdentifier(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+	/**
+	 * Gets the identifier of the given evidenceID
+	 * @param evidenceID evidenceID string
+	 * @return 128-bit identifier
+	 */
+	public static EvidenceIdentifier of(String evidenceID) {
+		byte[] hash = hf.hashString(evidenceID, StandardCharsets.UTF_8).asBytes();
+		return new EvidenceIdentifier(
+				Longs.fromBytes(hash[0], hash[1], hash[2], hash[3], hash[4], hash[5], hash[6], hash[7]),
+				Longs.fromBytes(hash[8], hash[9], hash[10], hash[11], hash[12], hash[13], hash[14], hash[15]));
+	}
+	/**
+	 * Encodes the given identifiers as an int array suitable for a SAM array tag
+	 * @param ids identifiers to encode
+	 * @return encoded identifiers
+	 */
+	public static int[] encode(EvidenceIdentifier[] ids) {
+		int[] encoded = new int[ids.length * INT_WIDTH];
+		for (int i = 0; i < ids.length; i++) {
+			int offset = i * INT_WIDTH;
+			encoded[offset] = (int)(ids[i].high >>> 32);
+			encoded[offset + 1] = (int)ids[i].high;
+			encoded[offset + 2] = (int)(ids[i].low >>> 32);
+			encoded[offset + 3] = (int)ids[i].low;
+		}
+		return encoded;
+	}
+	/**
+	 * Decodes the identifiers encoded by {@link #encode(EvidenceIdentifier[])}
+	 * @param encoded encoded identifiers
+	 * @return decoded identifiers
+	 */
+	public static EvidenceIdentifier[] decode(int[] encoded) {
+		if (encoded.length % INT_WIDTH != 0) {
+			throw new IllegalArgumentException("Encoded evidence identifier array length must be a multiple of " + INT_WIDTH);
+		}
+		EvidenceIdentifier[] ids = new EvidenceIdentifier[encoded.length / INT_WIDTH];
+		for (int i = 0; i < ids.length; i++) {
+			int offset = i * INT_WIDTH;
+			ids[i] = new EvidenceIdentifier(
+					((long)encoded[offset] << 32) | (encoded[offset + 1] & 0xFFFFFFFFL),
+					((long)encoded[offset + 2] << 32) | (encoded[offset + 3] & 0xFFFFFFFFL));
+		}
+		return ids;
+	}
+	@Override
+	public int compareTo(EvidenceIdentifier o) {
+		int cmp = Long.compare(high, o.high);
+		if (cmp == 0) {
+			cmp = Long.compare(low, o.low);
+		}
+		return cmp;
+	}
+	@Override
+	public int hashCode() {
+		return (int)(high ^ (high >>> 32));
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof EvidenceIdentifier)) return false;
+		EvidenceIdentifier other = (EvidenceIdentifier)obj;
+		return high == other.high && low == other.low;
+	}
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+}
@@ -0,0 +1,87 @@
+package au.edu.wehi.idsv;
+
+import java.util.Collection;
+
+/**
+ * Compact Bloom filter of evidence identifiers.
+ *
+ * Evidence identifiers are already uniformly distributed hashes so the
+ * filter bit positions are derived directly from the identifier bits
+ * using double hashing without any additional hash computation.
+ *
+ * The filter bits are stored as an int array suitable for a SAM array tag.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public final class EvidenceIdentifierBloomFilter {
+	/**
+	 * Number of filter bits allocated per identifier
+	 */
+	private static final int BITS_PER_IDENTIFIER = 10;
+	/**
+	 * Number of bits set per identifier. Together with BITS_PER_IDENTIFIER
+	 * this gives a false positive rate of approximately 1%.
+	 */
+	private static final int HASH_FUNCTIONS = 7;
+	private final int[] bits;
+	private EvidenceIdentifierBloomFilter(int[] bits) {
+		this.bits = bits;
+	}
+	/**
+	 * Creates a filter containing the given identifiers
+	 * @param ids identifiers to add to the filter
+	 * @return filter containing all given identifiers
+	 */
+	public static EvidenceIdentifierBloomFilter create(Collection<EvidenceIdentifier> ids) {
+		EvidenceIdentifierBloomFilter filter = new EvidenceIdentifierBloomFilter(new int[Math.max(1, (ids.size() * BITS_PER_IDENTIFIER + 31) / 32)]);
+		for (EvidenceIdentifier id : ids) {
+			filter.add(id);
+		}
+		return filter;
+	}
+	/**
+	 * Wraps the filter bits encoded by {@link #encode()}
+	 * @param encoded encoded filter
+	 * @return filter
+	 */
+	public static EvidenceIdentifierBloomFilter decode(int[] encoded) {
+		if (encoded.length == 0) {
+			throw new IllegalArgumentException("Encoded evidence identifier filter cannot be empty");
+		}
+		return new EvidenceIdentifierBloomFilter(encoded);
+	}
+	/**
+	 * Encodes the filter as an int array suitable for a SAM array tag
+	 * @return encoded filter
+	 */
+	public int[] encode() {
+		return bits;
+	}
+	private void add(EvidenceIdentifier id) {
+		long bitCount = 32L * bits.length;
+		long h = id.low;
+		for (int i = 0; i < HASH_FUNCTIONS; i++) {
+			int bit = (int)Long.remainderUnsigned(h, bitCount);
+			bits[bit >>> 5] |= 1 << (bit & 31);
+			h += id.high;
+		}
+	}
+	/**
+	 * Determines whether the given identifier could be in the filter
+	 * @param id identifier
+	 * @return false if the identifier is definitely not in the filter, true if it might be
+	 */
+	public boolean mightContain(EvidenceIdentifier id) {
+		long bitCount = 32L * bits.length;
+		long h = id.low;
+		for (int i = 0; i < HASH_FUNCTIONS; i++) {
+			int bit = (int)Long.remainderUnsigned(h, bitCount);
+			if ((bits[bit >>> 5] & (1 << (bit & 31))) == 0) {
+				return false;
+			}
+			h += id.high;
+		}
+		return true;
+	}
+}
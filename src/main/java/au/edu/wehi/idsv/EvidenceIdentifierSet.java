@@ -0,0 +1,145 @@
+package au.edu.wehi.idsv;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of evidence identifiers.
+ *
+ * Identifiers are stored as primitive long pairs so no per-entry objects are retained.
+ * The all-zero identifier is used as the empty slot marker and is tracked separately.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class EvidenceIdentifierSet {
+	private static final int MIN_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.75f;
+	/**
+	 * Interleaved (high, low) identifier pairs
+	 */
+	private long[] slots;
+	private int mask;
+	private int size;
+	private boolean containsZero;
+	public EvidenceIdentifierSet() {
+		this(MIN_CAPACITY);
+	}
+	public EvidenceIdentifierSet(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * LOAD_FACTOR < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+	private void allocate(int capacity) {
+		slots = new long[2 * capacity];
+		mask = capacity - 1;
+	}
+	private static boolean isZero(long high, long low) {
+		return high == 0 && low == 0;
+	}
+	private int index(long high, long low) {
+		long h = (high ^ low) * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+	/**
+	 * Finds the slot containing the given identifier, or the empty slot it would be placed in
+	 */
+	private int find(long high, long low) {
+		int i = index(high, low);
+		while (!isZero(slots[2 * i], slots[2 * i + 1])) {
+			if (slots[2 * i] == high && slots[2 * i + 1] == low) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+	public boolean add(EvidenceIdentifier id) {
+		return add(id.high, id.low);
+	}
+	public boolean add(long high, long low) {
+		if (isZero(high, low)) {
+			if (containsZero) return false;
+			containsZero = true;
+			size++;
+			return true;
+		}
+		int i = find(high, low);
+		if (!isZero(slots[2 * i], slots[2 * i + 1])) {
+			return false;
+		}
+		slots[2 * i] = high;
+		slots[2 * i + 1] = low;
+		size++;
+		if (size > (mask + 1) * LOAD_FACTOR) {
+			rehash((mask + 1) << 1);
+		}
+		return true;
+	}
+	public boolean contains(EvidenceIdentifier id) {
+		return contains(id.high, id.low);
+	}
+	public boolean contains(long high, long low) {
+		if (isZero(high, low)) return containsZero;
+		int i = find(high, low);
+		return !isZero(slots[2 * i], slots[2 * i + 1]);
+	}
+	public boolean remove(EvidenceIdentifier id) {
+		return remove(id.high, id.low);
+	}
+	public boolean remove(long high, long low) {
+		if (isZero(high, low)) {
+			if (!containsZero) return false;
+			containsZero = false;
+			size--;
+			return true;
+		}
+		int i = find(high, low);
+		if (isZero(slots[2 * i], slots[2 * i + 1])) {
+			return false;
+		}
+		size--;
+		// backward shift deletion so no tombstones are required
+		int last = i;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			long h = slots[2 * j];
+			long l = slots[2 * j + 1];
+			if (isZero(h, l)) break;
+			int home = index(h, l);
+			// move entry at j to last if its home slot is not cyclically in (last, j]
+			if (last <= j ? (home <= last || home > j) : (home <= last && home > j)) {
+				slots[2 * last] = h;
+				slots[2 * last + 1] = l;
+				last = j;
+			}
+		}
+		slots[2 * last] = 0;
+		slots[2 * last + 1] = 0;
+		return true;
+	}
+	private void rehash(int capacity) {
+		long[] old = slots;
+		allocate(capacity);
+		for (int i = 0; i < old.length; i += 2) {
+			if (!isZero(old[i], old[i + 1])) {
+				int j = find(old[i], old[i + 1]);
+				slots[2 * j] = old[i];
+				slots[2 * j + 1] = old[i + 1];
+			}
+		}
+	}
+	public int size() {
+		return size;
+	}
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	public void clear() {
+		Arrays.fill(slots, 0);
+		containsZero = false;
+		size = 0;
+	}
+}
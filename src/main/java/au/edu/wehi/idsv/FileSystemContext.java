@@ -10,6 +10,9 @@ import gridss.analysis.CollectMapqMetrics;
 import gridss.analysis.CollectStructuralVariantReadMetrics;
 import gridss.analysis.CollectTagMetrics;
 import gridss.analysis.ReportThresholdCoverage;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.util.TabixUtils;
 
 public class FileSystemContext {
 	private final File tempDir;
@@ -57,6 +60,7 @@ public class FileSystemContext {
 	private static final String COMMON_INITIAL_SUFFIX = ".gridss";
 	private static final String INTERMEDIATE_DIR_SUFFIX = COMMON_INITIAL_SUFFIX + ".working";
 	private static final String FORMAT_SV_SAM = "%1$s/%2$s.sv.bam";
+	private static final String FORMAT_EVIDENCE_CACHE = "%1$s/%2$s.sv.evidence";
 	private static final String FORMAT_METRICS_PREFIX = "%1$s/%2$s";
 	private static final String FORMAT_INSERT_SIZE_METRICS = FORMAT_METRICS_PREFIX + ".insert_size_metrics";
 	private static final String FORMAT_IDSV_METRICS = FORMAT_METRICS_PREFIX + CollectIdsvMetrics.METRICS_SUFFIX;
@@ -71,6 +75,9 @@ public class FileSystemContext {
 	private static final String FORMAT_ASSEMBLY_CHUNK_SAM = "%1$s/%2$s.assembly.chunk%3$d" + SAM_SUFFIX;
 	private static final String FORMAT_ASSEMBLY_TELEMETRY = "%1$s/%2$s.events.csv";
 	private static final String FORMAT_VARIANT_CALL_CHUNK_VCF = "%1$s/%2$s.breakpoint.chunk%3$d" + VCF_SUFFIX;
+	private static final String FORMAT_ANNOTATION_CHUNK_VCF = "%1$s/%2$s.annotated.chunk%3$d" + VCF_SUFFIX;
+	private static final String FORMAT_CHECKPOINT_MANIFEST = "%1$s/%2$s.checkpoints";
+	private static final String FORMAT_VCF_INDEX = "%1$s/%2$s%3$s";
 	/**
 	 * Gets the idsv intermediate working directory for the given input
 	 * @param input
@@ -114,6 +121,9 @@ public class FileSystemContext {
 	public File getSVBam(File input) {
 		return getFile(String.format(FORMAT_SV_SAM, getIntermediateDirectory(input), getSource(input).getName()));
 	}
+	public File getEvidenceCache(File input) {
+		return getFile(String.format(FORMAT_EVIDENCE_CACHE, getIntermediateDirectory(input), getSource(input).getName()));
+	}
 	public File getBreakpointVcf(File input) {
 		return getFile(String.format(FORMAT_BREAKPOINT_VCF, getIntermediateDirectory(input), getSource(input).getName()));
 	}
@@ -156,4 +166,17 @@ public class FileSystemContext {
 	public File getVariantCallChunkVcf(File input, int chunk) {
 		return getFile(String.format(FORMAT_VARIANT_CALL_CHUNK_VCF, getIntermediateDirectory(input), getSource(input).getName(), chunk));
 	}
+	public File getAnnotationChunkVcf(File input, int chunk) {
+		return getFile(String.format(FORMAT_ANNOTATION_CHUNK_VCF, getIntermediateDirectory(input), getSource(input).getName(), chunk));
+	}
+	public File getCheckpointManifest(File output) {
+		return getFile(String.format(FORMAT_CHECKPOINT_MANIFEST, getIntermediateDirectory(output), getSource(output).getName()));
+	}
+	/**
+	 * Working copy of the index of the given VCF. Block compressed VCFs have a tabix index.
+	 */
+	public File getVcfIndex(File input) {
+		String suffix = AbstractFeatureReader.hasBlockCompressedExtension(input) ? TabixUtils.STANDARD_INDEX_EXTENSION : Tribble.STANDARD_INDEX_EXTENSION;
+		return getFile(String.format(FORMAT_VCF_INDEX, getIntermediateDirectory(input), getSource(input).getName(), suffix));
+	}
 }
@@ -11,6 +11,7 @@ import com.google.common.collect.Lists;
 
 import au.edu.wehi.idsv.bed.IntervalBed;
 import au.edu.wehi.idsv.picard.ReferenceLookup;
+import au.edu.wehi.idsv.picard.MemoryMappedReferenceSequenceFile;
 import au.edu.wehi.idsv.picard.TwoBitBufferedReferenceSequenceFile;
 import au.edu.wehi.idsv.util.AutoClosingIterator;
 import au.edu.wehi.idsv.vcf.GridssVcfConstants;
@@ -86,7 +87,7 @@ public class GenomicProcessingContext implements Closeable {
 		this.linear = new PaddedLinearGenomicCoordinate(this.dictionary, LINEAR_COORDINATE_CHROMOSOME_BUFFER, true);
 		this.basicHeader = new SAMFileHeader();
 		this.basicHeader.setSequenceDictionary(this.reference.getSequenceDictionary());
-		this.blacklist = new IntervalBed(this.dictionary, this.linear);
+		this.blacklist = new IntervalBed(this.dictionary);
 	}
 	/**
 	 * Ensures that a sequence dictionary exists for the given reference
@@ -120,6 +121,12 @@ public class GenomicProcessingContext implements Closeable {
 	@SuppressWarnings("resource")
 	protected ReferenceLookup LoadSynchronizedReference(File referenceFile) {
 		ensureSeqeunceDictionary(referenceFile);
+		if (Defaults.MEMORY_MAPPED_REFERENCE) {
+			ReferenceLookup mapped = MemoryMappedReferenceSequenceFile.open(referenceFile);
+			if (mapped != null) {
+				return mapped;
+			}
+		}
 		try {
 			ReferenceSequenceFile underlying = new IndexedFastaSequenceFile(referenceFile);
 			if (referenceFile.length() > Runtime.getRuntime().maxMemory()) {
@@ -315,7 +322,7 @@ public class GenomicProcessingContext implements Closeable {
 	
 	public void setBlacklist(File blacklistFile) throws IOException {
 		this.blacklistFile = blacklistFile;
-		this.blacklist = new IntervalBed(getDictionary(), getLinear(), blacklistFile);
+		this.blacklist = new IntervalBed(getDictionary(), blacklistFile);
 	}
 	
 	public CommandLineProgram getCommandLineProgram() {
@@ -3,6 +3,7 @@ package au.edu.wehi.idsv;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -11,6 +12,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.Lists;
 import com.google.common.hash.HashCode;
@@ -18,16 +21,16 @@ import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 
 import au.edu.wehi.idsv.sam.ChimericAlignment;
+import au.edu.wehi.idsv.sam.SAMRecordUtil;
 import htsjdk.samtools.SAMRecord;
-import htsjdk.samtools.SAMTag;
-import htsjdk.samtools.TextCigarCodec;
+import htsjdk.samtools.util.Log;
 import net.openhft.chronicle.bytes.BytesIn;
 import net.openhft.chronicle.bytes.BytesMarshallable;
 import net.openhft.chronicle.bytes.BytesOut;
 import net.openhft.chronicle.map.ChronicleMap;
 
 public abstract class GreedyAllocationCache implements Closeable {
-	//private static final Log log = Log.getInstance(GreedyAllocationCache.class);
+	private static final Log log = Log.getInstance(GreedyAllocationCache.class);
 	private static final Comparator<ChimericAlignment> ByPosition = Comparator.<ChimericAlignment, Integer>comparing(ca -> ca.pos)
 				.thenComparing(ca -> ca.isNegativeStrand)
 				.thenComparing(ca -> ca.rname)
@@ -45,36 +48,34 @@ public abstract class GreedyAllocationCache implements Closeable {
 	}
 	protected void putEventAlignmentScoreNode(GreedyAllocationCacheLookup<EventAlignmentScoreNode> bestAlignment, Hash96bit readName, Hash96bit alignment, Hash96bit event, float score) {
 		if (bestAlignment == null) return;
-		EventAlignmentScoreNode notInLookup = new EventAlignmentScoreNode(event, score, alignment);
-		EventAlignmentScoreNode inLookup = bestAlignment.get(readName);
-		// this check is a loop as when there are multiple threads writing to the same key
-		// the score that we wrote could be worse since the get and put are two separate (atomic)
-		// operations.
-		while (notInLookup != null && (inLookup == null || inLookup.getScore() < notInLookup.getScore())) {
-			EventAlignmentScoreNode toPut = notInLookup;
-			inLookup = toPut;
-			notInLookup = bestAlignment.put(readName, toPut);
-		}
+		putIfHigherScore(bestAlignment, readName, new EventAlignmentScoreNode(event, score, alignment));
 	}
 	protected void putAlignmentScoreNode(GreedyAllocationCacheLookup<AlignmentScoreNode> bestAlignment, Hash96bit readName, Hash96bit alignment, float score) {
-		// (duplicates EventAlignmentScoreNode logic)
 		if (bestAlignment == null) return;
-		AlignmentScoreNode notInLookup = new AlignmentScoreNode(score, alignment);
-		AlignmentScoreNode inLookup = bestAlignment.get(readName);
-		while (notInLookup != null && (inLookup == null || inLookup.getScore() < notInLookup.getScore())) {
-			AlignmentScoreNode toPut = notInLookup;
-			inLookup = toPut;
-			notInLookup = bestAlignment.put(readName, toPut);
-		}
+		putIfHigherScore(bestAlignment, readName, new AlignmentScoreNode(score, alignment));
 	}
 	protected void putEventScoreNode(GreedyAllocationCacheLookup<EventScoreNode> bestEvent, Hash96bit readName, Hash96bit event, float score) {
 		if (bestEvent == null) return;
-		EventScoreNode notInLookup = new EventScoreNode(event, score);
-		EventScoreNode inLookup = bestEvent.get(readName);
+		putIfHigherScore(bestEvent, readName, new EventScoreNode(event, score));
+	}
+	/**
+	 * Stores the given value if there is no existing value for the key,
+	 * or the existing value has a lower score.
+	 */
+	protected static <T extends HashScoreNode> void putIfHigherScore(GreedyAllocationCacheLookup<T> lookup, Hash96bit key, T value) {
+		if (lookup instanceof OffHeapLookup) {
+			((OffHeapLookup<T>)lookup).putIfHigherScore(key, value);
+			return;
+		}
+		T notInLookup = value;
+		T inLookup = lookup.get(key);
+		// this check is a loop as when there are multiple threads writing to the same key
+		// the score that we wrote could be worse since the get and put are two separate (atomic)
+		// operations.
 		while (notInLookup != null && (inLookup == null || inLookup.getScore() < notInLookup.getScore())) {
-			EventScoreNode toPut = notInLookup;
+			T toPut = notInLookup;
 			inLookup = toPut;
-			notInLookup = bestEvent.put(readName, toPut);
+			notInLookup = lookup.put(key, toPut);
 		}
 	}
 	protected boolean isBestAlignment(GreedyAllocationCacheLookup<EventAlignmentScoreNode> bestAlignment, Hash96bit readName, Hash96bit alignment) {
@@ -97,7 +98,7 @@ public abstract class GreedyAllocationCache implements Closeable {
 					r.getMateReferenceName(),
 					r.getMateAlignmentStart(),
 					r.getMateNegativeStrandFlag(),
-					TextCigarCodec.decode(r.getStringAttribute(SAMTag.MC.name())),
+					SAMRecordUtil.getMateCigar(r),
 					// not using these fields so zeros are fine
 					0,
 					0));
@@ -123,10 +124,32 @@ public abstract class GreedyAllocationCache implements Closeable {
 		T get(Hash96bit key);
 		T put(Hash96bit key, T value);
 	}
-	protected static <T extends Hash96bit> GreedyAllocationCacheLookup<T> createLookup(String name, Class<T> clazz, long size) {
-		//return new HashMapLookup<T>();
-		//return new ApacheIgniteLookup<T>(name);
-		return new OpenHFTLookup<T>(name, clazz, size);
+	/**
+	 * Lookup implementation used to store the allocation cache
+	 */
+	public enum LookupBackend {
+		/**
+		 * ChronicleMap off-heap hash map
+		 */
+		CHRONICLE_MAP,
+		/**
+		 * Off-heap open addressing hash table
+		 */
+		OFF_HEAP,
+	}
+	protected static <T extends HashScoreNode> GreedyAllocationCacheLookup<T> createLookup(String name, Class<T> clazz, long size) {
+		return createLookup(LookupBackend.CHRONICLE_MAP, name, clazz, size);
+	}
+	protected static <T extends HashScoreNode> GreedyAllocationCacheLookup<T> createLookup(LookupBackend backend, String name, Class<T> clazz, long size) {
+		switch (backend) {
+			case OFF_HEAP:
+				return new OffHeapLookup<T>(clazz, size);
+			case CHRONICLE_MAP:
+			default:
+				//return new HashMapLookup<T>();
+				//return new ApacheIgniteLookup<T>(name);
+				return new OpenHFTLookup<T>(name, clazz, size);
+		}
 	}
 	/**
 	 * Java HashMap lookup. This stores all values on the java heap which requireds
@@ -182,6 +205,264 @@ public abstract class GreedyAllocationCache implements Closeable {
 		public T put(Hash96bit key, T value) {
 			return map.put(key, value);
 		}
+		public long offHeapMemoryUsed() {
+			return map.offHeapMemoryUsed();
+		}
+	}
+	/**
+	 * Off-heap open addressing hash table with fixed-width 96-bit keys.
+	 * 
+	 * Slot contents are stored in direct buffers outside the java heap. Each slot
+	 * has a state word that is odd whilst a thread has exclusive access to the slot.
+	 * Threads acquire a slot by CAS on its state word so threads accessing different
+	 * keys never contend on a shared lock. The state words are held on-heap and account
+	 * for 4 of the bytes used per slot.
+	 * 
+	 * The table is sized from the expected number of entries. Probing is bounded and
+	 * a key whose probe window is fully occupied by other keys is stored in an overflow
+	 * table of twice the size. Since entries are never removed, a window that is full
+	 * remains full, so every thread resolves a key to the same table without locking.
+	 * Underestimating the number of entries therefore degrades performance instead of
+	 * failing.
+	 * 
+	 * Direct buffers are released by the garbage collector so the JVM direct memory
+	 * limit (-XX:MaxDirectMemorySize) must allow for the table size.
+	 */
+	protected static class OffHeapLookup<T extends HashScoreNode> implements GreedyAllocationCacheLookup<T> {
+		private static final float LOAD_FACTOR = 0.75f;
+		/**
+		 * Maximum number of slots probed before a key is stored in the overflow table.
+		 * Probe windows this long are vanishingly rare below the load factor. 
+		 */
+		private static final long MAX_PROBES = 1024;
+		/**
+		 * Number of slots in each direct buffer. Direct buffers are limited to 2GB.
+		 */
+		private static final int SEGMENT_SLOTS = 1 << 24;
+		private static final long NOT_FOUND = -1;
+		private static final int STATE_EMPTY = 0;
+		private static final int STATE_NEW = 1;
+		private static final int STATE_OCCUPIED = 2;
+		private static final int STATE_LOCKED = 3;
+		private static final int KEY1_OFFSET = 0;
+		private static final int KEY2_OFFSET = 8;
+		private static final int SCORE_OFFSET = 12;
+		private static final int VALUE_KEY1_OFFSET = 16;
+		private static final int VALUE_KEY2_OFFSET = 24;
+		private static final int EVENT_KEY1_OFFSET = 32;
+		private static final int EVENT_KEY2_OFFSET = 40;
+		private static final int SLOT_SIZE = 32;
+		private static final int EVENT_SLOT_SIZE = 48;
+		private final Class<T> clazz;
+		private final boolean hasEvent;
+		private final int slotSize;
+		private final long expectedEntries;
+		private final long capacity;
+		private final long maxProbes;
+		private final AtomicLong size = new AtomicLong();
+		private volatile OffHeapLookup<T> overflow = null;
+		private ByteBuffer[] data;
+		private AtomicIntegerArray[] state;
+		public OffHeapLookup(Class<T> clazz, long expectedEntries) {
+			this.clazz = clazz;
+			this.hasEvent = EventAlignmentScoreNode.class.isAssignableFrom(clazz);
+			this.slotSize = hasEvent ? EVENT_SLOT_SIZE : SLOT_SIZE;
+			this.expectedEntries = expectedEntries;
+			this.capacity = Math.max(16, (long)Math.ceil(expectedEntries / LOAD_FACTOR));
+			this.maxProbes = Math.min(capacity, MAX_PROBES);
+			int segments = (int)((capacity + SEGMENT_SLOTS - 1) / SEGMENT_SLOTS);
+			this.data = new ByteBuffer[segments];
+			this.state = new AtomicIntegerArray[segments];
+			for (int i = 0; i < segments; i++) {
+				int slots = (int)Math.min(SEGMENT_SLOTS, capacity - (long)i * SEGMENT_SLOTS);
+				data[i] = ByteBuffer.allocateDirect(slots * slotSize).order(ByteOrder.nativeOrder());
+				state[i] = new AtomicIntegerArray(slots);
+			}
+		}
+		private static int segment(long index) {
+			return (int)(index / SEGMENT_SLOTS);
+		}
+		private static int offset(long index) {
+			return (int)(index % SEGMENT_SLOTS);
+		}
+		private int getState(long index) {
+			return state[segment(index)].get(offset(index));
+		}
+		private boolean compareAndSetState(long index, int expect, int update) {
+			return state[segment(index)].compareAndSet(offset(index), expect, update);
+		}
+		private long firstIndex(Hash96bit key) {
+			long h = (key.key1 ^ (key.key2 * 0x9E3779B97F4A7C15L)) * 0x9E3779B97F4A7C15L;
+			return Long.remainderUnsigned(h, capacity);
+		}
+		private long nextIndex(long index) {
+			index++;
+			return index == capacity ? 0 : index;
+		}
+		/**
+		 * Keys are written once when the slot is claimed and are visible
+		 * to any thread that has since read an occupied state for the slot.
+		 */
+		private boolean keyEquals(long index, Hash96bit key) {
+			ByteBuffer bb = data[segment(index)];
+			int pos = offset(index) * slotSize;
+			return bb.getLong(pos + KEY1_OFFSET) == key.key1 && bb.getInt(pos + KEY2_OFFSET) == key.key2;
+		}
+		private int stableState(long index) {
+			int s;
+			while (((s = getState(index)) & 1) != 0) {
+				Thread.yield();
+			}
+			return s;
+		}
+		private OffHeapLookup<T> getOverflow() {
+			OffHeapLookup<T> next = overflow;
+			if (next == null) {
+				synchronized (this) {
+					next = overflow;
+					if (next == null) {
+						log.warn(String.format("Allocation cache exceeded capacity of %d entries. Allocating overflow table.", expectedEntries));
+						next = new OffHeapLookup<>(clazz, 2 * expectedEntries);
+						overflow = next;
+					}
+				}
+			}
+			return next;
+		}
+		/**
+		 * Acquires exclusive access to the slot for the given key,
+		 * claiming an empty slot if the key is not present
+		 * @return slot index, or NOT_FOUND if the key belongs in the overflow table
+		 */
+		private long acquire(Hash96bit key) {
+			long index = firstIndex(key);
+			for (long probes = 0; probes < maxProbes; ) {
+				int s = stableState(index);
+				if (s == STATE_EMPTY) {
+					if (compareAndSetState(index, STATE_EMPTY, STATE_NEW)) {
+						ByteBuffer bb = data[segment(index)];
+						int pos = offset(index) * slotSize;
+						bb.putLong(pos + KEY1_OFFSET, key.key1);
+						bb.putInt(pos + KEY2_OFFSET, key.key2);
+						size.incrementAndGet();
+						return index;
+					}
+					// lost the race for this slot; check whether it was claimed for the same key
+				} else if (keyEquals(index, key)) {
+					if (compareAndSetState(index, STATE_OCCUPIED, STATE_LOCKED)) {
+						return index;
+					}
+				} else {
+					index = nextIndex(index);
+					probes++;
+				}
+			}
+			return NOT_FOUND;
+		}
+		private boolean isNewSlot(long index) {
+			return getState(index) == STATE_NEW;
+		}
+		private void release(long index) {
+			state[segment(index)].set(offset(index), STATE_OCCUPIED);
+		}
+		private T read(long index) {
+			try {
+				ByteBuffer bb = data[segment(index)];
+				int pos = offset(index) * slotSize;
+				T value = clazz.newInstance();
+				value.key1 = bb.getLong(pos + VALUE_KEY1_OFFSET);
+				value.key2 = bb.getInt(pos + VALUE_KEY2_OFFSET);
+				value.score = bb.getFloat(pos + SCORE_OFFSET);
+				if (hasEvent) {
+					((EventAlignmentScoreNode)value).eventKey1 = bb.getLong(pos + EVENT_KEY1_OFFSET);
+					((EventAlignmentScoreNode)value).eventKey2 = bb.getInt(pos + EVENT_KEY2_OFFSET);
+				}
+				return value;
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		private float readScore(long index) {
+			return data[segment(index)].getFloat(offset(index) * slotSize + SCORE_OFFSET);
+		}
+		private void write(long index, T value) {
+			ByteBuffer bb = data[segment(index)];
+			int pos = offset(index) * slotSize;
+			bb.putLong(pos + VALUE_KEY1_OFFSET, value.key1);
+			bb.putInt(pos + VALUE_KEY2_OFFSET, value.key2);
+			bb.putFloat(pos + SCORE_OFFSET, value.score);
+			if (hasEvent) {
+				bb.putLong(pos + EVENT_KEY1_OFFSET, ((EventAlignmentScoreNode)value).eventKey1);
+				bb.putInt(pos + EVENT_KEY2_OFFSET, ((EventAlignmentScoreNode)value).eventKey2);
+			}
+		}
+		@Override
+		public T get(Hash96bit key) {
+			long index = firstIndex(key);
+			for (long probes = 0; probes < maxProbes; probes++) {
+				if (stableState(index) == STATE_EMPTY) return null;
+				if (keyEquals(index, key)) {
+					while (!compareAndSetState(index, STATE_OCCUPIED, STATE_LOCKED)) {
+						Thread.yield();
+					}
+					try {
+						return read(index);
+					} finally {
+						release(index);
+					}
+				}
+				index = nextIndex(index);
+			}
+			OffHeapLookup<T> next = overflow;
+			return next == null ? null : next.get(key);
+		}
+		@Override
+		public T put(Hash96bit key, T value) {
+			long index = acquire(key);
+			if (index == NOT_FOUND) return getOverflow().put(key, value);
+			try {
+				T existing = isNewSlot(index) ? null : read(index);
+				write(index, value);
+				return existing;
+			} finally {
+				release(index);
+			}
+		}
+		/**
+		 * Atomically stores the given value if there is no existing value
+		 * for the key, or the existing value has a lower score.
+		 */
+		public void putIfHigherScore(Hash96bit key, T value) {
+			long index = acquire(key);
+			if (index == NOT_FOUND) {
+				getOverflow().putIfHigherScore(key, value);
+				return;
+			}
+			try {
+				if (isNewSlot(index) || readScore(index) < value.score) {
+					write(index, value);
+				}
+			} finally {
+				release(index);
+			}
+		}
+		public long size() {
+			OffHeapLookup<T> next = overflow;
+			return size.get() + (next == null ? 0 : next.size());
+		}
+		public long offHeapMemoryUsed() {
+			OffHeapLookup<T> next = overflow;
+			return capacity * slotSize + (next == null ? 0 : next.offHeapMemoryUsed());
+		}
+		@Override
+		public synchronized void close() throws IOException {
+			data = null;
+			state = null;
+			if (overflow != null) {
+				overflow.close();
+				overflow = null;
+			}
+		}
 	}
 	protected static class Hash96bit implements BytesMarshallable {
 		private static final HashFunction hf = Hashing.murmur3_128();
@@ -194,6 +475,13 @@ public abstract class GreedyAllocationCache implements Closeable {
 			this.key1 = bb.getLong();
 			this.key2 = bb.getInt();
 		}
+		/**
+		 * Truncates the given identifier. This matches the hash of the underlying evidenceID.
+		 */
+		public Hash96bit(EvidenceIdentifier id) {
+			this.key1 = id.high;
+			this.key2 = (int)(id.low >>> 32);
+		}
 		public Hash96bit(Hash96bit hash) {
 			this.key1 = hash.key1;
 			this.key2 = hash.key2;
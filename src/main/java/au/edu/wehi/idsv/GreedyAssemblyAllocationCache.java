@@ -29,7 +29,10 @@ public class GreedyAssemblyAllocationCache extends GreedyAllocationCache {
 	 * @param threads number of concurrent access threads. This implementation is thread safe for values greater than 1.
 	 */
 	public GreedyAssemblyAllocationCache(long uniqueReads) {
-		bestReadAlignment = createLookup("bestReadAlignment", AlignmentScoreNode.class, uniqueReads);
+		this(uniqueReads, LookupBackend.CHRONICLE_MAP);
+	}
+	public GreedyAssemblyAllocationCache(long uniqueReads, LookupBackend backend) {
+		bestReadAlignment = createLookup(backend, "bestReadAlignment", AlignmentScoreNode.class, uniqueReads);
 	}
 	protected void addBreakendAssemblyAllocation(float assemblyScore, DirectedEvidence evidence) {
 		SAMRecord anchor;
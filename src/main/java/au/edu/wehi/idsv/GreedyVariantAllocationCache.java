@@ -37,9 +37,19 @@ public class GreedyVariantAllocationCache extends GreedyAllocationCache {
 			long expectedSVReads,
 			boolean ensureUniqueEvidenceAllocation,
 			long expectedSVEvidence) {
-		this.bestReadPairAlignment = ensureUniqueReadPairAlignment ? createLookup("bestReadPairAlignment", EventAlignmentScoreNode.class, expectedSVReadPairs) : null;
-		this.bestReadAlignment = ensureUniqueReadAlignment ? createLookup("bestReadAlignment", EventAlignmentScoreNode.class, expectedSVReads) : null;
-		this.bestEventForEvidence = ensureUniqueEvidenceAllocation ? createLookup("bestEventForEvidence", EventScoreNode.class, expectedSVEvidence) : null;
+		this(ensureUniqueReadPairAlignment, expectedSVReadPairs, ensureUniqueReadAlignment, expectedSVReads, ensureUniqueEvidenceAllocation, expectedSVEvidence, LookupBackend.CHRONICLE_MAP);
+	}
+	public GreedyVariantAllocationCache(
+			boolean ensureUniqueReadPairAlignment,
+			long expectedSVReadPairs,
+			boolean ensureUniqueReadAlignment,
+			long expectedSVReads,
+			boolean ensureUniqueEvidenceAllocation,
+			long expectedSVEvidence,
+			LookupBackend backend) {
+		this.bestReadPairAlignment = ensureUniqueReadPairAlignment ? createLookup(backend, "bestReadPairAlignment", EventAlignmentScoreNode.class, expectedSVReadPairs) : null;
+		this.bestReadAlignment = ensureUniqueReadAlignment ? createLookup(backend, "bestReadAlignment", EventAlignmentScoreNode.class, expectedSVReads) : null;
+		this.bestEventForEvidence = ensureUniqueEvidenceAllocation ? createLookup(backend, "bestEventForEvidence", EventScoreNode.class, expectedSVEvidence) : null;
 	}
 	private static Hash96bit getEvent(VariantContextDirectedBreakpoint variant) {
 		return new Hash96bit(variant.getAttributeAsString(VcfSvConstants.BREAKEND_EVENT_ID_KEY, null));
@@ -64,7 +74,7 @@ public class GreedyVariantAllocationCache extends GreedyAllocationCache {
 		return isBestBreakpoint(new Hash96bit(event), evidence);
 	}
 	protected void addBreakpoint(Hash96bit event, float score, DirectedEvidence evidence) {
-		putEventScoreNode(bestEventForEvidence, new Hash96bit(evidence.getEvidenceID()), event, score);
+		putEventScoreNode(bestEventForEvidence, new Hash96bit(evidence.getEvidenceIdentifier()), event, score);
 		if (evidence instanceof NonReferenceReadPair) {
 			NonReferenceReadPair dp = (NonReferenceReadPair)evidence;
 			Hash96bit readpairid = new Hash96bit(dp.getLocalledMappedRead().getReadName());
@@ -87,7 +97,7 @@ public class GreedyVariantAllocationCache extends GreedyAllocationCache {
 	}
 	public boolean isBestBreakpoint(Hash96bit event, DirectedEvidence evidence) {
 		if (bestEventForEvidence != null) {
-			EventScoreNode lookup = bestEventForEvidence.get(new Hash96bit(evidence.getEvidenceID()));
+			EventScoreNode lookup = bestEventForEvidence.get(new Hash96bit(evidence.getEvidenceIdentifier()));
 			if (lookup == null || !event.equals(lookup.getEvent())) {
 				// This is not the best breakpoint supported by this evidence
 				return false;
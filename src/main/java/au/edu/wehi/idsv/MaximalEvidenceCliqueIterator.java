@@ -5,7 +5,10 @@ import java.util.Iterator;
 import com.google.common.base.Function;
 import com.google.common.collect.AbstractIterator;
 
+import au.edu.wehi.idsv.graph.MaximalCliqueCalculator;
+import au.edu.wehi.idsv.graph.RectangleGraphMaximalCliqueCalculator;
 import au.edu.wehi.idsv.graph.RectangleGraphMaximalCliqueIterator;
+import au.edu.wehi.idsv.graph.RectangleGraphMaximalCliqueTreeCalculator;
 import au.edu.wehi.idsv.graph.RectangleGraphNode;
 import au.edu.wehi.idsv.graph.RectangleGraphNodeMergingIterator;
 import au.edu.wehi.idsv.graph.ScalingHelper;
@@ -26,21 +29,33 @@ public class MaximalEvidenceCliqueIterator extends AbstractIterator<VariantConte
 	private VariantContextDirectedBreakpoint lastHigh = null;
 	private final BreakendDirection targetLowDir;
 	private final BreakendDirection targetHighDir;
-	private final RectangleGraphMaximalCliqueIterator calc;
+	private final Iterator<RectangleGraphNode> calc;
 	private final ProcessingContext context;
 	private final VariantIdGenerator idGenerator;
 	public MaximalEvidenceCliqueIterator(ProcessingContext processContext, Iterator<DirectedEvidence> evidenceIt, BreakendDirection lowDir, BreakendDirection highDir, VariantIdGenerator idGenerator) {
 		this.context = processContext;
+		this.targetLowDir = lowDir;
+		this.targetHighDir = highDir;
+		this.idGenerator = idGenerator;
 		this.calc = new RectangleGraphMaximalCliqueIterator(
 						// collapse evidence at the same location to a single node
 						new RectangleGraphNodeMergingIterator(RectangleGraphNode.ByStartXYEndXY,
 							// make sure nodes to be merged are adjacent in the stream
 							new GraphNodeWindowedSortingIterator(context, 1, 
 								// convert evidence breakpoints to GraphNodes
-								new EvidenceToGraphNodeIterator(evidenceIt))));
+								new EvidenceToGraphNodeIterator(evidenceIt))),
+						createMaximalCliqueCalculator(context));
+	}
+	/**
+	 * Converts maximal cliques that have already been called to variants
+	 * @param cliques maximal cliques of evidence with the given breakpoint directions
+	 */
+	public MaximalEvidenceCliqueIterator(ProcessingContext processContext, BreakendDirection lowDir, BreakendDirection highDir, VariantIdGenerator idGenerator, Iterator<RectangleGraphNode> cliques) {
+		this.context = processContext;
 		this.targetLowDir = lowDir;
 		this.targetHighDir = highDir;
 		this.idGenerator = idGenerator;
+		this.calc = cliques;
 	}
 	private class GraphNodeWindowedSortingIterator extends WindowedSortingIterator<RectangleGraphNode> {
 		public GraphNodeWindowedSortingIterator(final GenomicProcessingContext processContext, final int windowSize, final Iterator<RectangleGraphNode> it) {
@@ -60,7 +75,7 @@ public class MaximalEvidenceCliqueIterator extends AbstractIterator<VariantConte
 		protected RectangleGraphNode computeNext() {
 			while (it.hasNext()) {
 				DirectedEvidence evidence = it.next();
-				RectangleGraphNode node = toGraphNode(evidence);
+				RectangleGraphNode node = toGraphNode(context, evidence, targetLowDir, targetHighDir);
 				if (node != null) {
 					return node;
 				}
@@ -68,7 +83,21 @@ public class MaximalEvidenceCliqueIterator extends AbstractIterator<VariantConte
 			return endOfData();
 		}
 	}
-	private RectangleGraphNode toGraphNode(DirectedEvidence e) {
+	/**
+	 * Creates the maximal clique calculator of the configured scanline implementation
+	 */
+	static MaximalCliqueCalculator createMaximalCliqueCalculator(ProcessingContext context) {
+		if (context.getVariantCallingParameters().treeScanlineCliqueCalling) {
+			return new RectangleGraphMaximalCliqueTreeCalculator();
+		}
+		return new RectangleGraphMaximalCliqueCalculator();
+	}
+	/**
+	 * Converts breakpoint evidence to a rectangle graph node
+	 * @return graph node of the lower breakend half of the given evidence, null if the evidence
+	 * does not contribute to maximal cliques of the given breakpoint directions 
+	 */
+	static RectangleGraphNode toGraphNode(ProcessingContext context, DirectedEvidence e, BreakendDirection targetLowDir, BreakendDirection targetHighDir) {
 		BreakendSummary loc = e.getBreakendSummary();
 		if (!(loc instanceof BreakpointSummary)) return null;
 		BreakpointSummary bp = (BreakpointSummary)loc;
@@ -29,6 +29,7 @@ public abstract class NonReferenceReadPair implements DirectedEvidence {
 	private final BreakendSummary location;
 	private final SAMEvidenceSource source;
 	private String evidenceID = null;
+	private EvidenceIdentifier evidenceIdentifier = null;
 	protected NonReferenceReadPair(SAMRecord local, SAMRecord remote, SAMEvidenceSource source) {
 		if (local == null) throw new IllegalArgumentException("local is null");
 		if (remote == null) throw new IllegalArgumentException("remote is null");
@@ -262,6 +263,13 @@ public abstract class NonReferenceReadPair implements DirectedEvidence {
 		return evidenceID;
 	}
 	@Override
+	public EvidenceIdentifier getEvidenceIdentifier() {
+		if (evidenceIdentifier == null) {
+			evidenceIdentifier = EvidenceIdentifier.of(getEvidenceID());
+		}
+		return evidenceIdentifier;
+	}
+	@Override
 	public BreakendSummary getBreakendSummary() {
 		return location;
 	}
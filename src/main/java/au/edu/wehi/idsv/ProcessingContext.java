@@ -33,6 +33,7 @@ public class ProcessingContext extends GenomicProcessingContext {
 	private long calculateMetricsRecordCount = Long.MAX_VALUE; 
 	private final List<String> categories = Lists.newArrayList();
 	private BufferTracker bufferTracker = null;
+	private CheckpointManifest checkpoints = CheckpointManifest.UNTRACKED;
 	
 	public ProcessingContext(
 			FileSystemContext fileSystemContext,  File ref, ReferenceLookup reference, List<Header> metricsHeaders,
@@ -74,6 +75,16 @@ public class ProcessingContext extends GenomicProcessingContext {
 	public void setCalculateMetricsRecordCount(long calculateMetricsRecordCount) {
 		this.calculateMetricsRecordCount = calculateMetricsRecordCount;
 	}
+	/**
+	 * Checkpoints of the current computation
+	 * @return checkpoint manifest
+	 */
+	public CheckpointManifest getCheckpointManifest() {
+		return checkpoints;
+	}
+	public void setCheckpointManifest(CheckpointManifest checkpoints) {
+		this.checkpoints = checkpoints;
+	}
 	public void registerBuffer(String context, TrackedBuffer obj) {
 		if (bufferTracker != null) {
 			bufferTracker.register(context, obj);
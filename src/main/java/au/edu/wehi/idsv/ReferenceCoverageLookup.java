@@ -16,5 +16,21 @@ public interface ReferenceCoverageLookup {
 	 * @return number of read pairs spanning the putative breakend
 	 */
 	int readPairsSupportingNoBreakendAfter(int referenceIndex, int position);
+	/**
+	 * Minimum number of reference reads providing evidence against a breakend immediately after any of the given bases
+	 * @param referenceIndex contig
+	 * @param start first position
+	 * @param end position after the last position
+	 * @return minimum number of reads spanning any putative breakend in the interval
+	 */
+	int minReadsSupportingNoBreakendAfter(int referenceIndex, int start, int end);
+	/**
+	 * Minimum number of read pairs providing evidence against a breakend immediately after any of the given bases
+	 * @param referenceIndex contig
+	 * @param start first position
+	 * @param end position after the last position
+	 * @return minimum number of read pairs spanning any putative breakend in the interval
+	 */
+	int minReadPairsSupportingNoBreakendAfter(int referenceIndex, int start, int end);
 	int getCategory();
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package au.edu.wehi.idsv;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
@@ -17,6 +19,7 @@ import au.edu.wehi.idsv.configuration.SoftClipConfiguration;
 import au.edu.wehi.idsv.metrics.IdsvSamFileMetrics;
 import au.edu.wehi.idsv.sam.ChimericAlignment;
 import au.edu.wehi.idsv.sam.CigarUtil;
+import au.edu.wehi.idsv.sam.PipedSAMFileWriter;
 import au.edu.wehi.idsv.sam.SAMFileUtil;
 import au.edu.wehi.idsv.sam.SAMRecordUtil;
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
@@ -32,9 +35,17 @@ import gridss.analysis.CollectGridssMetrics;
 import gridss.analysis.StructuralVariantReadMetrics;
 import gridss.cmdline.CommandLineProgramHelper;
 import gridss.cmdline.ReferenceCommandLineProgram;
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
 import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
 import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SAMSequenceDictionary;
@@ -42,10 +53,10 @@ import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SamPairUtil.PairOrientation;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
-import htsjdk.samtools.TextCigarCodec;
 import htsjdk.samtools.metrics.MetricsFile;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Log;
+import htsjdk.samtools.util.SortingCollection;
 import picard.cmdline.CommandLineProgram;
 
 /**
@@ -163,6 +174,115 @@ public class SAMEvidenceSource extends EvidenceSource {
 			throw new RuntimeException(msg);
 		}
 	}
+	private File getExtractionInput() {
+		File in = getFile(SortOrder.queryname);
+		if (in == null || !in.exists()) {
+			if (getContext().getConfig().multimapping) {
+				throw new IllegalArgumentException(String.format("Missing INPUT_NAME_SORTED for %s."
+						+ " Both coordinate and name sorted input files must be supplied when multi-mapping mode is enabled.", getFile()));
+			}
+			in = getFile();
+		}
+		return in;
+	}
+	private List<String> getExtractSVReadsArgs(File in, File out) {
+		return Lists.newArrayList(
+				"INPUT=" + in.getAbsolutePath(),
+				"OUTPUT=" + out.getAbsolutePath(),
+				"WORKER_THREADS=" + getProcessContext().getWorkerThreadCount(),
+				"UNMAPPED_READS=false", // saves intermediate file space
+				"METRICS_OUTPUT=" + getContext().getFileSystemContext().getSVMetrics(getFile()),
+				"MIN_CLIP_LENGTH=" + getContext().getConfig().getSoftClip().minLength,
+				"READ_PAIR_CONCORDANCE_METHOD=" + rpcMethod.name(),
+				"FIXED_READ_PAIR_CONCORDANCE_MIN_FRAGMENT_SIZE=" + rpcMinFragmentSize,
+				"FIXED_READ_PAIR_CONCORDANCE_MAX_FRAGMENT_SIZE=" + rpcMaxFragmentSize,
+				"READ_PAIR_CONCORDANT_PERCENT=" + rpcConcordantPercentage,
+				"INSERT_SIZE_METRICS=" + getContext().getFileSystemContext().getInsertSizeMetrics(getFile()));
+	}
+	/**
+	 * Extracts SV reads, computes SAM tags and identifies split reads in a single pass.
+	 * Records are streamed between steps and the only intermediate files written are
+	 * the split read realignment files and the spills of the final coordinate sort.
+	 */
+	private void extractStreaming(File svFile) throws IOException {
+		FileSystemContext fsc = getContext().getFileSystemContext();
+		File in = getExtractionInput();
+		SAMFileHeader header;
+		try (SamReader reader = factory.open(in)) {
+			header = reader.getFileHeader();
+		}
+		log.info("Extracting SV reads from " + getFile().getAbsolutePath());
+		PipedSAMFileWriter extracted = new PipedSAMFileWriter(header);
+		ExtractSVReads extract = new ExtractSVReads();
+		extract.setOutputWriter(extracted);
+		// OUTPUT is not written when an output writer has been supplied
+		List<String> extractArgs = getExtractSVReadsArgs(in, FileSystemContext.getWorkingFileFor(svFile, "gridss.tmp.extracted."));
+		AtomicReference<Throwable> extractException = new AtomicReference<>();
+		Thread extractThread = new Thread(() -> {
+			try {
+				execute(extract, extractArgs);
+			} catch (Throwable t) {
+				extractException.set(t);
+				extracted.abort(t);
+			} finally {
+				// ensure the reader is never left waiting for records that will not be written 
+				extracted.close();
+			}
+		}, "ExtractSVReads-" + getFile().getName());
+		extractThread.setDaemon(true);
+		extractThread.start();
+		SoftClipsToSplitReads splitReadProgram = new SoftClipsToSplitReads();
+		splitReadProgram.WORKER_THREADS = getProcessContext().getWorkerThreadCount();
+		SplitReadRealigner realigner = splitReadProgram.createRealigner(getContext());
+		SAMFileHeader outHeader = header.clone();
+		outHeader.setSortOrder(SortOrder.coordinate);
+		File tmpout = FileSystemContext.getWorkingFileFor(svFile);
+		SortingCollection<SAMRecord> querynameSorted = null;
+		CloseableIterator<SAMRecord> extractedIt = extracted.iterator();
+		try {
+			Iterator<SAMRecord> it = extractedIt;
+			if (header.getSortOrder() != SortOrder.queryname) {
+				// tag computation requires records to be grouped by read name
+				querynameSorted = SortingCollection.newInstance(SAMRecord.class, new BAMRecordCodec(header), SortOrder.queryname.getComparatorInstance(),
+						fsc.getMaxBufferedRecordsPerFile(), fsc.getTemporaryDirectory());
+				while (extractedIt.hasNext()) {
+					querynameSorted.add(extractedIt.next());
+				}
+				querynameSorted.doneAdding();
+				it = querynameSorted.iterator();
+			}
+			log.info("Computing SAM tags and identifying split reads for " + svFile);
+			try (CloseableIterator<SAMRecord> tagged = ComputeSamTags.tagIterator(it, getContext().getReference(), ComputeSamTags.DEFAULT_TAGS, true, true, true, svFile.getName() + "-")) {
+				SAMFileWriterFactory writerFactory = new SAMFileWriterFactory()
+						.setTempDirectory(fsc.getTemporaryDirectory())
+						.setMaxRecordsInRam(fsc.getMaxBufferedRecordsPerFile());
+				try (SAMFileWriter writer = writerFactory.makeSAMOrBAMWriter(outHeader, false, tmpout)) {
+					realigner.createSupplementaryAlignments(tagged, header, svFile, writer);
+				}
+			}
+		} finally {
+			if (querynameSorted != null) {
+				querynameSorted.cleanup();
+			}
+			// unblock the extraction thread if we stopped consuming early
+			extractedIt.close();
+			try {
+				extractThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (extractException.get() != null) {
+			throw new RuntimeException("Error extracting SV reads from " + getFile().getAbsolutePath(), extractException.get());
+		}
+		FileHelper.move(tmpout, svFile, true);
+	}
+	/**
+	 * Checkpoint name of the given intermediate file
+	 */
+	private static String getCheckpointName(File intermediate) {
+		return "intermediate." + intermediate.getAbsolutePath();
+	}
 	public void ensureExtracted() throws IOException {
 		File svFile = getContext().getFileSystemContext().getSVBam(getFile());
 		File extractedFile = FileSystemContext.getWorkingFileFor(svFile, "gridss.tmp.extracted.");
@@ -170,68 +290,82 @@ public class SAMEvidenceSource extends EvidenceSource {
 		File taggedFile = FileSystemContext.getWorkingFileFor(svFile, "gridss.tmp.tagged.");
 		File withsplitreadsFile = FileSystemContext.getWorkingFileFor(svFile, "gridss.tmp.splitreads.");
 		ensureMetrics();
+		// Intermediate files not written by a completed checkpoint for the current input are removed
+		CheckpointManifest checkpoints = getContext().getCheckpointManifest();
+		String description = CheckpointManifest.describe(getFile());
+		boolean hasExtracted = checkpoints.isComplete(getCheckpointName(extractedFile), description, extractedFile);
+		boolean hasQuerysorted = checkpoints.isComplete(getCheckpointName(querysortedFile), description, querysortedFile);
+		boolean hasTagged = checkpoints.isComplete(getCheckpointName(taggedFile), description, taggedFile);
+		boolean hasWithsplitreads = checkpoints.isComplete(getCheckpointName(withsplitreadsFile), description, withsplitreadsFile);
 		// Regenerate from from the intermediate file furtherest through the pipeline
 		// extract -> query sort -> tag -> split read -> back to coordinate sorted
 		// We want to tag before generating split reads so all splits are guaranteed to
 		// have the same tags
+		// Intermediate files are only written if extraction checkpointing is enabled
+		// or we are resuming from a checkpoint. Each intermediate is written to a
+		// working file and moved into place once complete so a partially written
+		// intermediate is never resumed from.
 		if (!svFile.exists()) {
-			if (!withsplitreadsFile.exists()) {
-				if (!taggedFile.exists()) {
-					if (!querysortedFile.exists()) {
-						if (!extractedFile.exists()) {
-							log.info("Extracting SV reads from " + getFile().getAbsolutePath());
-							File in = getFile(SortOrder.queryname);
-							if (in == null || !in.exists()) {
-								if (getContext().getConfig().multimapping) {
-									throw new IllegalArgumentException(String.format("Missing INPUT_NAME_SORTED for %s."
-											+ " Both coordinate and name sorted input files must be supplied when multi-mapping mode is enabled.", getFile()));
-								}
-								in = getFile();
+			if (!getContext().getConfig().extractionCheckpoints
+					&& !hasExtracted
+					&& !hasQuerysorted
+					&& !hasTagged
+					&& !hasWithsplitreads) {
+				extractStreaming(svFile);
+			} else {
+				if (!hasWithsplitreads) {
+					if (!hasTagged) {
+						if (!hasQuerysorted) {
+							if (!hasExtracted) {
+								log.info("Extracting SV reads from " + getFile().getAbsolutePath());
+								File tmp = FileSystemContext.getWorkingFileFor(extractedFile);
+								execute(new ExtractSVReads(), getExtractSVReadsArgs(getExtractionInput(), tmp));
+								FileHelper.move(tmp, extractedFile, true);
+								checkpoints.complete(getCheckpointName(extractedFile), description, extractedFile);
+							}
+							File tmp = FileSystemContext.getWorkingFileFor(querysortedFile);
+							SAMFileUtil.sort(getContext().getFileSystemContext(), extractedFile, tmp, SortOrder.queryname);
+							FileHelper.move(tmp, querysortedFile, true);
+							checkpoints.complete(getCheckpointName(querysortedFile), description, querysortedFile);
+							if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
+								FileHelper.delete(extractedFile, true);
 							}
-							List<String> args = Lists.newArrayList(
-									"INPUT=" + in.getAbsolutePath(),
-									"OUTPUT=" + extractedFile.getAbsolutePath(),
-									"UNMAPPED_READS=false", // saves intermediate file space
-									"METRICS_OUTPUT=" + getContext().getFileSystemContext().getSVMetrics(getFile()),
-									"MIN_CLIP_LENGTH=" + getContext().getConfig().getSoftClip().minLength,
-									"READ_PAIR_CONCORDANCE_METHOD=" + rpcMethod.name(),
-									"FIXED_READ_PAIR_CONCORDANCE_MIN_FRAGMENT_SIZE=" + rpcMinFragmentSize,
-									"FIXED_READ_PAIR_CONCORDANCE_MAX_FRAGMENT_SIZE=" + rpcMaxFragmentSize,
-									"READ_PAIR_CONCORDANT_PERCENT=" + rpcConcordantPercentage,
-									"INSERT_SIZE_METRICS=" + getContext().getFileSystemContext().getInsertSizeMetrics(getFile()));
-							execute(new ExtractSVReads(), args);
 						}
-						SAMFileUtil.sort(getContext().getFileSystemContext(), extractedFile, querysortedFile, SortOrder.queryname);
+						log.info("Computing SAM tags for " + svFile);
+						File tmp = FileSystemContext.getWorkingFileFor(taggedFile);
+						List<String> args = Lists.newArrayList(
+								"INPUT=" + querysortedFile.getAbsolutePath(),
+								"OUTPUT=" + tmp.getAbsolutePath());
+						execute(new ComputeSamTags(), args);
+						FileHelper.move(tmp, taggedFile, true);
+						checkpoints.complete(getCheckpointName(taggedFile), description, taggedFile);
 						if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
-							FileHelper.delete(extractedFile, true);
+							FileHelper.delete(querysortedFile, true);
 						}
 					}
-					log.info("Computing SAM tags for " + svFile);
+					log.info("Identifying split reads for " + getFile().getAbsolutePath());
+					File tmp = FileSystemContext.getWorkingFileFor(withsplitreadsFile);
 					List<String> args = Lists.newArrayList(
-							"INPUT=" + querysortedFile.getAbsolutePath(),
-							"OUTPUT=" + taggedFile.getAbsolutePath());
-					execute(new ComputeSamTags(), args);
+							"WORKER_THREADS=" + getProcessContext().getWorkerThreadCount(),
+							"INPUT=" + taggedFile.getAbsolutePath(),
+							"OUTPUT=" + tmp.getAbsolutePath());
+							// realignment.* not soft-clip
+							//"MIN_CLIP_LENGTH=" + getContext().getConfig().
+							//"MIN_CLIP_QUAL=" + getContext().getConfig().getSoftClip().minAverageQual);
+					execute(new SoftClipsToSplitReads(), args);
+					FileHelper.move(tmp, withsplitreadsFile, true);
+					checkpoints.complete(getCheckpointName(withsplitreadsFile), description, withsplitreadsFile);
 					if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
-						FileHelper.delete(querysortedFile, true);
+						FileHelper.delete(taggedFile, true);
 					}
 				}
-				log.info("Identifying split reads for " + getFile().getAbsolutePath());
-				List<String> args = Lists.newArrayList(
-						"WORKER_THREADS=" + getProcessContext().getWorkerThreadCount(),
-						"INPUT=" + taggedFile.getAbsolutePath(),
-						"OUTPUT=" + withsplitreadsFile.getAbsolutePath());
-						// realignment.* not soft-clip
-						//"MIN_CLIP_LENGTH=" + getContext().getConfig().
-						//"MIN_CLIP_QUAL=" + getContext().getConfig().getSoftClip().minAverageQual);
-				execute(new SoftClipsToSplitReads(), args);
+				File tmp = FileSystemContext.getWorkingFileFor(svFile);
+				SAMFileUtil.sort(getContext().getFileSystemContext(), withsplitreadsFile, tmp, SortOrder.coordinate);
+				FileHelper.move(tmp, svFile, true);
 				if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
-					FileHelper.delete(taggedFile, true);
+					FileHelper.delete(withsplitreadsFile, true);
 				}
 			}
-			SAMFileUtil.sort(getContext().getFileSystemContext(), withsplitreadsFile, svFile, SortOrder.coordinate);
-			if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
-				FileHelper.delete(withsplitreadsFile, true);
-			}
 		}
 		if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
 			FileHelper.delete(extractedFile, true);
@@ -239,12 +373,87 @@ public class SAMEvidenceSource extends EvidenceSource {
 			FileHelper.delete(taggedFile, true);
 			FileHelper.delete(withsplitreadsFile, true);
 		}
+		ensureEvidenceCache();
+	}
+	private BinaryEvidenceFile evidenceCache = null;
+	private synchronized BinaryEvidenceFile getEvidenceCache() {
+		if (evidenceCache == null) {
+			evidenceCache = new BinaryEvidenceFile(this, getContext().getFileSystemContext().getEvidenceCache(getFile()), minIndelSize());
+		}
+		return evidenceCache;
+	}
+	/**
+	 * Fingerprint of the extracted reads and the settings used to generate evidence from them.
+	 * The evidence cache is regenerated whenever this changes.
+	 */
+	private String getEvidenceCacheFingerprint() {
+		File svFile = getContext().getFileSystemContext().getSVBam(getFile());
+		File coverageBlacklist = getContext().getFileSystemContext().getCoverageBlacklistBed(getFile());
+		List<String> fingerprint = Lists.newArrayList(
+				"config=" + getContext().getConfig().getFingerprint(),
+				"reference=" + CheckpointManifest.describe(getContext().getReferenceFile()),
+				"minIndelSize=" + minIndelSize(),
+				"filterDuplicates=" + getContext().isFilterDuplicates(),
+				"blacklist=" + (getContext().getBlacklist() == null ? "" : CheckpointManifest.describe(getContext().getBlacklist())),
+				"coverageBlacklist=" + (coverageBlacklist.exists() ? CheckpointManifest.describe(coverageBlacklist) : ""),
+				"svFile=" + CheckpointManifest.describe(svFile));
+		return String.join(" ", fingerprint);
+	}
+	/**
+	 * Determines whether the evidence cache is usable
+	 * @return true if the evidence cache exists and was generated from the current extracted reads and settings 
+	 */
+	private boolean useEvidenceCache(BinaryEvidenceFile cache) {
+		if (!getContext().getConfig().evidenceCache) return false;
+		if (!cache.exists()) return false;
+		try {
+			return getEvidenceCacheFingerprint().equals(cache.getFingerprint());
+		} catch (IOException e) {
+			log.warn(e, "Unable to read evidence cache ", cache.getFile());
+			return false;
+		}
+	}
+	/**
+	 * Writes the evidence cache if caching is enabled and no up to date cache exists
+	 */
+	protected void ensureEvidenceCache() throws IOException {
+		if (!getContext().getConfig().evidenceCache) return;
+		BinaryEvidenceFile cache = getEvidenceCache();
+		CheckpointManifest checkpoints = getContext().getCheckpointManifest();
+		String checkpoint = getCheckpointName(cache.getFile());
+		String fingerprint = getEvidenceCacheFingerprint();
+		if (checkpoints.isComplete(checkpoint, fingerprint, cache.getFile()) && useEvidenceCache(cache)) return;
+		cache.delete();
+		log.info("Writing evidence cache for " + getFile().getAbsolutePath());
+		try (SamReader reader = getReader()) {
+			try (CloseableIterator<DirectedEvidence> it = readerIterator()) {
+				cache.write(reader.getFileHeader(), it, fingerprint);
+			}
+		}
+		checkpoints.complete(checkpoint, fingerprint, cache.getFile());
 	}
 	public CloseableIterator<DirectedEvidence> iterator(final QueryInterval[] intervals) {
+		return iterator(intervals, false);
+	}
+	/**
+	 * Iterates over the evidence overlapping the given intervals
+	 * @param intervals intervals to return evidence for
+	 * @param lowBreakpointOnly only return breakpoint evidence for which {@link #isLowBreakpoint(LinearGenomicCoordinate, DirectedEvidence)} holds.
+	 * Records that cannot support such evidence are dropped before any evidence is constructed. 
+	 * @return evidence overlapping the given intervals
+	 */
+	public CloseableIterator<DirectedEvidence> iterator(final QueryInterval[] intervals, boolean lowBreakpointOnly) {
+		BinaryEvidenceFile cache = getEvidenceCache();
+		if (useEvidenceCache(cache)) {
+			CloseableIterator<DirectedEvidence> cit = cache.iterator(intervals);
+			if (!lowBreakpointOnly) return cit;
+			LinearGenomicCoordinate linear = getContext().getLinear();
+			return new AutoClosingIterator<>(Iterators.filter(cit, e -> isLowBreakpoint(linear, e)), cit);
+		}
 		SamReader reader = getReader();
 		// expand query bounds as the alignment for a discordant read pair could fall before or after the breakend interval we are extracting
 		SAMRecordIterator it = tryOpenReader(reader, QueryIntervalUtil.padIntervals(getContext().getDictionary(), intervals, getMaxConcordantFragmentSize() + 1));
-		Iterator<DirectedEvidence> eit = asEvidence(it);
+		Iterator<DirectedEvidence> eit = asEvidence(it, lowBreakpointOnly);
 		eit = Iterators.filter(eit, e -> QueryIntervalUtil.overlaps(intervals, e.getBreakendSummary()));
 		return new AutoClosingIterator<>(eit, reader, it);
 	}
@@ -272,11 +481,74 @@ public class SAMEvidenceSource extends EvidenceSource {
 		}
 		return it;
 	}
+	/**
+	 * Estimates the relative cost of processing the evidence in each of the given interval sets
+	 * from the compressed size of the overlapping region of the indexed BAM.
+	 *
+	 * @param chunks interval sets to estimate
+	 * @return estimated cost of each interval set in compressed bytes. All costs are zero if the BAM does not exist or is not indexed.
+	 * @throws IOException
+	 */
+	public long[] estimateProcessingCost(List<QueryInterval[]> chunks) throws IOException {
+		long[] cost = new long[chunks.size()];
+		if (getFile() == null) return cost;
+		File svFile = getContext().getFileSystemContext().getSVBam(getFile());
+		File in = svFile.exists() ? svFile : getFile();
+		if (!in.exists()) return cost;
+		try (SamReader reader = factory.open(in)) {
+			if (!reader.hasIndex()) {
+				log.debug("Unable to estimate processing cost of unindexed ", getFile());
+				return cost;
+			}
+			BAMIndex index = reader.indexing().getIndex();
+			try (RandomAccessFile raf = new RandomAccessFile(in, "r")) {
+				for (int i = 0; i < chunks.size(); i++) {
+					for (QueryInterval qi : chunks.get(i)) {
+						BAMFileSpan span = index.getSpanOverlapping(qi.referenceIndex, qi.start, qi.end);
+						if (span == null) continue;
+						for (Chunk c : span.getChunks()) {
+							cost[i] += compressedSize(raf, c.getChunkStart(), c.getChunkEnd());
+						}
+					}
+				}
+			}
+		}
+		return cost;
+	}
+	/**
+	 * Approximate number of compressed bytes between the two BGZF virtual file offsets.
+	 * 
+	 * Spans within a single block are assigned the proportion of the compressed block size
+	 * corresponding to the proportion of the uncompressed block they cover. 
+	 */
+	private static long compressedSize(RandomAccessFile bgzf, long virtualStart, long virtualEnd) throws IOException {
+		long blockStart = virtualStart >>> 16;
+		long blockEnd = virtualEnd >>> 16;
+		if (blockStart != blockEnd) return blockEnd - blockStart;
+		long uncompressedSpan = (virtualEnd & 0xFFFF) - (virtualStart & 0xFFFF);
+		if (uncompressedSpan <= 0) return 0;
+		// BSIZE: total block size minus 1
+		bgzf.seek(blockStart + 16);
+		long blockSize = (bgzf.read() | (bgzf.read() << 8)) + 1;
+		// ISIZE: uncompressed block size in the last 4 bytes of the block
+		bgzf.seek(blockStart + blockSize - 4);
+		long uncompressedBlockSize = Integer.toUnsignedLong(Integer.reverseBytes(bgzf.readInt()));
+		if (uncompressedBlockSize <= 0) return 0;
+		// round up so non-empty spans always have a cost
+		return (blockSize * uncompressedSpan + uncompressedBlockSize - 1) / uncompressedBlockSize;
+	}
 	public CloseableIterator<DirectedEvidence> iterator() {
+		BinaryEvidenceFile cache = getEvidenceCache();
+		if (useEvidenceCache(cache)) {
+			return cache.iterator();
+		}
+		return readerIterator();
+	}
+	private CloseableIterator<DirectedEvidence> readerIterator() {
 		SamReader reader = getReader();
 		SAMRecordIterator it = reader.iterator();
 		it.assertSorted(SortOrder.coordinate);
-		Iterator<DirectedEvidence> eit = asEvidence(it);
+		Iterator<DirectedEvidence> eit = asEvidence(it, false);
 		return new AutoClosingIterator<>(eit, reader, it);
 	}
 	private SamReader getReader() {
@@ -284,12 +556,19 @@ public class SAMEvidenceSource extends EvidenceSource {
 		SamReader reader = factory.open(svFile.exists() ? svFile : getFile());
 		return reader;
 	}
-	private Iterator<DirectedEvidence> asEvidence(Iterator<SAMRecord> it) {
+	private Iterator<DirectedEvidence> asEvidence(Iterator<SAMRecord> it, boolean lowBreakpointOnly) {
 		it = new BufferedIterator<>(it, 2); // TODO: remove when https://github.com/samtools/htsjdk/issues/760 is resolved 
 		it = Iterators.transform(it, r -> transform(r));
 		it = Iterators.filter(it, r -> !shouldFilter(r));		
+		if (lowBreakpointOnly) {
+			it = Iterators.filter(it, r -> couldSupportLowBreakpoint(r));
+		}
 		Iterator<DirectedEvidence> eit = new DirectedEvidenceIterator(it, this, minIndelSize());
 		eit = Iterators.filter(eit, e -> !shouldFilter(e));
+		if (lowBreakpointOnly) {
+			LinearGenomicCoordinate linear = getContext().getLinear();
+			eit = Iterators.filter(eit, e -> isLowBreakpoint(linear, e));
+		}
 		eit = new DirectEvidenceWindowedSortingIterator<DirectedEvidence>(getContext(), getSortWindowSize(), eit);
 		if (Defaults.SANITY_CHECK_ITERATORS) {
 			// Can't enforce pairing as there may actually be duplicates depending on how multi-mapping alignment was performed
@@ -317,9 +596,8 @@ public class SAMEvidenceSource extends EvidenceSource {
 			int mateRef = r.getMateReferenceIndex();
 			int mateStart = r.getMateAlignmentStart();
 			int mateEnd = mateStart;
-			String mc = r.getStringAttribute(SAMTag.MC.name());
-			if (mc != null) {
-				Cigar mateCigar = TextCigarCodec.decode(mc);
+			Cigar mateCigar = SAMRecordUtil.getMateCigar(r);
+			if (mateCigar != null) {
 				mateEnd += mateCigar.getReferenceLength() - 1;
 			}
 			if (getBlacklistedRegions().overlaps(mateRef, mateStart, mateEnd)) {
@@ -358,6 +636,60 @@ public class SAMEvidenceSource extends EvidenceSource {
 		}
 		return false;
 	}
+	/**
+	 * Determines whether the given evidence is breakpoint evidence whose local breakend
+	 * starts at or before the remote breakend. Variant calling considers only these
+	 * evidence since the remaining half of each breakpoint is redundant.
+	 * @param linear linear genomic coordinate lookup
+	 * @param e evidence
+	 * @return true if the evidence is the low breakend half of breakpoint evidence
+	 */
+	public static boolean isLowBreakpoint(LinearGenomicCoordinate linear, DirectedEvidence e) {
+		BreakendSummary bs = e.getBreakendSummary();
+		if (!(bs instanceof BreakpointSummary)) return false;
+		BreakpointSummary bp = (BreakpointSummary)bs;
+		return linear.getLinearCoordinate(bp.referenceIndex, bp.start) <= linear.getLinearCoordinate(bp.referenceIndex2, bp.start2);
+	}
+	/**
+	 * Determines whether the given record could support evidence for which
+	 * {@link #isLowBreakpoint(LinearGenomicCoordinate, DirectedEvidence)} holds.
+	 * 
+	 * Soft clips only support breakends and indels always support a low breakend
+	 * so only split read and discordant read pair breakpoints need to be considered.
+	 * The local breakend of discordant read pair evidence cannot start more than the
+	 * maximum fragment size before the read alignment, and the remote breakend cannot
+	 * start after the mate alignment. Split read breakend bounds are extended by at
+	 * most the read length for each of the alignment overlap, inexact anchor
+	 * and homology adjustments.
+	 * @param r record
+	 * @return false if the record can only support breakend evidence, or the high
+	 * breakend half of breakpoint evidence
+	 */
+	private boolean couldSupportLowBreakpoint(SAMRecord r) {
+		for (CigarElement ce : r.getCigar().getCigarElements()) {
+			if (ce.getOperator().isIndelOrSkippedRegion()) return true;
+		}
+		LinearGenomicCoordinate linear = getContext().getLinear();
+		long localStart = linear.getLinearCoordinate(r.getReferenceIndex(), r.getAlignmentStart());
+		if (r.getReadPairedFlag() && !r.getMateUnmappedFlag() && !r.getSupplementaryAlignmentFlag()) {
+			Cigar mateCigar = SAMRecordUtil.getMateCigar(r);
+			if (mateCigar == null) return true;
+			long mateEnd = linear.getLinearCoordinate(r.getMateReferenceIndex(), r.getMateAlignmentStart() + mateCigar.getReferenceLength() - 1);
+			if (localStart - getMaxConcordantFragmentSize() <= mateEnd) return true;
+		}
+		List<ChimericAlignment> chim = ChimericAlignment.getChimericAlignments(r);
+		if (!chim.isEmpty()) {
+			int margin = 3 * (r.getReadLength() + SAMRecordUtil.getStartClipLength(r) + SAMRecordUtil.getEndClipLength(r));
+			SAMSequenceDictionary dict = getContext().getDictionary();
+			for (ChimericAlignment ca : chim) {
+				int referenceIndex = dict.getSequenceIndex(ca.rname);
+				if (referenceIndex < 0) return true;
+				long caEnd = linear.getLinearCoordinate(referenceIndex, ca.pos + ca.cigar.getReferenceLength() - 1);
+				if (localStart - margin <= caEnd + margin) return true;
+			}
+		}
+		return false;
+	}
 	private IntervalBed blacklist = null;
 	public IntervalBed getBlacklistedRegions() {
 		if (blacklist == null) {
@@ -367,9 +699,9 @@ public class SAMEvidenceSource extends EvidenceSource {
 				return getContext().getBlacklistedRegions();
 			}
 			try {
-				blacklist = IntervalBed.merge(getContext().getDictionary(), getContext().getLinear(), ImmutableList.of(
+				blacklist = IntervalBed.merge(getContext().getDictionary(), ImmutableList.of(
 						getContext().getBlacklistedRegions(),
-						new IntervalBed(getContext().getDictionary(), getContext().getLinear(), coverageBlacklist)
+						new IntervalBed(getContext().getDictionary(), coverageBlacklist)
 						));
 			} catch (IOException e) {
 				log.error(e);
@@ -496,9 +828,12 @@ public class SAMEvidenceSource extends EvidenceSource {
 		return merged;
 	}
 	public static CloseableIterator<DirectedEvidence> mergedIterator(final List<SAMEvidenceSource> source, final QueryInterval[] intervals) {
+		return mergedIterator(source, intervals, false);
+	}
+	public static CloseableIterator<DirectedEvidence> mergedIterator(final List<SAMEvidenceSource> source, final QueryInterval[] intervals, boolean lowBreakpointOnly) {
 		List<CloseableIterator<DirectedEvidence>> toMerge = Lists.newArrayList();
 		for (SAMEvidenceSource bam : source) {
-			CloseableIterator<DirectedEvidence> it = bam.iterator(intervals);
+			CloseableIterator<DirectedEvidence> it = bam.iterator(intervals, lowBreakpointOnly);
 			toMerge.add(it);
 		}
 		CloseableIterator<DirectedEvidence> merged = new AutoClosingMergedIterator<DirectedEvidence>(toMerge, DirectedEvidenceOrder.ByNatural);
@@ -1,15 +1,18 @@
 package au.edu.wehi.idsv;
 
 import java.io.Closeable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableList;
 
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
+import htsjdk.samtools.QueryInterval;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
@@ -35,20 +38,33 @@ public class SequentialCoverageAnnotator<T extends VariantContextDirectedEvidenc
 	private final Iterator<T> it;
 	private final List<Closeable> toclose = new ArrayList<>();
 	private final ExecutorService threadpool;
+	/**
+	 * Number of variants annotated by each coverage task
+	 */
+	private static final int BATCH_SIZE = 256;
+	private final ArrayDeque<T> annotated = new ArrayDeque<>();
 	public SequentialCoverageAnnotator(ProcessingContext context, List<SAMEvidenceSource> sources, Iterator<T> it, int windowSize, ExecutorService threadpool) {
+		this(context, sources, it, windowSize, null, threadpool);
+	}
+	/**
+	 * Creates a coverage annotator using only the reads overlapping the given intervals
+	 * @param intervals sorted, non-overlapping intervals of reads to load. Null loads all reads.
+	 * Input files must be indexed if intervals are specified.
+	 */
+	public SequentialCoverageAnnotator(ProcessingContext context, List<SAMEvidenceSource> sources, Iterator<T> it, int windowSize, QueryInterval[] intervals, ExecutorService threadpool) {
 		this.context = context;
-		this.reference = createLookup(context, sources, windowSize);
+		this.reference = createLookup(context, sources, windowSize, intervals);
 		this.it = it;
 		this.threadpool = threadpool;
 	}
-	private List<ReferenceCoverageLookup> createLookup(ProcessingContext context, List<SAMEvidenceSource> sources, int windowSize) {
+	private List<ReferenceCoverageLookup> createLookup(ProcessingContext context, List<SAMEvidenceSource> sources, int windowSize, QueryInterval[] intervals) {
 		List<ReferenceCoverageLookup> result = new ArrayList<>();
 		for (SAMEvidenceSource ses : sources) {
 			assert(ses.getSourceCategory() >= 0);
 			assert(ses.getSourceCategory() < context.getCategoryCount());
 			// one read-ahead thread per input file
 			SamReader reader = SamReaderFactory.makeDefault().open(ses.getFile());
-			SAMRecordIterator rawIterator = reader.iterator();
+			SAMRecordIterator rawIterator = intervals == null ? reader.iterator() : reader.queryOverlapping(intervals);
 			rawIterator.assertSorted(SortOrder.coordinate);
 			CloseableIterator<SAMRecord> sit = new AsyncBufferedIterator<SAMRecord>(rawIterator, ses.getFile().getName() + "-Coverage");
 			toclose.add(sit); // close the async iterator first to prevent aysnc reading from a closed stream 
@@ -71,58 +87,91 @@ public class SequentialCoverageAnnotator<T extends VariantContextDirectedEvidenc
 		this.reference = reference;
 		this.threadpool = threadpool;
 	}
+	/**
+	 * Coverage of a batch of variants for a single input
+	 */
 	private static class CoverageResult {
-		public CoverageResult(int reads, int spans) {
+		public CoverageResult(int[] reads, int[] spans) {
 			this.readsSupportingNoBreakendAfter = reads;
 			this.readPairsSupportingNoBreakendAfter = spans;
 		}
-		public final int readsSupportingNoBreakendAfter;
-		public final int readPairsSupportingNoBreakendAfter;
+		public final int[] readsSupportingNoBreakendAfter;
+		public final int[] readPairsSupportingNoBreakendAfter;
 	}
-	private static CoverageResult calculateCoverage(ReferenceCoverageLookup lookup, int referenceIndex, int start, int end) {
-		int reads = IntStream.range(start, end)
-				.map(p -> lookup.readsSupportingNoBreakendAfter(referenceIndex, p))
-				.min().getAsInt();
-		int spans = IntStream.range(start, end)
-				.map(p -> lookup.readPairsSupportingNoBreakendAfter(referenceIndex, p))
-				.min().getAsInt();
+	private static CoverageResult calculateCoverage(ReferenceCoverageLookup lookup, int[] referenceIndex, int[] start, int[] end) {
+		int[] reads = new int[referenceIndex.length];
+		int[] spans = new int[referenceIndex.length];
+		for (int i = 0; i < referenceIndex.length; i++) {
+			reads[i] = lookup.minReadsSupportingNoBreakendAfter(referenceIndex[i], start[i], end[i]);
+			spans[i] = lookup.minReadPairsSupportingNoBreakendAfter(referenceIndex[i], start[i], end[i]);
+		}
 		return new CoverageResult(reads, spans);
 	}
-	@SuppressWarnings("unchecked")
 	public T annotate(T variant) {
-		BreakendSummary loc = variant.getBreakendSummary();
-		int referenceIndex = loc.referenceIndex;
-		int offset = loc.direction == BreakendDirection.Forward ? 0 : -1;
-		int start = loc.start + offset;
-		int end = loc.end + 1 + offset;
+		return annotate(ImmutableList.of(variant)).get(0);
+	}
+	/**
+	 * Annotates a batch of variants.
+	 * 
+	 * The coverage of all variants in the batch is calculated by a single task for each input. 
+	 * @param variants variants to annotate
+	 * @return annotated variants
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> annotate(List<T> variants) {
+		int n = variants.size();
+		int[] referenceIndex = new int[n];
+		int[] start = new int[n];
+		int[] end = new int[n];
+		for (int i = 0; i < n; i++) {
+			BreakendSummary loc = variants.get(i).getBreakendSummary();
+			int offset = loc.direction == BreakendDirection.Forward ? 0 : -1;
+			referenceIndex[i] = loc.referenceIndex;
+			start[i] = loc.start + offset;
+			end[i] = loc.end + 1 + offset;
+		}
 		List<Future<CoverageResult>> tasks = new ArrayList<>();
 		for (ReferenceCoverageLookup rcl : reference) {
 			tasks.add(threadpool.submit(() -> calculateCoverage(rcl, referenceIndex, start, end)));
 		}
 		try {
-			int[] reads = new int[context.getCategoryCount()];
-			int[] spans = new int[context.getCategoryCount()];
-			for (int i = 0; i < reference.size(); i++) {
-				ReferenceCoverageLookup rcl = reference.get(i);
+			int[][] reads = new int[n][context.getCategoryCount()];
+			int[][] spans = new int[n][context.getCategoryCount()];
+			for (int j = 0; j < reference.size(); j++) {
+				ReferenceCoverageLookup rcl = reference.get(j);
 				assert(rcl.getCategory() < context.getCategoryCount());
-				reads[rcl.getCategory()] += tasks.get(i).get().readsSupportingNoBreakendAfter;
-				spans[rcl.getCategory()] += tasks.get(i).get().readPairsSupportingNoBreakendAfter;
+				CoverageResult cr = tasks.get(j).get();
+				for (int i = 0; i < n; i++) {
+					reads[i][rcl.getCategory()] += cr.readsSupportingNoBreakendAfter[i];
+					spans[i][rcl.getCategory()] += cr.readPairsSupportingNoBreakendAfter[i];
+				}
+			}
+			List<T> result = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				IdsvVariantContextBuilder builder = new IdsvVariantContextBuilder(context, variants.get(i));
+				builder.referenceReads(reads[i]);
+				builder.referenceSpanningPairs(spans[i]);
+				result.add((T)builder.make());
 			}
-			IdsvVariantContextBuilder builder = new IdsvVariantContextBuilder(context, variant);
-			builder.referenceReads(reads);
-			builder.referenceSpanningPairs(spans);
-			return (T)builder.make();
+			return result;
 		} catch (ExecutionException | InterruptedException e) {
 			throw new RuntimeException(e);
 		}
 	}
 	@Override
 	public boolean hasNext() {
-		return it.hasNext();
+		return !annotated.isEmpty() || it.hasNext();
 	}
 	@Override
 	public T next() {
-		return annotate(it.next());
+		if (annotated.isEmpty()) {
+			List<T> batch = new ArrayList<>(BATCH_SIZE);
+			while (batch.size() < BATCH_SIZE && it.hasNext()) {
+				batch.add(it.next());
+			}
+			annotated.addAll(annotate(batch));
+		}
+		return annotated.poll();
 	}
 	@Override
 	public void close() {
@@ -19,7 +19,7 @@ public class SequentialEvidenceAssemblyAllocator implements Iterator<SequentialE
 	private final PeekingIterator<? extends DirectedEvidence> evidenceIt;
 	private final PeekingIterator<SAMRecord> assemblyIt;
 	private final ArrayDeque<BreakendAssemblyEvidenceSupport> assemblyBuffer = new ArrayDeque<>();
-	private final Multimap<String, BreakendAssemblyEvidenceSupport> evidenceIdToAssembly = TreeMultimap.create();
+	private final Multimap<EvidenceIdentifier, BreakendAssemblyEvidenceSupport> evidenceIdToAssembly = TreeMultimap.create();
 	public static class BreakendAssemblyEvidenceSupport implements Comparable<BreakendAssemblyEvidenceSupport> {
 		public final SAMRecord assemblyRecord;
 		public final List<DirectedEvidence> support = new ArrayList<>();
@@ -58,7 +58,7 @@ public class SequentialEvidenceAssemblyAllocator implements Iterator<SequentialE
 	public BreakendAssemblyEvidenceSupport next() {
 		if (!hasNext()) throw new NoSuchElementException();
 		BreakendAssemblyEvidenceSupport node = assemblyBuffer.pop();
-		for (String evidenceid : new AssemblyAttributes(node.assemblyRecord).getEvidenceIDs()) {
+		for (EvidenceIdentifier evidenceid : new AssemblyAttributes(node.assemblyRecord).getEvidenceIdentifiers()) {
 			evidenceIdToAssembly.remove(evidenceid, node);
 		}
 		return node;
@@ -82,7 +82,7 @@ public class SequentialEvidenceAssemblyAllocator implements Iterator<SequentialE
 		}
 	}
 	private void allocateRead(DirectedEvidence read) {
-		String evidenceid = read.getEvidenceID();
+		EvidenceIdentifier evidenceid = read.getEvidenceIdentifier();
 		for (BreakendAssemblyEvidenceSupport node : evidenceIdToAssembly.get(evidenceid)) {
 			node.support.add(read);
 		}
@@ -100,7 +100,7 @@ public class SequentialEvidenceAssemblyAllocator implements Iterator<SequentialE
 	private void loadAssembly(SAMRecord assembly) {
 		BreakendAssemblyEvidenceSupport node = new BreakendAssemblyEvidenceSupport(assembly);
 		AssemblyAttributes attr = new AssemblyAttributes(assembly);
-		for (String evidenceid : attr.getEvidenceIDs()) {
+		for (EvidenceIdentifier evidenceid : attr.getEvidenceIdentifiers()) {
 			evidenceIdToAssembly.put(evidenceid, node);
 		}
 		assemblyBuffer.add(node);
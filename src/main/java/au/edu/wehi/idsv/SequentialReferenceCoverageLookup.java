@@ -12,7 +12,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Queues;
 
-import au.edu.wehi.idsv.util.SlidingWindowList;
+import au.edu.wehi.idsv.util.SlidingWindowRangeMinimum;
 import au.edu.wehi.idsv.visualisation.TrackedBuffer;
 import gridss.analysis.IdsvMetrics;
 import htsjdk.samtools.SAMRecord;
@@ -44,8 +44,8 @@ public class SequentialReferenceCoverageLookup implements Closeable, ReferenceCo
 	private int currentReferenceIndex = -1;
 	private int currentPosition;
 	private int largestWindow;
-	private SlidingWindowList<Integer> readCounts;
-	private SlidingWindowList<Integer> pairCounts;
+	private SlidingWindowRangeMinimum readCounts;
+	private SlidingWindowRangeMinimum pairCounts;
 	/**
 	 * Used to check the data is sequential
 	 */
@@ -83,15 +83,17 @@ public class SequentialReferenceCoverageLookup implements Closeable, ReferenceCo
 		}
 		toClose.clear();
 	}
-	private int getCount(SlidingWindowList<Integer> counts, int referenceIndex, int position) {
+	private int getCount(SlidingWindowRangeMinimum counts, int referenceIndex, int position) {
 		if (counts.size() <= position) return 0;
 		// 10 10 0 good
 		// 2 1 1 good
 		// 0 1 1 bad
 		if (position < counts.size() - counts.getWindowSize()) throw new IllegalArgumentException(String.format("position %d outside of window of size %d ending at position %d", position, counts.getWindowSize(), counts.size()));
-		Integer count = counts.get(position);
-		if (count == null) return 0;
-		return (int)count;
+		return counts.get(position);
+	}
+	private int getMinCount(SlidingWindowRangeMinimum counts, int referenceIndex, int start, int end) {
+		if (start < counts.size() - counts.getWindowSize()) throw new IllegalArgumentException(String.format("position %d outside of window of size %d ending at position %d", start, counts.getWindowSize(), counts.size()));
+		return counts.min(start, end);
 	}
 	/* (non-Javadoc)
 	 * @see au.edu.wehi.idsv.ReferenceCoverageLookup#readsSupportingNoBreakendAfter(int, int)
@@ -109,6 +111,22 @@ public class SequentialReferenceCoverageLookup implements Closeable, ReferenceCo
 		ensure(referenceIndex, position);
 		return getCount(pairCounts, referenceIndex, position);
 	}
+	/* (non-Javadoc)
+	 * @see au.edu.wehi.idsv.ReferenceCoverageLookup#minReadsSupportingNoBreakendAfter(int, int, int)
+	 */
+	@Override
+	public int minReadsSupportingNoBreakendAfter(int referenceIndex, int start, int end) {
+		ensure(referenceIndex, end - 1);
+		return getMinCount(readCounts, referenceIndex, start, end);
+	}
+	/* (non-Javadoc)
+	 * @see au.edu.wehi.idsv.ReferenceCoverageLookup#minReadPairsSupportingNoBreakendAfter(int, int, int)
+	 */
+	@Override
+	public int minReadPairsSupportingNoBreakendAfter(int referenceIndex, int start, int end) {
+		ensure(referenceIndex, end - 1);
+		return getMinCount(pairCounts, referenceIndex, start, end);
+	}
 	/**
 	 * Ensures the given position has been processed
 	 * @param referenceIndex
@@ -130,8 +148,13 @@ public class SequentialReferenceCoverageLookup implements Closeable, ReferenceCo
 			currentReferenceRead.clear();
 			currentStartReferencePairs.clear();
 			currentEndReferencePairs.clear();
-			readCounts = new SlidingWindowList<Integer>(largestWindow);
-			pairCounts = new SlidingWindowList<Integer>(largestWindow);
+			if (readCounts == null) {
+				readCounts = new SlidingWindowRangeMinimum(largestWindow);
+				pairCounts = new SlidingWindowRangeMinimum(largestWindow);
+			} else {
+				readCounts.clear();
+				pairCounts.clear();
+			}
 		}
 		// skip until we're close to out window
 		while (reads.hasNext() && reads.peek().getReferenceIndex() < currentReferenceIndex) {
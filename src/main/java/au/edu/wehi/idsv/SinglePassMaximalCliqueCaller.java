@@ -0,0 +1,143 @@
+package au.edu.wehi.idsv;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.collect.AbstractIterator;
+
+import au.edu.wehi.idsv.graph.MaximalCliqueCalculator;
+import au.edu.wehi.idsv.graph.RectangleGraphNode;
+
+/**
+ * Calls the maximal evidence cliques of multiple breakpoint direction pairs
+ * in a single pass over the evidence.
+ *
+ * Each evidence record is routed to the clique calculator of the matching
+ * direction pair. Cliques of all direction pairs are returned in the order
+ * they are called as the evidence is processed, so only the cliques called
+ * by the most recent evidence record are buffered.
+ *
+ * The cliques called for each direction are identical to those called by
+ * @see MaximalEvidenceCliqueIterator over the same evidence.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class SinglePassMaximalCliqueCaller {
+	/**
+	 * Graph node sort window. Matches the window used by MaximalEvidenceCliqueIterator
+	 */
+	private static final int SORT_WINDOW_SIZE = 1;
+	private final ProcessingContext context;
+	private final Iterator<DirectedEvidence> it;
+	private final List<Pair<BreakendDirection, BreakendDirection>> directions;
+	private final List<DirectionalCliqueCalculator> calc = new ArrayList<>();
+	private final ArrayDeque<Pair<Integer, RectangleGraphNode>> called = new ArrayDeque<>();
+	private boolean complete = false;
+	public SinglePassMaximalCliqueCaller(ProcessingContext context, Iterator<DirectedEvidence> it, List<Pair<BreakendDirection, BreakendDirection>> directions) {
+		this.context = context;
+		this.it = it;
+		this.directions = directions;
+		for (int i = 0; i < directions.size(); i++) {
+			calc.add(new DirectionalCliqueCalculator(i, MaximalEvidenceCliqueIterator.createMaximalCliqueCalculator(context)));
+		}
+	}
+	/**
+	 * Maximal cliques of all direction pairs
+	 * @return index of the direction pair and maximal clique. The cliques of each
+	 * direction pair are in the same order as those returned by @see RectangleGraphMaximalCliqueIterator
+	 */
+	public Iterator<Pair<Integer, RectangleGraphNode>> cliques() {
+		return new AbstractIterator<Pair<Integer, RectangleGraphNode>>() {
+			@Override
+			protected Pair<Integer, RectangleGraphNode> computeNext() {
+				while (called.isEmpty() && advance());
+				if (called.isEmpty()) return endOfData();
+				return called.poll();
+			}
+		};
+	}
+	/**
+	 * Processes the next evidence record
+	 * @return false if there is no more evidence to process
+	 */
+	private boolean advance() {
+		if (complete) return false;
+		if (it.hasNext()) {
+			DirectedEvidence e = it.next();
+			BreakendSummary loc = e.getBreakendSummary();
+			if (loc instanceof BreakpointSummary) {
+				BreakpointSummary bp = (BreakpointSummary)loc;
+				RectangleGraphNode node = MaximalEvidenceCliqueIterator.toGraphNode(context, e, bp.direction, bp.direction2);
+				if (node != null) {
+					for (int i = 0; i < directions.size(); i++) {
+						if (directions.get(i).getLeft() == bp.direction && directions.get(i).getRight() == bp.direction2) {
+							calc.get(i).add(node);
+						}
+					}
+				}
+			}
+		} else {
+			for (DirectionalCliqueCalculator dcc : calc) {
+				dcc.complete();
+			}
+			complete = true;
+		}
+		return true;
+	}
+	/**
+	 * Push-based equivalent of the windowed sort, node merge, and maximal clique iterator
+	 * pipeline used by @see MaximalEvidenceCliqueIterator
+	 */
+	private class DirectionalCliqueCalculator {
+		private final PriorityQueue<RectangleGraphNode> sortBuffer = new PriorityQueue<>(32, RectangleGraphNode.ByStartXYEndXY);
+		private final int directionOrdinal;
+		private final MaximalCliqueCalculator calc;
+		private RectangleGraphNode lastSorted = null;
+		private RectangleGraphNode pending = null;
+		public DirectionalCliqueCalculator(int directionOrdinal, MaximalCliqueCalculator calc) {
+			this.directionOrdinal = directionOrdinal;
+			this.calc = calc;
+		}
+		public void add(RectangleGraphNode node) {
+			while (!sortBuffer.isEmpty() && node.startX > sortBuffer.peek().startX + SORT_WINDOW_SIZE) {
+				merge(sortBuffer.poll());
+			}
+			sortBuffer.add(node);
+		}
+		private void merge(RectangleGraphNode node) {
+			if (lastSorted != null && RectangleGraphNode.ByStartXYEndXY.compare(lastSorted, node) > 0) {
+				throw new IllegalStateException(String.format("Unable to sort output with window size of %d. %s emitted before %s", SORT_WINDOW_SIZE, lastSorted, node));
+			}
+			lastSorted = node;
+			if (pending != null && pending.isSameCoordinate(node)) {
+				pending = new RectangleGraphNode(pending.startX, pending.endX, pending.startY, pending.endY, pending.weight + node.weight);
+			} else {
+				if (pending != null) {
+					addCalled(calc.next(pending));
+				}
+				pending = node;
+			}
+		}
+		public void complete() {
+			while (!sortBuffer.isEmpty()) {
+				merge(sortBuffer.poll());
+			}
+			if (pending != null) {
+				addCalled(calc.next(pending));
+				pending = null;
+			}
+			addCalled(calc.complete());
+		}
+		private void addCalled(List<RectangleGraphNode> cliques) {
+			for (RectangleGraphNode clique : cliques) {
+				called.add(Pair.of(directionOrdinal, clique));
+			}
+		}
+	}
+}
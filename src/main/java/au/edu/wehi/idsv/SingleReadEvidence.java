@@ -29,6 +29,7 @@ public abstract class SingleReadEvidence implements DirectedEvidence {
 	private final byte[] breakendQuals;
 	private final boolean isUnanchored;
 	private String evidenceid;
+	private EvidenceIdentifier evidenceIdentifier;
 	private boolean unableToCalculateHomology = false;
 	
 	public static List<SingleReadEvidence> createEvidence(SAMEvidenceSource source, int minIndelSize, SAMRecord record) {
@@ -287,6 +288,14 @@ public abstract class SingleReadEvidence implements DirectedEvidence {
 		return evidenceid;
 	}
 	
+	@Override
+	public EvidenceIdentifier getEvidenceIdentifier() {
+		if (evidenceIdentifier == null) {
+			evidenceIdentifier = EvidenceIdentifier.of(getEvidenceID());
+		}
+		return evidenceIdentifier;
+	}
+	
 	public String getHomologySequence() {
 		if (unableToCalculateHomology) throw new IllegalStateException("Unable to calculate homology as reference genome has not been supplied");
 		if (!isBreakendExact()) return "";
@@ -1,10 +1,14 @@
 package au.edu.wehi.idsv;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 
+import com.google.common.collect.ImmutableList;
+
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SAMUtils;
@@ -37,21 +41,36 @@ public class SplitReadFastqExtractionIterator implements Iterator<FastqRecord> {
 	private void ensureBuffer() {
 		while (buffer.isEmpty() && it.hasNext()) {
 			SAMRecord r = it.next();
-			if (r.getReadUnmappedFlag()) continue;
-			// Logic for extending an existing SA alignment not yet complete. Need to:
-			// - only realign bases not in any existing SA alignment
-			// - update all SA record (requires queryname sorted input file)
-			if (r.getAttribute(SAMTag.SA.name()) != null) continue;
-			if (r.getSupplementaryAlignmentFlag()) continue;
-			if (r.getNotPrimaryAlignmentFlag() && !processSecondaryAlignments) {
-				continue;
-			}
-			for (FastqRecord fqr : SplitReadIdentificationHelper.getSplitReadRealignments(r, isSplit)) {
-				if (fqr.length() < minSoftClipLength) continue;
-				if (averageBaseQuality(fqr) < minClipQuality) continue;
-				buffer.add(fqr);
-			}
+			buffer.addAll(getSplitReadFastqRecords(r, isSplit, minSoftClipLength, minClipQuality, processSecondaryAlignments));
+		}
+	}
+	/**
+	 * Gets the split read fastq records to realign for the given alignment
+	 * @param r alignment
+	 * @return fastq records to realign. An empty list is returned if no bases require realignment.
+	 */
+	public static List<FastqRecord> getSplitReadFastqRecords(
+			SAMRecord r,
+			boolean isSplit,
+			int minSoftClipLength,
+			float minClipQuality,
+			boolean processSecondaryAlignments) {
+		if (r.getReadUnmappedFlag()) return ImmutableList.of();
+		// Logic for extending an existing SA alignment not yet complete. Need to:
+		// - only realign bases not in any existing SA alignment
+		// - update all SA record (requires queryname sorted input file)
+		if (r.getAttribute(SAMTag.SA.name()) != null) return ImmutableList.of();
+		if (r.getSupplementaryAlignmentFlag()) return ImmutableList.of();
+		if (r.getNotPrimaryAlignmentFlag() && !processSecondaryAlignments) {
+			return ImmutableList.of();
+		}
+		List<FastqRecord> list = new ArrayList<>(2);
+		for (FastqRecord fqr : SplitReadIdentificationHelper.getSplitReadRealignments(r, isSplit)) {
+			if (fqr.length() < minSoftClipLength) continue;
+			if (averageBaseQuality(fqr) < minClipQuality) continue;
+			list.add(fqr);
 		}
+		return list;
 	}
 	private static double averageBaseQuality(FastqRecord fqr) {
 		long sum = 0;
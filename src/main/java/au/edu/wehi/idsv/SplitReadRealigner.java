@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.PeekingIterator;
@@ -16,6 +17,7 @@ import au.edu.wehi.idsv.sam.NmTagIterator;
 import au.edu.wehi.idsv.sam.SAMFileUtil;
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
 import au.edu.wehi.idsv.util.FileHelper;
+import htsjdk.samtools.BAMRecordCodec;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
@@ -23,9 +25,11 @@ import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.fastq.FastqRecord;
 import htsjdk.samtools.fastq.FastqWriter;
 import htsjdk.samtools.fastq.FastqWriterFactory;
 import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.DiskBackedQueue;
 import htsjdk.samtools.util.Log;
 
 public class SplitReadRealigner {
@@ -96,34 +100,114 @@ public class SplitReadRealigner {
 			Files.move(tmpfq, fq);
 			tmpFiles.add(fq);
 			tmpFiles.add(tmpfq);
-			List<File> aligned = new ArrayList<>();
-			while (recordsWritten > 0) {
-				// Align
-				File out = pc.getFileSystemContext().getRealignmentBam(input, iteration);
-				File tmpout = FileSystemContext.getWorkingFileFor(out);
-				tmpFiles.add(out);
-				tmpFiles.add(tmpout);
-				aligner.align(fq, tmpout, pc.getReferenceFile(), workerThreads);
-				FileHelper.move(tmpout, out, true);
-				aligned.add(out);
-				// start next iteration
-				iteration++;
-				fq = pc.getFileSystemContext().getRealignmentFastq(out, iteration);
-				tmpfq = FileSystemContext.getWorkingFileFor(fq);
-				tmpFiles.add(fq);
-				tmpFiles.add(tmpfq);
-				recordsWritten = createSupplementaryAlignmentFastq(out, tmpfq, true);
-				Files.move(tmpfq, fq);
-			}
+			List<File> aligned = align(input, fq, recordsWritten);
 			mergeSupplementaryAlignment(input, aligned, output);
 		} finally {
-			if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
-				for (File f : tmpFiles) {
-					if (f.exists()) {
-						FileHelper.delete(f, true);
+			deleteTemporaryFiles();
+		}
+	}
+	/**
+	 * Identifies split reads without writing the input records to an intermediate file.
+	 * 
+	 * Records requiring realignment are held in a disk-backed queue until
+	 * realignment is complete. All other records are written directly to the output.
+	 * 
+	 * @param input records to identify split reads for
+	 * @param header header of the input records
+	 * @param workingFile file used to name intermediate realignment files
+	 * @param output output writer. Records are not written in input order.
+	 */
+	public void createSupplementaryAlignments(Iterator<SAMRecord> input, SAMFileHeader header, File workingFile, SAMFileWriter output) throws IOException {
+		FileSystemContext fsc = pc.getFileSystemContext();
+		DiskBackedQueue<SAMRecord> pending = DiskBackedQueue.newInstance(new BAMRecordCodec(header), fsc.getMaxBufferedRecordsPerFile(), ImmutableList.of(fsc.getTemporaryDirectory()));
+		List<SamReader> suppReaders = new ArrayList<>();
+		List<PeekingIterator<SAMRecord>> suppIt = new ArrayList<>();
+		try {
+			int iteration = 0;
+			File fq = fsc.getRealignmentFastq(workingFile, iteration);
+			File tmpfq = FileSystemContext.getWorkingFileFor(fq, "gridss.tmp.SplitReadRealigner.");
+			tmpFiles.add(fq);
+			tmpFiles.add(tmpfq);
+			int recordsWritten = 0;
+			try (FastqWriter writer = fastqWriterFactory.newWriter(tmpfq)) {
+				while (input.hasNext()) {
+					SAMRecord r = input.next();
+					List<FastqRecord> fqlist = SplitReadFastqExtractionIterator.getSplitReadFastqRecords(r, false, minSoftClipLength, minSoftClipQuality, isProcessSecondaryAlignments());
+					if (fqlist.isEmpty()) {
+						output.addAlignment(r);
+					} else {
+						pending.add(r);
+						for (FastqRecord fqr : fqlist) {
+							writer.write(fqr);
+							recordsWritten++;
+						}
 					}
 				}
 			}
+			Files.move(tmpfq, fq);
+			List<File> aligned = align(workingFile, fq, recordsWritten);
+			log.info("Merging split read alignments for ", workingFile);
+			for (File sf : aligned) {
+				SamReader suppReader = readerFactory.open(sf);
+				suppReaders.add(suppReader);
+				suppIt.add(new AsyncBufferedIterator<>(new NmTagIterator(suppReader.iterator(), pc.getReference()), sf.getName()));
+			}
+			Iterator<SAMRecord> pendingIt = new AbstractIterator<SAMRecord>() {
+				@Override
+				protected SAMRecord computeNext() {
+					SAMRecord r = pending.poll();
+					return r == null ? endOfData() : r;
+				}
+			};
+			mergeSupplementaryAlignment(new NmTagIterator(pendingIt, pc.getReference()), suppIt, output, output);
+		} finally {
+			for (Iterator<SAMRecord> it : suppIt) {
+				CloserUtil.close(it);
+			}
+			for (SamReader sr : suppReaders) {
+				sr.close();
+			}
+			pending.clear();
+			deleteTemporaryFiles();
+		}
+	}
+	/**
+	 * Iteratively realigns the given fastq until no further split reads are found
+	 * @param input file used to name intermediate realignment files
+	 * @param fq fastq to realign
+	 * @param recordsWritten number of records in fq
+	 * @return realigned alignment files
+	 */
+	private List<File> align(File input, File fq, int recordsWritten) throws IOException {
+		int iteration = 0;
+		List<File> aligned = new ArrayList<>();
+		while (recordsWritten > 0) {
+			// Align
+			File out = pc.getFileSystemContext().getRealignmentBam(input, iteration);
+			File tmpout = FileSystemContext.getWorkingFileFor(out);
+			tmpFiles.add(out);
+			tmpFiles.add(tmpout);
+			aligner.align(fq, tmpout, pc.getReferenceFile(), workerThreads);
+			FileHelper.move(tmpout, out, true);
+			aligned.add(out);
+			// start next iteration
+			iteration++;
+			fq = pc.getFileSystemContext().getRealignmentFastq(out, iteration);
+			File tmpfq = FileSystemContext.getWorkingFileFor(fq);
+			tmpFiles.add(fq);
+			tmpFiles.add(tmpfq);
+			recordsWritten = createSupplementaryAlignmentFastq(out, tmpfq, true);
+			Files.move(tmpfq, fq);
+		}
+		return aligned;
+	}
+	private void deleteTemporaryFiles() throws IOException {
+		if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
+			for (File f : tmpFiles) {
+				if (f.exists()) {
+					FileHelper.delete(f, true);
+				}
+			}
 		}
 	}
 	private void mergeSupplementaryAlignment(File input, List<File> aligned, File output) throws IOException {
@@ -52,7 +52,8 @@ public class VariantCallIterator implements CloseableIterator<VariantContextDire
 		this.idGenerator = new SequentialIdGenerator(String.format("gridss%d_", intervalNumber));
 		int expandBy = source.getMaxConcordantFragmentSize() + 1;
 		QueryInterval[] expanded = QueryIntervalUtil.padIntervals(processContext.getDictionary(), interval, expandBy);
-		this.iteratorGenerator = () -> source.iterator(expanded);
+		// breakends and high breakend halves are not used for breakpoint calling
+		this.iteratorGenerator = () -> source.iterator(expanded, true);
 		this.filterInterval = interval;
 		this.currentDirectionOrdinal = 0;
 		reinitialiseIterator();
@@ -63,12 +64,26 @@ public class VariantCallIterator implements CloseableIterator<VariantContextDire
 		CloserUtil.close(currentUnderlyingIterator);
 		if (currentDirectionOrdinal >= DIRECTION_ORDER.size()) return;
 		currentUnderlyingIterator = iteratorGenerator.get();
-		currentIterator = new MaximalEvidenceCliqueIterator(
-				processContext,
-				currentUnderlyingIterator,
-				DIRECTION_ORDER.get(currentDirectionOrdinal).getLeft(),
-				DIRECTION_ORDER.get(currentDirectionOrdinal).getRight(),
-				idGenerator);
+		if (processContext.getVariantCallingParameters().singlePassCliqueCalling) {
+			// read the evidence once and call all directions concurrently.
+			// Calls of different directions are interleaved so variant identifiers
+			// differ from those of the multiple pass caller
+			SinglePassMaximalCliqueCaller caller = new SinglePassMaximalCliqueCaller(processContext, currentUnderlyingIterator, DIRECTION_ORDER);
+			currentIterator = Iterators.concat(Iterators.transform(caller.cliques(), call -> new MaximalEvidenceCliqueIterator(
+					processContext,
+					DIRECTION_ORDER.get(call.getLeft()).getLeft(),
+					DIRECTION_ORDER.get(call.getLeft()).getRight(),
+					idGenerator,
+					Iterators.singletonIterator(call.getRight()))));
+			currentDirectionOrdinal = DIRECTION_ORDER.size() - 1;
+		} else {
+			currentIterator = new MaximalEvidenceCliqueIterator(
+					processContext,
+					currentUnderlyingIterator,
+					DIRECTION_ORDER.get(currentDirectionOrdinal).getLeft(),
+					DIRECTION_ORDER.get(currentDirectionOrdinal).getRight(),
+					idGenerator);
+		}
 		if (filterInterval != null) {
 			currentIterator = Iterators.filter(currentIterator, v -> {
 				BreakpointSummary bs = v.getBreakendSummary();
@@ -42,33 +42,52 @@ public class VariantCaller {
 		AggregateEvidenceSource es = new AggregateEvidenceSource(
 				processContext,
 				processContext.getVariantCallingParameters().callOnlyAssemblies ? Collections.emptyList() : samEvidence, assemblyEvidence);
-		List<QueryInterval[]> chunks = processContext.getReference().getIntervals(processContext.getConfig().chunkSize, processContext.getConfig().chunkSequenceChangePenalty);
+		List<SAMEvidenceSource> costSources = new ArrayList<>();
+		if (!processContext.getVariantCallingParameters().callOnlyAssemblies) {
+			costSources.addAll(samEvidence);
+		}
+		if (assemblyEvidence != null) {
+			costSources.add(assemblyEvidence);
+		}
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(processContext,
+				processContext.getReference().getIntervals(processContext.getConfig().chunkSize, processContext.getConfig().chunkSequenceChangePenalty),
+				costSources);
+		List<QueryInterval[]> chunks = scheduler.getChunks();
 		List<File> calledChunk = new ArrayList<>();
-		List<Future<Void>> tasks = new ArrayList<>();
-		
 		for (int i = 0; i < chunks.size(); i++) {
+			calledChunk.add(processContext.getFileSystemContext().getVariantCallChunkVcf(vcf, i));
+		}
+		CheckpointManifest checkpoints = processContext.getCheckpointManifest();
+		String evidence = CheckpointManifest.describe(costSources.stream()
+				.filter(ses -> ses.getFile() != null)
+				.map(ses -> processContext.getFileSystemContext().getSVBam(ses.getFile()))
+				.toArray(File[]::new));
+		List<Future<Void>> tasks = new ArrayList<>();
+		for (int i : scheduler.getExecutionOrder()) {
 			QueryInterval[] chunck = chunks.get(i);
-			File f = processContext.getFileSystemContext().getVariantCallChunkVcf(vcf, i);
+			File f = calledChunk.get(i);
 			int chunkNumber = i;
-			calledChunk.add(f);
-			if (!f.exists()) {
-				tasks.add(threadpool.submit(() -> { callChunk(f, es, chunkNumber, chunck); return null; }));
+			String checkpoint = "calling.chunk" + chunkNumber;
+			String description = CheckpointManifest.describe(chunck) + " " + evidence;
+			if (!checkpoints.isComplete(checkpoint, description, f)) {
+				tasks.add(threadpool.submit(() -> {
+					callChunk(f, es, chunkNumber, chunck);
+					checkpoints.complete(checkpoint, description, f);
+					return null;
+				}));
 			}
 		}
 		runTasks(tasks);
 		
 		log.info("Merging identified breakpoints");
-		File mergedOut = FileSystemContext.getWorkingFileFor(vcf, "gridss.merged.");
-		VcfFileUtil.concat(processContext.getReference().getSequenceDictionary(), calledChunk, mergedOut);
-		
-		log.info("Sorting identified breakpoints");
-		VcfFileUtil.sort(processContext, mergedOut, vcf);
+		// each chunk is sorted so we only need to merge
+		VcfFileUtil.merge(processContext.getReference().getSequenceDictionary(), calledChunk, vcf,
+				IdsvVariantContext.VariantContextByLocationStart(processContext.getDictionary()));
 		// clean up chunked
 		if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
 			for (File f : calledChunk) {
 				FileHelper.delete(f, true);
 			}
-			FileHelper.delete(mergedOut, true);
 		}
 	}
 	private void runTasks(List<Future<Void>> tasks) {
@@ -109,11 +128,8 @@ public class VariantCaller {
 				}
 			}
 		}
-		try {
-			FileHelper.move(tmp, output, true);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
+		// high breakends can be anywhere in the genome so the chunk needs to be sorted
+		VcfFileUtil.sort(processContext, tmp, output);
 		log.info("Complete ", msg);
 		if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
 			try {
@@ -31,6 +31,7 @@ public class VariantContextDirectedEvidence extends IdsvVariantContext implement
 	 */
 	private static final long serialVersionUID = 1L;
 	private final VcfBreakendSummary breakend;
+	private transient EvidenceIdentifier evidenceIdentifier;
 	//private static Log LOG = Log.getInstance(VariantContextDirectedBreakpoint.class);
 	public VariantContextDirectedEvidence(GenomicProcessingContext processContext, EvidenceSource source, VariantContext context) {
 		super(processContext, source, context);
@@ -46,6 +47,13 @@ public class VariantContextDirectedEvidence extends IdsvVariantContext implement
 		return getID();
 	}
 	@Override
+	public EvidenceIdentifier getEvidenceIdentifier() {
+		if (evidenceIdentifier == null) {
+			evidenceIdentifier = EvidenceIdentifier.of(getEvidenceID());
+		}
+		return evidenceIdentifier;
+	}
+	@Override
 	public byte[] getBreakendSequence() {
 		return breakend.breakpointSequence.getBytes(StandardCharsets.US_ASCII);
 	}
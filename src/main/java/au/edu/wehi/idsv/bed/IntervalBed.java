@@ -5,12 +5,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeSet;
-
-import au.edu.wehi.idsv.LinearGenomicCoordinate;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.bed.BEDCodec;
@@ -19,37 +16,27 @@ import htsjdk.tribble.readers.LineIterator;
 
 /**
  * Minimal bed wrapper retaining only interval information
+ *
+ * Intervals are added to a lock-free queue and are merged into an immutable
+ * per-contig index of sorted, non-overlapping intervals on the first lookup
+ * after an interval has been added. Lookups against an unchanged bed do not
+ * require any synchronisation or allocation.
+ *
  * @author Daniel Cameron
  *
  */
 public class IntervalBed {
 	private final SAMSequenceDictionary dictionary;
-	private final LinearGenomicCoordinate linear;
-	private final RangeSet<Long> intervals;
+	/**
+	 * Intervals added since the index was last built
+	 */
+	private final ConcurrentLinkedQueue<int[]> pending = new ConcurrentLinkedQueue<>();
+	private volatile Index index;
 	public int size() {
-		return intervals.asRanges().size();
-	}
-	public IntervalBed(SAMSequenceDictionary dictionary, LinearGenomicCoordinate linear, File bed) throws IOException {
-		this(dictionary, linear, toRangeSet(dictionary, linear, bed));
+		return getIndex().size();
 	}
-	public IntervalBed(SAMSequenceDictionary dictionary, LinearGenomicCoordinate linear) {
-		this(dictionary, linear, TreeRangeSet.<Long>create());
-	}
-	private IntervalBed(SAMSequenceDictionary dictionary, LinearGenomicCoordinate linear, RangeSet<Long> blacklisted) {
-		this.dictionary = dictionary;
-		this.linear = linear;
-		this.intervals = blacklisted;
-	}
-	public static IntervalBed merge(SAMSequenceDictionary dictionary, LinearGenomicCoordinate linear, Iterable<IntervalBed> list) {
-		RangeSet<Long> blacklisted = TreeRangeSet.create();
-		for (IntervalBed bed : list) {
-			// TODO assert dictionaries and linear coordinates match
-			blacklisted.addAll(bed.intervals);
-		}
-		return new IntervalBed(dictionary, linear, blacklisted);
-	}
-	private static RangeSet<Long> toRangeSet(SAMSequenceDictionary dictionary, LinearGenomicCoordinate linear, File bed) throws IOException {
-		RangeSet<Long> rs = TreeRangeSet.create();
+	public IntervalBed(SAMSequenceDictionary dictionary, File bed) throws IOException {
+		this(dictionary);
 		BEDCodec codec = new BEDCodec();
 	    try (AbstractFeatureReader<BEDFeature, LineIterator> reader = AbstractFeatureReader.getFeatureReader(bed.getAbsolutePath(), codec, false)) {
 			for (BEDFeature feat : reader.iterator()) {
@@ -57,16 +44,81 @@ public class IntervalBed {
 				int start = feat.getStart();
 				int end = feat.getEnd();
 				int referenceIndex = dictionary.getSequenceIndex(chr);
-				rs.add(Range.closedOpen(linear.getLinearCoordinate(referenceIndex, start), linear.getLinearCoordinate(referenceIndex, end) + 1));
+				if (referenceIndex < 0) {
+					throw new IllegalArgumentException(String.format("Contig %s in %s not found in reference genome", chr, bed));
+				}
+				addInterval(referenceIndex, start, end);
 			}
         }
-		return rs;
 	}
-	public static void addInterval(SAMSequenceDictionary dictionary, LinearGenomicCoordinate linear, RangeSet<Long> blacklisted, int referenceIndex, int start, int end) {
-		blacklisted.add(Range.closedOpen(linear.getLinearCoordinate(referenceIndex, start), linear.getLinearCoordinate(referenceIndex, end) + 1));
+	public IntervalBed(SAMSequenceDictionary dictionary) {
+		this.dictionary = dictionary;
+		this.index = new Index(dictionary.getSequences().size());
 	}
-	public synchronized void addInterval(int referenceIndex, int start, int end) {
-		addInterval(dictionary, linear, intervals, referenceIndex, start, end);
+	public static IntervalBed merge(SAMSequenceDictionary dictionary, Iterable<IntervalBed> list) {
+		IntervalBed merged = new IntervalBed(dictionary);
+		for (IntervalBed bed : list) {
+			Index idx = bed.getIndex();
+			for (int referenceIndex = 0; referenceIndex < idx.start.length; referenceIndex++) {
+				for (int i = 0; i < idx.start[referenceIndex].length; i++) {
+					merged.addInterval(referenceIndex, idx.start[referenceIndex][i], idx.end[referenceIndex][i]);
+				}
+			}
+		}
+		return merged;
+	}
+	/**
+	 * Adds the given interval. This method is thread-safe.
+	 * @param referenceIndex contig
+	 * @param start first position in interval
+	 * @param end last position in interval
+	 */
+	public void addInterval(int referenceIndex, int start, int end) {
+		pending.add(new int[] { referenceIndex, start, end });
+	}
+	private Index getIndex() {
+		if (!pending.isEmpty()) {
+			rebuildIndex();
+		}
+		return index;
+	}
+	private synchronized void rebuildIndex() {
+		if (pending.isEmpty()) return;
+		Index current = index;
+		int contigCount = current.start.length;
+		int[] count = new int[contigCount];
+		for (int i = 0; i < contigCount; i++) {
+			count[i] = current.start[i].length;
+		}
+		int[] interval;
+		int[][] added = new int[16][];
+		int addedCount = 0;
+		while ((interval = pending.poll()) != null) {
+			if (addedCount == added.length) {
+				added = Arrays.copyOf(added, 2 * added.length);
+			}
+			added[addedCount++] = interval;
+			count[interval[0]]++;
+		}
+		long[][] packed = new long[contigCount][];
+		for (int i = 0; i < contigCount; i++) {
+			packed[i] = new long[count[i]];
+			for (int j = 0; j < current.start[i].length; j++) {
+				packed[i][j] = pack(current.start[i][j], current.end[i][j]);
+			}
+			count[i] = current.start[i].length;
+		}
+		for (int i = 0; i < addedCount; i++) {
+			int referenceIndex = added[i][0];
+			packed[referenceIndex][count[referenceIndex]++] = pack(added[i][1], added[i][2]);
+		}
+		index = new Index(packed);
+	}
+	/**
+	 * Packs the interval such that intervals sort by start position
+	 */
+	private static long pack(int start, int end) {
+		return ((long)start << 32) | (end & 0xFFFFFFFFL);
 	}
 	/**
 	 * Determines whether any of the intervals overlap the given interval
@@ -76,23 +128,78 @@ public class IntervalBed {
 	 * @return
 	 */
 	public boolean overlaps(int referenceIndex, int start, int end) {
-		Range<Long> r = Range.closedOpen(linear.getLinearCoordinate(referenceIndex, start), linear.getLinearCoordinate(referenceIndex, end) + 1);
-		RangeSet<Long> hits = intervals.subRangeSet(r);
-		return !hits.isEmpty();
+		return getIndex().overlaps(referenceIndex, start, end);
 	}
 	public void write(File bed, String name) throws IOException {
+		Index idx = getIndex();
 		try (BufferedWriter writer = Files.newBufferedWriter(bed.toPath(), StandardCharsets.US_ASCII)) {
 			writer.write(String.format("track name=\"%s\" description=\"%s\" useScore=0\n", name, name));
-			for (Range<Long> r : intervals.asRanges()) {
-				long lower = r.lowerEndpoint();
-				long upper = r.upperEndpoint();
-				int referenceIndex = linear.getReferenceIndex(lower);
-				int referenceIndex2 = linear.getReferenceIndex(upper);
-				assert(referenceIndex == referenceIndex2);
-				int bedStart = linear.getReferencePosition(lower) - 1;
-				int bedEnd = linear.getReferencePosition(upper) - 1;
-				writer.write(String.format("%s\t%d\t%d\n", dictionary.getSequence(referenceIndex).getSequenceName(), bedStart, bedEnd));
+			for (int referenceIndex = 0; referenceIndex < idx.start.length; referenceIndex++) {
+				for (int i = 0; i < idx.start[referenceIndex].length; i++) {
+					int bedStart = idx.start[referenceIndex][i] - 1;
+					int bedEnd = idx.end[referenceIndex][i];
+					writer.write(String.format("%s\t%d\t%d\n", dictionary.getSequence(referenceIndex).getSequenceName(), bedStart, bedEnd));
+				}
+			}
+		}
+	}
+	/**
+	 * Immutable per-contig index of sorted, non-overlapping, non-adjacent closed intervals
+	 */
+	private static class Index {
+		private final int[][] start;
+		private final int[][] end;
+		public Index(int contigCount) {
+			this.start = new int[contigCount][0];
+			this.end = new int[contigCount][0];
+		}
+		/**
+		 * Creates an index from the given intervals
+		 * @param packed packed closed intervals of each contig
+		 */
+		public Index(long[][] packed) {
+			this.start = new int[packed.length][];
+			this.end = new int[packed.length][];
+			for (int i = 0; i < packed.length; i++) {
+				long[] intervals = packed[i];
+				Arrays.sort(intervals);
+				int[] s = new int[intervals.length];
+				int[] e = new int[intervals.length];
+				int n = 0;
+				for (long interval : intervals) {
+					int intervalStart = (int)(interval >> 32);
+					int intervalEnd = (int)interval;
+					if (intervalEnd < intervalStart) continue;
+					if (n > 0 && intervalStart <= (long)e[n - 1] + 1) {
+						// merge overlapping or adjacent intervals
+						e[n - 1] = Math.max(e[n - 1], intervalEnd);
+					} else {
+						s[n] = intervalStart;
+						e[n] = intervalEnd;
+						n++;
+					}
+				}
+				start[i] = Arrays.copyOf(s, n);
+				end[i] = Arrays.copyOf(e, n);
+			}
+		}
+		public int size() {
+			int size = 0;
+			for (int[] s : start) {
+				size += s.length;
+			}
+			return size;
+		}
+		public boolean overlaps(int referenceIndex, int queryStart, int queryEnd) {
+			if (referenceIndex < 0 || referenceIndex >= start.length) return false;
+			int[] s = start[referenceIndex];
+			// last interval starting at or before the query end
+			int i = Arrays.binarySearch(s, queryEnd);
+			if (i < 0) {
+				i = -i - 2;
 			}
+			// intervals are non-overlapping so only the last interval starting before the query can overlap
+			return i >= 0 && end[referenceIndex][i] >= queryStart;
 		}
 	}
 }
@@ -18,6 +18,7 @@ public class AssemblyConfiguration {
 		anchorLength = config.getInt("anchorLength");
 		removeMisassembledPartialContigsDuringAssembly = config.getBoolean("removeMisassembledPartialContigsDuringAssembly");
 		maxExpectedBreakendLengthMultiple = config.getFloat("maxExpectedBreakendLengthMultiple");
+		singlePassBidirectionalAssembly = config.getBoolean("singlePassBidirectionalAssembly");
 	}
 	public ErrorCorrectionConfiguration errorCorrection;
 	public DownsamplingConfiguration downsampling;
@@ -68,4 +69,11 @@ public class AssemblyConfiguration {
 	 * Expected max size is 1.0 for single-sided assembly and 2.0 for assembly from both directions 
 	 */
 	public float maxExpectedBreakendLengthMultiple = 3.0f;
+	/**
+	 * Assemble both breakend directions concurrently from a single pass over the input evidence
+	 * instead of reading the evidence once per breakend direction.
+	 * 
+	 * This requires an additional assembly thread per chunk.
+	 */
+	public boolean singlePassBidirectionalAssembly = false;
 }
@@ -2,6 +2,7 @@ package au.edu.wehi.idsv.configuration;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.configuration.CompositeConfiguration;
 import org.apache.commons.configuration.Configuration;
@@ -9,8 +10,12 @@ import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 import au.edu.wehi.idsv.AdapterHelper;
+import au.edu.wehi.idsv.GreedyAllocationCache.LookupBackend;
 import htsjdk.samtools.util.Log;
 
 /**
@@ -67,6 +72,16 @@ public class GridssConfiguration {
 	 * from a single reference sequence.
 	 */
 	public int chunkSequenceChangePenalty;
+	/**
+	 * Chunks with an estimated processing cost greater than this multiple of the median chunk cost
+	 * are split into smaller chunks before assembly and variant calling.
+	 * Chunks are not split if this multiple is not positive.
+	 */
+	public double chunkSplitCostMultiple;
+	/**
+	 * Minimum number of bases in each chunk created by splitting an expensive chunk.
+	 */
+	public int minSplitChunkSize;
 	/**
 	 * Remove the assembly contribution of a multimapping read from all location except the mapping location with the best assembly
 	 */
@@ -83,6 +98,22 @@ public class GridssConfiguration {
 	 * Use the read group sample name as the category label
 	 */
 	public boolean useReadGroupSampleNameCategoryLabel;
+	/**
+	 * Persist the filtered and sorted evidence of each input to a binary evidence file
+	 * so subsequent passes over the evidence do not need to decode and filter the reads again. 
+	 */
+	public boolean evidenceCache;
+	/**
+	 * Write the output of each step of the read extraction pipeline to an intermediate file
+	 * so an interrupted extraction can resume from the last completed step.
+	 * By default, extracted reads are streamed through all steps without intermediate files.
+	 */
+	public boolean extractionCheckpoints;
+	/**
+	 * Backing store of the multimapping read allocation caches
+	 */
+	public LookupBackend allocationCache;
+	private final String fingerprint;
 	public AssemblyConfiguration getAssembly() {
 		return assembly;
 	}
@@ -98,6 +129,13 @@ public class GridssConfiguration {
 	public ScoringConfiguration getScoring() {
 		return scoring;
 	}
+	/**
+	 * Hash of the configuration settings this configuration was loaded from
+	 * @return configuration fingerprint
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
 	private final AssemblyConfiguration assembly;
 	private final SoftClipConfiguration softclip;
 	private final VisualisationConfiguration visualisation;
@@ -124,10 +162,25 @@ public class GridssConfiguration {
 		terminateOnFirstError = config.getBoolean("terminateOnFirstError");
 		chunkSize = config.getInt("chunkSize");
 		chunkSequenceChangePenalty = config.getInt("chunkSequenceChangePenalty");
+		chunkSplitCostMultiple = config.getDouble("chunkSplitCostMultiple");
+		minSplitChunkSize = config.getInt("minSplitChunkSize");
 		multimappingUniqueAssemblyAllocation = config.getBoolean("multimappingUniqueAssemblyAllocation");
 		multimappingUniqueVariantAllocation = config.getBoolean("multimappingUniqueVariantAllocation");
 		multimapping = config.getBoolean("multimapping");
 		useReadGroupSampleNameCategoryLabel = config.getBoolean("useReadGroupSampleNameCategoryLabel");
+		evidenceCache = config.getBoolean("evidenceCache");
+		extractionCheckpoints = config.getBoolean("extractionCheckpoints");
+		allocationCache = LookupBackend.valueOf(config.getString("allocationCache"));
+		fingerprint = fingerprint(config);
+	}
+	private static String fingerprint(Configuration config) {
+		Hasher hasher = Hashing.sha1().newHasher();
+		for (String key : Ordering.natural().sortedCopy(Lists.newArrayList(config.getKeys()))) {
+			for (String value : config.getStringArray(key)) {
+				hasher.putString(key + "=" + value + "\n", StandardCharsets.UTF_8);
+			}
+		}
+		return hasher.hash().toString();
 	}
 	public static Configuration LoadConfiguration(File configuration) throws ConfigurationException {
 		CompositeConfiguration config = new CompositeConfiguration();
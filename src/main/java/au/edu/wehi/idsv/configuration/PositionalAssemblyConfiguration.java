@@ -10,6 +10,7 @@ public class PositionalAssemblyConfiguration {
 		retainWidthMultiple = config.getFloat("retainWidthMultiple");
 		flushWidthMultiple = config.getFloat("flushWidthMultiple");
 		maximumNodeDensity = config.getFloat("maximumNodeDensity");
+		pipelined = config.getBoolean("pipelined");
 		if (retainWidthMultiple < 1) {
 			throw new IllegalArgumentException("retainWidthMultiple must be at least 1");
 		}
@@ -46,5 +47,14 @@ public class PositionalAssemblyConfiguration {
 	 * genome with a density higher than maximumNodeDensity per base pair. 
 	 */
 	public float maximumNodeDensity;
+	/**
+	 * Run the kmer support generation and kmer aggregation stages of the assembler
+	 * on their own background threads.
+	 * 
+	 * Pipelining increases throughput per assembly chunk at the cost of up to two additional
+	 * threads per chunk being assembled. Stages after kmer aggregation share mutable graph
+	 * nodes so cannot be pipelined.
+	 */
+	public boolean pipelined;
 	public int maxPathLengthInBases(int readLength) { return (int)(maxPathLengthMultiple * readLength); }
 }
\ No newline at end of file
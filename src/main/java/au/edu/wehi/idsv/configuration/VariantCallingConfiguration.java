@@ -27,6 +27,8 @@ public class VariantCallingConfiguration {
 		lowQuality = config.getDouble("lowQuality");
 		maxBreakendHomologyLength = config.getInt("maxBreakendHomologyLength");
 		breakendHomologyAlignmentMargin = config.getInt("breakendHomologyAlignmentMargin");
+		singlePassCliqueCalling = config.getBoolean("singlePassCliqueCalling");
+		treeScanlineCliqueCalling = config.getBoolean("treeScanlineCliqueCalling");
 //		switch (config.getString("format")) {
 //			case "vcf4.2":
 //				placeholderBreakend = false;
@@ -74,6 +76,16 @@ public class VariantCallingConfiguration {
 	 * Number of reference bases to include in alignment
 	 */
 	public int breakendHomologyAlignmentMargin;
+	/**
+	 * Call maximal cliques of all breakpoint directions in a single pass over the evidence
+	 * instead of re-reading the evidence once per breakpoint direction
+	 */
+	public boolean singlePassCliqueCalling;
+	/**
+	 * Use a balanced tree for the maximal clique scanline instead of a linked list.
+	 * Both give identical calls but the tree scales better when many evidence rectangles overlap
+	 */
+	public boolean treeScanlineCliqueCalling;
 	public BreakendSummary withMargin(BreakendSummary bp) {
 		if (bp == null) return null;
 		return bp.expandBounds(marginFor(bp));
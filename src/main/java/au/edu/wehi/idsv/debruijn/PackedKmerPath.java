@@ -0,0 +1,232 @@
+package au.edu.wehi.idsv.debruijn;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * Mutable list of the kmers of a de Bruijn graph path.
+ *
+ * Successive kmers of a path overlap by k-1 bases so the path is stored as
+ * the 2-bit encoded sequence of the path with kmers decoded on demand.
+ * A path of n kmers requires only (n+k-1)*2 bits instead of n*64.
+ *
+ * If the kmer size is not known, or a kmer that is not a successor of the final
+ * kmer of the path is added, the path falls back to storing each kmer individually.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class PackedKmerPath {
+	private static final int BITS_PER_BASE = 2;
+	private static final int BASES_PER_WORD = Long.SIZE / BITS_PER_BASE;
+	private static final int ARRAY_SHIFT = Long.SIZE - 1 - Long.numberOfLeadingZeros(BASES_PER_WORD);
+	private static final int ARRAY_OFFSET_MASK = (1 << ARRAY_SHIFT) - 1;
+	private static final long BASE_MASK = (1 << BITS_PER_BASE) - 1;
+	private static final long[] EMPTY = new long[0];
+	private final int k;
+	/**
+	 * Path sequence in the same layout as PackedSequence:
+	 * first base is packed in MSB of first word
+	 */
+	private long[] packed = EMPTY;
+	/**
+	 * Offset of the first base of the first kmer
+	 */
+	private int offset = 0;
+	private int length = 0;
+	/**
+	 * Kmers of the path when the path cannot be packed
+	 */
+	private LongArrayList unpacked = null;
+	/**
+	 * Creates a new empty path
+	 * @param k kmer size. If the kmer size is not positive, kmers will not be packed.
+	 */
+	public PackedKmerPath(int k) {
+		if (k > BASES_PER_WORD) throw new IllegalArgumentException("k cannot exceed " + BASES_PER_WORD);
+		this.k = k;
+		if (k <= 0) {
+			unpacked = new LongArrayList(1);
+		}
+	}
+	private PackedKmerPath(PackedKmerPath path, int from, int to) {
+		this.k = path.k;
+		this.length = to - from;
+		if (path.unpacked != null) {
+			this.unpacked = new LongArrayList(path.unpacked.subList(from, to));
+		} else if (length > 0) {
+			int firstBase = path.offset + from;
+			int lastBase = path.offset + to - 1 + k - 1;
+			this.packed = Arrays.copyOfRange(path.packed, firstBase >> ARRAY_SHIFT, (lastBase >> ARRAY_SHIFT) + 1);
+			this.offset = firstBase & ARRAY_OFFSET_MASK;
+		}
+	}
+	public int kmerSize() {
+		return k;
+	}
+	public int size() {
+		return length;
+	}
+	public boolean isPacked() {
+		return unpacked == null;
+	}
+	public long get(int index) {
+		assert(index >= 0 && index < length);
+		if (unpacked != null) return unpacked.getLong(index);
+		return getKmer(offset + index);
+	}
+	/**
+	 * Appends the given kmer to the end of the path
+	 * @param kmer kmer to add
+	 */
+	public void add(long kmer) {
+		if (unpacked == null) {
+			if (length == 0) {
+				ensureBaseCapacity(k);
+				for (int i = 0; i < k; i++) {
+					setBase(offset + i, (kmer >>> (BITS_PER_BASE * (k - 1 - i))) & BASE_MASK);
+				}
+				length++;
+				return;
+			} else if (KmerEncodingHelper.isNext(k, get(length - 1), kmer)) {
+				ensureBaseCapacity(length + k);
+				setBase(offset + length + k - 1, kmer & BASE_MASK);
+				length++;
+				return;
+			}
+			unpack();
+		}
+		unpacked.add(kmer);
+		length++;
+	}
+	/**
+	 * Appends all kmers of the given path
+	 * @param path path to append
+	 */
+	public void addAll(PackedKmerPath path) {
+		for (int i = 0; i < path.length; i++) {
+			add(path.get(i));
+		}
+	}
+	public void removeFirst() {
+		assert(length > 0);
+		if (unpacked != null) {
+			unpacked.removeLong(0);
+		} else {
+			offset++;
+		}
+		length--;
+	}
+	public void removeLast() {
+		assert(length > 0);
+		if (unpacked != null) {
+			unpacked.removeLong(length - 1);
+		}
+		length--;
+	}
+	/**
+	 * Removes all kmers after the given number of kmers
+	 * @param newLength number of kmers to retain
+	 */
+	public void truncate(int newLength) {
+		assert(newLength >= 0 && newLength <= length);
+		if (unpacked != null) {
+			unpacked.removeElements(newLength, length);
+		}
+		length = newLength;
+	}
+	/**
+	 * Copies the given portion of the path
+	 * @param from index of first kmer
+	 * @param to index after the last kmer
+	 * @return new path
+	 */
+	public PackedKmerPath subPath(int from, int to) {
+		assert(from >= 0 && from <= to && to <= length);
+		return new PackedKmerPath(this, from, to);
+	}
+	public PackedKmerPath copy() {
+		return subPath(0, length);
+	}
+	/**
+	 * Decodes the path into an array of kmers
+	 * @return kmers of the path
+	 */
+	public LongArrayList toLongArrayList() {
+		if (unpacked != null) return unpacked.clone();
+		LongArrayList list = new LongArrayList(length);
+		for (int i = 0; i < length; i++) {
+			list.add(getKmer(offset + i));
+		}
+		return list;
+	}
+	private void unpack() {
+		unpacked = toLongArrayList();
+		packed = null;
+		offset = 0;
+	}
+	private void ensureBaseCapacity(int bases) {
+		int words = (offset + bases + BASES_PER_WORD - 1) >> ARRAY_SHIFT;
+		if (words > packed.length) {
+			packed = Arrays.copyOf(packed, Math.max(words, packed.length + (packed.length >> 1)));
+		}
+	}
+	private void setBase(final int baseOffset, final long base) {
+		int wordIndex = baseOffset >> ARRAY_SHIFT;
+		int wordOffset = BASES_PER_WORD - 1 - (baseOffset & ARRAY_OFFSET_MASK);
+		long word = packed[wordIndex];
+		word &= ~(BASE_MASK << (BITS_PER_BASE * wordOffset));
+		word |= base << (BITS_PER_BASE * wordOffset);
+		packed[wordIndex] = word;
+	}
+	private long getWordBases(final int wordIndex, final int highBaseIgnoreCount, final int lowBaseIgnoreCount) {
+		long word = packed[wordIndex];
+		word <<= BITS_PER_BASE * highBaseIgnoreCount; // force high bases off the top
+		word >>>= BITS_PER_BASE * (highBaseIgnoreCount + lowBaseIgnoreCount); // and low off the bottom
+		return word;
+	}
+	private long getKmer(final int baseOffset) {
+		int wordIndex = baseOffset >> ARRAY_SHIFT;
+		int basesToSkipInWord = baseOffset & ARRAY_OFFSET_MASK;
+		int basesRemaining = BASES_PER_WORD - basesToSkipInWord;
+		if (k <= basesRemaining) {
+			return getWordBases(wordIndex, basesToSkipInWord, basesRemaining - k);
+		} else {
+			int lengthInNextWord = k - basesRemaining;
+			long kmer = getWordBases(wordIndex, basesToSkipInWord, 0);
+			kmer <<= lengthInNextWord * BITS_PER_BASE;
+			kmer |= getWordBases(wordIndex + 1, 0, BASES_PER_WORD - lengthInNextWord);
+			return kmer;
+		}
+	}
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = 0; i < length; i++) {
+			result = 31 * result + Long.hashCode(get(i));
+		}
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		PackedKmerPath other = (PackedKmerPath) obj;
+		if (length != other.length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (get(i) != other.get(i))
+				return false;
+		}
+		return true;
+	}
+	@Override
+	public String toString() {
+		return toLongArrayList().toString();
+	}
+}
@@ -1,34 +1,42 @@
 package au.edu.wehi.idsv.debruijn.positional;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.PriorityQueue;
 
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Ordering;
 import com.google.common.collect.PeekingIterator;
-import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 
 import au.edu.wehi.idsv.Defaults;
 import au.edu.wehi.idsv.debruijn.positional.AggregateNodeIterator.KmerNodeAggregator.KmerNodeAggregatorSnapshot;
+import au.edu.wehi.idsv.util.CalendarQueue;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
 /**
  * Transforms a start position sorted sequence of KmerNodes to a
  * start position sorted sequence of non-overlapping KmerAggregateNodes
+ * 
+ * When the input is a SupportNodeIterator, support is consumed directly
+ * without allocating a KmerSupportNode for each kmer.
+ * 
  * @author Daniel Cameron
  *
  */
 public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 	private final PeekingIterator<? extends KmerNode> underlying;
-	private PriorityQueue<ImmutableKmerNode> outputSortBuffer = new PriorityQueue<ImmutableKmerNode>(1024, KmerNodeUtil.ByFirstStart);
+	/**
+	 * Underlying iterator if the support can be consumed without per-kmer allocation
+	 */
+	private final SupportNodeIterator supportUnderlying;
+	private CalendarQueue<ImmutableKmerNode> outputSortBuffer = new CalendarQueue<ImmutableKmerNode>(n -> n.firstStart());
 	private Long2ObjectOpenHashMap<KmerNodeAggregator> byKmer = new Long2ObjectOpenHashMap<KmerNodeAggregator>();
-	private PriorityQueue<KmerNodeAggregatorSnapshot> byEnd = new PriorityQueue<KmerNodeAggregatorSnapshot>(1024, BySnapshotEnd);
+	private CalendarQueue<KmerNodeAggregatorSnapshot> byEnd = new CalendarQueue<KmerNodeAggregatorSnapshot>(snapshot -> snapshot.snapshotEnd);
 	private int maxWidth = 0;
 	private int inputPosition = Integer.MIN_VALUE;
 	private long consumed = 0;
 	public AggregateNodeIterator(Iterator<? extends KmerNode> it) {
 		this.underlying = Iterators.peekingIterator(it);
+		this.supportUnderlying = it instanceof SupportNodeIterator ? (SupportNodeIterator)it : null;
 	}
 	@Override
 	public boolean hasNext() {
@@ -48,8 +56,8 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 	private void ensureBuffer() {
 		// we can emit whenever there are no unprocessed or incomplete intervals
 		// before our current interval
-		while (underlying.hasNext() && (outputSortBuffer.isEmpty() || outputSortBuffer.peek().firstStart() >= earliestPossibleStartOfNodeBeingAggregated())) {
-			inputPosition = underlying.peek().firstStart(); 
+		while (underlying.hasNext() && (outputSortBuffer.isEmpty() || outputSortBuffer.peekKey() >= earliestPossibleStartOfNodeBeingAggregated())) {
+			inputPosition = supportUnderlying != null ? supportUnderlying.peekStart() : underlying.peek().firstStart(); 
 			process();
 			flush();
 		}
@@ -66,17 +74,30 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 		return inputPosition - maxWidth;
 	}
 	private void process() {
-		while (underlying.hasNext() && underlying.peek().firstStart() <= inputPosition) {
-			KmerNode n = underlying.next();
-			consumed++;
-			assert(n.firstStart() == inputPosition || inputPosition == Integer.MAX_VALUE); // input should be sorted by start position
-			long kmer = n.firstKmer();
-			KmerNodeAggregator ag = byKmer.get(kmer);
-			if (ag == null) {
-				ag = new KmerNodeAggregator(kmer);
-				byKmer.put(kmer, ag);
+		if (supportUnderlying != null) {
+			while (supportUnderlying.hasNext() && supportUnderlying.peekStart() <= inputPosition) {
+				process(supportUnderlying.peekKmer(), supportUnderlying.peekStart(), supportUnderlying.peekEnd(), supportUnderlying.peekWeight(), supportUnderlying.peekReference());
+				supportUnderlying.skip();
 			}
-			ag.add(n);
+		} else {
+			while (underlying.hasNext() && underlying.peek().firstStart() <= inputPosition) {
+				KmerNode n = underlying.next();
+				process(n.firstKmer(), n.firstStart(), n.firstEnd(), n.weight(), n.isReference());
+			}
+		}
+	}
+	private void process(long kmer, int start, int end, int weight, boolean reference) {
+		consumed++;
+		assert(start == inputPosition || inputPosition == Integer.MAX_VALUE); // input should be sorted by start position
+		KmerNodeAggregator ag = byKmer.get(kmer);
+		if (ag == null) {
+			ag = new KmerNodeAggregator(kmer);
+			byKmer.put(kmer, ag);
+		}
+		int previousEnd = ag.end();
+		ag.add(start, end, weight, reference);
+		if (ag.end() != previousEnd) {
+			// existing snapshot remains valid if the aggregator end is unchanged
 			byEnd.add(ag.new KmerNodeAggregatorSnapshot());
 		}
 	}
@@ -85,7 +106,7 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 	 * @param position
 	 */
 	private void flush() {
-		while (!byEnd.isEmpty() && byEnd.peek().snapshotEnd < inputPosition) {
+		while (!byEnd.isEmpty() && byEnd.peekKey() < inputPosition) {
 			KmerNodeAggregatorSnapshot snapshot = byEnd.poll();
 			if (!snapshot.isValid()) continue;
 			KmerNodeAggregator ag = snapshot.aggregator();
@@ -99,12 +120,6 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 			}
 		}
 	}
-	private static final Ordering<KmerNodeAggregatorSnapshot> BySnapshotEnd = new Ordering<KmerNodeAggregatorSnapshot>() {
-		@Override
-		public int compare(KmerNodeAggregatorSnapshot left, KmerNodeAggregatorSnapshot right) {
-			return Ints.compare(left.snapshotEnd, right.snapshotEnd);
-		}
-	};
 	/**
 	 * Generates KmerAggregateNode from an underlying sequence of KmerSupportNodes in ascending starting position
 	 * 
@@ -130,11 +145,17 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 		public KmerNodeAggregator(long kmer) {
 			this.kmer = kmer;
 		}
-		public boolean isEmpty() { return active.isEmpty(); }
+		public boolean isEmpty() { return activeHead == activeTail; }
 		/**
-		 * KmerNodes in the currently active aggregation interval
+		 * End positions of the KmerNodes in the currently active aggregation interval
+		 * in ascending order with the weight and reference count of the nodes ending
+		 * at that position stored in the parallel arrays 
 		 */
-		private PriorityQueue<KmerNode> active = new PriorityQueue<KmerNode>(8, KmerNodeUtil.ByLastEnd);
+		private int[] activeEnd = new int[4];
+		private int[] activeWeight = new int[4];
+		private int[] activeReferenceCount = new int[4];
+		private int activeHead = 0;
+		private int activeTail = 0;
 		/**
 		 * Start position of currently active aggregation interval
 		 */
@@ -154,23 +175,60 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 		 */
 		private final long kmer;
 		public int end() {
-			if (active.isEmpty()) return Integer.MAX_VALUE;
-			return active.peek().firstEnd();
+			if (isEmpty()) return Integer.MAX_VALUE;
+			return activeEnd[activeHead];
 		}
-		public void add(KmerNode node) {
-			assert(node.firstKmer() == kmer);
-			assert(node.firstStart() >= start);
-			maxWidth = Math.max(maxWidth, node.width());
-			advanceTo(node.firstStart() - 1);
-			if (weight > 0 && start < node.firstStart()) {
-				outputSortBuffer.add(new ImmutableKmerNode(kmer, start, node.firstStart() - 1, referenceCount > 0, weight));
+		public void add(int nodeStart, int nodeEnd, int nodeWeight, boolean nodeReference) {
+			assert(nodeStart >= start);
+			maxWidth = Math.max(maxWidth, nodeEnd - nodeStart + 1);
+			advanceTo(nodeStart - 1);
+			if (weight > 0 && start < nodeStart) {
+				outputSortBuffer.add(new ImmutableKmerNode(kmer, start, nodeStart - 1, referenceCount > 0, weight));
 			}
-			start = node.firstStart();
-			if (node.isReference()) {
+			start = nodeStart;
+			if (nodeReference) {
 				referenceCount++;
 			}
-			weight += node.weight();
-			active.add(node);
+			weight += nodeWeight;
+			addActive(nodeEnd, nodeWeight, nodeReference ? 1 : 0);
+		}
+		private void addActive(int nodeEnd, int nodeWeight, int nodeReferenceCount) {
+			// nodes typically end in ascending order so search from the back
+			int i = activeTail - 1;
+			while (i >= activeHead && activeEnd[i] > nodeEnd) {
+				i--;
+			}
+			if (i >= activeHead && activeEnd[i] == nodeEnd) {
+				activeWeight[i] += nodeWeight;
+				activeReferenceCount[i] += nodeReferenceCount;
+				return;
+			}
+			int insertAt = i + 1;
+			if (activeTail == activeEnd.length) {
+				if (activeHead > 0) {
+					insertAt -= activeHead;
+					compactActive();
+				} else {
+					activeEnd = Arrays.copyOf(activeEnd, activeEnd.length * 2);
+					activeWeight = Arrays.copyOf(activeWeight, activeWeight.length * 2);
+					activeReferenceCount = Arrays.copyOf(activeReferenceCount, activeReferenceCount.length * 2);
+				}
+			}
+			System.arraycopy(activeEnd, insertAt, activeEnd, insertAt + 1, activeTail - insertAt);
+			System.arraycopy(activeWeight, insertAt, activeWeight, insertAt + 1, activeTail - insertAt);
+			System.arraycopy(activeReferenceCount, insertAt, activeReferenceCount, insertAt + 1, activeTail - insertAt);
+			activeEnd[insertAt] = nodeEnd;
+			activeWeight[insertAt] = nodeWeight;
+			activeReferenceCount[insertAt] = nodeReferenceCount;
+			activeTail++;
+		}
+		private void compactActive() {
+			int size = activeTail - activeHead;
+			System.arraycopy(activeEnd, activeHead, activeEnd, 0, size);
+			System.arraycopy(activeWeight, activeHead, activeWeight, 0, size);
+			System.arraycopy(activeReferenceCount, activeHead, activeReferenceCount, 0, size);
+			activeHead = 0;
+			activeTail = size;
 		}
 		/**
 		 * Process up to and including the given position
@@ -178,19 +236,18 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 		 * @param emitTo collection to emit aggregate records to
 		 */
 		public void advanceTo(int position) {
-			while (!active.isEmpty() && active.peek().firstEnd() <= position) {
-				int end = active.peek().firstEnd();
+			while (!isEmpty() && activeEnd[activeHead] <= position) {
+				int end = activeEnd[activeHead];
 				outputSortBuffer.add(new ImmutableKmerNode(kmer, start, end, referenceCount > 0, weight));
-				while (!active.isEmpty() && active.peek().firstEnd() == end) {
-					KmerNode endingHere = active.poll();
-					assert(endingHere.firstKmer() == kmer);
-					weight -= endingHere.weight();
-					if (endingHere.isReference()) {
-						referenceCount--;
-					}
-				}
+				weight -= activeWeight[activeHead];
+				referenceCount -= activeReferenceCount[activeHead];
+				activeHead++;
 				start = end + 1;
 			}
+			if (isEmpty()) {
+				activeHead = 0;
+				activeTail = 0;
+			}
 		}
 		@Override
 		public int compareTo(KmerNodeAggregator right) {
@@ -205,7 +262,7 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 		// kmer lookup is correct
 		assert(byKmer.entrySet().stream().allMatch(kvp -> kvp.getKey() == kvp.getValue().kmer));
 		// empty aggregators have been removed
-		assert(byKmer.values().stream().allMatch(ag -> !ag.active.isEmpty()));
+		assert(byKmer.values().stream().allMatch(ag -> !ag.isEmpty()));
 		// could have many start position entries, but only one position is valid (and even that could have duplicate entries)
 		assert(byEnd.size() >= byKmer.size());
 		assert(byEnd.stream().allMatch(snapshot -> !snapshot.isValid() || byKmer.containsKey(snapshot.aggregator().kmer)));
@@ -233,9 +290,9 @@ public class AggregateNodeIterator implements PeekingIterator<KmerNode> {
 		return byEnd.size();
 	}
 	public int tracking_aggregatorActiveNodeCount() {
-		return byKmer.values().stream().mapToInt(x -> x.active.size()).sum();
+		return byKmer.values().stream().mapToInt(x -> x.activeTail - x.activeHead).sum();
 	}
 	public int tracking_aggregatorKmerMaxActiveNodeCount() {
-		return byKmer.values().stream().mapToInt(x -> x.active.size()).max().orElse(0);
+		return byKmer.values().stream().mapToInt(x -> x.activeTail - x.activeHead).max().orElse(0);
 	}
 }
@@ -1,18 +1,18 @@
 package au.edu.wehi.idsv.debruijn.positional;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.ListIterator;
 import java.util.Set;
 
+import au.edu.wehi.idsv.EvidenceIdentifier;
+import au.edu.wehi.idsv.EvidenceIdentifierSet;
 import au.edu.wehi.idsv.util.IntervalUtil;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 
 /**
  * Tracks evidence provided to a given graph by wrapping a source iterator
@@ -23,8 +23,8 @@ import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
  */
 public class EvidenceTracker {
 	//public static EvidenceTracker TEMP_HACK_CURRENT_TRACKER = null;
-	private final Long2ObjectOpenHashMap<LinkedList<KmerSupportNode>> lookup = new Long2ObjectOpenHashMap<LinkedList<KmerSupportNode>>();
-	private final ObjectOpenHashSet<String> id = new ObjectOpenHashSet<String>();
+	private final Long2ObjectOpenHashMap<SupportList> lookup = new Long2ObjectOpenHashMap<SupportList>();
+	private final EvidenceIdentifierSet id = new EvidenceIdentifierSet();
 	private long evidenceTotal = 0;
 	/**
 	 * Tracks evidence emitted from the given iterator
@@ -32,49 +32,82 @@ public class EvidenceTracker {
 	 */
 	public EvidenceTracker() {
 	}
+	/**
+	 * Support for a single kmer stored as parallel (evidence, kmer offset) arrays
+	 * so no per-kmer support node objects need to be retained. 
+	 */
+	private static class SupportList {
+		private KmerEvidence[] evidence = new KmerEvidence[2];
+		private int[] offset = new int[2];
+		private int size = 0;
+		private void add(KmerEvidence e, int kmerOffset) {
+			if (size == evidence.length) {
+				evidence = Arrays.copyOf(evidence, size * 2);
+				offset = Arrays.copyOf(offset, size * 2);
+			}
+			evidence[size] = e;
+			offset[size] = kmerOffset;
+			size++;
+		}
+		/**
+		 * Removes the given entry by replacing it with the last entry
+		 */
+		private void remove(int index) {
+			size--;
+			evidence[index] = evidence[size];
+			offset[index] = offset[size];
+			evidence[size] = null;
+		}
+	}
 	/**
 	 * Tracks the given evidence
 	 * @param evidence
 	 */
-	public KmerSupportNode track(KmerSupportNode support) {
-		long kmer = support.lastKmer();
-		LinkedList<KmerSupportNode> list = lookup.get(kmer);
+	public synchronized KmerSupportNode track(KmerSupportNode support) {
+		track(support.evidence(), support.offset());
+		return support;
+	}
+	/**
+	 * Tracks the support provided by the given evidence kmer
+	 * @param evidence evidence
+	 * @param offset kmer offset
+	 */
+	public synchronized void track(KmerEvidence evidence, int offset) {
+		long kmer = evidence.kmer(offset);
+		SupportList list = lookup.get(kmer);
 		if (list == null) {
-			list = new LinkedList<KmerSupportNode>();
+			list = new SupportList();
 			lookup.put(kmer, list);
 		}
-		list.add(support);
-		if (id.add(support.evidence().evidence().getEvidenceID())) {
+		list.add(evidence, offset);
+		if (id.add(evidence.evidence().getEvidenceIdentifier())) {
 			evidenceTotal++;
 		}
-		return support;
 	}
 	/**
 	 * Stops tracking all nodes associated with the given evidence 
 	 * @param evidence
 	 */
-	public void remove(KmerEvidence evidence) {
+	public synchronized void remove(KmerEvidence evidence) {
 		for (int i = 0; i < evidence.length(); i++) {
 			long kmer = evidence.kmer(i);
 			remove(kmer, evidence);
 		}
-		id.remove(evidence.evidence().getEvidenceID());
+		id.remove(evidence.evidence().getEvidenceIdentifier());
 	}
 	/**
 	 * Stops tracking all nodes associated with the given evidence 
 	 * @param evidence
 	 */
 	private void remove(long kmer, KmerEvidence evidence) {
-		LinkedList<KmerSupportNode> list = lookup.get(kmer);
+		SupportList list = lookup.get(kmer);
 		if (list != null) {
-			ListIterator<KmerSupportNode> it = list.listIterator();
-			while (it.hasNext()) {
-				KmerSupportNode n = it.next();
-				if (n.evidence() == evidence) { 
-					it.remove();
+			for (int i = list.size - 1; i >= 0; i--) {
+				if (list.evidence[i] == evidence) { 
+					list.remove(i);
 				}
 			}
-			if (list.size() == 0) {
+			if (list.size == 0) {
 				lookup.remove(kmer);
 			}
 		}
@@ -95,7 +128,7 @@ public class EvidenceTracker {
 	public Set<KmerEvidence> untrack(Collection<KmerPathSubnode> contig) {
 		return traverse(contig, true);
 	}
-	public Set<KmerEvidence> traverse(Collection<KmerPathSubnode> contig, boolean remove) {
+	public synchronized Set<KmerEvidence> traverse(Collection<KmerPathSubnode> contig, boolean remove) {
 		Set<KmerEvidence> evidence = Collections.newSetFromMap(new IdentityHashMap<KmerEvidence, Boolean>());
 		for (KmerPathSubnode sn : contig) {
 			int start = sn.firstStart();
@@ -127,16 +160,16 @@ public class EvidenceTracker {
 	 * @param end
 	 */
 	private void toCollection(Collection<KmerEvidence> collection, long kmer, int start, int end, boolean remove) {
-		LinkedList<KmerSupportNode> list = lookup.get(kmer);
+		SupportList list = lookup.get(kmer);
 		if (list != null) {
-			ListIterator<KmerSupportNode> it = list.listIterator();
-			while (it.hasNext()) {
-				KmerSupportNode n = it.next();
-				if (IntervalUtil.overlapsClosed(start, end, n.lastStart(), n.lastEnd())) {
+			for (int i = list.size - 1; i >= 0; i--) {
+				KmerEvidence e = list.evidence[i];
+				int offset = list.offset[i];
+				if (IntervalUtil.overlapsClosed(start, end, e.startPosition() + offset, e.endPosition() + offset)) {
 					if (remove) {
-						it.remove();
+						list.remove(i);
 					}
-					collection.add(n.evidence());
+					collection.add(e);
 				}
 			}
 		}
@@ -156,20 +189,22 @@ public class EvidenceTracker {
 		}
 		return true;
 	}
-	public boolean matchesExpected(int expectedWidthWeight, LongArrayList kmers, int start, int end) {
+	public synchronized boolean matchesExpected(int expectedWidthWeight, LongArrayList kmers, int start, int end) {
 		int evidenceWeight = 0;
 		for (long kmer : kmers) {
-			LinkedList<KmerSupportNode> list = lookup.get(kmer);
+			SupportList list = lookup.get(kmer);
 			if (list != null) {
-				for (KmerSupportNode n : list) {
-					evidenceWeight += n.weight() * IntervalUtil.overlapsWidthClosed(start, end, n.lastStart(), n.lastEnd());
+				for (int i = 0; i < list.size; i++) {
+					KmerEvidence e = list.evidence[i];
+					int offset = list.offset[i];
+					evidenceWeight += e.weight(offset) * IntervalUtil.overlapsWidthClosed(start, end, e.startPosition() + offset, e.endPosition() + offset);
 				}
 			}
 		}
 		assert(evidenceWeight == expectedWidthWeight);
 		return evidenceWeight == expectedWidthWeight;
 	}
-	public boolean isTracked(String evidenceId) {
+	public synchronized boolean isTracked(EvidenceIdentifier evidenceId) {
 		return id.contains(evidenceId);
 	}
 	public class PathNodeAssertionInterceptor implements Iterator<KmerPathNode> {
@@ -210,19 +245,19 @@ public class EvidenceTracker {
 			return node;
 		}
 	}
-	public long tracking_evidenceTotal() {
+	public synchronized long tracking_evidenceTotal() {
 		return evidenceTotal;
 	}
-	public long tracking_evidenceActive() {
+	public synchronized long tracking_evidenceActive() {
 		return id.size();
 	}
-	public int tracking_kmerCount() {
+	public synchronized int tracking_kmerCount() {
 		return lookup.size();
 	}
-	public int tracking_supportNodeCount() {
-		return lookup.values().stream().mapToInt(x -> x.size()).sum();
+	public synchronized int tracking_supportNodeCount() {
+		return lookup.values().stream().mapToInt(x -> x.size).sum();
 	}
-	public int tracking_maxKmerSupportNodesCount() {
-		return lookup.values().stream().mapToInt(x -> x.size()).max().orElse(0);
+	public synchronized int tracking_maxKmerSupportNodesCount() {
+		return lookup.values().stream().mapToInt(x -> x.size).max().orElse(0);
 	}
 }
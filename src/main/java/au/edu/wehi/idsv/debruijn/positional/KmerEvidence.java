@@ -43,11 +43,19 @@ public class KmerEvidence extends PackedKmerList {
 	private final int end;
 	private final float score;
 	public KmerSupportNode node(int offset) {
-		if (ambiguous != null && ambiguous.get(offset)) {
+		if (isAmbiguous(offset)) {
 			return null;
 		}
 		return new KmerSupportNode(this, offset);
 	}
+	/**
+	 * Determines whether the given kmer contains an ambiguous base
+	 * @param offset kmer offset
+	 * @return true if the kmer does not provide support
+	 */
+	public boolean isAmbiguous(int offset) {
+		return ambiguous != null && ambiguous.get(offset);
+	}
 	public float evidenceQuality() { return score; }
 	public DirectedEvidence evidence() { return evidence; }
 	/**
@@ -251,7 +259,7 @@ public class KmerEvidence extends PackedKmerList {
 	}
 	@Override
 	public int hashCode() {
-		return evidence.getEvidenceID().hashCode();
+		return evidence.getEvidenceIdentifier().hashCode();
 	}
 	@Override
 	public boolean equals(Object obj) {
@@ -262,13 +270,6 @@ public class KmerEvidence extends PackedKmerList {
 		if (getClass() != obj.getClass())
 			return false;
 		KmerEvidence other = (KmerEvidence) obj;
-		String id = evidence.getEvidenceID();
-		String oid = other.evidence.getEvidenceID();
-		if (id == null) {
-			if (oid != null)
-				return false;
-		} else if (!id.equals(oid))
-			return false;
-		return true;
+		return evidence.getEvidenceIdentifier().equals(other.evidence.getEvidenceIdentifier());
 	}
 }
@@ -16,6 +16,7 @@ import com.google.common.collect.PeekingIterator;
 import au.edu.wehi.idsv.Defaults;
 import au.edu.wehi.idsv.debruijn.DeBruijnSequenceGraphNode;
 import au.edu.wehi.idsv.debruijn.KmerEncodingHelper;
+import au.edu.wehi.idsv.debruijn.PackedKmerPath;
 import au.edu.wehi.idsv.util.CollectionUtil;
 import au.edu.wehi.idsv.util.IntervalUtil;
 import it.unimi.dsi.fastutil.Hash;
@@ -33,7 +34,7 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 	private static final List<KmerPathNode> EMPTY_EDGE_LIST = ImmutableList.of();
 	private static final Ordering<KmerNode> NEXT_SORT_ORDER = KmerNodeUtil.ByFirstStart;
 	private static final Ordering<KmerNode> PREV_SORT_ORDER = KmerNodeUtil.ByLastStart;
-	private LongArrayList kmers; // FIXME: replace with 2-bit encoding of kmer sequence
+	private PackedKmerPath kmers;
 	private LongArrayList additionalKmers = null;
 	private IntArrayList additionalKmerOffsets = null;
 	private IntArrayList weight;
@@ -62,11 +63,15 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 	public int lastEnd() { return endPosition(length() - 1); }
 	public int firstStart() { return start; }
 	public int firstEnd() { return end; }
-	public long kmer(int offset) { return kmers.getLong(offset); }
+	public long kmer(int offset) { return kmers.get(offset); }
 	public int startPosition(int offset) { return start + offset; }
 	public int endPosition(int offset) { return end + offset; }
 	public int weight() { return totalWeight; }
-	public LongArrayList pathKmers() { return kmers; }
+	/**
+	 * Kmers of this path
+	 * @return decoded copy of the path kmers
+	 */
+	public LongArrayList pathKmers() { return kmers.toLongArrayList(); }
 	public IntArrayList pathWeights() { return weight; }
 	@Override
 	public int weight(int offset) {
@@ -89,8 +94,12 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 	{
 		return additionalKmerOffsets != null ? additionalKmerOffsets : EMPTY_OFFSET_LIST;
 	}
-	public KmerPathNode(long kmer, int start, int end, boolean reference, int weight) {
-		this.kmers = new LongArrayList(1);
+	/**
+	 * Creates a new path node
+	 * @param k kmer size. Path kmers are only packed when the kmer size is known.
+	 */
+	public KmerPathNode(int k, long kmer, int start, int end, boolean reference, int weight) {
+		this.kmers = new PackedKmerPath(k);
 		this.kmers.add(kmer);
 		this.weight = new IntArrayList(1);
 		this.weight.add(weight);
@@ -99,19 +108,25 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 		this.end = end;
 		this.reference = reference;
 	}
-	private KmerPathNode(LongArrayList kmer, int start, int end, boolean reference, int totalWeight, IntArrayList weight) {
-		this.kmers = kmer.clone();
+	public KmerPathNode(long kmer, int start, int end, boolean reference, int weight) {
+		this(0, kmer, start, end, reference, weight);
+	}
+	private KmerPathNode(PackedKmerPath kmer, int start, int end, boolean reference, int totalWeight, IntArrayList weight) {
+		this.kmers = kmer.copy();
 		this.weight = weight.clone();
 		this.totalWeight = totalWeight;
 		this.start = start;
 		this.end = end;
 		this.reference = reference;
 	}
-	private KmerPathNode(LongArrayList kmer, int start, int end, boolean reference, IntArrayList weight) {
+	private KmerPathNode(PackedKmerPath kmer, int start, int end, boolean reference, IntArrayList weight) {
 		this(kmer, start, end, reference, sumWeights(weight), weight);
 	}
+	public KmerPathNode(int k, KmerNode node) {
+		this(k, node.lastKmer(), node.lastStart(), node.lastEnd(), node.isReference(), node.weight());
+	}
 	public KmerPathNode(KmerNode node) {
-		this(node.lastKmer(), node.lastStart(), node.lastEnd(), node.isReference(), node.weight());
+		this(0, node);
 	}
 	private static int sumWeights(IntArrayList weight) {
 		int sum = 0;
@@ -277,10 +292,10 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 			additionalKmerOffsets.addAll(toMerge.additionalKmerOffsets);
 		}
 		if (additionalKmers == null) {
-			additionalKmers = toMerge.kmers;
-			additionalKmerOffsets = new IntArrayList(toMerge.kmers.size());
+			additionalKmers = toMerge.pathKmers();
+			additionalKmerOffsets = new IntArrayList(toMerge.length());
 		} else {
-			additionalKmers.addAll(toMerge.kmers);
+			additionalKmers.addAll(toMerge.pathKmers());
 		}
 		for (int i = 0; i < toMerge.length(); i++) {
 			additionalKmerOffsets.add(i);
@@ -518,10 +533,10 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 		assert(firstNodeLength > 0);
 		assert(firstNodeLength < length());
 		// copy our new kmers and weights
-		LongArrayList kmerSecond = new LongArrayList(kmers.subList(firstNodeLength, length()));
+		PackedKmerPath kmerSecond = kmers.subPath(firstNodeLength, length());
 		IntArrayList weightSecond = new IntArrayList(weight.subList(firstNodeLength, length()));
 		// let split own our current arrays
-		this.kmers.removeElements(firstNodeLength, this.kmers.size());
+		this.kmers.truncate(firstNodeLength);
 		this.weight.removeElements(firstNodeLength, this.weight.size());
 		KmerPathNode split = new KmerPathNode(
 				this.kmers,
@@ -667,8 +682,8 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 		result = prime * result + end;
 		result = prime * result + totalWeight;
 		if (kmers != null) {
-			result = prime * result + Long.hashCode(kmers.getLong(0));
-			result = prime * result + Long.hashCode(kmers.getLong(kmers.size() - 1));
+			result = prime * result + Long.hashCode(kmers.get(0));
+			result = prime * result + Long.hashCode(kmers.get(kmers.size() - 1));
 		}
 		// incorporating these adds hash cost whilst giving minimal improvement
 		// to hash collision rate
@@ -761,7 +776,11 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 		}
 		totalWeight -= weight.getInt(offset);
 		weight.remove(offset);
-		kmers.remove(offset);
+		if (offset == 0) {
+			kmers.removeFirst();
+		} else {
+			kmers.removeLast();
+		}
 		if (additionalKmers != null) {
 			if (length() > 0) {
 				int offsetShift = offset == 0 ? 1 : 0;
@@ -1012,7 +1031,7 @@ public class KmerPathNode implements KmerNode, DeBruijnSequenceGraphNode {
 		assert(length() <= maxPathLength);
 		assert(end - start <= maxSupportWidth);
 		for (int i = 1; i < length(); i++) {
-			assert(KmerEncodingHelper.isNext(k, kmers.getLong(i - 1), kmers.getLong(i)));
+			assert(KmerEncodingHelper.isNext(k, kmers.get(i - 1), kmers.get(i)));
 		}
 		assert(sumWeights(weight) == totalWeight);
 		if (nextList != null) {
@@ -5,13 +5,13 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.PriorityQueue;
 
 import com.google.common.collect.Iterators;
 import com.google.common.collect.PeekingIterator;
 
 import au.edu.wehi.idsv.Defaults;
 import au.edu.wehi.idsv.debruijn.KmerEncodingHelper;
+import au.edu.wehi.idsv.util.CalendarQueue;
 import au.edu.wehi.idsv.util.IntervalUtil;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
@@ -52,8 +52,8 @@ public class PathNodeIterator implements Iterator<KmerPathNode> {
 	 * - prev nodes must end before current not first kmer end position
 	 * - next nodes must start no later than our end position + 1
 	 */
-	private final PriorityQueue<KmerNode> activeNodes = new PriorityQueue<KmerNode>(KmerNodeUtil.ByLastEnd);
-	private final PriorityQueue<KmerPathNode> pathNodes = new PriorityQueue<KmerPathNode>(1024, KmerNodeUtil.ByFirstStart);
+	private final CalendarQueue<KmerNode> activeNodes = new CalendarQueue<KmerNode>(n -> n.lastEnd());
+	private final CalendarQueue<KmerPathNode> pathNodes = new CalendarQueue<KmerPathNode>(n -> n.firstStart());
 	private int inputPosition = Integer.MIN_VALUE;
 	/**
 	 * Maximum width of a single node. This is calculated from the input sequence
@@ -190,7 +190,7 @@ public class PathNodeIterator implements Iterator<KmerPathNode> {
 		}
 	}
 	private void merge() {
-		while (!activeNodes.isEmpty() && activeNodes.peek().lastEnd() < inputPosition) {
+		while (!activeNodes.isEmpty() && activeNodes.peekKey() < inputPosition) {
 			KmerNode node = activeNodes.poll();
 			merge(node);
 		}
@@ -222,7 +222,7 @@ public class PathNodeIterator implements Iterator<KmerPathNode> {
 			}
 		}
 		// couldn't merge into a previous path = new path
-		KmerPathNode pn = new KmerPathNode(node);
+		KmerPathNode pn = new KmerPathNode(k, node);
 		lookupReplace(node, pn);
 		firstKmerLookupAdd(pn);
 		pathNodes.add(pn);
@@ -2,7 +2,9 @@ package au.edu.wehi.idsv.debruijn.positional;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import com.google.common.collect.Iterators;
@@ -17,6 +19,7 @@ import au.edu.wehi.idsv.ProcessingContext;
 import au.edu.wehi.idsv.configuration.AssemblyConfiguration;
 import au.edu.wehi.idsv.configuration.VisualisationConfiguration;
 import au.edu.wehi.idsv.sam.SamTags;
+import au.edu.wehi.idsv.util.AsyncBufferedIterator;
 import au.edu.wehi.idsv.visualisation.AssemblyTelemetry.AssemblyChunkTelemetry;
 import au.edu.wehi.idsv.visualisation.PositionalDeBruijnGraphTracker;
 import htsjdk.samtools.SAMRecord;
@@ -30,12 +33,20 @@ import htsjdk.samtools.util.Log;
  */
 public class PositionalAssembler implements Iterator<SAMRecord> {
 	private static final Log log = Log.getInstance(PositionalAssembler.class);
+	/**
+	 * Number of kmer nodes passed between pipelined assembly stages in each batch
+	 */
+	private static final int PIPELINE_BATCH_SIZE = 4096;
 	private final ProcessingContext context;
 	private final AssemblyEvidenceSource source;
 	private final AssemblyIdGenerator assemblyNameGenerator;
 	private final PeekingIterator<DirectedEvidence> it;
 	private final BreakendDirection direction;
 	private NonReferenceContigAssembler currentAssembler = null;
+	/**
+	 * Background stages of the current assembler, in pipeline order
+	 */
+	private final List<AsyncBufferedIterator<?>> currentPipeline = new ArrayList<>();
 	private String currentContig = "";
 	private AssemblyChunkTelemetry telemetry = null;
 	public PositionalAssembler(ProcessingContext context, AssemblyEvidenceSource source, AssemblyIdGenerator assemblyNameGenerator, Iterator<DirectedEvidence> backingIterator, BreakendDirection direction) {
@@ -72,6 +83,11 @@ public class PositionalAssembler implements Iterator<SAMRecord> {
 		}
 	}
 	private void closeCurrentAssembler() {
+		// stop downstream stages first so upstream stages are not blocked writing to a full buffer
+		for (int i = currentPipeline.size() - 1; i >= 0; i--) {
+			currentPipeline.get(i).close();
+		}
+		currentPipeline.clear();
 		if (currentAssembler.getExportTracker() != null) {
 			try {
 				currentAssembler.getExportTracker().close();
@@ -124,9 +140,22 @@ public class PositionalAssembler implements Iterator<SAMRecord> {
 		currentContig = context.getDictionary().getSequence(referenceIndex).getSequenceName();
 		ReferenceIndexIterator evidenceIt = new ReferenceIndexIterator(it, referenceIndex);
 		EvidenceTracker evidenceTracker = new EvidenceTracker();
+		VisualisationConfiguration vis = context.getConfig().getVisualisation();
+		// graph export inspects the internal state of each stage so requires single-threaded assembly
+		boolean pipelined = ap.positional.pipelined && !vis.assemblyProgress;
 		SupportNodeIterator supportIt = new SupportNodeIterator(k, evidenceIt, source.getMaxConcordantFragmentSize(), evidenceTracker, ap.includePairAnchors, ap.pairAnchorMismatchIgnoreEndBases);
-		AggregateNodeIterator agIt = new AggregateNodeIterator(supportIt);
+		Iterator<KmerSupportNode> ksnIt = supportIt;
+		if (pipelined) {
+			ksnIt = pipelineStage(supportIt, "PositionalSupport", referenceIndex);
+		}
+		AggregateNodeIterator agIt = new AggregateNodeIterator(ksnIt);
 		Iterator<KmerNode> knIt = agIt;
+		if (pipelined) {
+			// Path node construction adds edges to nodes that have already been emitted.
+			// Since all downstream stages modify the shared path node graph, aggregation
+			// is the last stage that can run independently of contig calling.
+			knIt = pipelineStage(agIt, "PositionalAggregate", referenceIndex);
+		}
 		if (Defaults.SANITY_CHECK_DE_BRUIJN) {
 			knIt = evidenceTracker.new AggregateNodeAssertionInterceptor(knIt);
 		}
@@ -155,7 +184,6 @@ public class PositionalAssembler implements Iterator<SAMRecord> {
 			}
 		}
 		currentAssembler = new NonReferenceContigAssembler(pnIt, referenceIndex, maxEvidenceSupportIntervalWidth, anchorAssemblyLength, k, source, assemblyNameGenerator, evidenceTracker, currentContig);
-		VisualisationConfiguration vis = context.getConfig().getVisualisation();
 		if (vis.assemblyProgress) {
 			String filename = String.format("positional-%s_%d-%s.csv", context.getDictionary().getSequence(referenceIndex).getSequenceName(), firstPosition, direction);
 			File file = new File(vis.directory, filename);
@@ -171,6 +199,15 @@ public class PositionalAssembler implements Iterator<SAMRecord> {
 		currentAssembler.setTelemetry(getTelemetry());
 		return currentAssembler;
 	}
+	private <T> Iterator<T> pipelineStage(Iterator<T> stage, String name, int referenceIndex) {
+		String threadName = name + "-" + context.getDictionary().getSequence(referenceIndex).getSequenceName();
+		if (direction != null) {
+			threadName += "-" + direction.toChar();
+		}
+		AsyncBufferedIterator<T> async = new AsyncBufferedIterator<T>(stage, threadName, gridss.Defaults.ASYNC_BUFFERS, PIPELINE_BATCH_SIZE);
+		currentPipeline.add(async);
+		return async;
+	}
 	public AssemblyChunkTelemetry getTelemetry() {
 		return telemetry;
 	}
@@ -0,0 +1,145 @@
+package au.edu.wehi.idsv.debruijn.positional;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Start position ordered buffer of kmer support.
+ *
+ * Support is stored as (evidence, kmer offset) pairs in position buckets
+ * so no KmerSupportNode or heap entry is allocated for each kmer.
+ * Support starting at the same position is returned in insertion order.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class SupportNodeBuffer {
+	private static final int INITIAL_BUCKET_COUNT = 1024;
+	private static final int INITIAL_BUCKET_SIZE = 16;
+	/**
+	 * Ring of position buckets. The bucket for position p is at p & mask
+	 */
+	private Bucket[] buckets = new Bucket[INITIAL_BUCKET_COUNT];
+	private int mask = INITIAL_BUCKET_COUNT - 1;
+	/**
+	 * Start position of the first support in the buffer
+	 */
+	private int firstPosition;
+	/**
+	 * Start position of the last support in the buffer
+	 */
+	private int lastPosition;
+	private int size = 0;
+	private static class Bucket {
+		private KmerEvidence[] evidence = new KmerEvidence[INITIAL_BUCKET_SIZE];
+		private int[] offset = new int[INITIAL_BUCKET_SIZE];
+		private int head = 0;
+		private int tail = 0;
+		private boolean isEmpty() {
+			return head == tail;
+		}
+		private void add(KmerEvidence e, int kmerOffset) {
+			if (tail == evidence.length) {
+				if (head > 0) {
+					// compact
+					System.arraycopy(evidence, head, evidence, 0, tail - head);
+					System.arraycopy(offset, head, offset, 0, tail - head);
+					Arrays.fill(evidence, tail - head, tail, null);
+					tail -= head;
+					head = 0;
+				}
+				if (tail == evidence.length) {
+					evidence = Arrays.copyOf(evidence, evidence.length * 2);
+					offset = Arrays.copyOf(offset, offset.length * 2);
+				}
+			}
+			evidence[tail] = e;
+			offset[tail] = kmerOffset;
+			tail++;
+		}
+		private void poll() {
+			evidence[head] = null;
+			head++;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+		}
+	}
+	public int size() {
+		return size;
+	}
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	/**
+	 * Adds the support of the given evidence kmer
+	 * @param evidence evidence
+	 * @param offset kmer offset
+	 */
+	public void add(KmerEvidence evidence, int offset) {
+		int position = evidence.startPosition() + offset;
+		if (size == 0) {
+			firstPosition = position;
+			lastPosition = position;
+		} else {
+			int newFirst = Math.min(firstPosition, position);
+			int newLast = Math.max(lastPosition, position);
+			ensureCapacity(newLast - newFirst + 1);
+			firstPosition = newFirst;
+			lastPosition = newLast;
+		}
+		Bucket bucket = buckets[position & mask];
+		if (bucket == null) {
+			bucket = new Bucket();
+			buckets[position & mask] = bucket;
+		}
+		bucket.add(evidence, offset);
+		size++;
+	}
+	private void ensureCapacity(int positions) {
+		if (positions <= buckets.length) return;
+		int newLength = buckets.length;
+		while (newLength < positions) {
+			newLength *= 2;
+		}
+		Bucket[] newBuckets = new Bucket[newLength];
+		int newMask = newLength - 1;
+		for (int i = 0; i < buckets.length; i++) {
+			int position = firstPosition + i;
+			newBuckets[position & newMask] = buckets[position & mask];
+		}
+		buckets = newBuckets;
+		mask = newMask;
+	}
+	/**
+	 * Start position of the first support in the buffer
+	 */
+	public int peekPosition() {
+		if (size == 0) throw new NoSuchElementException();
+		return firstPosition;
+	}
+	public KmerEvidence peekEvidence() {
+		if (size == 0) throw new NoSuchElementException();
+		Bucket bucket = buckets[firstPosition & mask];
+		return bucket.evidence[bucket.head];
+	}
+	public int peekOffset() {
+		if (size == 0) throw new NoSuchElementException();
+		Bucket bucket = buckets[firstPosition & mask];
+		return bucket.offset[bucket.head];
+	}
+	/**
+	 * Removes the first support from the buffer
+	 */
+	public void poll() {
+		if (size == 0) throw new NoSuchElementException();
+		buckets[firstPosition & mask].poll();
+		size--;
+		if (size > 0) {
+			while (buckets[firstPosition & mask] == null || buckets[firstPosition & mask].isEmpty()) {
+				firstPosition++;
+			}
+		}
+	}
+}
@@ -1,9 +1,6 @@
 package au.edu.wehi.idsv.debruijn.positional;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
-import java.util.PriorityQueue;
 
 import com.google.common.collect.Iterators;
 import com.google.common.collect.PeekingIterator;
@@ -17,6 +14,11 @@ import htsjdk.samtools.util.Log;
 /**
  * Transforms a breakend start DirectedEvidence iterator
  * into a start position sorted kmer support iterator
+ * 
+ * Support is buffered without allocating a KmerSupportNode for each kmer.
+ * Consumers can avoid KmerSupportNode allocation entirely by using the
+ * primitive peek methods and skip() instead of next().
+ * 
  * @author Daniel Cameron
  *
  */
@@ -36,7 +38,7 @@ public class SupportNodeIterator implements PeekingIterator<KmerSupportNode> {
 	 */
 	private final int emitOffset;
 	private final int maxSupportStartPositionOffset;
-	private final PriorityQueue<KmerSupportNode> buffer = new PriorityQueue<KmerSupportNode>(1024, KmerNodeUtil.ByFirstStart);
+	private final SupportNodeBuffer buffer = new SupportNodeBuffer();
 	private final EvidenceTracker tracker;
 	private final int disallowMismatch;
 	private int inputPosition = Integer.MIN_VALUE;
@@ -70,7 +72,7 @@ public class SupportNodeIterator implements PeekingIterator<KmerSupportNode> {
 		this.tracker = tracker;
 	}
 	private void process(DirectedEvidence de) {
-		if (tracker != null && tracker.isTracked(de.getEvidenceID())) {
+		if (tracker != null && tracker.isTracked(de.getEvidenceIdentifier())) {
 			if (!MessageThrottler.Current.shouldSupress(log, "assembly duplicated reads")) {
 				log.warn(String.format("Attempting to add %s to assembly when already present. "
 						+ "Possible causes are: duplicate read name, alignment with multimapping aligner which writes read alignments as distinct pairs. ",
@@ -104,39 +106,48 @@ public class SupportNodeIterator implements PeekingIterator<KmerSupportNode> {
 		if (e == null) {
 			return;
 		}
-		List<KmerSupportNode> supportNodes = new ArrayList<KmerSupportNode>(e.length() + (e2 == null ? 0 : e2.length()));
-		boolean hasNonReference = addSupport(supportNodes, de, e);
-		addSupport(supportNodes, de, e2);
-		if (hasNonReference) {
+		if (hasNonReference(e)) {
 			// only add evidence that provides support for an SV
 			// If we have no non-reference kmers then we might
 			// never call a contig containing this evidence thus
 			// never remove it from the graph
 			// SC or RPs with no non-reference kmers can occur when
-			// an ambiguous base case exist in the soft clip/mate  
-			buffer.addAll(supportNodes);
+			// an ambiguous base case exist in the soft clip/mate
 			if (tracker != null) {
-				for (KmerSupportNode sn : supportNodes) {
-					tracker.track(sn);
+				// track all kmers of the evidence atomically since the contig
+				// caller can be untracking evidence on another thread
+				synchronized (tracker) {
+					addSupport(de, e);
+					addSupport(de, e2);
 				}
+			} else {
+				addSupport(de, e);
+				addSupport(de, e2);
 			}
 		}
 	}
-	private boolean addSupport(List<KmerSupportNode> supportNodes, DirectedEvidence de, KmerEvidence e) {
-		boolean hasNonReference = false;
+	private static boolean hasNonReference(KmerEvidence e) {
+		for (int i = 0; i < e.length(); i++) {
+			if (!e.isAmbiguous(i) && !e.isAnchored(i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	private void addSupport(DirectedEvidence de, KmerEvidence e) {
 		if (e != null) {
 			for (int i = 0; i < e.length(); i++) {
-				KmerSupportNode support = e.node(i); 
-				if (support != null) {
+				if (!e.isAmbiguous(i)) {
 					// make sure that we are actually able to resort into kmer order
-					assert(support.firstStart() >= de.getBreakendSummary().start - maxSupportStartPositionOffset);
-					assert(support.weight() > 0);
-					supportNodes.add(support);
-					hasNonReference |= !support.isReference();
+					assert(e.startPosition() + i >= de.getBreakendSummary().start - maxSupportStartPositionOffset);
+					assert(e.weight(i) > 0);
+					buffer.add(e, i);
+					if (tracker != null) {
+						tracker.track(e, i);
+					}
 				}
 			}
 		}
-		return hasNonReference;
 	}
 	@Override
 	public boolean hasNext() {
@@ -145,19 +156,61 @@ public class SupportNodeIterator implements PeekingIterator<KmerSupportNode> {
 	}
 	@Override
 	public KmerSupportNode next() {
-		ensureBuffer();
-		KmerSupportNode node = buffer.poll();
-		assert(node.lastStart() >= lastPosition);
-		lastPosition = node.lastStart();		
+		KmerSupportNode node = peek();
+		skip();
 		return node;
 	}
 	@Override
 	public KmerSupportNode peek() {
 		ensureBuffer();
-		return buffer.peek();
+		return new KmerSupportNode(buffer.peekEvidence(), buffer.peekOffset());
+	}
+	/**
+	 * Skips over the next support node
+	 */
+	public void skip() {
+		ensureBuffer();
+		assert(buffer.peekPosition() >= lastPosition);
+		lastPosition = buffer.peekPosition();
+		buffer.poll();
+	}
+	/**
+	 * Start position of the next support node 
+	 */
+	public int peekStart() {
+		ensureBuffer();
+		return buffer.peekPosition();
+	}
+	/**
+	 * End position of the next support node 
+	 */
+	public int peekEnd() {
+		ensureBuffer();
+		return buffer.peekEvidence().endPosition() + buffer.peekOffset();
+	}
+	/**
+	 * Kmer of the next support node 
+	 */
+	public long peekKmer() {
+		ensureBuffer();
+		return buffer.peekEvidence().kmer(buffer.peekOffset());
+	}
+	/**
+	 * Weight of the next support node 
+	 */
+	public int peekWeight() {
+		ensureBuffer();
+		return buffer.peekEvidence().weight(buffer.peekOffset());
+	}
+	/**
+	 * Reference support of the next support node 
+	 */
+	public boolean peekReference() {
+		ensureBuffer();
+		return buffer.peekEvidence().isAnchored(buffer.peekOffset());
 	}
 	private void ensureBuffer() {
-		while (underlying.hasNext() && (buffer.isEmpty() || buffer.peek().lastStart() > inputPosition - emitOffset)) {
+		while (underlying.hasNext() && (buffer.isEmpty() || buffer.peekPosition() > inputPosition - emitOffset)) {
 			inputPosition = underlying.peek().getBreakendSummary().start;
 			advance();
 		}
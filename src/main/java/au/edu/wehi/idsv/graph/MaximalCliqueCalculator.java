@@ -0,0 +1,22 @@
+package au.edu.wehi.idsv.graph;
+
+import java.util.List;
+
+/**
+ * Streaming maximal clique calculator of a rectangle graph
+ *
+ * @author Daniel Cameron
+ */
+public interface MaximalCliqueCalculator {
+	/**
+	 * Adds the given node to the graph
+	 * @param node next node. Nodes must be added in ByStartXY order
+	 * @return maximal cliques that can no longer be affected by subsequent nodes
+	 */
+	List<RectangleGraphNode> next(RectangleGraphNode node);
+	/**
+	 * Completes maximal clique calculation
+	 * @return all remaining maximal cliques
+	 */
+	List<RectangleGraphNode> complete();
+}
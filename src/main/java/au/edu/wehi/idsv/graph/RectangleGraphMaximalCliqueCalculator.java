@@ -25,7 +25,7 @@ import au.edu.wehi.idsv.Defaults;
  * 
  * @author Daniel Cameron
  */
-public class RectangleGraphMaximalCliqueCalculator {
+public class RectangleGraphMaximalCliqueCalculator implements MaximalCliqueCalculator {
 	private RectangleGraphNode lastNode = null;
 	private List<RectangleGraphNode> outBuffer;
 	private final PriorityQueue<RectangleGraphNode> activeEndingX = new PriorityQueue<RectangleGraphNode>(11, RectangleGraphNode.ByEndXStartYEndY); // sorted by endX
@@ -13,10 +13,14 @@ import com.google.common.collect.AbstractIterator;
  */
 public class RectangleGraphMaximalCliqueIterator extends AbstractIterator<RectangleGraphNode> {
 	private final Queue<RectangleGraphNode> buffer = new ArrayDeque<RectangleGraphNode>();
-	private RectangleGraphMaximalCliqueCalculator calc = new RectangleGraphMaximalCliqueCalculator();
+	private MaximalCliqueCalculator calc;
 	private Iterator<RectangleGraphNode> it;
 	public RectangleGraphMaximalCliqueIterator(Iterator<RectangleGraphNode> it) {
+		this(it, new RectangleGraphMaximalCliqueCalculator());
+	}
+	public RectangleGraphMaximalCliqueIterator(Iterator<RectangleGraphNode> it, MaximalCliqueCalculator calc) {
 		this.it = it;
+		this.calc = calc;
 	}
 	@Override
 	protected RectangleGraphNode computeNext() {
@@ -0,0 +1,426 @@
+package au.edu.wehi.idsv.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+import au.edu.wehi.idsv.Defaults;
+
+/**
+ * Calculates all maximal cliques of a rectangle graph
+ *
+ * Calls the same maximal cliques in the same order as @see RectangleGraphMaximalCliqueCalculator
+ * but stores the scanline intervals in a treap with lazily propagated weight and start X
+ * updates. Scanline updates take O(log n) time instead of requiring a traversal of every
+ * scanline interval, so calling does not become quadratic when many rectangles overlap.
+ *
+ * An interval can only be a maximal clique if a rectangle starts at the interval start
+ * and a rectangle ends at the interval end. The start X of all other intervals is ignored.
+ *
+ * @author Daniel Cameron
+ */
+public class RectangleGraphMaximalCliqueTreeCalculator implements MaximalCliqueCalculator {
+	private static final long NOT_MAXIMAL = Long.MAX_VALUE;
+	private static final long SENTINEL_START = Long.MAX_VALUE - 1;
+	private final Random random = new Random(0);
+	private RectangleGraphNode lastNode = null;
+	private List<RectangleGraphNode> outBuffer;
+	private final PriorityQueue<RectangleGraphNode> activeEndingX = new PriorityQueue<RectangleGraphNode>(11, RectangleGraphNode.ByEndXStartYEndY);
+	/**
+	 * Nodes starting at the current scanline that have not yet been incorporated into the scanline
+	 */
+	private final List<RectangleGraphNode> startingCurrentScanline = new ArrayList<RectangleGraphNode>();
+	private long scanlineX = Long.MIN_VALUE;
+	private ScanlineInterval root;
+	public RectangleGraphMaximalCliqueTreeCalculator() {
+		root = merge(new ScanlineInterval(Long.MIN_VALUE, SENTINEL_START), new ScanlineInterval(SENTINEL_START, Long.MAX_VALUE));
+	}
+	/**
+	 * Half-open scanline interval treap node.
+	 * Lazy updates are pending for the children of the node,
+	 * the node itself and the subtree aggregates are always up to date.
+	 */
+	private class ScanlineInterval {
+		private final long startY;
+		private long endY;
+		private final int priority = random.nextInt();
+		private ScanlineInterval left;
+		private ScanlineInterval right;
+		private long weight = 0;
+		private int startHere = 0;
+		private int endHere = 0;
+		/**
+		 * NOT_MAXIMAL indicates this interval is not maximal
+		 */
+		private long startX = NOT_MAXIMAL;
+		/**
+		 * Number of intervals in this subtree with rectangles starting and ending at the interval bounds
+		 */
+		private int boundedCount = 0;
+		/**
+		 * Number of maximal clique intervals in this subtree
+		 */
+		private int maximalCount = 0;
+		private long pendingWeight = 0;
+		private boolean hasPendingStartX = false;
+		private long pendingStartX;
+		private ScanlineInterval(long startY, long endY) {
+			this.startY = startY;
+			this.endY = endY;
+		}
+		private boolean isBounded() {
+			return startHere > 0 && endHere > 0;
+		}
+		private boolean isMaximalClique() {
+			return isBounded() && startX != NOT_MAXIMAL;
+		}
+		@Override
+		public String toString() {
+			return String.format("[%d,%d)(w=%d,s=%d,e=%d,x=%d)", startY, endY, weight, startHere, endHere, startX);
+		}
+	}
+	private static void addWeight(ScanlineInterval t, long weight) {
+		if (t == null) return;
+		t.weight += weight;
+		t.pendingWeight += weight;
+	}
+	private static void setStartX(ScanlineInterval t, long startX) {
+		if (t == null) return;
+		t.startX = startX;
+		t.hasPendingStartX = true;
+		t.pendingStartX = startX;
+		t.maximalCount = startX == NOT_MAXIMAL ? 0 : t.boundedCount;
+	}
+	private static void push(ScanlineInterval t) {
+		if (t.pendingWeight != 0) {
+			addWeight(t.left, t.pendingWeight);
+			addWeight(t.right, t.pendingWeight);
+			t.pendingWeight = 0;
+		}
+		if (t.hasPendingStartX) {
+			setStartX(t.left, t.pendingStartX);
+			setStartX(t.right, t.pendingStartX);
+			t.hasPendingStartX = false;
+		}
+	}
+	private static void pull(ScanlineInterval t) {
+		t.boundedCount = (t.isBounded() ? 1 : 0);
+		t.maximalCount = (t.isMaximalClique() ? 1 : 0);
+		if (t.left != null) {
+			t.boundedCount += t.left.boundedCount;
+			t.maximalCount += t.left.maximalCount;
+		}
+		if (t.right != null) {
+			t.boundedCount += t.right.boundedCount;
+			t.maximalCount += t.right.maximalCount;
+		}
+	}
+	/**
+	 * Merges two treaps. All intervals in a must be before all intervals in b.
+	 */
+	private static ScanlineInterval merge(ScanlineInterval a, ScanlineInterval b) {
+		if (a == null) return b;
+		if (b == null) return a;
+		if (a.priority > b.priority) {
+			push(a);
+			a.right = merge(a.right, b);
+			pull(a);
+			return a;
+		} else {
+			push(b);
+			b.left = merge(a, b.left);
+			pull(b);
+			return b;
+		}
+	}
+	private static ScanlineInterval rotateLeft(ScanlineInterval t) {
+		ScanlineInterval r = t.right;
+		t.right = r.left;
+		pull(t);
+		r.left = t;
+		pull(r);
+		return r;
+	}
+	private static ScanlineInterval rotateRight(ScanlineInterval t) {
+		ScanlineInterval l = t.left;
+		t.left = l.right;
+		pull(t);
+		l.right = t;
+		pull(l);
+		return l;
+	}
+	/**
+	 * Interval containing the given position.
+	 * Lazy updates are not applied so only the interval bounds and counts are valid.
+	 */
+	private ScanlineInterval containing(long y) {
+		ScanlineInterval t = root;
+		while (y < t.startY || y >= t.endY) {
+			t = y < t.startY ? t.left : t.right;
+		}
+		return t;
+	}
+	/**
+	 * Splits the interval containing the given position
+	 * so an interval starts at the given position
+	 * @param y start y to ensure
+	 */
+	private void splitAt(long y) {
+		if (containing(y).startY == y) return;
+		root = splitAt(root, y);
+	}
+	private ScanlineInterval splitAt(ScanlineInterval t, long y) {
+		push(t);
+		if (y < t.startY) {
+			t.left = splitAt(t.left, y);
+			if (t.left.priority > t.priority) return rotateRight(t);
+		} else if (y >= t.endY) {
+			t.right = splitAt(t.right, y);
+			if (t.right.priority > t.priority) return rotateLeft(t);
+		} else {
+			assert(y > t.startY);
+			ScanlineInterval newNode = new ScanlineInterval(y, t.endY);
+			newNode.weight = t.weight;
+			newNode.endHere = t.endHere;
+			pull(newNode);
+			t.endHere = 0;
+			t.endY = y;
+			t.startX = NOT_MAXIMAL;
+			// the new interval immediately follows this one
+			t.right = insertFirst(t.right, newNode);
+			if (t.right.priority > t.priority) return rotateLeft(t);
+		}
+		pull(t);
+		return t;
+	}
+	private static ScanlineInterval insertFirst(ScanlineInterval t, ScanlineInterval node) {
+		if (t == null) return node;
+		push(t);
+		t.left = insertFirst(t.left, node);
+		if (t.left.priority > t.priority) return rotateRight(t);
+		pull(t);
+		return t;
+	}
+	/**
+	 * Adjusts the count of rectangles starting and ending at the interval containing the given position
+	 */
+	private static void adjustCounts(ScanlineInterval t, long y, int startDelta, int endDelta) {
+		push(t);
+		if (y < t.startY) {
+			adjustCounts(t.left, y, startDelta, endDelta);
+		} else if (y >= t.endY) {
+			adjustCounts(t.right, y, startDelta, endDelta);
+		} else {
+			t.startHere += startDelta;
+			t.endHere += endDelta;
+		}
+		pull(t);
+	}
+	/**
+	 * Updates the weight and maximal clique start of the intervals starting in the given range
+	 * @param subtreeStartY all intervals in the subtree start at or after this position
+	 * @param subtreeEndY all intervals in the subtree start before this position
+	 */
+	private static void update(ScanlineInterval t, long startY, long endYexclusive, long subtreeStartY, long subtreeEndY, long weight, long startX) {
+		if (t == null || endYexclusive <= subtreeStartY || startY >= subtreeEndY) return;
+		if (startY <= subtreeStartY && subtreeEndY <= endYexclusive) {
+			addWeight(t, weight);
+			setStartX(t, startX);
+			return;
+		}
+		push(t);
+		if (startY <= t.startY && t.startY < endYexclusive) {
+			t.weight += weight;
+			t.startX = startX;
+		}
+		update(t.left, startY, endYexclusive, subtreeStartY, t.startY, weight, startX);
+		update(t.right, startY, endYexclusive, t.startY + 1, subtreeEndY, weight, startX);
+		pull(t);
+	}
+	private void update(long startY, long endYexclusive, long weight, long startX) {
+		update(root, startY, endYexclusive, Long.MIN_VALUE, Long.MAX_VALUE, weight, startX);
+	}
+	/**
+	 * Merges the intervals either side of the given position if
+	 * no rectangle starts or ends at the given position
+	 */
+	private void mergeAt(long y) {
+		if (y == Long.MIN_VALUE || y == SENTINEL_START) return; // can't merge the first interval or our end sentinel
+		ScanlineInterval right = containing(y);
+		if (right.startY != y) return; // already merged
+		if (right.startHere != 0 || containing(y - 1).endHere != 0) return;
+		root = remove(root, y);
+		extendTo(root, y - 1, right.endY, right.endHere);
+	}
+	private static ScanlineInterval remove(ScanlineInterval t, long startY) {
+		push(t);
+		if (startY < t.startY) {
+			t.left = remove(t.left, startY);
+		} else if (startY > t.startY) {
+			t.right = remove(t.right, startY);
+		} else {
+			return merge(t.left, t.right);
+		}
+		pull(t);
+		return t;
+	}
+	/**
+	 * Extends the interval containing the given position to cover the following (removed) interval
+	 */
+	private static void extendTo(ScanlineInterval t, long y, long endY, int endHere) {
+		push(t);
+		if (y < t.startY) {
+			extendTo(t.left, y, endY, endHere);
+		} else if (y >= t.endY) {
+			extendTo(t.right, y, endY, endHere);
+		} else {
+			t.endY = endY;
+			t.endHere = endHere;
+			t.startX = NOT_MAXIMAL;
+		}
+		pull(t);
+	}
+	private List<RectangleGraphNode> getCalledCliques() {
+		List<RectangleGraphNode> result = outBuffer == null ? ImmutableList.<RectangleGraphNode>of() : outBuffer;
+		outBuffer = null;
+		return result;
+	}
+	/**
+	 * Advances to the next position
+	 * @param node
+	 * @return
+	 */
+	@Override
+	public List<RectangleGraphNode> next(RectangleGraphNode node) {
+		assert(node.startX <= node.endX);
+		assert(node.startY <= node.endY);
+		assert(node.weight > 0);
+		assert(node.startX >= scanlineX);
+		assert(lastNode == null || RectangleGraphNode.ByStartXY.compare(lastNode, node) <= 0);
+		lastNode = node;
+		if (node.startX != scanlineX) {
+			scanlineCompleteProcessing();
+			// advance scanline
+			processEndXBefore(node.startX);
+			scanlineX = node.startX;
+		}
+		startingCurrentScanline.add(node);
+		activeEndingX.add(node);
+		return getCalledCliques();
+	}
+	/**
+	 * Incorporates the nodes starting at the current scanline
+	 */
+	private void scanlineCompleteProcessing() {
+		if (startingCurrentScanline.isEmpty()) return;
+		// all interval bounds must be updated before any interval can be considered maximal
+		for (RectangleGraphNode node : startingCurrentScanline) {
+			splitAt(node.startY);
+			splitAt(node.endY + 1);
+		}
+		for (RectangleGraphNode node : startingCurrentScanline) {
+			adjustCounts(root, node.startY, 1, 0);
+			adjustCounts(root, node.endY, 0, 1);
+		}
+		for (RectangleGraphNode node : startingCurrentScanline) {
+			update(node.startY, node.endY + 1, node.weight, scanlineX);
+		}
+		startingCurrentScanline.clear();
+		assert(sanityCheck());
+	}
+	private void processEndXBefore(long endBeforeX) {
+		outBuffer = new ArrayList<RectangleGraphNode>();
+		while (!activeEndingX.isEmpty() && activeEndingX.peek().endX < endBeforeX) {
+			scanlineX = activeEndingX.peek().endX;
+			processEndingXOnCurrentScanline();
+		}
+	}
+	private void processEndingXOnCurrentScanline() {
+		List<RectangleGraphNode> endingCurrentScanline = new ArrayList<RectangleGraphNode>();
+		while (!activeEndingX.isEmpty() && activeEndingX.peek().endX == scanlineX) {
+			endingCurrentScanline.add(activeEndingX.poll());
+		}
+		callMaximumCliques(endingCurrentScanline);
+		for (RectangleGraphNode node : endingCurrentScanline) {
+			update(node.startY, node.endY + 1, -node.weight, NOT_MAXIMAL);
+			adjustCounts(root, node.startY, -1, 0);
+			adjustCounts(root, node.endY, 0, -1);
+		}
+		// removal of nodes can result in adjacent intervals requiring merge
+		for (RectangleGraphNode node : endingCurrentScanline) {
+			mergeAt(node.startY);
+			mergeAt(node.endY + 1);
+		}
+		assert(sanityCheck());
+	}
+	/**
+	 * Calls maximum cliques
+	 * @param endingCurrentScanline nodes ending here. Maximum cliques will always occur within one of these intervals
+	 */
+	private void callMaximumCliques(List<RectangleGraphNode> endingCurrentScanline) {
+		int index = 0;
+		while (index < endingCurrentScanline.size()) {
+			long startY = endingCurrentScanline.get(index).startY;
+			long endYexclusive = endingCurrentScanline.get(index).endY + 1;
+			index++;
+			while (index < endingCurrentScanline.size() && endingCurrentScanline.get(index).startY <= endYexclusive) {
+				// expand the current calling interval due to overlap
+				endYexclusive = Math.max(endYexclusive, endingCurrentScanline.get(index).endY + 1);
+				index++;
+			}
+			callMaximumCliques(root, startY, endYexclusive);
+		}
+	}
+	/**
+	 * Calls the maximal cliques starting in the given range in order of position
+	 */
+	private void callMaximumCliques(ScanlineInterval t, long startY, long endYexclusive) {
+		if (t == null || t.maximalCount == 0) return;
+		push(t);
+		if (startY < t.startY) {
+			callMaximumCliques(t.left, startY, endYexclusive);
+		}
+		if (startY <= t.startY && t.startY < endYexclusive && t.isMaximalClique()) {
+			outBuffer.add(new RectangleGraphNode(
+					t.startX, scanlineX,
+					t.startY, t.endY - 1, // convert back from half-open to close interval
+					t.weight));
+		}
+		if (t.startY < endYexclusive) {
+			callMaximumCliques(t.right, startY, endYexclusive);
+		}
+	}
+	private boolean sanityCheck() {
+		if (!Defaults.SANITY_CHECK_CLIQUE) return true;
+		List<ScanlineInterval> intervals = new ArrayList<>();
+		flatten(root, intervals);
+		assert(intervals.get(0).startY == Long.MIN_VALUE);
+		assert(intervals.get(intervals.size() - 1).startY == SENTINEL_START);
+		for (int i = 1; i < intervals.size(); i++) {
+			ScanlineInterval prev = intervals.get(i - 1);
+			ScanlineInterval si = intervals.get(i);
+			assert(prev.endY == si.startY);
+			if (i < intervals.size() - 1) {
+				// something should be splitting this node from the previous one
+				assert(prev.endHere > 0 || si.startHere > 0);
+			}
+		}
+		return true;
+	}
+	private static void flatten(ScanlineInterval t, List<ScanlineInterval> list) {
+		if (t == null) return;
+		push(t);
+		flatten(t.left, list);
+		list.add(t);
+		flatten(t.right, list);
+	}
+	@Override
+	public List<RectangleGraphNode> complete() {
+		scanlineCompleteProcessing();
+		processEndXBefore(Long.MAX_VALUE);
+		return outBuffer;
+	}
+}
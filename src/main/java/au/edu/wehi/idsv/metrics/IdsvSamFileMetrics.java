@@ -100,6 +100,9 @@ public class IdsvSamFileMetrics {
 		this.insertDistribution = insertDistribution;
 		this.cigarDetailMetrics = cigarDetailMetrics;
 		this.cigarDistribution = cigarDetailMetrics == null ? null : new CigarSizeDistribution(cigarDetailMetrics);
+		if (insertDistribution != null && idsvMetrics != null) {
+			createReadPairPhredTable();
+		}
 	}
 	private static List<CigarDetailMetrics> getCigarMetrics(File cigarMetricsFile) {
 		if (cigarMetricsFile == null) return null;
@@ -133,13 +136,40 @@ public class IdsvSamFileMetrics {
 		}
 		return maxSoftClipLength;
 	}
+	/**
+	 * Phred-scaled read pair likelihood of each fragment size in the support of
+	 * the insert size distribution, offset by the support lower bound
+	 */
+	private double[] readPairPhredTable = null;
+	/**
+	 * Phred-scaled read pair likelihood of fragment sizes outside the support of
+	 * the insert size distribution
+	 */
+	private double readPairPhredOutsideSupport;
+	private void createReadPairPhredTable() {
+		int lowerBound = insertDistribution.getSupportLowerBound();
+		int upperBound = insertDistribution.getSupportUpperBound();
+		double[] table = new double[upperBound - lowerBound + 1];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = MathUtil.prToPhred(readPairFoldedCumulativeDistribution(lowerBound + i));
+		}
+		readPairPhredOutsideSupport = MathUtil.prToPhred(readPairFoldedCumulativeDistribution(upperBound + 1));
+		readPairPhredTable = table;
+	}
 	/**
 	 * Returns the phred-scaled likelihood of a fragment size at least as extreme as the given size.
 	 * @param fragmentSize fragment size
 	 * @return phred-scaled likelihood of a fragment as or more extreme
 	 */
 	public double getReadPairPhred(int fragmentSize) {
-		return MathUtil.prToPhred(readPairFoldedCumulativeDistribution(fragmentSize));
+		if (readPairPhredTable == null) {
+			return MathUtil.prToPhred(readPairFoldedCumulativeDistribution(fragmentSize));
+		}
+		int offset = fragmentSize - insertDistribution.getSupportLowerBound();
+		if (offset < 0 || offset >= readPairPhredTable.length) {
+			return readPairPhredOutsideSupport;
+		}
+		return readPairPhredTable[offset];
 	}
 	public double readPairFoldedCumulativeDistribution(int fragmentSize) {
 		double pairsFromFragmentDistribution = 0;
@@ -0,0 +1,240 @@
+package au.edu.wehi.idsv.picard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import au.edu.wehi.idsv.debruijn.KmerEncodingHelper;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.util.Log;
+
+/**
+ * Read-only memory mapped 2bit encoded reference genome.
+ *
+ * The 2bit reference is generated once alongside the reference fasta and
+ * memory mapped by every process using the reference. This allows the reference
+ * to be shared between processes through the OS page cache without requiring
+ * the reference to be loaded onto the heap.
+ *
+ * File layout: a header containing the name, length, and the file offsets of the
+ * packed bases and the ambiguous base mask of each contig, followed by the
+ * packed bases (4 per byte, first base in the most significant bits) and ambiguous
+ * base bit mask (8 per byte, first base in the least significant bit) of each contig.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class MemoryMappedReferenceSequenceFile implements ReferenceLookup {
+	private static final Log log = Log.getInstance(MemoryMappedReferenceSequenceFile.class);
+	public static final String SUFFIX = ".gridss.2bit";
+	private static final String MAGIC = "GRIDSS2B";
+	private static final int VERSION = 1;
+	private final File file;
+	private final SAMSequenceDictionary dictionary;
+	private final int[] length;
+	private final MappedByteBuffer[] packed;
+	private final MappedByteBuffer[] ambiguous;
+	private int nextSequenceIndex = 0;
+	/**
+	 * Opens a memory mapped 2bit reference
+	 * @param file 2bit reference file
+	 * @param dictionary sequence dictionary of the reference
+	 */
+	public MemoryMappedReferenceSequenceFile(File file, SAMSequenceDictionary dictionary) throws IOException {
+		this.file = file;
+		this.dictionary = dictionary;
+		int contigCount = dictionary.getSequences().size();
+		this.length = new int[contigCount];
+		this.packed = new MappedByteBuffer[contigCount];
+		this.ambiguous = new MappedByteBuffer[contigCount];
+		long[] packedOffset = new long[contigCount];
+		long[] ambiguousOffset = new long[contigCount];
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			byte[] magic = new byte[MAGIC.length()];
+			is.readFully(magic);
+			if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+				throw new IOException(file.getAbsolutePath() + " is not a GRIDSS 2bit reference file.");
+			}
+			int version = is.readInt();
+			if (version != VERSION) {
+				throw new IOException(String.format("%s has version %d. Expected version %d.", file.getAbsolutePath(), version, VERSION));
+			}
+			if (is.readInt() != contigCount) {
+				throw new IOException(String.format("%s does not match reference sequence dictionary.", file.getAbsolutePath()));
+			}
+			for (int i = 0; i < contigCount; i++) {
+				SAMSequenceRecord ssr = dictionary.getSequence(i);
+				String name = is.readUTF();
+				length[i] = is.readInt();
+				packedOffset[i] = is.readLong();
+				ambiguousOffset[i] = is.readLong();
+				if (!ssr.getSequenceName().equals(name) || ssr.getSequenceLength() != length[i]) {
+					throw new IOException(String.format("%s does not match reference sequence dictionary: found contig %s of length %d, expected %s of length %d",
+							file.getAbsolutePath(), name, length[i], ssr.getSequenceName(), ssr.getSequenceLength()));
+				}
+			}
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			for (int i = 0; i < contigCount; i++) {
+				// mapping remains valid after the channel is closed
+				packed[i] = channel.map(FileChannel.MapMode.READ_ONLY, packedOffset[i], packedBytes(length[i]));
+				ambiguous[i] = channel.map(FileChannel.MapMode.READ_ONLY, ambiguousOffset[i], ambiguousBytes(length[i]));
+			}
+		}
+	}
+	private static int packedBytes(int length) {
+		return (int)(((long)length + 3) / 4);
+	}
+	private static int ambiguousBytes(int length) {
+		return (int)(((long)length + 7) / 8);
+	}
+	public static File getTwoBitFile(File fasta) {
+		return new File(fasta.getAbsolutePath() + SUFFIX);
+	}
+	/**
+	 * Opens the memory mapped 2bit reference for the given reference fasta,
+	 * creating the 2bit reference if it does not already exist.
+	 * @param fasta indexed reference genome fasta
+	 * @return memory mapped reference, null if the 2bit reference could not be created
+	 */
+	public static MemoryMappedReferenceSequenceFile open(File fasta) {
+		File twoBit = getTwoBitFile(fasta);
+		try (IndexedFastaSequenceFile underlying = new IndexedFastaSequenceFile(fasta)) {
+			if (!twoBit.exists() || twoBit.lastModified() < fasta.lastModified()) {
+				log.info("Creating 2bit reference ", twoBit);
+				File tmp = File.createTempFile(twoBit.getName() + ".", ".tmp", twoBit.getAbsoluteFile().getParentFile());
+				try {
+					write(underlying, tmp);
+					// another process may have concurrently created the same file
+					Files.move(tmp.toPath(), twoBit.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} finally {
+					tmp.delete();
+				}
+			}
+			return new MemoryMappedReferenceSequenceFile(twoBit, underlying.getSequenceDictionary());
+		} catch (IOException e) {
+			log.warn(e, "Unable to memory map 2bit reference for ", fasta);
+			return null;
+		}
+	}
+	/**
+	 * Writes the given reference in 2bit format
+	 * @param reference reference genome
+	 * @param file output file
+	 */
+	public static void write(ReferenceSequenceFile reference, File file) throws IOException {
+		List<SAMSequenceRecord> contigs = reference.getSequenceDictionary().getSequences();
+		try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			os.write(MAGIC.getBytes(StandardCharsets.US_ASCII));
+			os.writeInt(VERSION);
+			os.writeInt(contigs.size());
+			long offset = os.size();
+			for (SAMSequenceRecord ssr : contigs) {
+				// UTF length, int, 2 longs
+				offset += 2 + ssr.getSequenceName().getBytes(StandardCharsets.UTF_8).length + 4 + 8 + 8;
+			}
+			for (SAMSequenceRecord ssr : contigs) {
+				os.writeUTF(ssr.getSequenceName());
+				os.writeInt(ssr.getSequenceLength());
+				os.writeLong(offset);
+				offset += packedBytes(ssr.getSequenceLength());
+				os.writeLong(offset);
+				offset += ambiguousBytes(ssr.getSequenceLength());
+			}
+			for (SAMSequenceRecord ssr : contigs) {
+				byte[] bases = reference.getSequence(ssr.getSequenceName()).getBases();
+				if (bases.length != ssr.getSequenceLength()) {
+					throw new IOException(String.format("Length of %s does not match sequence dictionary", ssr.getSequenceName()));
+				}
+				byte[] packedBases = new byte[packedBytes(bases.length)];
+				byte[] ambiguousBases = new byte[ambiguousBytes(bases.length)];
+				for (int i = 0; i < bases.length; i++) {
+					if (KmerEncodingHelper.isAmbiguous(bases[i])) {
+						ambiguousBases[i >> 3] |= 1 << (i & 7);
+					} else {
+						packedBases[i >> 2] |= KmerEncodingHelper.picardBaseToEncoded(bases[i]) << (6 - 2 * (i & 3));
+					}
+				}
+				os.write(packedBases);
+				os.write(ambiguousBases);
+			}
+		}
+	}
+	public File getFile() {
+		return file;
+	}
+	@Override
+	public byte getBase(int referenceIndex, int position) {
+		int offset = position - 1;
+		if (offset < 0 || offset >= length[referenceIndex]) {
+			throw new IndexOutOfBoundsException(String.format("Position %d outside of contig of length %d", position, length[referenceIndex]));
+		}
+		if ((ambiguous[referenceIndex].get(offset >> 3) & (1 << (offset & 7))) != 0) {
+			return 'N';
+		}
+		int encoded = packed[referenceIndex].get(offset >> 2) >>> (6 - 2 * (offset & 3));
+		return KmerEncodingHelper.encodedToPicardBase(encoded);
+	}
+	@Override
+	public SAMSequenceDictionary getSequenceDictionary() {
+		return dictionary;
+	}
+	private int getReferenceIndex(String contig) {
+		SAMSequenceRecord ssr = dictionary.getSequence(contig);
+		if (ssr == null) {
+			throw new IllegalArgumentException(String.format("Contig %s not found in %s", contig, file));
+		}
+		return ssr.getSequenceIndex();
+	}
+	@Override
+	public ReferenceSequence getSequence(String contig) {
+		int referenceIndex = getReferenceIndex(contig);
+		return getSubsequenceAt(referenceIndex, 1, length[referenceIndex]);
+	}
+	@Override
+	public ReferenceSequence getSubsequenceAt(String contig, long start, long stop) {
+		return getSubsequenceAt(getReferenceIndex(contig), start, stop);
+	}
+	private ReferenceSequence getSubsequenceAt(int referenceIndex, long start, long stop) {
+		byte[] bases = new byte[(int)(stop - start + 1)];
+		for (int i = 0; i < bases.length; i++) {
+			bases[i] = getBase(referenceIndex, (int)start + i);
+		}
+		return new ReferenceSequence(dictionary.getSequence(referenceIndex).getSequenceName(), referenceIndex, bases);
+	}
+	@Override
+	public synchronized ReferenceSequence nextSequence() {
+		if (nextSequenceIndex >= length.length) return null;
+		int referenceIndex = nextSequenceIndex++;
+		return getSubsequenceAt(referenceIndex, 1, length[referenceIndex]);
+	}
+	@Override
+	public synchronized void reset() {
+		nextSequenceIndex = 0;
+	}
+	@Override
+	public boolean isIndexed() {
+		return true;
+	}
+	@Override
+	public void close() throws IOException {
+		// buffers are unmapped when garbage collected
+	}
+}
@@ -3,11 +3,10 @@ package au.edu.wehi.idsv.picard;
 import java.io.IOException;
 import java.util.BitSet;
 
-import com.google.common.collect.ImmutableMap;
-
 import au.edu.wehi.idsv.debruijn.KmerEncodingHelper;
 import au.edu.wehi.idsv.debruijn.PackedSequence;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.samtools.util.Log;
@@ -23,17 +22,13 @@ public class TwoBitBufferedReferenceSequenceFile implements ReferenceSequenceFil
 	/**
 	 * Cached contigs
 	 */
-	private ImmutableMap<String, PackedReferenceSequence> cache = ImmutableMap.of();
-	private PackedReferenceSequence[] referenceIndexLookup;
+	private final PackedReferenceSequence[] referenceIndexLookup;
 	public TwoBitBufferedReferenceSequenceFile(ReferenceSequenceFile underlying) {
 		this.underlying = underlying;
 		this.referenceIndexLookup = new PackedReferenceSequence[underlying.getSequenceDictionary().getSequences().size()];
 	}
 	public byte getBase(int referenceIndex, int position) {
-		PackedReferenceSequence seq = referenceIndexLookup[referenceIndex];
-		if (seq == null) {
-			seq = addToCache(underlying.getSequenceDictionary().getSequence(referenceIndex).getSequenceName());
-		}
+		PackedReferenceSequence seq = getPackedSequence(referenceIndex);
 		if (seq.ambiguous.get(position - 1)) {
 			return 'N';
 		}
@@ -88,42 +83,45 @@ public class TwoBitBufferedReferenceSequenceFile implements ReferenceSequenceFil
 	public boolean isIndexed() {
 		return underlying.isIndexed();
 	}
+	private PackedReferenceSequence getPackedSequence(int referenceIndex) {
+		PackedReferenceSequence seq = referenceIndexLookup[referenceIndex];
+		if (seq == null) {
+			seq = addToCache(referenceIndex);
+		}
+		return seq;
+	}
+	private PackedReferenceSequence getPackedSequence(String contig) {
+		SAMSequenceRecord ssr = underlying.getSequenceDictionary().getSequence(contig);
+		if (ssr == null) {
+			throw new IllegalArgumentException(String.format("Contig %s not found in reference", contig));
+		}
+		return getPackedSequence(ssr.getSequenceIndex());
+	}
 	/**
 	 * Updates the cache to include the new contig
-	 * @param contig
+	 * @param referenceIndex
 	 */
-	private synchronized PackedReferenceSequence addToCache(String contig) {
-		PackedReferenceSequence seq = cache.get(contig);
+	private synchronized PackedReferenceSequence addToCache(int referenceIndex) {
+		PackedReferenceSequence seq = referenceIndexLookup[referenceIndex];
 		if (seq != null) {
 			// already populated by another thread while we were waiting to enter
 			// this synchronized block
 			return seq;
 		}
+		String contig = underlying.getSequenceDictionary().getSequence(referenceIndex).getSequenceName();
 		log.debug("Caching reference genome contig ", contig);
 		ReferenceSequence fullContigSequence = underlying.getSequence(contig);
 		seq = new PackedReferenceSequence(fullContigSequence);
-		cache = ImmutableMap.<String, PackedReferenceSequence>builder()
-				.putAll(cache)
-				.put(contig, seq)
-				.build();
-		referenceIndexLookup[underlying.getSequenceDictionary().getSequence(contig).getSequenceIndex()] = seq;
+		referenceIndexLookup[referenceIndex] = seq;
 		return seq;
 	}
 	@Override
 	public ReferenceSequence getSequence(String contig) {
-		PackedReferenceSequence seq = cache.get(contig);
-		if (seq == null) {
-			seq = addToCache(contig);
-		}
-		return seq.getSequence();
+		return getPackedSequence(contig).getSequence();
 	}
 	@Override
 	public ReferenceSequence getSubsequenceAt(String contig, long start, long stop) {
-        PackedReferenceSequence seq = cache.get(contig);
-		if (seq == null) {
-			seq = addToCache(contig);
-		}
-		return seq.getSubsequenceAt(start, stop);
+		return getPackedSequence(contig).getSubsequenceAt(start, stop);
 	}
 	@Override
 	public void close() throws IOException {
@@ -77,8 +77,17 @@ public class ChimericAlignment {
 		}
 		return list;
 	}
+	private static final ParsedAttributeCache<List<ChimericAlignment>> SA_CACHE = new ParsedAttributeCache<>(
+			SAMTag.SA.name(), sa -> Collections.unmodifiableList(getChimericAlignments(sa)));
+	/**
+	 * Gets the chimeric alignments of the given record.
+	 * The SA tag is parsed at most once per record.
+	 * @param r record
+	 * @return unmodifiable list of chimeric alignments
+	 */
 	public static List<ChimericAlignment> getChimericAlignments(SAMRecord r) {
-		return getChimericAlignments(r.getStringAttribute(SAMTag.SA.name()));
+		List<ChimericAlignment> list = SA_CACHE.get(r);
+		return list == null ? Collections.emptyList() : list;
 	}
 	private BreakendSummary startBreakend(SAMSequenceDictionary dict) {
 		return new BreakendSummary(dict.getSequenceIndex(rname), BreakendDirection.Backward, pos);
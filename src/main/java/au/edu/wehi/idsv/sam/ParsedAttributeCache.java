@@ -0,0 +1,57 @@
+package au.edu.wehi.idsv.sam;
+
+import java.util.function.Function;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Caches the parsed value of a string SAM attribute as a transient attribute of the record
+ * so each attribute is parsed at most once per record.
+ *
+ * The cached value is reparsed if the underlying attribute has been changed since it was cached.
+ * Cached values are shared between callers and must not be modified.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class ParsedAttributeCache<T> {
+	private final String tag;
+	private final Function<String, T> parser;
+	/**
+	 * @param tag SAM attribute to parse
+	 * @param parser attribute parser
+	 */
+	public ParsedAttributeCache(String tag, Function<String, T> parser) {
+		this.tag = tag;
+		this.parser = parser;
+	}
+	private static class Entry<T> {
+		private final String raw;
+		private final T parsed;
+		public Entry(String raw, T parsed) {
+			this.raw = raw;
+			this.parsed = parsed;
+		}
+	}
+	/**
+	 * Gets the parsed attribute value
+	 * @param r record
+	 * @return parsed attribute value, null if the record does not have the attribute
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(SAMRecord r) {
+		String raw = r.getStringAttribute(tag);
+		if (raw == null) return null;
+		Object cached = r.getTransientAttribute(this);
+		if (cached != null) {
+			Entry<T> entry = (Entry<T>)cached;
+			// attribute values are usually the same object but could have been replaced with an identical value
+			if (entry.raw == raw || entry.raw.equals(raw)) {
+				return entry.parsed;
+			}
+		}
+		T parsed = parser.apply(raw);
+		r.setTransientAttribute(this, new Entry<T>(raw, parsed));
+		return parsed;
+	}
+}
@@ -0,0 +1,159 @@
+package au.edu.wehi.idsv.sam;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+
+/**
+ * SAMFileWriter that passes the written records to a reader on another thread
+ * instead of writing them to disk.
+ *
+ * Records are passed to the reader in batches through a bounded buffer. The writer
+ * blocks when the buffer is full. Closing the reader early causes any subsequent
+ * writes to fail.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class PipedSAMFileWriter implements SAMFileWriter {
+	private static final List<SAMRecord> EOS = ImmutableList.of();
+	private static final long POLL_INTERVAL_MS = 100;
+	private final SAMFileHeader header;
+	private final BlockingQueue<List<SAMRecord>> buffer;
+	private final int batchSize;
+	private final Reader reader = new Reader();
+	private List<SAMRecord> batch;
+	private volatile Throwable writerException = null;
+	private volatile boolean readerClosed = false;
+	private boolean writerClosed = false;
+	private ProgressLoggerInterface progress;
+	public PipedSAMFileWriter(SAMFileHeader header) {
+		this(header, gridss.Defaults.ASYNC_BUFFERS, gridss.Defaults.ASYNC_BUFFER_SIZE);
+	}
+	/**
+	 * @param header header of written records
+	 * @param bufferCount number of batches that can be written before the writer blocks
+	 * @param batchSize number of records in each batch
+	 */
+	public PipedSAMFileWriter(SAMFileHeader header, int bufferCount, int batchSize) {
+		if (bufferCount <= 0 || batchSize <= 0) throw new IllegalArgumentException("Buffer size must be at least 1.");
+		this.header = header;
+		this.buffer = new ArrayBlockingQueue<>(bufferCount);
+		this.batchSize = batchSize;
+		this.batch = new ArrayList<>(batchSize);
+	}
+	/**
+	 * Iterator over the records written to this writer.
+	 * This iterator must be consumed on a different thread to the writer.
+	 */
+	public CloseableIterator<SAMRecord> iterator() {
+		return reader;
+	}
+	@Override
+	public void addAlignment(SAMRecord alignment) {
+		if (writerClosed) throw new IllegalStateException("Writer closed");
+		batch.add(alignment);
+		if (batch.size() >= batchSize) {
+			put(batch);
+			batch = new ArrayList<>(batchSize);
+		}
+		if (progress != null) {
+			progress.record(alignment);
+		}
+	}
+	private void put(List<SAMRecord> list) {
+		try {
+			while (!buffer.offer(list, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+				if (readerClosed) {
+					throw new IllegalStateException("Reader closed");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+	@Override
+	public SAMFileHeader getFileHeader() {
+		return header;
+	}
+	@Override
+	public void setProgressLogger(ProgressLoggerInterface progress) {
+		this.progress = progress;
+	}
+	@Override
+	public void close() {
+		if (writerClosed) return;
+		writerClosed = true;
+		if (readerClosed) return;
+		if (!batch.isEmpty()) {
+			put(batch);
+		}
+		batch = null;
+		put(EOS);
+	}
+	/**
+	 * Closes the writer due to an error. The error is rethrown on the reader thread.
+	 * @param t error encountered by the writer
+	 */
+	public void abort(Throwable t) {
+		writerException = t;
+		writerClosed = true;
+		batch = null;
+		if (!readerClosed) {
+			buffer.clear();
+			put(EOS);
+		}
+	}
+	private class Reader implements CloseableIterator<SAMRecord> {
+		private Iterator<SAMRecord> current = ImmutableList.<SAMRecord>of().iterator();
+		private boolean eos = false;
+		@Override
+		public boolean hasNext() {
+			if (readerClosed) return false;
+			while (!current.hasNext() && !eos) {
+				List<SAMRecord> next;
+				try {
+					next = buffer.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				}
+				if (next == EOS) {
+					eos = true;
+					Throwable t = writerException;
+					if (t != null) {
+						if (t instanceof Error) throw (Error) t;
+						if (t instanceof RuntimeException) throw (RuntimeException) t;
+						throw new RuntimeException(t);
+					}
+				}
+				current = next.iterator();
+			}
+			return current.hasNext();
+		}
+		@Override
+		public SAMRecord next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			return current.next();
+		}
+		@Override
+		public void close() {
+			readerClosed = true;
+			// unblock the writer
+			buffer.clear();
+		}
+	}
+}
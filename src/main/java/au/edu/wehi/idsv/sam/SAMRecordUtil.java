@@ -235,6 +235,16 @@ public class SAMRecordUtil {
 		return record;
 	}
 
+	private static final ParsedAttributeCache<Cigar> MC_CACHE = new ParsedAttributeCache<>(SAMTag.MC.name(), TextCigarCodec::decode);
+	/**
+	 * Gets the mate cigar of the given record.
+	 * The MC tag is parsed at most once per record.
+	 * @param record record
+	 * @return mate cigar, null if the record does not have a MC tag. The returned cigar must not be modified.
+	 */
+	public static Cigar getMateCigar(SAMRecord record) {
+		return MC_CACHE.get(record);
+	}
 	/**
 	 * Dovetailing reads either either due to an SV or failure to trim adapters
 	 * from a fragment smaller than the read length
@@ -263,11 +273,7 @@ public class SAMRecordUtil {
 			return false;
 		if (record.getMateUnmappedFlag())
 			return false;
-		Cigar cigar2 = null;
-		String mc = record.getStringAttribute(SAMTag.MC.name());
-		if (mc != null) {
-			cigar2 = TextCigarCodec.decode(mc);
-		}
+		Cigar cigar2 = getMateCigar(record);
 		return isDovetailing(record.getReferenceIndex(), record.getAlignmentStart(), record.getReadNegativeStrandFlag(),
 				record.getCigar(), record.getMateReferenceIndex(), record.getMateAlignmentStart(),
 				record.getMateNegativeStrandFlag(), cigar2, expectedOrientation, margin);
@@ -408,21 +414,21 @@ public class SAMRecordUtil {
 			return 0;
 		}
 		// Assuming FR orientation, adapter sequences have been removed
-		Cigar mc = SAMUtils.getMateCigar(record);
+		Cigar mc = getMateCigar(record);
 		if (record.getReadNegativeStrandFlag()) {
 			// <--record
 			int r1end = record.getUnclippedEnd();
 			int r2start = mc == null ?
 					// if we don't have a mate cigar we'll just assume that there are is no clipping in the alignment
 					record.getMateAlignmentStart() :
-					SAMUtils.getMateUnclippedStart(record);
+					SAMUtils.getUnclippedStart(record.getMateAlignmentStart(), mc);
 			return r1end - r2start + 1;
 		} else {
 			int r1start = record.getUnclippedStart();
 			int r2end = mc == null ?
 					// no MC tag: we have to assume no clipping and the reads are the same length
 					record.getMateAlignmentStart() + CigarUtil.readLength(record.getCigar().getCigarElements()) + CigarUtil.countBases(record.getCigar(), CigarOperator.HARD_CLIP) - 1:
-					SAMUtils.getMateUnclippedEnd(record);
+					SAMUtils.getUnclippedEnd(record.getMateAlignmentStart() + mc.getReferenceLength() - 1, mc);
 			return r2end - r1start + 1;
 		}
 	}
@@ -837,7 +843,7 @@ public class SAMRecordUtil {
 	private static void recalculateSupplementaryFromSA(List<SAMRecord> segments) {
 		HashMap<List<ChimericAlignment>, List<SAMRecord>> saLookup = new HashMap<>();
 		for (SAMRecord r : segments) {
-			List<ChimericAlignment> splitca = ChimericAlignment.getChimericAlignments(r);
+			List<ChimericAlignment> splitca = new ArrayList<>(ChimericAlignment.getChimericAlignments(r));
 			if (splitca.isEmpty() || r.getReadUnmappedFlag()) {
 				r.setSupplementaryAlignmentFlag(false);
 			} else {
@@ -1077,7 +1083,7 @@ public class SAMRecordUtil {
 			}
 		}
 		Set<ChimericAlignment> referencedReads = list.stream()
-				.flatMap(r -> ChimericAlignment.getChimericAlignments(r.getStringAttribute(SAMTag.SA.name())).stream())
+				.flatMap(r -> ChimericAlignment.getChimericAlignments(r).stream())
 				.collect(Collectors.toSet());
 		// validate SA tags
 		for (SAMRecord r : list) {
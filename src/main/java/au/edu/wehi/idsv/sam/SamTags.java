@@ -27,9 +27,19 @@ public class SamTags {
 	 */
 	public static final String ASSEMBLY_FILTERS = "af";
 	/**
-	 * EvidenceID of assembly components
+	 * Empty tag marking assemblies without supporting evidence.
+	 * Assemblies written by earlier versions store the space-separated EvidenceIDs
+	 * of assembly components in this tag.
 	 */
 	public static final String EVIDENCEID = "ez";
+	/**
+	 * 128-bit evidence identifiers of assembly components encoded as an int array
+	 */
+	public static final String EVIDENCE_IDENTIFIER = "ei";
+	/**
+	 * Bloom filter of the evidence identifiers of assembly components
+	 */
+	public static final String EVIDENCE_IDENTIFIER_FILTER = "eb";
 	public static final String ASSEMBLY_DIRECTION = "ad";
 	// Per category aggregations
 	public static final String ASSEMBLY_READPAIR_COUNT = "dc";
@@ -48,6 +58,8 @@ public class SamTags {
 	public static final List<String> ASSEMBLY_ANNOTATIONS = ImmutableList.of(
 			ASSEMBLY_FILTERS,
 			EVIDENCEID,
+			EVIDENCE_IDENTIFIER,
+			EVIDENCE_IDENTIFIER_FILTER,
 			ASSEMBLY_DIRECTION,
 			ASSEMBLY_READPAIR_COUNT,
 			ASSEMBLY_SOFTCLIP_COUNT,
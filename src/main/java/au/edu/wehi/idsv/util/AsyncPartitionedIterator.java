@@ -0,0 +1,211 @@
+package au.edu.wehi.idsv.util;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+
+import com.google.common.collect.ImmutableList;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
+import htsjdk.samtools.util.Log;
+
+/**
+ * Uses a background thread to partition the records of a source iterator
+ * into multiple iterators.
+ *
+ * Each record is passed to exactly one partition. Since the read-ahead buffers of each
+ * partition are bounded, all partitions must be consumed concurrently by separate threads.
+ * Closing a partition discards any further records allocated to it.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class AsyncPartitionedIterator<T> implements Closeable {
+	private static AtomicInteger threadsCreated = new AtomicInteger(0);
+	private static final Log log = Log.getInstance(AsyncPartitionedIterator.class);
+	private static final Object eos = new Object(); // End of stream sentinel
+	private final Thread reader;
+	private final AtomicReference<Throwable> ex = new AtomicReference<Throwable>(null);
+	private final Iterator<T> underlying;
+	private final ToIntFunction<T> partitionOf;
+	private final List<Partition> partitions = new ArrayList<>();
+	private final int batchSize;
+	/**
+	 * Creates a new partitioning of the given iterator
+	 * @param iterator iterator to traverse
+	 * @param description background thread name
+	 * @param partitionCount number of partitions
+	 * @param partitionOf partition of each record. Records with a negative partition are discarded.
+	 */
+	public AsyncPartitionedIterator(Iterator<T> iterator, String description, int partitionCount, ToIntFunction<T> partitionOf) {
+		this(iterator, description, partitionCount, partitionOf, gridss.Defaults.ASYNC_BUFFERS, gridss.Defaults.ASYNC_BUFFER_SIZE);
+	}
+	/**
+	 * Creates a new partitioning of the given iterator
+	 * @param iterator iterator to traverse
+	 * @param description background thread name
+	 * @param partitionCount number of partitions
+	 * @param partitionOf partition of each record. Records with a negative partition are discarded.
+	 * @param bufferCount number of read-ahead buffers per partition
+	 * @param batchSize size of each read-ahead buffer
+	 */
+	public AsyncPartitionedIterator(Iterator<T> iterator, String description, int partitionCount, ToIntFunction<T> partitionOf, int bufferCount, int batchSize) {
+		if (iterator == null) throw new IllegalArgumentException();
+		if (bufferCount <= 0 || batchSize <= 0) throw new IllegalArgumentException("Buffer size must be at least 1.");
+		this.underlying = iterator;
+		this.partitionOf = partitionOf;
+		this.batchSize = batchSize;
+		for (int i = 0; i < partitionCount; i++) {
+			partitions.add(new Partition(bufferCount));
+		}
+		this.reader = new Thread(new ReaderRunnable(), description == null ? "AsyncPartitionedIterator" + threadsCreated.incrementAndGet() : description);
+		this.reader.setDaemon(true);
+		log.debug("Starting thread " + this.reader.getName());
+		this.reader.start();
+	}
+	public CloseableIterator<T> getPartition(int partition) {
+		return partitions.get(partition);
+	}
+	@Override
+	public void close() {
+		for (Partition p : partitions) {
+			p.close();
+		}
+		try {
+			reader.interrupt();
+			reader.join();
+		} catch (InterruptedException ie) { }
+	}
+	private final void throwOnCallingThread() {
+		final Throwable t = this.ex.get();
+		if (t != null) {
+			if (t instanceof Error) throw (Error) t;
+			if (t instanceof RuntimeException) throw (RuntimeException) t;
+			else throw new RuntimeException(t);
+		}
+	}
+	private class Partition implements CloseableIterator<T> {
+		private final BlockingQueue<List<Object>> buffer;
+		private volatile boolean closeCalled = false;
+		private boolean eosWritten = false;
+		private List<Object> pending = new ArrayList<>(batchSize + 1);
+		private Iterator<Object> currentBuffer = ImmutableList.of().iterator();
+		private Object next = null;
+		public Partition(int bufferCount) {
+			this.buffer = new ArrayBlockingQueue<List<Object>>(bufferCount);
+		}
+		/**
+		 * Adds the given record to the read-ahead buffer.
+		 * Called from the background thread.
+		 */
+		private void add(Object record) throws InterruptedException {
+			pending.add(record);
+			if (pending.size() >= batchSize) {
+				flush();
+			}
+		}
+		private void flush() throws InterruptedException {
+			if (pending.isEmpty()) return;
+			List<Object> batch = pending;
+			pending = new ArrayList<>(batchSize + 1);
+			// don't block if the consumer has stopped listening
+			while (!closeCalled && !buffer.offer(batch, 1, TimeUnit.SECONDS));
+		}
+		private void writeEos() throws InterruptedException {
+			if (eosWritten) return;
+			pending.add(eos);
+			flush();
+			eosWritten = true;
+		}
+		@Override
+		public boolean hasNext() {
+			throwOnCallingThread();
+			if (closeCalled) return false;
+			while (next == null) {
+				if (!currentBuffer.hasNext()) {
+					try {
+						currentBuffer = buffer.take().iterator();
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+					// rethrow any exceptions raised on the background thread while we were blocking on the next record
+					throwOnCallingThread();
+				} else {
+					next = currentBuffer.next();
+				}
+			}
+			return next != eos;
+		}
+		@SuppressWarnings("unchecked")
+		@Override
+		public T next() {
+			if (!hasNext()) throw new NoSuchElementException("next");
+			T result = (T)next;
+			next = null;
+			return result;
+		}
+		@Override
+		public void close() {
+			closeCalled = true;
+			buffer.clear();
+		}
+	}
+	/**
+	 * Reads the underlying iterator and passes records
+	 * to each partition in batches
+	 */
+	private class ReaderRunnable implements Runnable {
+		public void run() {
+			try {
+				while (underlying.hasNext()) {
+					T record = underlying.next();
+					int partition = partitionOf.applyAsInt(record);
+					if (partition >= 0) {
+						partitions.get(partition).add(record);
+					}
+				}
+				for (Partition p : partitions) {
+					p.writeEos();
+				}
+			} catch (InterruptedException ie) {
+				// log.debug("Thread interrupt received - closing on background thread.");
+			} catch (Throwable t) {
+				// see AsyncBufferedIterator for htsjdk wrapping of InterruptedException
+				boolean causedByInterruptedException = false;
+				for (Throwable cause = t.getCause(); cause != null; cause = cause.getCause()) {
+					if (cause instanceof InterruptedException) {
+						causedByInterruptedException = true;
+						break;
+					}
+				}
+				if (!causedByInterruptedException) {
+					ex.set(t);
+					throw new RuntimeException(t);
+				}
+			} finally {
+				CloserUtil.close(underlying);
+				Thread.interrupted(); // clear thread interrupt flag so we can write the eos indicator if needed
+				for (Partition p : partitions) {
+					if (!p.eosWritten) {
+						p.pending.clear();
+						p.buffer.clear();
+						try {
+							p.writeEos();
+						} catch (InterruptedException e) {
+							log.warn("Thread interrupt received whilst writing end of stream indicator");
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package au.edu.wehi.idsv.util;
 
+import java.util.List;
+
 import org.apache.commons.math3.distribution.EnumeratedIntegerDistribution;
 import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MathArithmeticException;
@@ -7,71 +9,101 @@ import org.apache.commons.math3.exception.NotANumberException;
 import org.apache.commons.math3.exception.NotFiniteNumberException;
 import org.apache.commons.math3.exception.NotPositiveException;
 import org.apache.commons.math3.random.RandomGenerator;
-
-import gnu.trove.map.TIntDoubleMap;
-import gnu.trove.map.hash.TIntDoubleHashMap;
+import org.apache.commons.math3.util.Pair;
 
 /**
- * Caches results so the underlying distribution is not converted
- * to/from an array for every function call
+ * Precomputes dense probability and cumulative probability lookup tables
+ * over the support of the distribution so the underlying distribution is
+ * not converted to/from an array for every function call.
+ *
+ * The tables are immutable once constructed so lookups are thread-safe
+ * without any synchronisation.
  * @author Daniel Cameron
  *
  */
 public class CachedEnumeratedIntegerDistribution extends EnumeratedIntegerDistribution {
     /**
-	 * 
+	 *
 	 */
 	private static final long serialVersionUID = 126014755178519095L;
+	private final int supportLowerBound;
+	private final int supportUpperBound;
+	private final double numericalMean;
+	private final double numericalVariance;
+	/**
+	 * Probability of each value in the support, offset by the support lower bound
+	 */
+	private final double[] probabilityTable;
+	/**
+	 * Cumulative probability of each value in the support, offset by the support lower bound
+	 */
+	private final double[] cumulativeProbabilityTable;
 	public CachedEnumeratedIntegerDistribution(final int[] singletons, final double[] probabilities)
     throws DimensionMismatchException, NotPositiveException, MathArithmeticException,
            NotFiniteNumberException, NotANumberException{
         super(singletons, probabilities);
+        this.supportLowerBound = super.getSupportLowerBound();
+        this.supportUpperBound = super.getSupportUpperBound();
+        this.numericalMean = super.getNumericalMean();
+        this.numericalVariance = super.getNumericalVariance();
+        this.probabilityTable = createProbabilityTable(innerDistribution.getPmf(), supportLowerBound, supportUpperBound);
+        this.cumulativeProbabilityTable = createCumulativeProbabilityTable(probabilityTable);
     }
     public CachedEnumeratedIntegerDistribution(final RandomGenerator rng, final int[] singletons, final double[] probabilities)
         throws DimensionMismatchException, NotPositiveException, MathArithmeticException,
                 NotFiniteNumberException, NotANumberException {
     	super(rng, singletons, probabilities);
+        this.supportLowerBound = super.getSupportLowerBound();
+        this.supportUpperBound = super.getSupportUpperBound();
+        this.numericalMean = super.getNumericalMean();
+        this.numericalVariance = super.getNumericalVariance();
+        this.probabilityTable = createProbabilityTable(innerDistribution.getPmf(), supportLowerBound, supportUpperBound);
+        this.cumulativeProbabilityTable = createCumulativeProbabilityTable(probabilityTable);
     }
-    private TIntDoubleMap cacheProbability = new TIntDoubleHashMap();
-    public synchronized double probability(final int x) {
-    	if (!cacheProbability.containsKey(x) && x >= getSupportLowerBound() && x <= getSupportUpperBound()) {
-    		cacheProbability.put(x, super.probability(x));
+    private static double[] createProbabilityTable(List<Pair<Integer, Double>> pmf, int lowerBound, int upperBound) {
+    	double[] table = new double[upperBound - lowerBound + 1];
+    	for (Pair<Integer, Double> p : pmf) {
+    		int x = p.getKey();
+    		if (x >= lowerBound && x <= upperBound) {
+    			table[x - lowerBound] += p.getValue();
+    		}
     	}
-		return cacheProbability.get(x);
+    	return table;
     }
-    private TIntDoubleMap cacheCumulativeProbability = new TIntDoubleHashMap();
-    public synchronized double cumulativeProbability(final int x) {
-    	if (!cacheCumulativeProbability.containsKey(x) && x >= getSupportLowerBound() && x <= getSupportUpperBound()) {
-    		cacheCumulativeProbability.put(x, super.cumulativeProbability(x));
+    private static double[] createCumulativeProbabilityTable(double[] probabilityTable) {
+    	double[] table = new double[probabilityTable.length];
+    	double cumsum = 0;
+    	for (int i = 0; i < probabilityTable.length; i++) {
+    		cumsum += probabilityTable[i];
+    		table[i] = cumsum;
     	}
-		return cacheCumulativeProbability.get(x);
+    	return table;
+    }
+    @Override
+    public double probability(final int x) {
+    	if (x < supportLowerBound || x > supportUpperBound) return 0;
+    	return probabilityTable[x - supportLowerBound];
     }
-    private Double cacheNumericalMean;
+    @Override
+    public double cumulativeProbability(final int x) {
+    	if (x < supportLowerBound) return 0;
+    	if (x > supportUpperBound) return cumulativeProbabilityTable[cumulativeProbabilityTable.length - 1];
+    	return cumulativeProbabilityTable[x - supportLowerBound];
+    }
+    @Override
     public double getNumericalMean() {
-    	if (cacheNumericalMean == null) {
-    		cacheNumericalMean = super.getNumericalMean();
-    	}
-    	return cacheNumericalMean;
+    	return numericalMean;
     }
-    private Double cacheNumericalVariance;
+    @Override
     public double getNumericalVariance() {
-    	if (cacheNumericalVariance == null) {
-    		cacheNumericalVariance = super.getNumericalVariance();
-    	}
-    	return cacheNumericalVariance;
+    	return numericalVariance;
     }
-    private Integer cacheSupportLowerBound;
+    @Override
     public int getSupportLowerBound() {
-    	if (cacheSupportLowerBound == null) {
-    		cacheSupportLowerBound = super.getSupportLowerBound();
-    	}
-    	return cacheSupportLowerBound;
+    	return supportLowerBound;
     }
-    private Integer cacheSupportUpperBound;
+    @Override
     public int getSupportUpperBound() {
-    	if (cacheSupportUpperBound == null) {
-    		cacheSupportUpperBound = super.getSupportUpperBound();
-    	}
-    	return cacheSupportUpperBound;
+    	return supportUpperBound;
     }
 }
@@ -0,0 +1,255 @@
+package au.edu.wehi.idsv.util;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Priority queue for elements with integer keys spanning a bounded window.
+ *
+ * Elements are stored in a ring of position buckets ("calendar queue") giving
+ * O(1) insertion and amortised O(1) removal when the difference between the smallest
+ * and largest key in the queue is bounded. The ring grows to span the full key range
+ * of the queued elements so no ordering is lost if the window is exceeded.
+ *
+ * Elements with the same key are returned in tie-break order if a tie-break
+ * comparator is supplied, otherwise in insertion order.
+ *
+ * Element keys must not change whilst the element is in the queue.
+ *
+ * @author Daniel Cameron
+ *
+ * @param <T>
+ */
+public class CalendarQueue<T> extends AbstractQueue<T> {
+	private static final int DEFAULT_INITIAL_WINDOW_SIZE = 1024;
+	private static final int MIN_BUCKET_COUNT = Long.SIZE;
+	private static final int MAX_BUCKET_COUNT = 1 << 30;
+	private static final int INITIAL_BUCKET_SIZE = 4;
+	private final ToLongFunction<? super T> key;
+	private final Comparator<? super T> tieBreak;
+	/**
+	 * Ring of key buckets. The bucket for key p is at p & mask
+	 */
+	private Bucket<T>[] buckets;
+	/**
+	 * Non-empty bucket bitmap
+	 */
+	private long[] occupied;
+	private int mask;
+	/**
+	 * Smallest key in the queue
+	 */
+	private long firstKey;
+	/**
+	 * Largest key in the queue
+	 */
+	private long lastKey;
+	private int size = 0;
+	private int modCount = 0;
+	private static class Bucket<T> {
+		private Object[] elements = new Object[INITIAL_BUCKET_SIZE];
+		private int head = 0;
+		private int tail = 0;
+		/**
+		 * Elements are in tie-break order
+		 */
+		private boolean sorted = true;
+		private boolean isEmpty() {
+			return head == tail;
+		}
+		private void add(T e, Comparator<? super T> tieBreak) {
+			if (tail == elements.length) {
+				if (head > 0) {
+					System.arraycopy(elements, head, elements, 0, tail - head);
+					Arrays.fill(elements, tail - head, tail, null);
+					tail -= head;
+					head = 0;
+				}
+				if (tail == elements.length) {
+					elements = Arrays.copyOf(elements, elements.length * 2);
+				}
+			}
+			if (tieBreak != null && sorted && tail > head && tieBreak.compare(get(tail - 1), e) > 0) {
+				sorted = false;
+			}
+			elements[tail++] = e;
+		}
+		@SuppressWarnings("unchecked")
+		private T get(int index) {
+			return (T)elements[index];
+		}
+		@SuppressWarnings("unchecked")
+		private T peek(Comparator<? super T> tieBreak) {
+			if (!sorted) {
+				Arrays.sort((T[])elements, head, tail, tieBreak);
+				sorted = true;
+			}
+			return get(head);
+		}
+		private void poll() {
+			elements[head++] = null;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+				sorted = true;
+			}
+		}
+	}
+	/**
+	 * Creates a queue ordered by the given key with ties returned in insertion order
+	 * @param key element key
+	 */
+	public CalendarQueue(ToLongFunction<? super T> key) {
+		this(DEFAULT_INITIAL_WINDOW_SIZE, key, null);
+	}
+	/**
+	 * Creates a queue ordered by the given key
+	 * @param initialWindowSize expected maximum difference between the smallest and largest key in the queue
+	 * @param key element key
+	 * @param tieBreak ordering of elements with the same key. Insertion order is used if null.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public CalendarQueue(int initialWindowSize, ToLongFunction<? super T> key, Comparator<? super T> tieBreak) {
+		if (initialWindowSize <= 0) throw new IllegalArgumentException("Window size must be positive");
+		this.key = key;
+		this.tieBreak = tieBreak;
+		int bucketCount = bucketCountFor(initialWindowSize);
+		this.buckets = (Bucket<T>[])new Bucket[bucketCount];
+		this.occupied = new long[bucketCount / Long.SIZE];
+		this.mask = bucketCount - 1;
+	}
+	private static int bucketCountFor(long window) {
+		if (window > MAX_BUCKET_COUNT) {
+			throw new IllegalStateException(String.format("Key range of %d exceeds maximum calendar queue window size of %d", window, MAX_BUCKET_COUNT));
+		}
+		return Math.max(MIN_BUCKET_COUNT, Integer.highestOneBit((int)window - 1) << 1);
+	}
+	@Override
+	public int size() {
+		return size;
+	}
+	@Override
+	public boolean offer(T e) {
+		if (e == null) throw new NullPointerException();
+		long k = key.applyAsLong(e);
+		if (size == 0) {
+			firstKey = k;
+			lastKey = k;
+		} else {
+			long newFirst = Math.min(firstKey, k);
+			long newLast = Math.max(lastKey, k);
+			ensureCapacity(newLast - newFirst + 1);
+			firstKey = newFirst;
+			lastKey = newLast;
+		}
+		int index = (int)k & mask;
+		Bucket<T> bucket = buckets[index];
+		if (bucket == null) {
+			bucket = new Bucket<T>();
+			buckets[index] = bucket;
+		}
+		bucket.add(e, tieBreak);
+		occupied[index >>> 6] |= 1L << index;
+		size++;
+		modCount++;
+		return true;
+	}
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void ensureCapacity(long window) {
+		if (window <= buckets.length) return;
+		int bucketCount = bucketCountFor(window);
+		Bucket<T>[] newBuckets = (Bucket<T>[])new Bucket[bucketCount];
+		long[] newOccupied = new long[bucketCount / Long.SIZE];
+		int newMask = bucketCount - 1;
+		for (long k = firstKey; k <= lastKey; k++) {
+			Bucket<T> bucket = buckets[(int)k & mask];
+			if (bucket != null && !bucket.isEmpty()) {
+				int index = (int)k & newMask;
+				newBuckets[index] = bucket;
+				newOccupied[index >>> 6] |= 1L << index;
+			}
+		}
+		buckets = newBuckets;
+		occupied = newOccupied;
+		mask = newMask;
+	}
+	@Override
+	public T peek() {
+		if (size == 0) return null;
+		return buckets[(int)firstKey & mask].peek(tieBreak);
+	}
+	@Override
+	public T poll() {
+		if (size == 0) return null;
+		int index = (int)firstKey & mask;
+		Bucket<T> bucket = buckets[index];
+		T e = bucket.peek(tieBreak);
+		bucket.poll();
+		size--;
+		modCount++;
+		if (bucket.isEmpty()) {
+			occupied[index >>> 6] &= ~(1L << index);
+			if (size > 0) {
+				firstKey += (nextOccupied(index) - index) & mask;
+			}
+		}
+		return e;
+	}
+	/**
+	 * Finds the next non-empty bucket
+	 * @param index bucket index to start searching from
+	 * @return index of next non-empty bucket
+	 */
+	private int nextOccupied(int index) {
+		int word = index >>> 6;
+		long bits = occupied[word] & (-1L << index);
+		while (bits == 0) {
+			word = (word + 1) % occupied.length;
+			bits = occupied[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+	/**
+	 * Smallest key of any element in the queue
+	 * @return smallest key
+	 */
+	public long peekKey() {
+		if (size == 0) throw new NoSuchElementException();
+		return firstKey;
+	}
+	/**
+	 * Iterates over the queued elements in key order.
+	 * Elements with the same key are not necessarily in tie-break order.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private final int expectedModCount = modCount;
+			private long currentKey = firstKey;
+			private int offset = 0;
+			private int remaining = size;
+			@Override
+			public boolean hasNext() {
+				return remaining > 0;
+			}
+			@Override
+			public T next() {
+				if (remaining <= 0) throw new NoSuchElementException();
+				if (modCount != expectedModCount) throw new ConcurrentModificationException();
+				Bucket<T> bucket = buckets[(int)currentKey & mask];
+				while (bucket == null || bucket.head + offset >= bucket.tail) {
+					currentKey++;
+					offset = 0;
+					bucket = buckets[(int)currentKey & mask];
+				}
+				remaining--;
+				return bucket.get(bucket.head + offset++);
+			}
+		};
+	}
+}
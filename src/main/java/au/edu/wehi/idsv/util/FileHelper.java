@@ -9,6 +9,7 @@ import java.util.stream.Stream;
 import com.google.common.io.Files;
 
 public abstract class FileHelper {
+	private static final String BAM_INDEX_SUFFIX = ".bai";
 	/**
 	 * Moves the given file and any associated indexes 
 	 * @param from
@@ -25,22 +26,27 @@ public abstract class FileHelper {
 		if (!from.renameTo(to)) {
 			throw new IOException("Could not rename " + from + " to " + to);
 		}
-		moveIndex(from, to, ".bai");
-		moveIndex(from, to, ".idx");
+		if (moveIndexes) {
+			moveIndex(from, to, ".bai");
+			moveIndex(from, to, ".idx");
+		}
 	}
 	public static void delete(File file, boolean deleteIndexes) throws IOException {
 		file.delete();
-		for (File f : getIndexFilesFor(file)) {
-			f.delete();
+		if (deleteIndexes) {
+			for (File f : getIndexFilesFor(file)) {
+				f.delete();
+			}
 		}
 	}
 	private static void moveIndex(File from, File to, String indexSuffix) throws IOException {
 		trymovesingle(
 				new File(from.getAbsolutePath() + indexSuffix),
 				new File(to.getAbsolutePath() + indexSuffix));
-		
-		trymovesingle(new File(from.getParentFile(), Files.getNameWithoutExtension(from.getName()) + indexSuffix),
-				new File(to.getParentFile(), Files.getNameWithoutExtension(to.getName()) + indexSuffix));
+		if (isBam(from) && isBam(to) && BAM_INDEX_SUFFIX.equals(indexSuffix)) {
+			trymovesingle(new File(from.getParentFile(), Files.getNameWithoutExtension(from.getName()) + indexSuffix),
+					new File(to.getParentFile(), Files.getNameWithoutExtension(to.getName()) + indexSuffix));
+		}
 	}
 	private static void trymovesingle(File from, File to) throws IOException {
 		if (to.exists()) {
@@ -64,16 +70,19 @@ public abstract class FileHelper {
 			FileHelper.delete(to, moveIndexes);
 		}
 		Files.copy(from, to);
-		copyIndex(from, to, ".bai");
-		copyIndex(from, to, ".idx");
+		if (moveIndexes) {
+			copyIndex(from, to, ".bai");
+			copyIndex(from, to, ".idx");
+		}
 	}
 	private static void copyIndex(File from, File to, String indexSuffix) throws IOException {
 		trycopysingle(
 				new File(from.getAbsolutePath() + indexSuffix),
 				new File(to.getAbsolutePath() + indexSuffix));
-		
-		trycopysingle(new File(from.getParentFile(), Files.getNameWithoutExtension(from.getName()) + indexSuffix),
-				new File(to.getParentFile(), Files.getNameWithoutExtension(to.getName()) + indexSuffix));
+		if (isBam(from) && isBam(to) && BAM_INDEX_SUFFIX.equals(indexSuffix)) {
+			trycopysingle(new File(from.getParentFile(), Files.getNameWithoutExtension(from.getName()) + indexSuffix),
+					new File(to.getParentFile(), Files.getNameWithoutExtension(to.getName()) + indexSuffix));
+		}
 	}
 	private static void trycopysingle(File from, File to) throws IOException {
 		if (to.exists()) {
@@ -91,8 +100,18 @@ public abstract class FileHelper {
 			.collect(Collectors.toList());
 	}
 	private static Stream<File> getPossibleIndexFilesFor(File file, String indexSuffix) {
-		return Stream.of(
-				new File(file.getAbsolutePath() + indexSuffix),
-				new File(file.getParentFile(), Files.getNameWithoutExtension(file.getName()) + indexSuffix));
+		if (isBam(file) && BAM_INDEX_SUFFIX.equals(indexSuffix)) {
+			return Stream.of(
+					new File(file.getAbsolutePath() + indexSuffix),
+					new File(file.getParentFile(), Files.getNameWithoutExtension(file.getName()) + indexSuffix));
+		}
+		return Stream.of(new File(file.getAbsolutePath() + indexSuffix));
+	}
+	/**
+	 * Only BAM files have indexes named by replacing the file extension
+	 * (X.bai for X.bam). Other files are only indexed by appending a suffix.
+	 */
+	private static boolean isBam(File file) {
+		return "bam".equals(Files.getFileExtension(file.getName()));
 	}
 }
@@ -0,0 +1,130 @@
+package au.edu.wehi.idsv.util;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of integer values supporting range minimum queries.
+ *
+ * Only the values at the windowSize highest positions are retained. Positions
+ * that have not been set have a value of zero.
+ *
+ * Range minimum queries are answered in logarithmic time by a segment tree
+ * over the circular backing array.
+ *
+ * @author Daniel Cameron
+ *
+ */
+public class SlidingWindowRangeMinimum {
+	private final int windowSize;
+	/**
+	 * Number of leaves in the segment tree. Always a power of 2
+	 */
+	private final int leafCount;
+	/**
+	 * Implicit segment tree. Node i has children 2i and 2i+1, the root is node 1,
+	 * and the leaf for each position is at leafCount + (position % leafCount)
+	 */
+	private final int[] tree;
+	/**
+	 * Highest position set
+	 */
+	private int headPosition = -1;
+	public SlidingWindowRangeMinimum(int windowSize) {
+		if (windowSize <= 0) throw new IllegalArgumentException("Window size must be positive");
+		this.windowSize = windowSize;
+		int leaves = Integer.highestOneBit(windowSize);
+		if (leaves < windowSize) leaves <<= 1;
+		this.leafCount = leaves;
+		this.tree = new int[2 * leafCount];
+	}
+	public int getWindowSize() {
+		return windowSize;
+	}
+	/**
+	 * Number of positions up to and including the highest position set
+	 */
+	public int size() {
+		return headPosition + 1;
+	}
+	/**
+	 * Resets all positions to zero
+	 */
+	public void clear() {
+		Arrays.fill(tree, 0);
+		headPosition = -1;
+	}
+	/**
+	 * Sets the value at the given position.
+	 * Advancing the window past positions that have not been set sets them to zero.
+	 * @param position position to set. Must be within the window of the highest position set.
+	 * @param value value
+	 */
+	public void set(int position, int value) {
+		if (position < 0) throw new IndexOutOfBoundsException("Position: " + position);
+		if (position <= headPosition - windowSize) throw new IllegalArgumentException(String.format("position %d outside of window of size %d ending at position %d", position, windowSize, headPosition));
+		if (position > headPosition) {
+			if (position - headPosition > leafCount) {
+				Arrays.fill(tree, 0);
+			} else {
+				for (int i = headPosition + 1; i < position; i++) {
+					update(i, 0);
+				}
+			}
+			headPosition = position;
+		}
+		update(position, value);
+	}
+	public int get(int position) {
+		if (position > headPosition) return 0;
+		if (position <= headPosition - windowSize) throw new IllegalArgumentException(String.format("position %d outside of window of size %d ending at position %d", position, windowSize, headPosition));
+		return tree[leafCount + slot(position)];
+	}
+	/**
+	 * Minimum value in the given range
+	 * @param start first position
+	 * @param end position after the last position
+	 * @return minimum value of all positions in [start, end)
+	 */
+	public int min(int start, int end) {
+		if (start >= end) throw new IllegalArgumentException("Empty range");
+		if (start <= headPosition - windowSize) throw new IllegalArgumentException(String.format("position %d outside of window of size %d ending at position %d", start, windowSize, headPosition));
+		int result = Integer.MAX_VALUE;
+		if (end > headPosition + 1) {
+			// unset positions
+			result = 0;
+			end = headPosition + 1;
+		}
+		if (start >= end) return result;
+		int s = slot(start);
+		int e = slot(end - 1);
+		if (s <= e) {
+			result = Math.min(result, query(s, e));
+		} else {
+			result = Math.min(result, Math.min(query(s, leafCount - 1), query(0, e)));
+		}
+		return result;
+	}
+	private int slot(int position) {
+		return position & (leafCount - 1);
+	}
+	private void update(int position, int value) {
+		int i = leafCount + slot(position);
+		tree[i] = value;
+		for (i >>= 1; i >= 1; i >>= 1) {
+			int v = Math.min(tree[2 * i], tree[2 * i + 1]);
+			if (tree[i] == v) break; // ancestors are unchanged
+			tree[i] = v;
+		}
+	}
+	/**
+	 * Minimum of the leaves in the given inclusive slot range
+	 */
+	private int query(int lo, int hi) {
+		int result = Integer.MAX_VALUE;
+		for (lo += leafCount, hi += leafCount + 1; lo < hi; lo >>= 1, hi >>= 1) {
+			if ((lo & 1) == 1) result = Math.min(result, tree[lo++]);
+			if ((hi & 1) == 1) result = Math.min(result, tree[--hi]);
+		}
+		return result;
+	}
+}
@@ -3,7 +3,6 @@ package au.edu.wehi.idsv.util;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import com.google.common.base.Function;
 import com.google.common.collect.AbstractIterator;
@@ -30,7 +29,8 @@ import htsjdk.samtools.util.Log;
  */
 public class WindowedSortingIterator<T> extends AbstractIterator<T> implements TrackedBuffer {
 	private static final Log log = Log.getInstance(WindowedSortingIterator.class);
-	private final PriorityQueue<T> calls; 
+	private static final int MAX_INITIAL_CALENDAR_SIZE = 1 << 16;
+	private final CalendarQueue<T> calls;
 	private final long windowSize;
 	private final PeekingIterator<T> it;
 	private final Function<T, Long> toCoordinate;
@@ -54,7 +54,7 @@ public class WindowedSortingIterator<T> extends AbstractIterator<T> implements T
 		this.windowSize = windowSize;
 		this.it = Iterators.peekingIterator(it);
 		this.toCoordinate = transform;
-		this.calls = new PriorityQueue<T>(32, sortOrder);
+		this.calls = new CalendarQueue<T>((int)Math.max(1, Math.min(windowSize + 1, MAX_INITIAL_CALENDAR_SIZE)), x -> transform.apply(x), sortOrder);
 		this.sortOrder = sortOrder;
 	}
 	@Override
@@ -79,7 +79,7 @@ public class WindowedSortingIterator<T> extends AbstractIterator<T> implements T
 		}
 	}
 	private boolean nextRecordCouldBeAtStartOfWindow() {
-		long bufferPosition = toCoordinate.apply(calls.peek());
+		long bufferPosition = calls.peekKey();
 		long nextPosition = toCoordinate.apply(it.peek());
 		return nextPosition <= bufferPosition + windowSize;
 	}
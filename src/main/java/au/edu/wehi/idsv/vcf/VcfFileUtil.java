@@ -2,6 +2,7 @@ package au.edu.wehi.idsv.vcf;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -11,9 +12,12 @@ import au.edu.wehi.idsv.IdsvVariantContext;
 import au.edu.wehi.idsv.IntermediateFileUtil;
 import au.edu.wehi.idsv.ProcessingContext;
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
+import au.edu.wehi.idsv.util.AutoClosingIterator;
+import au.edu.wehi.idsv.util.AutoClosingMergedIterator;
 import au.edu.wehi.idsv.util.FileHelper;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.SortingCollection;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -149,4 +153,75 @@ public class VcfFileUtil {
 		}
 		FileHelper.move(tmpout, output, true);
 	}
+	/**
+	 * Maximum number of VCFs merged concurrently. Each open reader has its own input buffer
+	 * so larger merges are performed in multiple passes.
+	 */
+	private static final int MAX_MERGE_FAN_IN = 64;
+	/**
+	 * Merges sorted input files into a single sorted output.
+	 * 
+	 * Records are streamed from all inputs concurrently so, unlike a concatenation followed by a sort,
+	 * the full set of records does not need to be sorted.
+	 * @param dictionary sequence dictionary of the inputs
+	 * @param input input files. Each input must be sorted according to the given sort order.
+	 * @param output output file
+	 * @param sortComparator sort order of the inputs
+	 * @throws IOException
+	 */
+	public static void merge(SAMSequenceDictionary dictionary, List<File> input, File output, Comparator<VariantContext> sortComparator) throws IOException {
+		if (input.isEmpty()) throw new IllegalArgumentException("No VCFs to merge");
+		List<File> intermediate = new ArrayList<>();
+		try {
+			List<File> current = input;
+			for (int pass = 0; current.size() > MAX_MERGE_FAN_IN; pass++) {
+				List<File> next = new ArrayList<>();
+				for (int i = 0; i < current.size(); i += MAX_MERGE_FAN_IN) {
+					File f = FileSystemContext.getWorkingFileFor(output, String.format("gridss.tmp.merge.%d.%d.", pass, next.size()));
+					mergeFiles(dictionary, current.subList(i, Math.min(current.size(), i + MAX_MERGE_FAN_IN)), f, sortComparator);
+					next.add(f);
+					intermediate.add(f);
+				}
+				current = next;
+			}
+			mergeFiles(dictionary, current, output, sortComparator);
+		} finally {
+			for (File f : intermediate) {
+				if (f.exists()) {
+					FileHelper.delete(f, true);
+				}
+			}
+		}
+	}
+	private static void mergeFiles(SAMSequenceDictionary dictionary, List<File> input, File output, Comparator<VariantContext> sortComparator) throws IOException {
+		File tmpout = FileSystemContext.getWorkingFileFor(output, "gridss.tmp.merge.");
+		List<CloseableIterator<VariantContext>> toMerge = new ArrayList<>();
+		try {
+			VCFHeader header = null;
+			for (File f : input) {
+				VCFFileReader reader = new VCFFileReader(f, false);
+				if (header == null) {
+					header = reader.getFileHeader();
+				}
+				toMerge.add(new AutoClosingIterator<>(reader.iterator(), reader));
+			}
+			try (VariantContextWriter writer = new VariantContextWriterBuilder()
+					.setOutputFile(tmpout)
+					.setReferenceDictionary(dictionary)
+					.unsetOption(Options.INDEX_ON_THE_FLY)
+					.build()) {
+				writer.writeHeader(header);
+				try (AutoClosingMergedIterator<VariantContext> it = new AutoClosingMergedIterator<>(toMerge, sortComparator)) {
+					while (it.hasNext()) {
+						writer.add(it.next());
+					}
+				}
+			}
+		} finally {
+			for (CloseableIterator<VariantContext> it : toMerge) {
+				CloserUtil.close(it);
+			}
+		}
+		FileHelper.move(tmpout, output, true);
+	}
 }
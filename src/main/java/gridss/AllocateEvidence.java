@@ -1,7 +1,13 @@
 package gridss;
 
+import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -11,18 +17,23 @@ import au.edu.wehi.idsv.Defaults;
 import au.edu.wehi.idsv.DirectedEvidence;
 import au.edu.wehi.idsv.DirectedEvidenceOrder;
 import au.edu.wehi.idsv.GreedyVariantAllocationCache;
+import au.edu.wehi.idsv.QueryIntervalUtil;
 import au.edu.wehi.idsv.SAMEvidenceSource;
 import au.edu.wehi.idsv.SequentialEvidenceAllocator;
 import au.edu.wehi.idsv.SequentialEvidenceAllocator.VariantEvidenceSupport;
 import au.edu.wehi.idsv.StructuralVariationCallBuilder;
 import au.edu.wehi.idsv.VariantContextDirectedBreakpoint;
+import au.edu.wehi.idsv.VariantContextDirectedEvidence;
 import au.edu.wehi.idsv.configuration.VariantCallingConfiguration;
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
 import au.edu.wehi.idsv.util.AutoClosingIterator;
 import au.edu.wehi.idsv.validation.OrderAssertingIterator;
 import au.edu.wehi.idsv.validation.PairedEvidenceTracker;
 import gridss.cmdline.VcfTransformCommandLineProgram;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
 import picard.cmdline.CommandLineProgramProperties;
@@ -45,14 +56,28 @@ public class AllocateEvidence extends VcfTransformCommandLineProgram {
 		GREEDY,
 	}
 	private GreedyVariantAllocationCache cache;
-	public CloseableIterator<DirectedEvidence> getEvidenceIterator() {
-		CloseableIterator<DirectedEvidence> evidenceIt;
+	private List<SAMEvidenceSource> getAllEvidenceSources() {
 		boolean assemblyOnly = getContext().getVariantCallingParameters().callOnlyAssemblies;
 		if (assemblyOnly) {
-			evidenceIt = SAMEvidenceSource.mergedIterator(ImmutableList.of(getAssemblySource()), true);
-		} else {
-			evidenceIt = SAMEvidenceSource.mergedIterator(ImmutableList.<SAMEvidenceSource>builder().addAll(getSamEvidenceSources()).add(getAssemblySource()).build(), true);
+			return ImmutableList.of(getAssemblySource());
 		}
+		return ImmutableList.<SAMEvidenceSource>builder().addAll(getSamEvidenceSources()).add(getAssemblySource()).build();
+	}
+	/**
+	 * Gets the evidence with breakends overlapping the given intervals
+	 * @param intervals sorted, non-overlapping intervals
+	 * @return evidence in breakend order
+	 */
+	public CloseableIterator<DirectedEvidence> getEvidenceIterator(QueryInterval[] intervals) {
+		CloseableIterator<DirectedEvidence> evidenceIt = SAMEvidenceSource.mergedIterator(getAllEvidenceSources(), intervals);
+		if (Defaults.SANITY_CHECK_ITERATORS) {
+			// not tracking evidence pairing as the partner evidence can be outside of the intervals
+			evidenceIt = new AutoClosingIterator<>(new OrderAssertingIterator<>(evidenceIt, DirectedEvidenceOrder.ByNatural), evidenceIt);
+		}
+		return evidenceIt;
+	}
+	public CloseableIterator<DirectedEvidence> getEvidenceIterator() {
+		CloseableIterator<DirectedEvidence> evidenceIt = SAMEvidenceSource.mergedIterator(getAllEvidenceSources(), true);
 		if (Defaults.SANITY_CHECK_ITERATORS) {
 			evidenceIt = new AutoClosingIterator<>(
 					new PairedEvidenceTracker<>("Evidence",
@@ -63,6 +88,43 @@ public class AllocateEvidence extends VcfTransformCommandLineProgram {
 	}
 	@Override
 	public CloseableIterator<VariantContextDirectedBreakpoint> iterator(CloseableIterator<VariantContextDirectedBreakpoint> calls, ExecutorService threadpool) {
+		ensureMultimappingCache(threadpool);
+		log.info("Allocating evidence"); 
+		CloseableIterator<DirectedEvidence> evidence = new AsyncBufferedIterator<>(getEvidenceIterator(), "mergedEvidence-allocation");
+		Iterator<VariantContextDirectedBreakpoint> it = allocate(calls, evidence);
+		return new AutoClosingIterator<>(it, calls, evidence, () -> closeMultimappingCache());
+	}
+	/**
+	 * Allocates evidence to the given calls using only the evidence overlapping the given intervals.
+	 * 
+	 * Evidence allocation is determined by all calls competing for the same evidence. To ensure
+	 * results consistent with the full genome allocation, the calls should include all calls
+	 * within two evidence windows of the evidence intervals.
+	 * 
+	 * The multimapping allocation cache is not closed by this iterator.
+	 * @param calls breakpoint calls ordered by evidence start
+	 * @param evidenceIntervals sorted, non-overlapping intervals
+	 * @param threadpool threadpool used to populate the multimapping allocation cache if not yet loaded
+	 */
+	public CloseableIterator<VariantContextDirectedBreakpoint> iterator(CloseableIterator<VariantContextDirectedBreakpoint> calls, QueryInterval[] evidenceIntervals, ExecutorService threadpool) {
+		ensureMultimappingCache(threadpool);
+		CloseableIterator<DirectedEvidence> evidence = getEvidenceIterator(evidenceIntervals);
+		Iterator<VariantContextDirectedBreakpoint> it = allocate(calls, evidence);
+		return new AutoClosingIterator<>(it, calls, evidence);
+	}
+	private Iterator<VariantContextDirectedBreakpoint> allocate(Iterator<VariantContextDirectedBreakpoint> calls, Iterator<DirectedEvidence> evidence) {
+		Iterator<VariantEvidenceSupport> annotator = new SequentialEvidenceAllocator(getContext(), calls, evidence, SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource()), true);
+		Iterator<VariantContextDirectedBreakpoint> it = Iterators.transform(annotator, bp -> annotate(bp));
+		it = Iterators.filter(it, v -> v != null);
+		return it;
+	}
+	/**
+	 * Populates the multimapping allocation cache if multimapping unique variant allocation is required
+	 * and the cache has not already been populated.
+	 * @param threadpool threadpool used to populate the cache
+	 */
+	public synchronized void ensureMultimappingCache(ExecutorService threadpool) {
+		if (cache != null) return;
 		boolean multimapping = Iterables.any(getSamEvidenceSources(), ses -> ses.getMetrics().getIdsvMetrics().SECONDARY_NOT_SPLIT > 0);
 		if (multimapping) {
 			if (!getContext().getConfig().multimapping) {
@@ -71,28 +133,37 @@ public class AllocateEvidence extends VcfTransformCommandLineProgram {
 				log.info("Not performing unique variant allocation of multimapping reads as the configuration setting multimappingUniqueVariantAllocation is set to false.");
 			} else {
 				log.info("Multimapping mode invoked due to existence of at least one BAM file with a non-split secondary alignment.");
-				populateCache();
+				populateCache(threadpool);
 			}
 		}
-		log.info("Allocating evidence"); 
-		CloseableIterator<DirectedEvidence> evidence = new AsyncBufferedIterator<>(getEvidenceIterator(), "mergedEvidence-allocation");
-		Iterator<VariantEvidenceSupport> annotator = new SequentialEvidenceAllocator(getContext(), calls, evidence, SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource()), true);
-		Iterator<VariantContextDirectedBreakpoint> it = Iterators.transform(annotator, bp -> annotate(bp));
-		it = Iterators.filter(it, v -> v != null);
-		return new AutoClosingIterator<>(it, calls, evidence, cache);
+	}
+	/**
+	 * Releases the multimapping allocation cache
+	 */
+	public synchronized void closeMultimappingCache() {
+		CloserUtil.close(cache);
+		cache = null;
 	}
 	public void populateCache() {
+		populateCache(null);
+	}
+	/**
+	 * Loads the allocation cache
+	 * @param threadpool threadpool used to load genomic chunks in parallel.
+	 * If null, or the input VCF cannot be indexed, the cache is populated in a single pass over the full input. 
+	 */
+	public void populateCache(ExecutorService threadpool) {
 		IOUtil.assertFileIsReadable(INPUT_VCF);
-		try (CloseableIterator<VariantContextDirectedBreakpoint> calls = getBreakpoints(INPUT_VCF)) {
-			// Parallel populate cache requires
-			// - indexed BCF/VCF OUTPUT.vcf.breakpoint.vcf
-			// - (DONE) thread-safe cache 
-			// Cache loading can then be performed in parallel per chunk
-			populateCache_single_threaded(calls);
+		createCache();
+		if (threadpool != null && ensureVcfIndexed(INPUT_VCF)) {
+			populateCache_parallel(threadpool);
+		} else {
+			try (CloseableIterator<VariantContextDirectedBreakpoint> calls = getBreakpoints(INPUT_VCF)) {
+				populateCache_single_threaded(calls);
+			}
 		}
 	}
-	private void populateCache_single_threaded(CloseableIterator<VariantContextDirectedBreakpoint> calls) {
-		log.info("Loading variant evidence support");
+	private void createCache() {
 		// TODO: resize this
 		long readPairCount = getSamEvidenceSources().stream()
 				.mapToLong(ses -> ses.getSVMetrics().STRUCTURAL_VARIANT_READ_PAIRS)
@@ -100,15 +171,64 @@ public class AllocateEvidence extends VcfTransformCommandLineProgram {
 		long readCount = getSamEvidenceSources().stream()
 				.mapToLong(ses -> ses.getSVMetrics().STRUCTURAL_VARIANT_READS)
 				.sum();
-		cache = new GreedyVariantAllocationCache(true, readPairCount, true, readCount, false, 0);
+		cache = new GreedyVariantAllocationCache(true, readPairCount, true, readCount, false, 0, getContext().getConfig().allocationCache);
+	}
+	private void populateCache_single_threaded(CloseableIterator<VariantContextDirectedBreakpoint> calls) {
+		log.info("Loading variant evidence support");
 		try (CloseableIterator<DirectedEvidence> evidence = new AsyncBufferedIterator<>(getEvidenceIterator(), "mergedEvidence-cache")) {
-			Iterator<VariantEvidenceSupport> annotator = new SequentialEvidenceAllocator(getContext(), calls, evidence, SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource()), true);
-			while (annotator.hasNext()) {
-				VariantEvidenceSupport ves = annotator.next();
-				for (DirectedEvidence e : ves.support) {
-					if (e.isFromMultimappingFragment()) {
-						cache.addBreakpoint((VariantContextDirectedBreakpoint)ves.variant, e);
-					}
+			loadCache(calls, evidence, variant -> true);
+		}
+	}
+	/**
+	 * Loads the cache for each genomic chunk in parallel.
+	 * 
+	 * Each variant is loaded by the chunk containing the VCF position of the variant. Calls and
+	 * evidence are padded beyond the chunk bounds to ensure that the evidence allocated to each
+	 * variant is not affected by the chunk boundaries. 
+	 */
+	private void populateCache_parallel(ExecutorService threadpool) {
+		log.info("Loading variant evidence support in parallel");
+		List<QueryInterval[]> chunks = getContext().getReference().getIntervals(getContext().getConfig().chunkSize, getContext().getConfig().chunkSequenceChangePenalty);
+		int windowSize = SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource());
+		List<Future<Void>> tasks = new ArrayList<>();
+		for (QueryInterval[] chunk : chunks) {
+			tasks.add(threadpool.submit(() -> { populateCache_chunk(chunk, windowSize); return null; }));
+		}
+		Exception firstException = null;
+		for (Future<Void> f : tasks) {
+			try {
+				f.get();
+			} catch (InterruptedException | ExecutionException e) {
+				if (firstException == null) {
+					firstException = e;
+				}
+			}
+		}
+		if (firstException != null) {
+			log.error(firstException, "Fatal error loading variant evidence support");
+			throw new RuntimeException(firstException);
+		}
+	}
+	private void populateCache_chunk(QueryInterval[] chunk, int windowSize) {
+		SAMSequenceDictionary dict = getContext().getDictionary();
+		// evidence overlapping a variant in this chunk is at most one window from the chunk
+		// and variants competing for that evidence are at most a further two windows away
+		QueryInterval[] evidenceIntervals = QueryIntervalUtil.padIntervals(dict, chunk, 2 * windowSize);
+		QueryInterval[] callIntervals = QueryIntervalUtil.padIntervals(dict, chunk, 4 * windowSize);
+		try (CloseableIterator<VariantContextDirectedBreakpoint> calls = getBreakpoints(INPUT_VCF, callIntervals)) {
+			try (CloseableIterator<DirectedEvidence> evidence = getEvidenceIterator(evidenceIntervals)) {
+				loadCache(calls, evidence, variant -> QueryIntervalUtil.overlaps(chunk, variant.getReferenceIndex(), variant.getStart()));
+			}
+		}
+	}
+	private void loadCache(Iterator<VariantContextDirectedBreakpoint> calls, Iterator<DirectedEvidence> evidence, Predicate<VariantContextDirectedEvidence> shouldLoad) {
+		Iterator<VariantEvidenceSupport> annotator = new SequentialEvidenceAllocator(getContext(), calls, evidence, SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource()), true);
+		while (annotator.hasNext()) {
+			VariantEvidenceSupport ves = annotator.next();
+			if (!shouldLoad.test(ves.variant)) continue;
+			for (DirectedEvidence e : ves.support) {
+				if (e.isFromMultimappingFragment()) {
+					cache.addBreakpoint((VariantContextDirectedBreakpoint)ves.variant, e);
 				}
 			}
 		}
@@ -1,14 +1,19 @@
 package gridss;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 import au.edu.wehi.idsv.AssemblyEvidenceSource;
 import au.edu.wehi.idsv.ProcessingContext;
+import au.edu.wehi.idsv.QueryIntervalUtil;
 import au.edu.wehi.idsv.SAMEvidenceSource;
 import au.edu.wehi.idsv.SequentialCoverageAnnotator;
 import au.edu.wehi.idsv.VariantContextDirectedBreakpoint;
 import gridss.cmdline.VcfTransformCommandLineProgram;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.util.CloseableIterator;
 
 public class AnnotateReferenceCoverage extends VcfTransformCommandLineProgram {
@@ -24,4 +29,32 @@ public class AnnotateReferenceCoverage extends VcfTransformCommandLineProgram {
 		int windowSize = SAMEvidenceSource.maximumWindowSize(context, sources, asm);
 		return new SequentialCoverageAnnotator<VariantContextDirectedBreakpoint>(context, sources, calls, 2 * windowSize + WINDOW_SIZE_SAFETY_MARGIN, threadpool);
 	}
+	/**
+	 * Annotates the given calls using only the reads near the given intervals
+	 * @param calls calls with breakends overlapping the given intervals
+	 * @param intervals sorted, non-overlapping intervals
+	 * @param threadpool threadpool used for coverage calculation
+	 */
+	public CloseableIterator<VariantContextDirectedBreakpoint> iterator(CloseableIterator<VariantContextDirectedBreakpoint> calls, QueryInterval[] intervals, ExecutorService threadpool) {
+		ProcessingContext context = getContext();
+		List<SAMEvidenceSource> sources = getSamEvidenceSources();
+		AssemblyEvidenceSource asm = getAssemblySource();
+		int windowSize = 2 * SAMEvidenceSource.maximumWindowSize(context, sources, asm) + WINDOW_SIZE_SAFETY_MARGIN;
+		// reads supporting the reference allele can start up to a window before the breakend
+		QueryInterval[] readIntervals = QueryIntervalUtil.padIntervals(context.getDictionary(), intervals, 2 * windowSize);
+		return new SequentialCoverageAnnotator<VariantContextDirectedBreakpoint>(context, sources, calls, windowSize, readIntervals, threadpool);
+	}
+	/**
+	 * Determines whether the reads of every input can be queried by genomic interval
+	 */
+	public boolean canQueryIntervals() {
+		for (SAMEvidenceSource ses : getSamEvidenceSources()) {
+			try (SamReader reader = SamReaderFactory.makeDefault().open(ses.getFile())) {
+				if (!reader.hasIndex()) return false;
+			} catch (IOException e) {
+				return false;
+			}
+		}
+		return true;
+	}
 }
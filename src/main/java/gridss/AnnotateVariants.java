@@ -5,19 +5,37 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import com.google.common.collect.Iterators;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import au.edu.wehi.idsv.AssemblyEvidenceSource;
 import au.edu.wehi.idsv.BreakendDirection;
+import au.edu.wehi.idsv.CheckpointManifest;
 import au.edu.wehi.idsv.DirectedEvidence;
 import au.edu.wehi.idsv.FileSystemContext;
+import au.edu.wehi.idsv.QueryIntervalUtil;
+import au.edu.wehi.idsv.SAMEvidenceSource;
 import au.edu.wehi.idsv.SingleReadEvidence;
 import au.edu.wehi.idsv.VariantContextDirectedBreakpoint;
+import au.edu.wehi.idsv.VariantContextWindowedSortingIterator;
+import au.edu.wehi.idsv.util.AutoClosingIterator;
+import au.edu.wehi.idsv.util.FileHelper;
+import au.edu.wehi.idsv.vcf.VcfFileUtil;
 import gridss.cmdline.VcfTransformCommandLineProgram;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import picard.cmdline.CommandLineProgramProperties;
 
 @CommandLineProgramProperties(
@@ -53,6 +71,118 @@ public class AnnotateVariants extends VcfTransformCommandLineProgram {
 		log.info("Writing breakend assembly support complete.");
 	}
 	@Override
+	public int doWork(ExecutorService threadpool) throws IOException, InterruptedException, ExecutionException {
+		if (threadpool == null) {
+			return super.doWork(threadpool);
+		}
+		IOUtil.assertFileIsReadable(ASSEMBLY);
+		IOUtil.assertFileIsReadable(INPUT_VCF);
+		IOUtil.assertFileIsWritable(OUTPUT_VCF);
+		AllocateEvidence ae = new AllocateEvidence();
+		AnnotateReferenceCoverage arc = new AnnotateReferenceCoverage();
+		AnnotateInexactHomology ihom = new AnnotateInexactHomology();
+		copyInputs(ae);
+		copyInputs(arc);
+		copyInputs(ihom);
+		ae.INPUT_VCF = INPUT_VCF;
+		if (!ensureVcfIndexed(INPUT_VCF) || !arc.canQueryIntervals()) {
+			log.info("Annotating variants in a single pass as not all inputs are indexed.");
+			return super.doWork(threadpool);
+		}
+		log.info("Annotating variants in " + INPUT_VCF);
+		List<QueryInterval[]> chunks = getContext().getReference().getIntervals(getContext().getConfig().chunkSize, getContext().getConfig().chunkSequenceChangePenalty);
+		List<File> annotatedChunk = new ArrayList<>();
+		List<Future<Void>> tasks = new ArrayList<>();
+		ae.ensureMultimappingCache(threadpool);
+		CheckpointManifest checkpoints = getContext().getCheckpointManifest();
+		String callsDescription = CheckpointManifest.describe(INPUT_VCF) + " config=" + getContext().getConfig().getFingerprint();
+		try {
+			for (int i = 0; i < chunks.size(); i++) {
+				QueryInterval[] chunk = chunks.get(i);
+				File f = getContext().getFileSystemContext().getAnnotationChunkVcf(OUTPUT_VCF, i);
+				int chunkNumber = i;
+				annotatedChunk.add(f);
+				String checkpoint = "annotate." + f.getAbsolutePath();
+				String description = callsDescription + " " + CheckpointManifest.describe(chunk);
+				if (!checkpoints.isComplete(checkpoint, description, f)) {
+					tasks.add(threadpool.submit(() -> {
+						annotateChunk(f, ae, arc, ihom, chunkNumber, chunk);
+						checkpoints.complete(checkpoint, description, f);
+						return null;
+					}));
+				}
+			}
+			runTasks(tasks);
+		} finally {
+			ae.closeMultimappingCache();
+		}
+		log.info("Merging annotated breakpoints");
+		File mergedOut = FileSystemContext.getWorkingFileFor(OUTPUT_VCF, "gridss.merged.");
+		VcfFileUtil.concat(getContext().getReference().getSequenceDictionary(), annotatedChunk, mergedOut);
+		try (CloseableIterator<VariantContextDirectedBreakpoint> it = getBreakpoints(mergedOut)) {
+			saveVcf(OUTPUT_VCF, getAllCalls(INPUT_VCF, it));
+		}
+		if (gridss.Defaults.DELETE_TEMPORARY_FILES) {
+			for (File f : annotatedChunk) {
+				FileHelper.delete(f, true);
+			}
+			FileHelper.delete(mergedOut, true);
+		}
+		log.info("Annotated variants written to " + OUTPUT_VCF);
+		return 0;
+	}
+	private void runTasks(List<Future<Void>> tasks) {
+		// Run as many tasks as we can before dying
+		Exception firstException = null;
+		for (Future<Void> f : tasks) {
+			try {
+				f.get();
+			} catch (Exception e) {
+				if (firstException == null) {
+					firstException = e;
+				}
+			}
+		}
+		if (firstException != null) {
+			log.error(firstException, "Fatal error during variant annotation ");
+			throw new RuntimeException(firstException);
+		}
+	}
+	/**
+	 * Annotates the breakpoint calls with a VCF position in the given chunk.
+	 * 
+	 * Evidence allocation depends on all calls competing for the same evidence so calls and
+	 * evidence are loaded with padding around the chunk. Since both breakends of a breakpoint
+	 * see the same set of competing calls regardless of the chunk in which they are processed,
+	 * partner breakends in different chunks are allocated consistently.
+	 */
+	private void annotateChunk(File output, AllocateEvidence ae, AnnotateReferenceCoverage arc, AnnotateInexactHomology ihom, int chunkNumber, QueryInterval[] chunk) throws IOException {
+		SAMSequenceDictionary dict = getContext().getDictionary();
+		String msg = String.format("annotating chunk %d (%s:%d-%s:%d)", chunkNumber,
+				dict.getSequence(chunk[0].referenceIndex).getSequenceName(), chunk[0].start,
+				dict.getSequence(chunk[chunk.length-1].referenceIndex).getSequenceName(), chunk[chunk.length-1].end);
+		int windowSize = SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource());
+		QueryInterval[] evidenceIntervals = QueryIntervalUtil.padIntervals(dict, chunk, 2 * windowSize);
+		QueryInterval[] callIntervals = QueryIntervalUtil.padIntervals(dict, chunk, 4 * windowSize);
+		// chunks are already running on the thread pool 
+		ExecutorService chunkThreadpool = MoreExecutors.newDirectExecutorService();
+		File tmp = FileSystemContext.getWorkingFileFor(output);
+		log.info("Start ", msg);
+		try (CloseableIterator<VariantContextDirectedBreakpoint> allocated = ae.iterator(getBreakpoints(INPUT_VCF, callIntervals), evidenceIntervals, chunkThreadpool)) {
+			Iterator<VariantContextDirectedBreakpoint> owned = Iterators.filter(allocated, v -> QueryIntervalUtil.overlaps(chunk, v.getReferenceIndex(), v.getStart()));
+			try (CloseableIterator<VariantContextDirectedBreakpoint> annotated = ihom.iterator(arc.iterator(new AutoClosingIterator<>(owned), chunk, chunkThreadpool), chunkThreadpool)) {
+				Iterator<VariantContextDirectedBreakpoint> it = new VariantContextWindowedSortingIterator<>(getContext(), windowSize, annotated);
+				try (VariantContextWriter vcfWriter = getContext().getVariantContextWriter(tmp, false)) {
+					while (it.hasNext()) {
+						vcfWriter.add(it.next());
+					}
+				}
+			}
+		}
+		FileHelper.move(tmp, output, true);
+		log.info("Complete ", msg);
+	}
+	@Override
 	public CloseableIterator<VariantContextDirectedBreakpoint> iterator(CloseableIterator<VariantContextDirectedBreakpoint> calls, ExecutorService threadpool) {
 		AllocateEvidence ae = new AllocateEvidence();
 		AnnotateReferenceCoverage arc = new AnnotateReferenceCoverage();
@@ -9,14 +9,17 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import au.edu.wehi.idsv.AssemblyEvidenceSource;
+import au.edu.wehi.idsv.CheckpointManifest;
 import au.edu.wehi.idsv.FileSystemContext;
 import au.edu.wehi.idsv.SAMEvidenceSource;
 import au.edu.wehi.idsv.util.FileHelper;
 import gridss.cmdline.FullEvidenceCommandLineProgram;
 import gridss.cmdline.MultipleSamFileCommandLineProgram;
+import gridss.cmdline.ReferenceCommandLineProgram;
 import htsjdk.samtools.SamPairUtil.PairOrientation;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
@@ -31,7 +34,8 @@ import picard.cmdline.StandardOptionDefinitions;
  *
  */
 @CommandLineProgramProperties(
-        usage = "Calls structural variations from one or more SAM/BAM input files.",  
+        usage = "Calls structural variations from one or more SAM/BAM input files."
+        		+ ReferenceCommandLineProgram.REFERENCE_SYSTEM_PROPERTY_USAGE,  
         usageShort = "Calls structural variations from NGS sequencing data"
 )
 public class CallVariants extends FullEvidenceCommandLineProgram {
@@ -41,6 +45,31 @@ public class CallVariants extends FullEvidenceCommandLineProgram {
 	public CallVariants() {
 		super(false);
 	}
+	/**
+	 * Describes the evidence extracted from the given sources
+	 */
+	private String describeEvidence(List<? extends SAMEvidenceSource> sources) {
+		return CheckpointManifest.describe(sources.stream()
+				.map(ses -> getContext().getFileSystemContext().getSVBam(ses.getFile()))
+				.toArray(File[]::new));
+	}
+	/**
+	 * Fingerprint of the configuration and inputs. All checkpoints are invalidated if this changes.
+	 */
+	private String getCheckpointFingerprint() {
+		List<String> fingerprint = Lists.newArrayList(
+				"config=" + getContext().getConfig().getFingerprint(),
+				"reference=" + CheckpointManifest.describe(REFERENCE_SEQUENCE),
+				"input=" + CheckpointManifest.describe(INPUT.toArray(new File[0])),
+				"INPUT_NAME_SORTED=" + INPUT_NAME_SORTED,
+				"INPUT_LABEL=" + INPUT_LABEL,
+				"INPUT_MIN_FRAGMENT_SIZE=" + INPUT_MIN_FRAGMENT_SIZE,
+				"INPUT_MAX_FRAGMENT_SIZE=" + INPUT_MAX_FRAGMENT_SIZE,
+				"READ_PAIR_CONCORDANT_PERCENT=" + READ_PAIR_CONCORDANT_PERCENT,
+				"IGNORE_DUPLICATES=" + IGNORE_DUPLICATES,
+				"BLACKLIST=" + (BLACKLIST == null ? "" : CheckpointManifest.describe(BLACKLIST)));
+		return String.join(" ", fingerprint);
+	}
 	private void extractEvidence(ExecutorService threadpool, List<SAMEvidenceSource> samEvidence) throws InterruptedException, ExecutionException {
 		log.info("Extracting evidence.");
 		for (Future<Void> future : threadpool.invokeAll(Lists.transform(samEvidence, new Function<SAMEvidenceSource, Callable<Void>>() {
@@ -50,6 +79,15 @@ public class CallVariants extends FullEvidenceCommandLineProgram {
 						@Override
 						public Void call() throws Exception {
 							try {
+								CheckpointManifest checkpoints = getContext().getCheckpointManifest();
+								File svFile = getContext().getFileSystemContext().getSVBam(input.getFile());
+								String checkpoint = "extract" + samEvidence.indexOf(input);
+								String description = CheckpointManifest.describe(input.getFile());
+								boolean extracted = checkpoints.isComplete(checkpoint, description, svFile);
+								if (!extracted) {
+									// force metrics recalculation since the input may have changed
+									FileHelper.delete(getContext().getFileSystemContext().getIdsvMetrics(input.getFile()), true);
+								}
 								input.ensureMetrics();
 								InsertSizeMetrics ism = input.getMetrics().getInsertSizeMetrics();
 					    		if (ism != null && ism.PAIR_ORIENTATION != PairOrientation.FR) {
@@ -58,6 +96,9 @@ public class CallVariants extends FullEvidenceCommandLineProgram {
 					    			throw new RuntimeException(msg);
 					    		}
 								input.ensureExtracted();
+								if (!extracted) {
+									checkpoints.complete(checkpoint, description, svFile);
+								}
 							} catch (Exception e) {
 								log.error(e, "Fatal exception thrown by worker thread.");
 								if (getContext().getConfig().terminateOnFirstError) {
@@ -75,14 +116,17 @@ public class CallVariants extends FullEvidenceCommandLineProgram {
 		}
 		log.info("Evidence extraction complete.");
 	}
-	private void callVariants(ExecutorService threadpool) throws IOException, InterruptedException, ExecutionException {
+	private void callVariants(ExecutorService threadpool, AssemblyEvidenceSource assemblyEvidence) throws IOException, InterruptedException, ExecutionException {
 		File rawCalls = getContext().getFileSystemContext().getBreakpointVcf(OUTPUT);
 		if (!OUTPUT.exists()) {
-			if (!rawCalls.exists()) {
+			CheckpointManifest checkpoints = getContext().getCheckpointManifest();
+			String description = describeEvidence(getSamEvidenceSources()) + " " + describeEvidence(ImmutableList.of(assemblyEvidence));
+			if (!checkpoints.isComplete("calling", description, rawCalls)) {
 				IdentifyVariants iv = new IdentifyVariants();
 				copyInputs(iv);
 				iv.OUTPUT_VCF = rawCalls;
 				execute(iv, threadpool);
+				checkpoints.complete("calling", description, rawCalls);
 			}
 			AnnotateVariants annVariants = new AnnotateVariants();
 			copyInputs(annVariants);
@@ -119,15 +163,25 @@ public class CallVariants extends FullEvidenceCommandLineProgram {
 					lockFile.delete();
 				}
 			});
+			CheckpointManifest checkpoints = new CheckpointManifest(getContext().getFileSystemContext().getCheckpointManifest(OUTPUT), getCheckpointFingerprint());
+			getContext().setCheckpointManifest(checkpoints);
 	    	extractEvidence(threadpool, getSamEvidenceSources());
 	    	AssemblyEvidenceSource assemblyEvidence = new AssemblyEvidenceSource(getContext(), getSamEvidenceSources(), ASSEMBLY);
-	    	if (!ASSEMBLY.exists()) {
+	    	String evidence = describeEvidence(getSamEvidenceSources());
+	    	if (!checkpoints.isComplete("assembly", evidence, ASSEMBLY)) {
 	    		assemblyEvidence.assembleBreakends(threadpool);
+	    		checkpoints.complete("assembly", evidence, ASSEMBLY);
 	    	}
 	    	// convert breakend assemblies into breakpoint via split read identification
+	    	File assemblySvFile = getContext().getFileSystemContext().getSVBam(ASSEMBLY);
+	    	String assemblyDescription = CheckpointManifest.describe(ASSEMBLY);
+	    	boolean assemblyExtracted = checkpoints.isComplete("assembly.extract", assemblyDescription, assemblySvFile);
 	    	assemblyEvidence.ensureExtracted();
+	    	if (!assemblyExtracted) {
+	    		checkpoints.complete("assembly.extract", assemblyDescription, assemblySvFile);
+	    	}
 	    	// call and annotate variants
-	    	callVariants(threadpool);
+	    	callVariants(threadpool, assemblyEvidence);
 	    	lockFile.delete();
 		} else {
 			log.error("Aborting since lock " + lockFile + " already exists. GRIDSS does not support multiple simultaneous instances running on the same data.");
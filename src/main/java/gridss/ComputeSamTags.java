@@ -1,11 +1,16 @@
 package gridss;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import au.edu.wehi.idsv.FileSystemContext;
@@ -15,6 +20,7 @@ import au.edu.wehi.idsv.sam.SAMRecordUtil;
 import au.edu.wehi.idsv.sam.SamTags;
 import au.edu.wehi.idsv.sam.TemplateTagsIterator;
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
+import au.edu.wehi.idsv.util.AutoClosingIterator;
 import au.edu.wehi.idsv.util.FileHelper;
 import gridss.cmdline.ReferenceCommandLineProgram;
 import htsjdk.samtools.SAMFileHeader;
@@ -59,8 +65,7 @@ public class ComputeSamTags extends ReferenceCommandLineProgram {
 	public boolean FIX_MATE_INFORMATION = true;
 	@Option(doc="Recalculates the supplementary flag based on the SA tag. The supplementary flag should be set on all split read alignments except one.", optional=true)
 	public boolean RECALCULATE_SA_SUPPLEMENTARY = true;
-	@Option(shortName="T", doc="Tags to calculate")
-	public Set<String> TAGS = Sets.newHashSet(
+	public static final Set<String> DEFAULT_TAGS = ImmutableSet.of(
 			SAMTag.NM.name(),
 			SAMTag.SA.name(),
 			SAMTag.Q2.name(),
@@ -68,6 +73,8 @@ public class ComputeSamTags extends ReferenceCommandLineProgram {
 			SAMTag.MC.name(),
 			SAMTag.MQ.name(),
 			SamTags.MULTIMAPPING_FRAGMENT);
+	@Option(shortName="T", doc="Tags to calculate")
+	public Set<String> TAGS = Sets.newHashSet(DEFAULT_TAGS);
 	@Override
 	protected int doWork() {
 		log.debug("Setting language-neutral locale");
@@ -103,16 +110,7 @@ public class ComputeSamTags extends ReferenceCommandLineProgram {
 	}
 	public static void compute(Iterator<SAMRecord> rawit, SAMFileWriter writer, ReferenceLookup reference, Set<String> tags, boolean softenHardClips, boolean fixMates, boolean recalculateSupplementary, String threadprefix) throws IOException {
 		ProgressLogger progress = new ProgressLogger(log);
-		try (CloseableIterator<SAMRecord> aysncit = new AsyncBufferedIterator<SAMRecord>(rawit, threadprefix + "raw")) {
-			Iterator<SAMRecord> it = aysncit;
-			if (tags.contains(SAMTag.NM.name()) || tags.contains(SAMTag.SA.name())) {
-				it = new AsyncBufferedIterator<SAMRecord>(it, threadprefix + "nm");
-				it = new NmTagIterator(it, reference);
-			}
-			if (!Sets.intersection(tags, SAMRecordUtil.TEMPLATE_TAGS).isEmpty() || softenHardClips) {
-				it = new TemplateTagsIterator(it, softenHardClips, fixMates, recalculateSupplementary, tags);
-				it = new AsyncBufferedIterator<SAMRecord>(it, threadprefix + "tags");
-			}
+		try (CloseableIterator<SAMRecord> it = tagIterator(rawit, reference, tags, softenHardClips, fixMates, recalculateSupplementary, threadprefix)) {
 			while (it.hasNext()) {
 				SAMRecord r = it.next();
 				writer.addAlignment(r);
@@ -120,6 +118,30 @@ public class ComputeSamTags extends ReferenceCommandLineProgram {
 			}
 		}
 	}
+	/**
+	 * Computes the given tags for each record. 
+	 * @param rawit records grouped by read name
+	 * @return records with tags populated
+	 */
+	public static CloseableIterator<SAMRecord> tagIterator(Iterator<SAMRecord> rawit, ReferenceLookup reference, Set<String> tags, boolean softenHardClips, boolean fixMates, boolean recalculateSupplementary, String threadprefix) {
+		List<Closeable> toClose = new ArrayList<>();
+		AsyncBufferedIterator<SAMRecord> aysncit = new AsyncBufferedIterator<SAMRecord>(rawit, threadprefix + "raw");
+		toClose.add(aysncit);
+		Iterator<SAMRecord> it = aysncit;
+		if (tags.contains(SAMTag.NM.name()) || tags.contains(SAMTag.SA.name())) {
+			AsyncBufferedIterator<SAMRecord> nmit = new AsyncBufferedIterator<SAMRecord>(it, threadprefix + "nm");
+			toClose.add(nmit);
+			it = new NmTagIterator(nmit, reference);
+		}
+		if (!Sets.intersection(tags, SAMRecordUtil.TEMPLATE_TAGS).isEmpty() || softenHardClips) {
+			it = new TemplateTagsIterator(it, softenHardClips, fixMates, recalculateSupplementary, tags);
+			AsyncBufferedIterator<SAMRecord> tagsit = new AsyncBufferedIterator<SAMRecord>(it, threadprefix + "tags");
+			toClose.add(tagsit);
+			it = tagsit;
+		}
+		// close downstream buffers first so their worker threads stop consuming
+		return new AutoClosingIterator<SAMRecord>(it, Lists.reverse(toClose).toArray(new Closeable[0]));
+	}
 	private boolean isReferenceRequired() {
 		return TAGS.contains(SAMTag.NM.name()) ||
 				TAGS.contains(SAMTag.SA.name()); // SA requires NM
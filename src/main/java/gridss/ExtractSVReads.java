@@ -51,6 +51,15 @@ public class ExtractSVReads extends ProcessStructuralVariantReadsCommandLineProg
     private SamRecordFilter readfilter;
     private SamRecordFilter pairfilter;
     private int count;
+    private SAMFileWriter outputWriter = null;
+    /**
+     * Writes extracted reads to the given writer instead of OUTPUT.
+     * The writer is closed when extraction completes.
+     * @param outputWriter writer to write extracted reads to
+     */
+    public void setOutputWriter(SAMFileWriter outputWriter) {
+    	this.outputWriter = outputWriter;
+    }
     @Override
     protected void setup(SAMFileHeader header, File samFile) {
     	if (METRICS_OUTPUT != null) {
@@ -63,8 +72,13 @@ public class ExtractSVReads extends ProcessStructuralVariantReadsCommandLineProg
     	if (header.getSortOrder() != SortOrder.queryname) {
 			log.info("Not considering multiple read alignments as the input file is not queryname sorted.");
 		}
-    	tmpoutput = FileSystemContext.getWorkingFileFor(OUTPUT, "gridss.tmp.ExtractSVReads.");
-    	writer = writerFactory.makeSAMOrBAMWriter(header, true, tmpoutput);
+    	if (outputWriter != null) {
+    		tmpoutput = null;
+    		writer = outputWriter;
+    	} else {
+    		tmpoutput = FileSystemContext.getWorkingFileFor(OUTPUT, "gridss.tmp.ExtractSVReads.");
+    		writer = writerFactory.makeSAMOrBAMWriter(header, true, tmpoutput);
+    	}
     	
     	IndelReadFilter indelFilter = new IndelReadFilter(INDELS ? MIN_INDEL_SIZE : Integer.MAX_VALUE);
 		ClippedReadFilter softClipFilter = new ClippedReadFilter(CLIPPED ? MIN_CLIP_LENGTH : Integer.MAX_VALUE); 
@@ -194,7 +208,15 @@ public class ExtractSVReads extends ProcessStructuralVariantReadsCommandLineProg
 	}
 	@Override
 	protected void acceptFragment(List<SAMRecord> records, ReferenceLookup lookup) {
-		boolean[] extract = shouldExtract(records, lookup);
+		acceptProcessedFragment(records, processFragment(records, lookup), lookup);
+	}
+	@Override
+	protected Object processFragment(List<SAMRecord> records, ReferenceLookup lookup) {
+		return shouldExtract(records, lookup);
+	}
+	@Override
+	protected void acceptProcessedFragment(List<SAMRecord> records, Object processed, ReferenceLookup lookup) {
+		boolean[] extract = (boolean[])processed;
 		for (int i = 0; i < records.size(); i++) {
 			SAMRecord r = records.get(i);
 			if (extract[i]) {
@@ -209,7 +231,9 @@ public class ExtractSVReads extends ProcessStructuralVariantReadsCommandLineProg
 	protected void finish() {
 		writer.close();
 		try {
-			FileHelper.move(tmpoutput, OUTPUT, true);
+			if (tmpoutput != null) {
+				FileHelper.move(tmpoutput, OUTPUT, true);
+			}
 			log.info(String.format("Extracted %d reads from %s", count, INPUT));
 		} catch (IOException e) {
 			log.error(e);
@@ -56,21 +56,28 @@ public class SoftClipsToSplitReads extends ReferenceCommandLineProgram {
     	aligner = new SequentialExecutionFastqAligner(aligner);
     	return aligner;
     }
+    /**
+     * Creates a split read realigner using the parameters of this program
+     * @param pc processing context
+     */
+    public SplitReadRealigner createRealigner(GenomicProcessingContext pc) {
+    	SplitReadRealigner realigner = new SplitReadRealigner(pc, createAligner());
+    	realigner.setMinSoftClipLength(MIN_CLIP_LENGTH);
+    	realigner.setMinSoftClipQuality(MIN_CLIP_QUAL);
+    	realigner.setProcessSecondaryAlignments(PROCESS_SECONDARY_ALIGNMENTS);
+    	realigner.setWorkerThreads(WORKER_THREADS);
+    	return realigner;
+    }
     @Override
 	protected int doWork() {
 		log.debug("Setting language-neutral locale");
     	java.util.Locale.setDefault(Locale.ROOT);
     	validateParameters();
     	
-    	FastqAligner aligner = createAligner();
     	GenomicProcessingContext pc = new GenomicProcessingContext(getFileSystemContext(), REFERENCE_SEQUENCE, getReference());
     	pc.setCommandLineProgram(this);
     	pc.setFilterDuplicates(IGNORE_DUPLICATES);
-    	SplitReadRealigner realigner = new SplitReadRealigner(pc, aligner);
-    	realigner.setMinSoftClipLength(MIN_CLIP_LENGTH);
-    	realigner.setMinSoftClipQuality(MIN_CLIP_QUAL);
-    	realigner.setProcessSecondaryAlignments(PROCESS_SECONDARY_ALIGNMENTS);
-    	realigner.setWorkerThreads(WORKER_THREADS);
+    	SplitReadRealigner realigner = createRealigner(pc);
     	try {
     		realigner.createSupplementaryAlignments(INPUT, OUTPUT);
 		} catch (IOException e) {
@@ -1,6 +1,8 @@
 package gridss.analysis;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import au.edu.wehi.idsv.picard.ReferenceLookup;
@@ -36,7 +38,11 @@ public class CollectStructuralVariantReadMetrics extends ProcessStructuralVarian
 	private AlignedFilter unmappedFilter;
 	private OneEndAnchoredReadFilter oeaFilter;
 	private ReadPairConcordanceFilter dpFilter;
-	private StructuralVariantReadMetrics metrics;
+	/**
+	 * Metrics of each thread processing fragments
+	 */
+	private List<StructuralVariantReadMetrics> threadMetrics;
+	private ThreadLocal<StructuralVariantReadMetrics> metrics;
 	@Override
 	public void setup(SAMFileHeader header, File samFile) {
 		indelFilter = new IndelReadFilter(MIN_INDEL_SIZE);
@@ -45,10 +51,24 @@ public class CollectStructuralVariantReadMetrics extends ProcessStructuralVarian
 		unmappedFilter = new AlignedFilter(false);
 		oeaFilter = new OneEndAnchoredReadFilter();
 		dpFilter = getReadPairConcordanceCalculator() != null ? new ReadPairConcordanceFilter(getReadPairConcordanceCalculator(), false, true) : null;
-		metrics = new StructuralVariantReadMetrics();
+		threadMetrics = Collections.synchronizedList(new ArrayList<>());
+		metrics = ThreadLocal.withInitial(() -> {
+			StructuralVariantReadMetrics m = new StructuralVariantReadMetrics();
+			threadMetrics.add(m);
+			return m;
+		});
 	}
 	@Override
 	public void acceptFragment(List<SAMRecord> records, ReferenceLookup lookup) {
+		processFragment(records, lookup);
+	}
+	@Override
+	protected void acceptProcessedFragment(List<SAMRecord> records, Object processed, ReferenceLookup lookup) {
+		// metrics have already been counted by processFragment()
+	}
+	@Override
+	public Object processFragment(List<SAMRecord> records, ReferenceLookup lookup) {
+		StructuralVariantReadMetrics metrics = this.metrics.get();
 		boolean hasConsistentReadPair = ExtractSVReads.hasReadPairingConsistentWithReference(getReadPairConcordanceCalculator(), records);
 		boolean[] hasConsistentReadAlignment = ExtractSVReads.hasReadAlignmentConsistentWithReference(records);
 		boolean hasOeaAnchor = false;
@@ -122,6 +142,7 @@ public class CollectStructuralVariantReadMetrics extends ProcessStructuralVarian
 		metrics.SPLIT_READS += countTrues(hasSplitRead, maxSegmentIndex);
 		metrics.UNMAPPED_READS += countTrues(hasUnmapped, maxSegmentIndex);
 		metrics.STRUCTURAL_VARIANT_READS += countTrues(hasSV, maxSegmentIndex);
+		return null;
 	}
 	private int countTrues(boolean[] arr, int maxIndex) {
 		int count = 0;
@@ -135,6 +156,12 @@ public class CollectStructuralVariantReadMetrics extends ProcessStructuralVarian
 	@Override
 	public void finish() {
 		final MetricsFile<StructuralVariantReadMetrics, Integer> metricsFile = getMetricsFile();
+		StructuralVariantReadMetrics metrics = new StructuralVariantReadMetrics();
+		synchronized (threadMetrics) {
+			for (StructuralVariantReadMetrics m : threadMetrics) {
+				metrics.add(m);
+			}
+		}
 		metricsFile.addMetric(metrics);
         metricsFile.write(OUTPUT);
 	}
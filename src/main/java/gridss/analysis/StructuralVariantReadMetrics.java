@@ -50,4 +50,23 @@ public class StructuralVariantReadMetrics extends MultilevelMetrics {
      */
     public long DISCORDANT_READ_PAIR_ALIGNMENTS;
     public long UNMAPPED_MATE_READ_ALIGNMENTS;
+    /**
+     * Adds the counts of the given metrics to these metrics
+     */
+    public void add(StructuralVariantReadMetrics m) {
+    	STRUCTURAL_VARIANT_READS += m.STRUCTURAL_VARIANT_READS;
+    	STRUCTURAL_VARIANT_READ_PAIRS += m.STRUCTURAL_VARIANT_READ_PAIRS;
+    	INDEL_READS += m.INDEL_READS;
+    	SPLIT_READS += m.SPLIT_READS;
+    	SOFT_CLIPPED_READS += m.SOFT_CLIPPED_READS;
+    	UNMAPPED_READS += m.UNMAPPED_READS;
+    	DISCORDANT_READ_PAIRS += m.DISCORDANT_READ_PAIRS;
+    	UNMAPPED_MATE_READS += m.UNMAPPED_MATE_READS;
+    	STRUCTURAL_VARIANT_READ_ALIGNMENTS += m.STRUCTURAL_VARIANT_READ_ALIGNMENTS;
+    	INDEL_READ_ALIGNMENTS += m.INDEL_READ_ALIGNMENTS;
+    	SPLIT_READ_ALIGNMENTS += m.SPLIT_READ_ALIGNMENTS;
+    	SOFT_CLIPPED_READ_ALIGNMENTS += m.SOFT_CLIPPED_READ_ALIGNMENTS;
+    	DISCORDANT_READ_PAIR_ALIGNMENTS += m.DISCORDANT_READ_PAIR_ALIGNMENTS;
+    	UNMAPPED_MATE_READ_ALIGNMENTS += m.UNMAPPED_MATE_READ_ALIGNMENTS;
+    }
 }
@@ -5,12 +5,23 @@ import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import au.edu.wehi.idsv.Defaults;
+import au.edu.wehi.idsv.picard.MemoryMappedReferenceSequenceFile;
 import au.edu.wehi.idsv.picard.ReferenceLookup;
 import au.edu.wehi.idsv.picard.TwoBitBufferedReferenceSequenceFile;
 import au.edu.wehi.idsv.util.AsyncBufferedIterator;
+import au.edu.wehi.idsv.util.ParallelTransformIterator;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMRecord;
@@ -51,6 +62,9 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
     @Option(doc = "Stop after processing N reads, mainly for debugging.")
     public long STOP_AFTER = 0;
 
+    @Option(doc = "Number of worker threads used to process fragments. Output order is unchanged.", optional=true)
+    public int WORKER_THREADS = 1;
+
         /**
      * Final implementation of doWork() that checks and loads the input and optionally reference
      * sequence files and the runs the sublcass through the setup() acceptRead() and finish() steps.
@@ -60,7 +74,7 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
     	log.debug("Setting language-neutral locale");
     	java.util.Locale.setDefault(Locale.ROOT);
         try {
-			makeItSo(INPUT, REFERENCE_SEQUENCE, ASSUME_SORTED, STOP_AFTER, Arrays.asList(this));
+			makeItSo(INPUT, REFERENCE_SEQUENCE, ASSUME_SORTED, STOP_AFTER, WORKER_THREADS, Arrays.asList(this));
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
 		}
@@ -72,6 +86,14 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
                                 final boolean assumeSorted,
                                 final long stopAfter,
                                 final Collection<ByReadNameSinglePassSamProgram> programs) throws FileNotFoundException {
+    	makeItSo(input, referenceSequence, assumeSorted, stopAfter, 1, programs);
+    }
+    public static void makeItSo(final File input,
+                                final File referenceSequence,
+                                final boolean assumeSorted,
+                                final long stopAfter,
+                                final int workerThreads,
+                                final Collection<ByReadNameSinglePassSamProgram> programs) throws FileNotFoundException {
         // Setup the standard inputs
         IOUtil.assertFileIsReadable(input);
         SamReader in = SamReaderFactory.makeDefault().referenceSequence(referenceSequence).open(input);
@@ -81,7 +103,8 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
         	lookup = null;
         } else {
             IOUtil.assertFileIsReadable(referenceSequence);
-            lookup = new TwoBitBufferedReferenceSequenceFile(new IndexedFastaSequenceFile(referenceSequence));
+            ReferenceLookup mapped = Defaults.MEMORY_MAPPED_REFERENCE ? MemoryMappedReferenceSequenceFile.open(referenceSequence) : null;
+            lookup = mapped != null ? mapped : new TwoBitBufferedReferenceSequenceFile(new IndexedFastaSequenceFile(referenceSequence));
 
             if (!in.getFileHeader().getSequenceDictionary().isEmpty()) {
                 SequenceUtil.assertSequenceDictionariesEqual(in.getFileHeader().getSequenceDictionary(),
@@ -107,32 +130,17 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
         final SAMRecordIterator rawit = in.iterator();
         final CloseableIterator<SAMRecord> it = new AsyncBufferedIterator<SAMRecord>(rawit, "ByReadNameSinglePassSamProgram " + input.getName());
         try {
-	        List<SAMRecord> currentRecords = new ArrayList<>();
-	        String currentReadName = null;
-	        while (it.hasNext()) {
-	        	SAMRecord r = it.next();
-	        	String readname = r.getReadName();
-	        	// if read name we have to just treat it as a single read
-	        	if (readname == null || !readname.equals(currentReadName)) {
-	        		if (currentRecords.size() > 0) {
-		        		for (final ByReadNameSinglePassSamProgram program : programs) {
-		        			program.acceptFragment(currentRecords, lookup);
-			            }
-	        		}
-	        		currentRecords.clear();
-	        		currentReadName = readname;
-	        		if (stopAfter > 0 && progress.getCount() >= stopAfter) {
-		                break;
+        	Iterator<List<SAMRecord>> fragmentIt = new FragmentIterator(it, progress, stopAfter);
+        	if (workerThreads <= 1) {
+        		while (fragmentIt.hasNext()) {
+        			List<SAMRecord> fragment = fragmentIt.next();
+        			for (final ByReadNameSinglePassSamProgram program : programs) {
+	        			program.acceptFragment(fragment, lookup);
 		            }
-	        	}
-	        	currentRecords.add(r);
-	        	progress.record(r);
-	        }
-	        if (currentRecords.size() > 0) {
-	        	for (final ByReadNameSinglePassSamProgram program : programs) {
-	    			program.acceptFragment(currentRecords, lookup);
-	            }
-	        }
+        		}
+        	} else {
+        		processInParallel(fragmentIt, lookup, workerThreads, programs);
+        	}
         } finally {
 	        CloserUtil.close(it);
 	        CloserUtil.close(rawit);
@@ -142,6 +150,94 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
             program.finish();
         }
     }
+    /**
+     * Calls processFragment() for batches of fragments on a worker pool, and
+     * acceptProcessedFragment() in input order on the calling thread.
+     */
+    private static void processInParallel(
+    		final Iterator<List<SAMRecord>> fragmentIt,
+    		final ReferenceLookup lookup,
+    		final int workerThreads,
+    		final Collection<ByReadNameSinglePassSamProgram> programs) {
+    	final List<ByReadNameSinglePassSamProgram> programList = new ArrayList<>(programs);
+    	ExecutorService threadpool = Executors.newFixedThreadPool(workerThreads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ByReadNameSinglePassSamProgram-%d").build());
+    	try {
+    		Iterator<FragmentBatch> batchIt = Iterators.transform(Iterators.partition(fragmentIt, FRAGMENT_BATCH_SIZE), FragmentBatch::new);
+    		Iterator<FragmentBatch> processedIt = new ParallelTransformIterator<FragmentBatch, FragmentBatch>(batchIt, batch -> batch.process(programList, lookup), 2 * workerThreads, threadpool);
+    		while (processedIt.hasNext()) {
+    			FragmentBatch batch = processedIt.next();
+    			if (batch.error != null) {
+    				if (batch.error instanceof Error) throw (Error)batch.error;
+    				if (batch.error instanceof RuntimeException) throw (RuntimeException)batch.error;
+    				throw new RuntimeException(batch.error);
+    			}
+    			for (int i = 0; i < batch.fragments.size(); i++) {
+    				for (int j = 0; j < programList.size(); j++) {
+    					programList.get(j).acceptProcessedFragment(batch.fragments.get(i), batch.result[i][j], lookup);
+    				}
+    			}
+    		}
+    	} finally {
+    		threadpool.shutdownNow();
+    	}
+    }
+    /**
+     * Number of fragments dispatched to a worker thread at a time
+     */
+    private static final int FRAGMENT_BATCH_SIZE = 256;
+    private static class FragmentBatch {
+    	private final List<List<SAMRecord>> fragments;
+    	private Object[][] result;
+    	private Throwable error;
+    	public FragmentBatch(List<List<SAMRecord>> fragments) {
+    		this.fragments = fragments;
+    	}
+    	public FragmentBatch process(List<ByReadNameSinglePassSamProgram> programs, ReferenceLookup lookup) {
+    		try {
+    			result = new Object[fragments.size()][programs.size()];
+	    		for (int i = 0; i < fragments.size(); i++) {
+	    			for (int j = 0; j < programs.size(); j++) {
+	    				result[i][j] = programs.get(j).processFragment(fragments.get(i), lookup);
+	    			}
+	    		}
+    		} catch (Throwable t) {
+    			// report on the calling thread
+    			error = t;
+    		}
+    		return this;
+    	}
+    }
+    /**
+     * Groups records with the same read name into fragments
+     */
+    private static class FragmentIterator extends AbstractIterator<List<SAMRecord>> {
+    	private final PeekingIterator<SAMRecord> it;
+    	private final ProgressLogger progress;
+    	private final long stopAfter;
+    	public FragmentIterator(Iterator<SAMRecord> it, ProgressLogger progress, long stopAfter) {
+    		this.it = Iterators.peekingIterator(it);
+    		this.progress = progress;
+    		this.stopAfter = stopAfter;
+    	}
+		@Override
+		protected List<SAMRecord> computeNext() {
+			if (!it.hasNext() || (stopAfter > 0 && progress.getCount() >= stopAfter)) {
+				return endOfData();
+			}
+			List<SAMRecord> currentRecords = new ArrayList<>(2);
+			SAMRecord r = it.next();
+			currentRecords.add(r);
+			progress.record(r);
+			String currentReadName = r.getReadName();
+			// if read name we have to just treat it as a single read
+			while (currentReadName != null && it.hasNext() && currentReadName.equals(it.peek().getReadName())) {
+				r = it.next();
+				currentRecords.add(r);
+				progress.record(r);
+			}
+			return currentRecords;
+		}
+    }
     /** Should be implemented by subclasses to do one-time initialization work. */
     protected abstract void setup(final SAMFileHeader header, final File samFile);
     /**
@@ -149,6 +245,27 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
      * If a reference sequence file was supplied to the program it will be passed as 'ref'. Otherwise 'ref' may be null.
      */
     protected abstract void acceptFragment(final List<SAMRecord> records, ReferenceLookup lookup);
+    /**
+     * Performs the processing of a fragment that does not depend on the order in which fragments are processed.
+     * 
+     * When WORKER_THREADS is greater than 1, this method is called concurrently from multiple
+     * threads and must be thread-safe. Any accumulated state should be held per thread and
+     * merged in finish().
+     * 
+     * @return result passed to acceptProcessedFragment()
+     */
+    protected Object processFragment(final List<SAMRecord> records, ReferenceLookup lookup) {
+    	return null;
+    }
+    /**
+     * Completes the processing of a fragment. Fragments are accepted in input order from a single thread.
+     * 
+     * The default implementation performs all processing in acceptFragment().
+     * @param processed result of processFragment() for this fragment
+     */
+    protected void acceptProcessedFragment(final List<SAMRecord> records, Object processed, ReferenceLookup lookup) {
+    	acceptFragment(records, lookup);
+    }
     /** Should be implemented by subclasses to do one-time finalization work. */
     protected abstract void finish();
     public void copyInput(ProcessStructuralVariantReadsCommandLineProgram to) {
@@ -157,5 +274,6 @@ public abstract class ByReadNameSinglePassSamProgram extends ReferenceCommandLin
     	to.OUTPUT = OUTPUT;
     	to.ASSUME_SORTED = ASSUME_SORTED;
     	to.STOP_AFTER = STOP_AFTER;
+    	to.WORKER_THREADS = WORKER_THREADS;
     }
 }
@@ -3,7 +3,9 @@ package gridss.cmdline;
 import java.io.File;
 import java.io.FileNotFoundException;
 
+import au.edu.wehi.idsv.Defaults;
 import au.edu.wehi.idsv.FileSystemContext;
+import au.edu.wehi.idsv.picard.MemoryMappedReferenceSequenceFile;
 import au.edu.wehi.idsv.picard.ReferenceLookup;
 import au.edu.wehi.idsv.picard.TwoBitBufferedReferenceSequenceFile;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
@@ -14,6 +16,12 @@ import picard.cmdline.Option;
 
 public abstract class ReferenceCommandLineProgram extends CommandLineProgram {
 	private static final Log log = Log.getInstance(ReferenceCommandLineProgram.class);
+	/**
+	 * Program help for JVM system properties affecting how the reference genome is loaded
+	 */
+	public static final String REFERENCE_SYSTEM_PROPERTY_USAGE = " The reference genome is loaded onto the heap by default."
+			+ " Running java with -Dreference.mmap=true instead memory maps a 2bit encoding of the reference"
+			+ " written alongside the reference fasta.";
 	// --- intermediate file parameters ---
     @Option(doc = "Directory to place intermediate results directories. Default location is the same directory"
     		+ " as the associated input or output file.", optional = true)
@@ -24,6 +32,9 @@ public abstract class ReferenceCommandLineProgram extends CommandLineProgram {
 	private ReferenceLookup reference;
 	public ReferenceLookup getReference() {
 		IOUtil.assertFileIsReadable(REFERENCE_SEQUENCE);
+		if (reference == null && Defaults.MEMORY_MAPPED_REFERENCE) {
+			reference = MemoryMappedReferenceSequenceFile.open(REFERENCE_SEQUENCE);
+		}
 		if (reference == null) {
 			try {
 				reference = new TwoBitBufferedReferenceSequenceFile(new IndexedFastaSequenceFile(REFERENCE_SEQUENCE));
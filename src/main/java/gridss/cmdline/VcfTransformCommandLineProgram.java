@@ -6,6 +6,7 @@ import java.util.Iterator;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 
@@ -17,12 +18,21 @@ import au.edu.wehi.idsv.VariantContextDirectedBreakpoint;
 import au.edu.wehi.idsv.VariantContextWindowedSortingIterator;
 import au.edu.wehi.idsv.util.AutoClosingIterator;
 import au.edu.wehi.idsv.util.FileHelper;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.Log;
 import htsjdk.samtools.util.ProgressLogger;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFFileReader;
 import picard.cmdline.Option;
 import picard.cmdline.StandardOptionDefinitions;
@@ -40,6 +50,7 @@ public abstract class VcfTransformCommandLineProgram extends FullEvidenceCommand
     public File INPUT_VCF;
 	@Option(shortName=StandardOptionDefinitions.OUTPUT_SHORT_NAME, doc="VCF structural variation calls.")
     public File OUTPUT_VCF;
+	private final Object vcfIndexLock = new Object();
 	public abstract CloseableIterator<VariantContextDirectedBreakpoint> iterator(CloseableIterator<VariantContextDirectedBreakpoint> calls, ExecutorService threadpool);
 	@Override
 	public int doWork(ExecutorService threadpool) throws IOException, InterruptedException, ExecutionException {
@@ -62,6 +73,84 @@ public abstract class VcfTransformCommandLineProgram extends FullEvidenceCommand
 		bpit = new DirectEvidenceWindowedSortingIterator<>(getContext(), SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource()), bpit);
 		return new AutoClosingIterator<VariantContextDirectedBreakpoint>(bpit, it, vcfReader);
 	}
+	/**
+	 * Gets the breakpoint calls with a VCF position overlapping the given intervals
+	 * @param file VCF. The VCF is indexed if required
+	 * @param intervals sorted, non-overlapping intervals
+	 * @return breakpoint calls ordered by evidence start
+	 */
+	public CloseableIterator<VariantContextDirectedBreakpoint> getBreakpoints(File file, QueryInterval[] intervals) {
+		File idx = getVcfIndex(file);
+		if (idx == null) {
+			throw new IllegalArgumentException(String.format("Unable to index %s", file));
+		}
+		VCFFileReader vcfReader = new VCFFileReader(file, idx, true);
+		SAMSequenceDictionary dict = getContext().getDictionary();
+		Iterator<VariantContext> it = new AbstractIterator<VariantContext>() {
+			private int offset = 0;
+			private CloseableIterator<VariantContext> current = null;
+			@Override
+			protected VariantContext computeNext() {
+				while (current == null || !current.hasNext()) {
+					CloserUtil.close(current);
+					current = null;
+					if (offset >= intervals.length) return endOfData();
+					QueryInterval qi = intervals[offset++];
+					current = vcfReader.query(dict.getSequence(qi.referenceIndex).getSequenceName(), qi.start, qi.end);
+				}
+				return current.next();
+			}
+		};
+		Iterator<IdsvVariantContext> idsvIt = Iterators.transform(it, variant -> IdsvVariantContext.create(getContext(), null, variant));
+		Iterator<VariantContextDirectedBreakpoint> bpit = Iterators.filter(idsvIt, VariantContextDirectedBreakpoint.class);
+		// resort by evidence start
+		bpit = new DirectEvidenceWindowedSortingIterator<>(getContext(), SAMEvidenceSource.maximumWindowSize(getContext(), getSamEvidenceSources(), getAssemblySource()), bpit);
+		return new AutoClosingIterator<VariantContextDirectedBreakpoint>(bpit, vcfReader);
+	}
+	/**
+	 * Ensures that the given VCF has an index, creating one if required.
+	 * @param file VCF file
+	 * @return true if the VCF is indexed, false if an index could not be created
+	 */
+	protected boolean ensureVcfIndexed(File file) {
+		return getVcfIndex(file) != null;
+	}
+	/**
+	 * Gets the index of the given VCF. An up to date index alongside the VCF is used
+	 * if present. Otherwise, the VCF is indexed into the working directory
+	 * so no files are written alongside the input.
+	 * @param file VCF file
+	 * @return index file, null if the VCF could not be indexed
+	 */
+	protected File getVcfIndex(File file) {
+		synchronized (vcfIndexLock) {
+			return getOrCreateVcfIndex(file);
+		}
+	}
+	private File getOrCreateVcfIndex(File file) {
+		for (File idx : new File[] { Tribble.indexFile(file), Tribble.tabixIndexFile(file), getContext().getFileSystemContext().getVcfIndex(file) }) {
+			if (idx.exists() && idx.lastModified() >= file.lastModified()) {
+				return idx;
+			}
+		}
+		File idx = getContext().getFileSystemContext().getVcfIndex(file);
+		File tmp = FileSystemContext.getWorkingFileFor(idx);
+		try {
+			log.info("Indexing " + file);
+			Index index;
+			if (AbstractFeatureReader.hasBlockCompressedExtension(file)) {
+				index = IndexFactory.createTabixIndex(file, new VCFCodec(), TabixFormat.VCF, getContext().getDictionary());
+			} else {
+				index = IndexFactory.createDynamicIndex(file, new VCFCodec());
+			}
+			index.write(tmp);
+			FileHelper.move(tmp, idx, false);
+			return idx;
+		} catch (Exception e) {
+			log.warn(e, "Unable to index ", file);
+			return null;
+		}
+	}
 	public Iterator<IdsvVariantContext> getAllCalls(File file, CloseableIterator<VariantContextDirectedBreakpoint> breakpointCalls) {
 		VCFFileReader vcfReader = new VCFFileReader(file, false);
 		CloseableIterator<VariantContext> it = vcfReader.iterator();
@@ -0,0 +1,108 @@
+package au.edu.wehi.idsv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import htsjdk.samtools.QueryInterval;
+
+public class AdaptiveChunkSchedulerTest extends TestHelper {
+	/**
+	 * Each base costs 1, except for bases in [hotStart, hotEnd] of reference 0 which cost hotCost
+	 */
+	private static AdaptiveChunkScheduler.CostEstimator hotspot(int hotStart, int hotEnd, int hotCost) {
+		return chunks -> chunks.stream().mapToLong(chunk -> {
+			long cost = 0;
+			for (QueryInterval qi : chunk) {
+				cost += qi.end - qi.start + 1;
+				if (qi.referenceIndex == 0) {
+					int overlap = Math.min(qi.end, hotEnd) - Math.max(qi.start, hotStart) + 1;
+					if (overlap > 0) {
+						cost += (long)overlap * (hotCost - 1);
+					}
+				}
+			}
+			return cost;
+		}).toArray();
+	}
+	private static List<QueryInterval[]> chunks() {
+		return ImmutableList.of(
+				new QueryInterval[] { new QueryInterval(0, 1, 1000) },
+				new QueryInterval[] { new QueryInterval(0, 1001, 2000) },
+				new QueryInterval[] { new QueryInterval(0, 2001, 3000), new QueryInterval(1, 1, 500) },
+				new QueryInterval[] { new QueryInterval(1, 501, 1000) },
+				new QueryInterval[] { new QueryInterval(1, 1001, 2000) });
+	}
+	private static void assertPartition(List<QueryInterval[]> expected, List<QueryInterval[]> actual) {
+		int[][] coverage = new int[2][4000];
+		for (QueryInterval[] chunk : expected) {
+			for (QueryInterval qi : chunk) {
+				for (int i = qi.start; i <= qi.end; i++) coverage[qi.referenceIndex][i]++;
+			}
+		}
+		int lastReferenceIndex = -1;
+		int lastPosition = 0;
+		for (QueryInterval[] chunk : actual) {
+			for (QueryInterval qi : chunk) {
+				// genomic order
+				assertTrue(qi.referenceIndex > lastReferenceIndex || (qi.referenceIndex == lastReferenceIndex && qi.start > lastPosition));
+				lastReferenceIndex = qi.referenceIndex;
+				lastPosition = qi.end;
+				for (int i = qi.start; i <= qi.end; i++) coverage[qi.referenceIndex][i]--;
+			}
+		}
+		for (int[] ref : coverage) {
+			for (int c : ref) {
+				assertEquals(0, c);
+			}
+		}
+	}
+	@Test
+	public void should_not_split_uniform_cost_chunks() throws IOException {
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(chunks(), hotspot(0, 0, 1), 4, 100);
+		assertEquals(5, scheduler.getChunks().size());
+		assertPartition(chunks(), scheduler.getChunks());
+	}
+	@Test
+	public void should_order_by_decreasing_cost() throws IOException {
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(chunks(), hotspot(0, 0, 1), 4, 100);
+		assertEquals(ImmutableList.of(2, 0, 1, 4, 3), scheduler.getExecutionOrder());
+		assertEquals(1500, scheduler.getEstimatedCost(2));
+	}
+	@Test
+	public void should_split_expensive_chunks() throws IOException {
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(chunks(), hotspot(1001, 2000, 10), 4, 100);
+		assertTrue(scheduler.getChunks().size() > 5);
+		assertPartition(chunks(), scheduler.getChunks());
+		// split chunks should now be the most expensive
+		long maxCost = 0;
+		for (int i = 0; i < scheduler.getChunks().size(); i++) {
+			maxCost = Math.max(maxCost, scheduler.getEstimatedCost(i));
+		}
+		assertTrue(maxCost < 10000);
+		assertEquals(maxCost, scheduler.getEstimatedCost(scheduler.getExecutionOrder().get(0)));
+	}
+	@Test
+	public void should_not_split_below_minimum_chunk_size() throws IOException {
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(chunks(), hotspot(1001, 2000, 1000), 4, 400);
+		assertPartition(chunks(), scheduler.getChunks());
+		for (QueryInterval[] chunk : scheduler.getChunks()) {
+			int size = 0;
+			for (QueryInterval qi : chunk) size += qi.end - qi.start + 1;
+			assertTrue(size >= 400);
+		}
+		assertEquals(6, scheduler.getChunks().size());
+	}
+	@Test
+	public void should_not_split_if_disabled() throws IOException {
+		AdaptiveChunkScheduler scheduler = new AdaptiveChunkScheduler(chunks(), hotspot(1001, 2000, 10), 0, 100);
+		assertEquals(5, scheduler.getChunks().size());
+		assertEquals(1, (int)scheduler.getExecutionOrder().get(0));
+	}
+}
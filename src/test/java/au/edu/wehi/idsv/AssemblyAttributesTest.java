@@ -1,9 +1,13 @@
 package au.edu.wehi.idsv;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
+
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
@@ -19,7 +23,7 @@ public class AssemblyAttributesTest extends TestHelper {
 		SAMRecord ass1 = AssemblyFactory.createUnanchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), new BreakendSummary(0, FWD, 1, 1, 2), ImmutableList.of(e1, e2), B("GTAC"), new byte[] {1,2,3,4});
 		SAMRecord ass2 = AssemblyFactory.createUnanchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), new BreakendSummary(0, FWD, 1, 1, 2), ImmutableList.of(e2, e1), B("GTAC"), new byte[] {1,2,3,4});
 		
-		assertEquals(ass1.getAttribute(SamTags.EVIDENCEID), ass2.getAttribute(SamTags.EVIDENCEID));
+		assertArrayEquals((int[])ass1.getAttribute(SamTags.EVIDENCE_IDENTIFIER), (int[])ass2.getAttribute(SamTags.EVIDENCE_IDENTIFIER));
 	}
 	@Test
 	public void isPartOfAssembly_should_use_evidenceId() {
@@ -33,4 +37,43 @@ public class AssemblyAttributesTest extends TestHelper {
 		assertTrue(attr.isPartOfAssembly(e2));
 		assertFalse(attr.isPartOfAssembly(e3));
 	}
+	@Test
+	public void should_encode_evidence_identifiers_as_binary_tag() {
+		DirectedEvidence e1 = SCE(FWD, withMapq(10, Read(0, 1, "1M2S")));
+		DirectedEvidence e2 = SCE(FWD, withMapq(20, Read(0, 2, "1M1S")));
+		SAMRecord ass = AssemblyFactory.createUnanchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), new BreakendSummary(0, FWD, 1, 1, 2), ImmutableList.of(e1, e2), B("GTAC"), new byte[] {1,2,3,4});
+		assertEquals(2 * EvidenceIdentifier.INT_WIDTH, ((int[])ass.getAttribute(SamTags.EVIDENCE_IDENTIFIER)).length);
+		Collection<EvidenceIdentifier> ids = new AssemblyAttributes(ass).getEvidenceIdentifiers();
+		assertEquals(2, ids.size());
+		assertTrue(ids.contains(e1.getEvidenceIdentifier()));
+		assertTrue(ids.contains(e2.getEvidenceIdentifier()));
+	}
+	@Test(expected=IllegalStateException.class)
+	public void should_reject_assembly_without_binary_tag() {
+		DirectedEvidence e1 = SCE(FWD, withMapq(10, Read(0, 1, "1M2S")));
+		DirectedEvidence e2 = SCE(FWD, withMapq(20, Read(0, 2, "1M1S")));
+		SAMRecord ass = AssemblyFactory.createUnanchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), new BreakendSummary(0, FWD, 1, 1, 2), ImmutableList.of(e1, e2), B("GTAC"), new byte[] {1,2,3,4});
+		// assembly written before evidence identifiers were introduced
+		ass.setAttribute(SamTags.EVIDENCE_IDENTIFIER, null);
+		ass.setAttribute(SamTags.EVIDENCE_IDENTIFIER_FILTER, null);
+		ass.setAttribute(SamTags.EVIDENCEID, e1.getEvidenceID() + " " + e2.getEvidenceID());
+		new AssemblyAttributes(ass).isPartOfAssembly(e1);
+	}
+	@Test
+	public void should_not_write_evidenceID_strings_when_identifiers_are_written() {
+		DirectedEvidence e1 = SCE(FWD, withMapq(10, Read(0, 1, "1M2S")));
+		SAMRecord ass = AssemblyFactory.createUnanchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), new BreakendSummary(0, FWD, 1, 1, 2), ImmutableList.of(e1), B("GTAC"), new byte[] {1,2,3,4});
+		assertNull(ass.getAttribute(SamTags.EVIDENCEID));
+		assertTrue(AssemblyAttributes.isAssembly(ass));
+	}
+	@Test
+	public void isPartOfAssembly_should_not_decode_identifiers_when_filter_excludes_evidence() {
+		DirectedEvidence e1 = SCE(FWD, withMapq(10, Read(0, 1, "1M2S")));
+		DirectedEvidence e2 = SCE(FWD, withMapq(20, Read(0, 2, "1M1S")));
+		SAMRecord ass = AssemblyFactory.createUnanchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), new BreakendSummary(0, FWD, 1, 1, 2), ImmutableList.of(e1), B("GTAC"), new byte[] {1,2,3,4});
+		assertTrue(ass.getAttribute(SamTags.EVIDENCE_IDENTIFIER_FILTER) instanceof int[]);
+		// corrupt identifier encoding would throw if decoded
+		ass.setAttribute(SamTags.EVIDENCE_IDENTIFIER, new int[] { 1 });
+		assertFalse(new AssemblyAttributes(ass).isPartOfAssembly(e2));
+	}
 }
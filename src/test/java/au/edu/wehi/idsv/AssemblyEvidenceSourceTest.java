@@ -93,6 +93,33 @@ public class AssemblyEvidenceSourceTest extends IntermediateFilesTest {
 		}
 	}
 	@Test
+	public void single_pass_bidirectional_assembly_should_match_per_direction_assembly() throws IOException {
+		createInput(
+				withSequence("AATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGGA", Read(0, 93, "41M58S")),
+				withSequence("AATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGGAT", Read(0, 93, "41M59S")),
+				withSequence("AATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGGA", Read(0, 200, "58S41M")),
+				withSequence("AATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGGAT", Read(0, 200, "59S41M")),
+				withSequence("AATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGGA", Read(1, 95, "41M58S")),
+				withSequence("AATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGGAT", Read(1, 95, "41M59S"))
+				);
+		List<List<SAMRecord>> result = new ArrayList<>();
+		for (boolean singlePass : new boolean[] { false, true }) {
+			ProcessingContext pc = getCommandlineContext();
+			pc.getConfig().getAssembly().minReads = 1;
+			pc.getConfig().getAssembly().singlePassBidirectionalAssembly = singlePass;
+			File out = new File(super.testFolder.getRoot(), "breakend" + singlePass + ".bam");
+			SAMEvidenceSource ses = new SAMEvidenceSource(pc, input, null, 0);
+			AssemblyEvidenceSource aes = new AssemblyEvidenceSource(pc, ImmutableList.of(ses), out);
+			aes.assembleBreakends(null);
+			result.add(getRecords(out));
+		}
+		assertEquals(4, result.get(0).size());
+		assertEquals(result.get(0).size(), result.get(1).size());
+		for (int i = 0; i < result.get(0).size(); i++) {
+			assertEquals(result.get(0).get(i).getSAMString(), result.get(1).get(i).getSAMString());
+		}
+	}
+	@Test
 	public void should_not_write_filtered_assemblies() throws IOException {
 		createInput(
 				OEA(0, 1, "100M", true)
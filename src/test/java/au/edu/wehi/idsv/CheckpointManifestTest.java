@@ -0,0 +1,96 @@
+package au.edu.wehi.idsv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.QueryInterval;
+
+public class CheckpointManifestTest {
+	@Rule
+	public TemporaryFolder testFolder = new TemporaryFolder();
+	private File write(String name, String content) throws IOException {
+		File f = new File(testFolder.getRoot(), name);
+		Files.write(f.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+		return f;
+	}
+	@Test
+	public void should_be_incomplete_until_completed() throws IOException {
+		File manifest = new File(testFolder.getRoot(), "checkpoints");
+		CheckpointManifest cm = new CheckpointManifest(manifest, "fp");
+		File out = new File(testFolder.getRoot(), "out");
+		assertFalse(cm.isComplete("a", "desc", out));
+		write("out", "content");
+		cm.complete("a", "desc", out);
+		assertTrue(cm.isComplete("a", "desc", out));
+		assertTrue(manifest.exists());
+	}
+	@Test
+	public void should_resume_from_existing_manifest() throws IOException {
+		File manifest = new File(testFolder.getRoot(), "checkpoints");
+		File out = write("out", "content");
+		new CheckpointManifest(manifest, "fp").complete("a", "desc", out);
+		assertTrue(new CheckpointManifest(manifest, "fp").isComplete("a", "desc", out));
+		assertTrue(out.exists());
+	}
+	@Test
+	public void should_delete_output_not_written_by_checkpoint() throws IOException {
+		CheckpointManifest cm = new CheckpointManifest(new File(testFolder.getRoot(), "checkpoints"), "fp");
+		File out = write("out", "partial");
+		assertFalse(cm.isComplete("a", "desc", out));
+		assertFalse(out.exists());
+	}
+	@Test
+	public void should_invalidate_all_checkpoints_when_fingerprint_changes() throws IOException {
+		File manifest = new File(testFolder.getRoot(), "checkpoints");
+		File out = write("out", "content");
+		new CheckpointManifest(manifest, "fp").complete("a", "desc", out);
+		assertFalse(new CheckpointManifest(manifest, "changed").isComplete("a", "desc", out));
+		assertFalse(out.exists());
+	}
+	@Test
+	public void should_invalidate_checkpoint_when_description_changes() throws IOException {
+		CheckpointManifest cm = new CheckpointManifest(new File(testFolder.getRoot(), "checkpoints"), "fp");
+		File out = write("out", "content");
+		cm.complete("a", "desc", out);
+		assertFalse(cm.isComplete("a", "other", out));
+		assertFalse(out.exists());
+	}
+	@Test
+	public void should_invalidate_checkpoint_when_output_changes() throws IOException {
+		CheckpointManifest cm = new CheckpointManifest(new File(testFolder.getRoot(), "checkpoints"), "fp");
+		File out = write("out", "content");
+		cm.complete("a", "desc", out);
+		write("out", "truncated");
+		assertFalse(cm.isComplete("a", "desc", out));
+	}
+	@Test
+	public void untracked_should_use_existing_files() throws IOException {
+		File out = new File(testFolder.getRoot(), "out");
+		assertFalse(CheckpointManifest.UNTRACKED.isComplete("a", "desc", out));
+		write("out", "content");
+		CheckpointManifest.UNTRACKED.complete("a", "desc", out);
+		assertTrue(CheckpointManifest.UNTRACKED.isComplete("a", "other", out));
+	}
+	@Test
+	public void describe_should_include_file_size() throws IOException {
+		File f = write("in", "content");
+		String before = CheckpointManifest.describe(f);
+		write("in", "longer content");
+		assertNotEquals(before, CheckpointManifest.describe(f));
+	}
+	@Test
+	public void describe_should_include_chunk_intervals() {
+		assertEquals("0:1-100,1:5-10", CheckpointManifest.describe(new QueryInterval[] { new QueryInterval(0, 1, 100), new QueryInterval(1, 5, 10) }));
+	}
+}
@@ -0,0 +1,48 @@
+package au.edu.wehi.idsv;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class EvidenceIdentifierBloomFilterTest {
+	@Test
+	public void should_contain_all_added_identifiers() {
+		List<EvidenceIdentifier> ids = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			ids.add(EvidenceIdentifier.of("read" + i));
+		}
+		EvidenceIdentifierBloomFilter filter = EvidenceIdentifierBloomFilter.create(ids);
+		for (EvidenceIdentifier id : ids) {
+			assertTrue(filter.mightContain(id));
+		}
+	}
+	@Test
+	public void should_have_low_false_positive_rate() {
+		List<EvidenceIdentifier> ids = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			ids.add(EvidenceIdentifier.of("read" + i));
+		}
+		EvidenceIdentifierBloomFilter filter = EvidenceIdentifierBloomFilter.create(ids);
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (filter.mightContain(EvidenceIdentifier.of("other" + i))) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 300);
+	}
+	@Test
+	public void should_round_trip_encoding() {
+		EvidenceIdentifier a = EvidenceIdentifier.of("a");
+		EvidenceIdentifier b = EvidenceIdentifier.of("b");
+		EvidenceIdentifierBloomFilter filter = EvidenceIdentifierBloomFilter.decode(EvidenceIdentifierBloomFilter.create(ImmutableList.of(a)).encode().clone());
+		assertTrue(filter.mightContain(a));
+		assertFalse(filter.mightContain(b));
+	}
+}
@@ -0,0 +1,64 @@
+package au.edu.wehi.idsv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class EvidenceIdentifierSetTest {
+	@Test
+	public void should_add_and_remove() {
+		EvidenceIdentifierSet set = new EvidenceIdentifierSet();
+		EvidenceIdentifier id = EvidenceIdentifier.of("a");
+		assertFalse(set.contains(id));
+		assertTrue(set.add(id));
+		assertFalse(set.add(id));
+		assertTrue(set.contains(new EvidenceIdentifier(id.high, id.low)));
+		assertEquals(1, set.size());
+		assertTrue(set.remove(id));
+		assertFalse(set.remove(id));
+		assertFalse(set.contains(id));
+		assertTrue(set.isEmpty());
+	}
+	@Test
+	public void should_handle_zero_identifier() {
+		EvidenceIdentifierSet set = new EvidenceIdentifierSet();
+		EvidenceIdentifier zero = new EvidenceIdentifier(0, 0);
+		assertFalse(set.contains(zero));
+		assertTrue(set.add(zero));
+		assertTrue(set.contains(zero));
+		assertEquals(1, set.size());
+		assertTrue(set.remove(zero));
+		assertFalse(set.contains(zero));
+	}
+	@Test
+	public void should_match_hash_set() {
+		Random rng = new Random(0);
+		EvidenceIdentifierSet set = new EvidenceIdentifierSet();
+		Set<EvidenceIdentifier> expected = new HashSet<>();
+		List<EvidenceIdentifier> pool = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			// low entropy identifiers to force collisions
+			pool.add(new EvidenceIdentifier(rng.nextInt(64), rng.nextInt(64)));
+		}
+		for (int i = 0; i < 100000; i++) {
+			EvidenceIdentifier id = pool.get(rng.nextInt(pool.size()));
+			if (rng.nextBoolean()) {
+				assertEquals(expected.add(id), set.add(id));
+			} else {
+				assertEquals(expected.remove(id), set.remove(id));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		for (EvidenceIdentifier id : pool) {
+			assertEquals(expected.contains(id), set.contains(id));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package au.edu.wehi.idsv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import au.edu.wehi.idsv.GreedyAllocationCache.Hash96bit;
+
+public class EvidenceIdentifierTest extends TestHelper {
+	@Test
+	public void should_be_stable_for_evidenceID() {
+		assertEquals(EvidenceIdentifier.of("read#1#sc+"), EvidenceIdentifier.of("read#1#sc+"));
+		assertNotEquals(EvidenceIdentifier.of("read#1#sc+"), EvidenceIdentifier.of("read#1#sc-"));
+	}
+	@Test
+	public void should_round_trip_encoding() {
+		EvidenceIdentifier[] ids = new EvidenceIdentifier[] {
+				EvidenceIdentifier.of("a"),
+				new EvidenceIdentifier(-1, Long.MIN_VALUE),
+				new EvidenceIdentifier(0, 0),
+				new EvidenceIdentifier(0x00000001FFFFFFFFL, 0xFFFFFFFF00000001L),
+		};
+		assertArrayEquals(ids, EvidenceIdentifier.decode(EvidenceIdentifier.encode(ids)));
+	}
+	@Test
+	public void should_match_evidenceID_hash() {
+		DirectedEvidence e = SCE(FWD, Read(0, 1, "1M2S"));
+		assertEquals(new Hash96bit(e.getEvidenceID()), new Hash96bit(e.getEvidenceIdentifier()));
+	}
+	@Test
+	public void should_cache_identifier() {
+		DirectedEvidence e = NRRP(DP(0, 1, "1M", true, 1, 10, "1M", false));
+		assertTrue(e.getEvidenceIdentifier() == e.getEvidenceIdentifier());
+		e = SCE(FWD, Read(0, 1, "1M2S"));
+		assertTrue(e.getEvidenceIdentifier() == e.getEvidenceIdentifier());
+	}
+	@Test
+	public void compareTo_should_order_by_high_then_low() {
+		assertTrue(new EvidenceIdentifier(1, 5).compareTo(new EvidenceIdentifier(2, 0)) < 0);
+		assertTrue(new EvidenceIdentifier(1, 5).compareTo(new EvidenceIdentifier(1, 4)) > 0);
+		assertEquals(0, new EvidenceIdentifier(1, 5).compareTo(new EvidenceIdentifier(1, 5)));
+	}
+}
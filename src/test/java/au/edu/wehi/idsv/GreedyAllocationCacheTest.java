@@ -1,13 +1,20 @@
 package au.edu.wehi.idsv;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
+import au.edu.wehi.idsv.GreedyAllocationCache.AlignmentScoreNode;
 import au.edu.wehi.idsv.GreedyAllocationCache.EventAlignmentScoreNode;
 import au.edu.wehi.idsv.GreedyAllocationCache.Hash96bit;
+import au.edu.wehi.idsv.GreedyAllocationCache.OffHeapLookup;
 import htsjdk.samtools.util.Log;
 
 public class GreedyAllocationCacheTest {
@@ -37,4 +44,79 @@ public class GreedyAllocationCacheTest {
 			}
 		}
 	}
+	@Test
+	public void off_heap_lookup_should_get_put_values() throws IOException {
+		try (OffHeapLookup<EventAlignmentScoreNode> lookup = new OffHeapLookup<>(EventAlignmentScoreNode.class, 16)) {
+			assertNull(lookup.get(new Hash96bit(1, 2)));
+			assertNull(lookup.put(new Hash96bit(1, 2), new EventAlignmentScoreNode(new Hash96bit(3, 4), 5, new Hash96bit(6, 7))));
+			EventAlignmentScoreNode node = lookup.get(new Hash96bit(1, 2));
+			assertEquals(new Hash96bit(3, 4), node.getEvent());
+			assertEquals(5, node.getScore(), 0);
+			assertEquals(new Hash96bit(6, 7), node.getAlignment());
+			EventAlignmentScoreNode previous = lookup.put(new Hash96bit(1, 2), new EventAlignmentScoreNode(new Hash96bit(8, 9), 1, new Hash96bit(10, 11)));
+			assertEquals(new Hash96bit(3, 4), previous.getEvent());
+			assertEquals(new Hash96bit(8, 9), lookup.get(new Hash96bit(1, 2)).getEvent());
+			assertNull(lookup.get(new Hash96bit(2, 1)));
+		}
+	}
+	@Test
+	public void off_heap_lookup_should_keep_highest_score() throws IOException {
+		try (OffHeapLookup<AlignmentScoreNode> lookup = new OffHeapLookup<>(AlignmentScoreNode.class, 16)) {
+			Hash96bit key = new Hash96bit(1, 2);
+			GreedyAllocationCache.putIfHigherScore(lookup, key, new AlignmentScoreNode(2, new Hash96bit(0, 2)));
+			GreedyAllocationCache.putIfHigherScore(lookup, key, new AlignmentScoreNode(3, new Hash96bit(0, 3)));
+			GreedyAllocationCache.putIfHigherScore(lookup, key, new AlignmentScoreNode(1, new Hash96bit(0, 1)));
+			assertEquals(new Hash96bit(0, 3), lookup.get(key).getAlignment());
+			assertEquals(1, lookup.size());
+		}
+	}
+	@Test
+	public void off_heap_lookup_should_keep_highest_score_under_concurrent_updates() throws Exception {
+		int keys = 1000;
+		try (OffHeapLookup<AlignmentScoreNode> lookup = new OffHeapLookup<>(AlignmentScoreNode.class, keys)) {
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				final int seed = t;
+				threads.add(new Thread(() -> {
+					Random rnd = new Random(seed);
+					for (int i = 0; i < 100000; i++) {
+						int key = rnd.nextInt(keys);
+						int score = rnd.nextInt(1000);
+						GreedyAllocationCache.putIfHigherScore(lookup, new Hash96bit(key, key), new AlignmentScoreNode(score, new Hash96bit(key, score)));
+					}
+				}));
+			}
+			for (Thread t : threads) t.start();
+			for (Thread t : threads) t.join();
+			for (int t = 0; t < 4; t++) {
+				GreedyAllocationCache.putIfHigherScore(lookup, new Hash96bit(t, t), new AlignmentScoreNode(1000, new Hash96bit(t, 1000)));
+			}
+			assertEquals(keys, lookup.size());
+			for (int key = 0; key < keys; key++) {
+				AlignmentScoreNode node = lookup.get(new Hash96bit(key, key));
+				// alignment encodes the score so the value must be internally consistent
+				assertEquals(new Hash96bit(key, (int)node.getScore()), node.getAlignment());
+			}
+			for (int t = 0; t < 4; t++) {
+				assertEquals(1000, lookup.get(new Hash96bit(t, t)).getScore(), 0);
+			}
+		}
+	}
+	@Test
+	public void off_heap_lookup_should_store_more_than_expected_entries() throws IOException {
+		int keys = 10000;
+		try (OffHeapLookup<AlignmentScoreNode> lookup = new OffHeapLookup<>(AlignmentScoreNode.class, 16)) {
+			for (int key = 0; key < keys; key++) {
+				GreedyAllocationCache.putIfHigherScore(lookup, new Hash96bit(key, key), new AlignmentScoreNode(key, new Hash96bit(key, key)));
+			}
+			for (int key = 0; key < keys; key++) {
+				GreedyAllocationCache.putIfHigherScore(lookup, new Hash96bit(key, key), new AlignmentScoreNode(key + 1, new Hash96bit(key, key + 1)));
+			}
+			assertEquals(keys, lookup.size());
+			for (int key = 0; key < keys; key++) {
+				assertEquals(new Hash96bit(key, key + 1), lookup.get(new Hash96bit(key, key)).getAlignment());
+			}
+			assertNull(lookup.get(new Hash96bit(keys, keys)));
+		}
+	}
 }
@@ -10,18 +10,22 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 
 import au.edu.wehi.idsv.alignment.StubFastqAligner;
 import au.edu.wehi.idsv.bed.IntervalBed;
 import au.edu.wehi.idsv.picard.SynchronousReferenceLookupAdapter;
 import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 
@@ -66,6 +70,27 @@ public class SAMEvidenceSourceTest extends IntermediateFilesTest {
 		assertEquals(600-400+100, source.getMaxConcordantFragmentSize());
 	}
 	@Test
+	public void estimateProcessingCost_should_be_based_on_indexed_bam_size() throws IOException {
+		List<SAMRecord> reads = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			reads.add(Read(0, 1000 + i % 100, "50M50S"));
+		}
+		for (int i = 0; i < 10; i++) {
+			reads.add(Read(1, 1000 + i, "50M50S"));
+		}
+		createInput(reads);
+		SAMEvidenceSource source = new SAMEvidenceSource(getCommandlineContext(), input, null, 0);
+		long[] cost = source.estimateProcessingCost(Lists.newArrayList(
+				new QueryInterval[] { new QueryInterval(0, 1, 2000) },
+				new QueryInterval[] { new QueryInterval(1, 1, 2000) },
+				new QueryInterval[] { new QueryInterval(2, 1, 2000) }));
+		assertTrue(cost[0] > cost[1]);
+		assertTrue(cost[1] > 0);
+		assertEquals(0, cost[2]);
+		// costs are in compressed bytes
+		assertTrue(cost[0] + cost[1] <= input.length());
+	}
+	@Test
 	public void iterator_should_return_all_evidence() {
 		createInput(new SAMRecord[] { Read(1, 1, "50M50S") },
 				RP(0, 100, 200, 100),
@@ -101,6 +126,132 @@ public class SAMEvidenceSourceTest extends IntermediateFilesTest {
 			e.getBreakendSummary().overlaps(new BreakendSummary(1, BWD, 20, 20, 30))));
 	}
 	@Test
+	public void evidence_cache_should_match_sv_bam_evidence() throws IOException {
+		List<SAMRecord> in = new ArrayList<>();
+		for (int i = 1; i < 100; i++) {
+			in.add(Read(1, i, "5S5M"));
+			in.add(Read(1, i, "5M2I5M"));
+			in.add(Read(1, i, "5M5S"));
+			Collections.addAll(in, RP(1, i, i + 10, 5));
+			Collections.addAll(in, OEA(1, i, "5M", true));
+			Collections.addAll(in, DP(1, i, "5M", true, 0, 1, "5M", false));
+		}
+		createInput(in);
+		ProcessingContext pc = getCommandlineContext();
+		SAMEvidenceSource source = new SAMEvidenceSource(pc, input, null, 0);
+		source.ensureExtracted();
+		QueryInterval[] qi = new QueryInterval[] { new QueryInterval(1, 20, 30), new QueryInterval(1, 50, 50) };
+		List<String> expectedAll = Lists.newArrayList(Iterators.transform(source.iterator(), e -> e.getEvidenceID()));
+		List<String> expectedQuery = Lists.newArrayList(Iterators.transform(source.iterator(qi), e -> e.getEvidenceID()));
+		pc.getConfig().evidenceCache = true;
+		source.ensureExtracted();
+		assertTrue(pc.getFileSystemContext().getEvidenceCache(input).exists());
+		List<String> all = Lists.newArrayList(Iterators.transform(source.iterator(), e -> e.getEvidenceID()));
+		List<String> query = Lists.newArrayList(Iterators.transform(source.iterator(qi), e -> e.getEvidenceID()));
+		assertEquals(expectedAll, all);
+		assertTrue(expectedQuery.size() > 0);
+		assertEquals(expectedQuery, query);
+	}
+	@Test
+	public void evidence_cache_should_not_remove_sv_bam_index() throws IOException {
+		createInput(Read(1, 1, "5S5M"), Read(1, 2, "5S5M"));
+		ProcessingContext pc = getCommandlineContext();
+		File svFile = pc.getFileSystemContext().getSVBam(input);
+		File svIndex = new File(svFile.getParentFile(), Files.getNameWithoutExtension(svFile.getName()) + ".bai");
+		SAMEvidenceSource source = new SAMEvidenceSource(pc, input, null, 0);
+		source.ensureExtracted();
+		assertTrue(svIndex.exists());
+		pc.getConfig().evidenceCache = true;
+		source.ensureExtracted();
+		BinaryEvidenceFile cache = new BinaryEvidenceFile(source, pc.getFileSystemContext().getEvidenceCache(input), 0);
+		assertTrue(cache.exists());
+		assertTrue(svIndex.exists());
+		cache.delete();
+		assertFalse(cache.getFile().exists());
+		assertFalse(cache.getIndexFile().exists());
+		assertTrue(svIndex.exists());
+	}
+	@Test
+	public void low_breakpoint_iterator_should_return_only_low_breakpoint_evidence() throws IOException {
+		List<SAMRecord> in = new ArrayList<>();
+		for (int i = 1; i < 100; i++) {
+			in.add(Read(1, i, "5S5M"));
+			in.add(Read(1, i, "5M2I5M"));
+			in.add(Read(1, i, "5M5D5M"));
+			SAMRecord splitToLower = Read(1, i, "5M5S");
+			splitToLower.setAttribute("SA", "polyA,100,+,5S5M,0,0");
+			in.add(splitToLower);
+			SAMRecord splitToHigher = Read(0, i, "5M5S");
+			splitToHigher.setAttribute("SA", "polyACGT,100,+,5S5M,0,0");
+			in.add(splitToHigher);
+			SAMRecord splitNearby = Read(1, i, "5M5S");
+			splitNearby.setAttribute("SA", String.format("polyACGT,%d,+,5S5M,0,0", i + 2));
+			in.add(splitNearby);
+			Collections.addAll(in, RP(1, i, i + 10, 5));
+			Collections.addAll(in, OEA(1, i, "5M", true));
+			Collections.addAll(in, DP(1, i, "5M", true, 0, 1, "5M", false));
+			Collections.addAll(in, DP(1, i, "5M", true, 1, i + 20, "5M", true));
+		}
+		createInput(in);
+		ProcessingContext pc = getCommandlineContext();
+		SAMEvidenceSource source = new SAMEvidenceSource(pc, input, null, 0);
+		source.ensureExtracted();
+		QueryInterval[] qi = new QueryInterval[] { new QueryInterval(0, 1, 200), new QueryInterval(1, 20, 60) };
+		List<DirectedEvidence> full = Lists.newArrayList(source.iterator(qi));
+		List<String> expected = full.stream()
+				.filter(e -> SAMEvidenceSource.isLowBreakpoint(pc.getLinear(), e))
+				.map(e -> e.getEvidenceID())
+				.collect(Collectors.toList());
+		List<String> result = Lists.newArrayList(Iterators.transform(source.iterator(qi, true), e -> e.getEvidenceID()));
+		assertTrue(expected.size() > 0);
+		assertTrue(expected.size() < full.size());
+		assertEquals(expected, result);
+		
+		pc.getConfig().evidenceCache = true;
+		source.ensureExtracted();
+		List<String> cached = Lists.newArrayList(Iterators.transform(source.iterator(qi, true), e -> e.getEvidenceID()));
+		assertEquals(expected, cached);
+	}
+	@Test
+	public void streaming_extraction_should_match_checkpointed_extraction() throws IOException {
+		List<SAMRecord> in = new ArrayList<>();
+		for (int i = 1; i < 100; i++) {
+			in.add(Read(1, i, "5S5M"));
+			in.add(Read(1, i, "5M2I5M"));
+			in.add(Read(1, i, "5M5S"));
+			in.add(Read(1, i, "10M"));
+			Collections.addAll(in, RP(1, i, i + 10, 5));
+			Collections.addAll(in, OEA(1, i, "5M", true));
+			Collections.addAll(in, DP(1, i, "5M", true, 0, 1, "5M", false));
+		}
+		createInput(in);
+		ProcessingContext pc = getCommandlineContext();
+		File svFile = pc.getFileSystemContext().getSVBam(input);
+		pc.getConfig().extractionCheckpoints = true;
+		new SAMEvidenceSource(pc, input, null, 0).ensureExtracted();
+		List<String> expected = getRecords(svFile).stream().map(r -> r.getSAMString()).collect(Collectors.toList());
+		svFile.delete();
+		pc.getConfig().extractionCheckpoints = false;
+		new SAMEvidenceSource(pc, input, null, 0).ensureExtracted();
+		List<String> result = getRecords(svFile).stream().map(r -> r.getSAMString()).collect(Collectors.toList());
+		assertTrue(result.size() > 0);
+		assertEquals(Sets.newHashSet(expected), Sets.newHashSet(result));
+		assertEquals(expected.size(), result.size());
+	}
+	@Test
+	public void should_not_resume_from_untracked_intermediate() throws IOException {
+		createInput(Read(1, 1, "5S5M"), Read(1, 2, "5S5M"));
+		ProcessingContext pc = getCommandlineContext();
+		pc.getConfig().extractionCheckpoints = true;
+		pc.setCheckpointManifest(new CheckpointManifest(new File(testFolder.getRoot(), "checkpoints"), "test"));
+		File svFile = pc.getFileSystemContext().getSVBam(input);
+		File stale = FileSystemContext.getWorkingFileFor(svFile, "gridss.tmp.splitreads.");
+		// intermediate left over from an interrupted run
+		createBAM(stale, SortOrder.coordinate, Read(1, 1, "5S5M"));
+		new SAMEvidenceSource(pc, input, null, 0).ensureExtracted();
+		assertEquals(2, getRecords(svFile).size());
+	}
+	@Test
 	public void should_set_evidence_source_to_self() {
 		createInput(Read(0, 1, "50M50S"));
 		SAMEvidenceSource source = new SAMEvidenceSource(getCommandlineContext(), input, null, 0);
@@ -406,7 +557,7 @@ public class SAMEvidenceSourceTest extends IntermediateFilesTest {
 	public void blacklisted_alignment_should_be_unmapped() {
 		ProcessingContext pc = getContext();
 		MockSAMEvidenceSource ses = SES(pc);
-		IntervalBed blacklist = new IntervalBed(pc.getDictionary(), pc.getLinear());
+		IntervalBed blacklist = new IntervalBed(pc.getDictionary());
 		blacklist.addInterval(0, 10, 12);
 		ses.setBlacklistedRegions(blacklist);
 		assertFalse(ses.transform(Read(1, 10, "1M")).getReadUnmappedFlag());
@@ -420,7 +571,7 @@ public class SAMEvidenceSourceTest extends IntermediateFilesTest {
 	public void blacklist_mate_should_be_treated_as_unmapped() {
 		ProcessingContext pc = getContext();
 		MockSAMEvidenceSource ses = SES(pc);
-		IntervalBed blacklist = new IntervalBed(pc.getDictionary(), pc.getLinear());
+		IntervalBed blacklist = new IntervalBed(pc.getDictionary());
 		blacklist.addInterval(0, 10, 12);
 		ses.setBlacklistedRegions(blacklist);
 		assertFalse(ses.transform(DP(0, 1, "1M", true, 1, 10, "1M", false)[0]).getMateUnmappedFlag());
@@ -434,7 +585,7 @@ public class SAMEvidenceSourceTest extends IntermediateFilesTest {
 	public void blacklist_chimeric_alignment_should_be_treated_as_unmapped() {
 		ProcessingContext pc = getContext();
 		MockSAMEvidenceSource ses = SES(pc);
-		IntervalBed blacklist = new IntervalBed(pc.getDictionary(), pc.getLinear());
+		IntervalBed blacklist = new IntervalBed(pc.getDictionary());
 		blacklist.addInterval(0, 10, 12);
 		ses.setBlacklistedRegions(blacklist);
 		SAMRecord read = Read(0, 1, "1M1S");
@@ -445,7 +596,7 @@ public class SAMEvidenceSourceTest extends IntermediateFilesTest {
 	public void should_filter_breakpoints_touching_blacklist() {
 		ProcessingContext pc = getContext();
 		MockSAMEvidenceSource ses = SES(pc);
-		IntervalBed blacklist = new IntervalBed(pc.getDictionary(), pc.getLinear());
+		IntervalBed blacklist = new IntervalBed(pc.getDictionary());
 		blacklist.addInterval(0, 10, 12);
 		ses.setBlacklistedRegions(blacklist);
 		assertTrue(ses.shouldFilter(NRRP(ses, DP(0, 1, "1M", true, 1, 100, "1M", false))));
@@ -179,25 +179,24 @@ public class SAMRecordAssemblyEvidenceTest extends TestHelper {
 		assertEquals(1, e.getAssemblySupportCountReadPair());
 	}
 	@Test
-	public void getEvidenceIDs_should_return_underlying_evidence() {
+	public void getEvidenceIdentifiers_should_return_underlying_evidence() {
 		DirectedEvidence e1 = SCE(BWD, Read(0, 1, "5S5M"));
 		DirectedEvidence e2 = SCE(BWD, Read(0, 1, "6S5M"));
 		DirectedEvidence e3 = NRRP(OEA(0, 1, "1M", false));
 		SAMRecord e = AssemblyFactory.createAnchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), FWD, Lists.newArrayList(e1, e2, e3),
 			1, 2, 1, B("GTAC"), new byte[] {1,2,3,4});
-		//Collection<String> ids = e.getEvidenceIDs();
-		Collection<String> eid = new AssemblyAttributes(e).getEvidenceIDs();
+		Collection<EvidenceIdentifier> eid = new AssemblyAttributes(e).getEvidenceIdentifiers();
 		assertEquals(3, eid.size());
-		assertTrue(eid.contains(e1.getEvidenceID()));
-		assertTrue(eid.contains(e2.getEvidenceID()));
-		assertTrue(eid.contains(e3.getEvidenceID()));
+		assertTrue(eid.contains(e1.getEvidenceIdentifier()));
+		assertTrue(eid.contains(e2.getEvidenceIdentifier()));
+		assertTrue(eid.contains(e3.getEvidenceIdentifier()));
 	}
 	@Test
-	public void getEvidenceIDs_should_return_empty_collection_for_no_evidence() {
+	public void getEvidenceIdentifiers_should_return_empty_collection_for_no_evidence() {
 		SAMRecord e = AssemblyFactory.createAnchoredBreakend(getContext(), AES(), new SequentialIdGenerator("asm"), FWD, Lists.newArrayList(),
 			1, 2, 1, B("GTAC"), new byte[] {1,2,3,4});
-		//Collection<String> ids = e.getEvidenceIDs();
-		assertEquals(0, new AssemblyAttributes(e).getEvidenceIDs().size());
+		assertTrue(AssemblyAttributes.isAssembly(e));
+		assertEquals(0, new AssemblyAttributes(e).getEvidenceIdentifiers().size());
 	}
 	@Rule
     public TemporaryFolder testFolder = new TemporaryFolder();
@@ -114,4 +114,30 @@ public class SequentialCoverageAnnotatorTest extends TestHelper {
 				.make());
 		assertEquals(2, result.getAttribute("REF"));
 	}
+	@Test
+	public void batched_annotation_should_match_individual_annotation() {
+		List<SAMRecord> ref = new ArrayList<>();
+		for (int i = 1; i < 300; i += 3) {
+			ref.add(Read(0, i, "20M"));
+			ref.addAll(Lists.newArrayList(RP(0, i, i + 50, 10)));
+		}
+		Collections.sort(ref, new SAMRecordCoordinateComparator());
+		List<VariantContextDirectedEvidence> variants = new ArrayList<>();
+		for (int i = 20; i < 300; i += 1) {
+			variants.add((VariantContextDirectedEvidence)minimalBreakend()
+					.breakpoint(new BreakpointSummary(0, i % 2 == 0 ? FWD : BWD, i, i, i + i % 7, 1, BWD, 100, 100, 100), "")
+					.make());
+		}
+		List<VariantContextDirectedEvidence> batched = Lists.newArrayList(new SequentialCoverageAnnotator<VariantContextDirectedEvidence>(
+				getContext(),
+				variants.iterator(),
+				Lists.<ReferenceCoverageLookup>newArrayList(new SequentialReferenceCoverageLookup(ref.iterator(), IDSV(ref), new SAMFlagReadPairConcordanceCalculator(IDSV(ref)), 1024, 0)),
+				MoreExecutors.newDirectExecutorService()));
+		assertEquals(variants.size(), batched.size());
+		for (int i = 0; i < variants.size(); i++) {
+			VariantContextDirectedEvidence individual = go(new ArrayList<>(ref), variants.get(i));
+			assertEquals(individual.getReferenceReadCount(), batched.get(i).getReferenceReadCount());
+			assertEquals(individual.getReferenceReadPairCount(), batched.get(i).getReferenceReadPairCount());
+		}
+	}
 }
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -16,7 +17,11 @@ import com.google.common.collect.Ordering;
 import au.edu.wehi.idsv.alignment.AlignerFactory;
 import au.edu.wehi.idsv.alignment.SmithWatermanFastqAligner;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.fastq.FastqRecord;
 
 public class SplitReadRealignerTest extends IntermediateFilesTest {
@@ -95,6 +100,27 @@ public class SplitReadRealignerTest extends IntermediateFilesTest {
 		assertEquals(3, result.size());
 	}
 	@Test
+	public void streaming_should_match_file_output() throws IOException {
+		SAMRecord r = Read(2, 1, "50S50M");
+		r.setReadBases(B(S(RANDOM).substring(125, 150) + S(RANDOM).substring(75, 100) + S(RANDOM).substring(0, 50)));
+		r.setReadName("r");
+		SAMRecord unsplit = Read(0, 1, "50M");
+		unsplit.setReadName("unsplit");
+		createBAM(input, SortOrder.coordinate, r, unsplit);
+		new SplitReadRealigner(getContext(), aligner).createSupplementaryAlignments(input, output);
+		List<String> expected = getRecords(output).stream().map(x -> x.getSAMString()).collect(Collectors.toList());
+		
+		File streamed = testFolder.newFile("streamed.sam");
+		try (SamReader reader = SamReaderFactory.make().open(input)) {
+			try (SAMFileWriter writer = new SAMFileWriterFactory().makeSAMOrBAMWriter(reader.getFileHeader(), false, streamed)) {
+				new SplitReadRealigner(getCommandlineContext(), aligner).createSupplementaryAlignments(reader.iterator(), reader.getFileHeader(), streamed, writer);
+			}
+		}
+		List<String> result = getRecords(streamed).stream().map(x -> x.getSAMString()).collect(Collectors.toList());
+		assertEquals(4, result.size());
+		assertEquals(expected, result);
+	}
+	@Test
 	public void fastq_keys_should_be_unique() throws IOException {
 		createBAM(input, SortOrder.coordinate, Read(0, 1, "1S1M1S"));
 		File fq1 = getContext().getFileSystemContext().getRealignmentFastq(input, 0);
@@ -961,6 +961,11 @@ public class TestHelper {
 						QueryIntervalUtil.overlaps(qi, de.getBreakendSummary()))
 					);
 		}
+		@Override
+		public CloseableIterator<DirectedEvidence> iterator(QueryInterval[] qi, boolean lowBreakpointOnly) {
+			if (!lowBreakpointOnly) return iterator(qi);
+			return new AutoClosingIterator<DirectedEvidence>(Iterators.filter(iterator(qi), de -> isLowBreakpoint(getContext().getLinear(), de)));
+		}
 	}
 	public static class StubAssemblyEvidenceSource extends AssemblyEvidenceSource {
 		public int assemblyWindowSize = 10;
@@ -982,6 +987,11 @@ public class TestHelper {
 			return new AutoClosingIterator<>(assemblies.stream().filter(
 					e -> QueryIntervalUtil.overlaps(qi, e.getBreakendSummary())).iterator());
 		}
+		@Override
+		public CloseableIterator<DirectedEvidence> iterator(QueryInterval[] qi, boolean lowBreakpointOnly) {
+			if (!lowBreakpointOnly) return iterator(qi);
+			return new AutoClosingIterator<>(Iterators.filter(iterator(qi), e -> isLowBreakpoint(getContext().getLinear(), e)));
+		}
 	}
 	public static AssemblyEvidenceSource AES() {
 		return new AssemblyEvidenceSource(getContext(),
@@ -1125,7 +1135,7 @@ public class TestHelper {
 	}
 	public static KmerPathNode KPN(int k, String seq, int start, int end, boolean reference, int[] weight) {
 		PackedKmerList kmers = new PackedKmerList(k, B(seq), new byte[seq.length()], false, false);
-		KmerPathNode pn = new KmerPathNode(kmers.kmer(0), start, end, reference, weight[0]);
+		KmerPathNode pn = new KmerPathNode(k, kmers.kmer(0), start, end, reference, weight[0]);
 		for (int i = 1; i < kmers.length(); i++) {
 			pn.append(new ImmutableKmerNode(kmers.kmer(i), start + i, end + i, reference, weight[i]));
 		}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import org.junit.Test;
@@ -74,6 +75,61 @@ public class VariantCallIteratorTest extends IntermediateFilesTest {
 		assertEquals(4 * 2, result.size());
 	}
 	@Test
+	public void single_pass_calling_should_match_per_direction_calling()  throws InterruptedException {
+		List<DirectedEvidence> list = new ArrayList<DirectedEvidence>();
+		for (int i = 1; i < 100; i += 3) {
+			for (BreakendDirection lowDir : BreakendDirection.values()) {
+				for (BreakendDirection highDir : BreakendDirection.values()) {
+					list.add(new MockDirectedBreakpoint(new BreakpointSummary(0, lowDir, i, i, i + 7, 1, highDir, 200 - i, 200 - i, 205 - i)));
+					list.add(new MockDirectedBreakpoint(new BreakpointSummary(0, lowDir, i, i, i + 2, 0, highDir, i + 10, i + 10, i + 12)));
+				}
+			}
+		}
+		list.sort(DirectedEvidenceOrder.ByNatural);
+		ProcessingContext multiPassContext = getContext();
+		multiPassContext.getVariantCallingParameters().singlePassCliqueCalling = false;
+		ProcessingContext singlePassContext = getContext();
+		singlePassContext.getVariantCallingParameters().singlePassCliqueCalling = true;
+		List<VariantContextDirectedBreakpoint> expected = Lists.newArrayList(new VariantCallIterator(multiPassContext, list));
+		List<VariantContextDirectedBreakpoint> result = Lists.newArrayList(new VariantCallIterator(singlePassContext, list));
+		assertEquals(expected.size(), result.size());
+		// directions are called concurrently so calls are interleaved and assigned different identifiers
+		assertEquals(result.size(), result.stream().map(v -> v.getID()).distinct().count());
+		Comparator<VariantContextDirectedBreakpoint> byCall = Comparator.<VariantContextDirectedBreakpoint, String>comparing(v -> v.getBreakendSummary().toString())
+				.thenComparing(v -> v.getPhredScaledQual());
+		expected.sort(byCall);
+		result.sort(byCall);
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getBreakendSummary(), result.get(i).getBreakendSummary());
+			assertEquals(expected.get(i).getPhredScaledQual(), result.get(i).getPhredScaledQual(), 0);
+		}
+	}
+	@Test
+	public void tree_scanline_calling_should_match_linked_list_scanline_calling()  throws InterruptedException {
+		List<DirectedEvidence> list = new ArrayList<DirectedEvidence>();
+		for (int i = 1; i < 100; i += 3) {
+			for (BreakendDirection lowDir : BreakendDirection.values()) {
+				for (BreakendDirection highDir : BreakendDirection.values()) {
+					list.add(new MockDirectedBreakpoint(new BreakpointSummary(0, lowDir, i, i, i + 7, 1, highDir, 200 - i, 200 - i, 205 - i)));
+					list.add(new MockDirectedBreakpoint(new BreakpointSummary(0, lowDir, i, i, i + 20, 0, highDir, i + 10, i + 10, i + 30)));
+				}
+			}
+		}
+		list.sort(DirectedEvidenceOrder.ByNatural);
+		ProcessingContext linkedListContext = getContext();
+		linkedListContext.getVariantCallingParameters().treeScanlineCliqueCalling = false;
+		ProcessingContext treeContext = getContext();
+		treeContext.getVariantCallingParameters().treeScanlineCliqueCalling = true;
+		List<VariantContextDirectedBreakpoint> expected = Lists.newArrayList(new VariantCallIterator(linkedListContext, list));
+		List<VariantContextDirectedBreakpoint> result = Lists.newArrayList(new VariantCallIterator(treeContext, list));
+		assertEquals(expected.size(), result.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getID(), result.get(i).getID());
+			assertEquals(expected.get(i).getBreakendSummary(), result.get(i).getBreakendSummary());
+			assertEquals(expected.get(i).getPhredScaledQual(), result.get(i).getPhredScaledQual(), 0);
+		}
+	}
+	@Test
 	public void interval_caller_should_filter_calls_in_which_neither_breakend_starts_in_interval()  throws InterruptedException {
 		createInput(
 				RP(0, 1, 2, 1),
@@ -1,28 +1,32 @@
 package au.edu.wehi.idsv.bed;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.stream.IntStream;
 
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import com.google.common.collect.ImmutableList;
+
 import au.edu.wehi.idsv.TestHelper;
 
 
 public class IntervalBedTest extends TestHelper {
 	@Test
 	public void should_round_trip() throws IOException {
-		IntervalBed bed = new IntervalBed(getContext().getDictionary(), getContext().getLinear());
+		IntervalBed bed = new IntervalBed(getContext().getDictionary());
 		bed.addInterval(1, 3, 5);
 		TemporaryFolder folder = new TemporaryFolder();
 		folder.create();
 		File f = folder.newFile("IntervalBedTest.bed");
 		f.delete();
 		bed.write(f, "IntervalBedTest");
-		IntervalBed bed2 = new IntervalBed(getContext().getDictionary(), getContext().getLinear(), f);
+		IntervalBed bed2 = new IntervalBed(getContext().getDictionary(), f);
 		assertFalse(bed2.overlaps(1, 2, 2));
 		assertTrue(bed2.overlaps(1, 3, 3));
 		assertTrue(bed2.overlaps(1, 4, 4));
@@ -33,7 +37,7 @@ public class IntervalBedTest extends TestHelper {
 	}
 	@Test
 	public void overlap_should_return_true_if_at_least_one_base_overlaps() {
-		IntervalBed bed = new IntervalBed(getContext().getDictionary(), getContext().getLinear());
+		IntervalBed bed = new IntervalBed(getContext().getDictionary());
 		bed.addInterval(1, 3, 5);
 		bed.addInterval(1, 7, 9);
 		assertFalse(bed.overlaps(0, 3, 5));
@@ -51,4 +55,55 @@ public class IntervalBedTest extends TestHelper {
 		assertTrue(bed.overlaps(1, 2, 10));
 		assertTrue(bed.overlaps(1, 1, 11));
 	}
+	@Test
+	public void should_merge_overlapping_and_adjacent_intervals() {
+		IntervalBed bed = new IntervalBed(getContext().getDictionary());
+		bed.addInterval(1, 7, 9);
+		bed.addInterval(1, 3, 5);
+		bed.addInterval(1, 4, 6);
+		bed.addInterval(1, 20, 30);
+		bed.addInterval(1, 22, 24);
+		assertEquals(2, bed.size());
+		assertTrue(bed.overlaps(1, 6, 6));
+		assertTrue(bed.overlaps(1, 25, 25));
+		assertFalse(bed.overlaps(1, 10, 19));
+		assertFalse(bed.overlaps(1, 31, 31));
+	}
+	@Test
+	public void should_allow_intervals_to_be_added_after_lookup() {
+		IntervalBed bed = new IntervalBed(getContext().getDictionary());
+		bed.addInterval(1, 3, 5);
+		assertFalse(bed.overlaps(1, 10, 10));
+		bed.addInterval(1, 10, 10);
+		assertTrue(bed.overlaps(1, 10, 10));
+		assertTrue(bed.overlaps(1, 4, 4));
+		assertEquals(2, bed.size());
+	}
+	@Test
+	public void merge_should_include_all_intervals() {
+		IntervalBed bed1 = new IntervalBed(getContext().getDictionary());
+		IntervalBed bed2 = new IntervalBed(getContext().getDictionary());
+		bed1.addInterval(0, 1, 2);
+		bed2.addInterval(1, 3, 5);
+		bed2.addInterval(0, 3, 4);
+		IntervalBed bed = IntervalBed.merge(getContext().getDictionary(), ImmutableList.of(bed1, bed2));
+		assertEquals(2, bed.size());
+		assertTrue(bed.overlaps(0, 1, 1));
+		assertTrue(bed.overlaps(0, 4, 4));
+		assertTrue(bed.overlaps(1, 3, 3));
+		assertFalse(bed.overlaps(1, 2, 2));
+	}
+	@Test
+	public void addInterval_should_be_thread_safe() {
+		IntervalBed bed = new IntervalBed(getContext().getDictionary());
+		IntStream.range(0, 10000).parallel().forEach(i -> {
+			bed.addInterval(i % 2, 10 * i, 10 * i + 4);
+			bed.overlaps(i % 2, 10 * i, 10 * i);
+		});
+		assertEquals(10000, bed.size());
+		for (int i = 0; i < 10000; i++) {
+			assertTrue(bed.overlaps(i % 2, 10 * i + 4, 10 * i + 4));
+			assertFalse(bed.overlaps(i % 2, 10 * i + 5, 10 * i + 9));
+		}
+	}
 }
@@ -0,0 +1,106 @@
+package au.edu.wehi.idsv.debruijn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import au.edu.wehi.idsv.TestHelper;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+
+public class PackedKmerPathTest extends TestHelper {
+	private static final String SEQ = "CATTAATCGCAAGAGCGGGTTGTATTCGACGCCAAGTCAGCTGAAGCACCATTACCCGATCAAAACATATCAGAAATGATTGACGTATCACAAGCCGG";
+	private static LongArrayList kmers(int k, String seq) {
+		PackedKmerList list = new PackedKmerList(k, B(seq), null, false, false);
+		LongArrayList result = new LongArrayList();
+		for (int i = 0; i < list.length(); i++) {
+			result.add(list.kmer(i));
+		}
+		return result;
+	}
+	private static PackedKmerPath path(int k, LongArrayList kmers) {
+		PackedKmerPath path = new PackedKmerPath(k);
+		for (long kmer : kmers) {
+			path.add(kmer);
+		}
+		return path;
+	}
+	@Test
+	public void should_allow_1_to_32_base_kmers() {
+		for (int k = 1; k <= 32; k++) {
+			LongArrayList expected = kmers(k, SEQ);
+			PackedKmerPath path = path(k, expected);
+			assertTrue(path.isPacked());
+			assertEquals(expected.size(), path.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.getLong(i), path.get(i));
+			}
+			assertEquals(expected, path.toLongArrayList());
+		}
+	}
+	@Test
+	public void should_unpack_non_successive_kmers() {
+		PackedKmerPath path = path(4, new LongArrayList(new long[] { 0, 1, 2, 3 }));
+		assertFalse(path.isPacked());
+		assertEquals(new LongArrayList(new long[] { 0, 1, 2, 3 }), path.toLongArrayList());
+	}
+	@Test
+	public void should_not_pack_unknown_kmer_size() {
+		PackedKmerPath path = path(0, kmers(4, SEQ));
+		assertFalse(path.isPacked());
+		assertEquals(kmers(4, SEQ), path.toLongArrayList());
+	}
+	@Test
+	public void should_remove_from_ends() {
+		for (int k = 1; k <= 32; k++) {
+			LongArrayList expected = kmers(k, SEQ);
+			PackedKmerPath path = path(k, expected);
+			for (int i = 0; i < 15; i++) {
+				path.removeFirst();
+				expected.removeLong(0);
+				path.removeLast();
+				expected.removeLong(expected.size() - 1);
+				assertEquals(expected, path.toLongArrayList());
+			}
+			path.truncate(5);
+			expected.removeElements(5, expected.size());
+			assertEquals(expected, path.toLongArrayList());
+			// overwrite truncated bases
+			path.add(kmers(k, SEQ).getLong(20));
+			assertTrue(path.isPacked());
+			assertEquals(kmers(k, SEQ).getLong(20), path.get(5));
+		}
+	}
+	@Test
+	public void subPath_should_copy_kmers() {
+		for (int k = 1; k <= 32; k++) {
+			LongArrayList expected = kmers(k, SEQ);
+			PackedKmerPath path = path(k, expected);
+			for (int from = 0; from < 40; from += 3) {
+				for (int to = from; to < expected.size(); to += 7) {
+					PackedKmerPath sub = path.subPath(from, to);
+					assertEquals(new LongArrayList(expected.subList(from, to)), sub.toLongArrayList());
+					if (to > from) {
+						sub.add(expected.getLong(to));
+						assertTrue(sub.isPacked());
+						assertEquals(new LongArrayList(expected.subList(from, to + 1)), sub.toLongArrayList());
+					}
+				}
+			}
+			assertEquals(expected, path.toLongArrayList());
+		}
+	}
+	@Test
+	public void addAll_should_append_path() {
+		int k = 5;
+		LongArrayList expected = kmers(k, SEQ);
+		PackedKmerPath path = path(k, new LongArrayList(expected.subList(0, 10)));
+		path.addAll(path(k, new LongArrayList(expected.subList(10, expected.size()))));
+		assertTrue(path.isPacked());
+		assertEquals(expected, path.toLongArrayList());
+		assertEquals(path(k, expected), path);
+		assertEquals(path(k, expected).hashCode(), path.hashCode());
+	}
+}
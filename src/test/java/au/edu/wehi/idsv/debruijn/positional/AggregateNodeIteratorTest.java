@@ -171,6 +171,17 @@ public class AggregateNodeIteratorTest extends TestHelper {
 		//		snList.stream().mapToInt(n -> (n.endPosition() - n.startPosition() + 1) * n.weight()).sum(),
 		//		anList.stream().mapToInt(n -> (n.endPosition() - n.startPosition() + 1) * n.weight()).sum());
 	}
+	@Test
+	public void direct_support_consumption_should_match_support_node_consumption() {
+		List<DirectedEvidence> input = SupportNodeIteratorTest.scrp(4, "ACGTTATACCG", 30, 60);
+		List<KmerSupportNode> snList = Lists.newArrayList(new SupportNodeIterator(4, input.iterator(), 60, null, true, 0));
+		List<KmerNode> expected = Lists.newArrayList(new AggregateNodeIterator(snList.iterator()));
+		List<KmerNode> direct = Lists.newArrayList(new AggregateNodeIterator(new SupportNodeIterator(4, input.iterator(), 60, null, true, 0)));
+		assertEquals(expected.size(), direct.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertIs(direct.get(i), expected.get(i).lastKmer(), expected.get(i).lastStart(), expected.get(i).lastEnd(), expected.get(i).weight(), expected.get(i).isReference());
+		}
+	}
 	//@Test // expensive test to run
 	public void should_stream_input() {
 		AggregateNodeIterator agIt = new AggregateNodeIterator(new SupportNodeIterator(25, new RandomSoftClipIterator(), 100, null, false, 0));
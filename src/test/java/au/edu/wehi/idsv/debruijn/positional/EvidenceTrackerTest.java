@@ -53,10 +53,10 @@ public class EvidenceTrackerTest extends TestHelper {
 		List<KmerSupportNode> list = new ArrayList<KmerSupportNode>();
 		list.add(e.node(0));
 		EvidenceTracker tracker = new EvidenceTracker();
-		assertFalse(tracker.isTracked(e.evidence().getEvidenceID()));
+		assertFalse(tracker.isTracked(e.evidence().getEvidenceIdentifier()));
 		tracker.track(list.get(0));
-		assertTrue(tracker.isTracked(e.evidence().getEvidenceID()));
+		assertTrue(tracker.isTracked(e.evidence().getEvidenceIdentifier()));
 		tracker.remove(e);
-		assertFalse(tracker.isTracked(e.evidence().getEvidenceID()));
+		assertFalse(tracker.isTracked(e.evidence().getEvidenceIdentifier()));
 	}
 }
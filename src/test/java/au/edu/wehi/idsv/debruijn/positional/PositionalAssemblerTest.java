@@ -1,6 +1,7 @@
 package au.edu.wehi.idsv.debruijn.positional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -143,4 +144,23 @@ public class PositionalAssemblerTest extends TestHelper {
 			assertEquals(BreakendDirection.Forward, new AssemblyAttributes(r).getAssemblyDirection());
 		}
 	}
+	@Test
+	public void pipelined_assembly_should_match_serial_assembly() {
+		ProcessingContext pc = getContext();
+		AssemblyEvidenceSource aes = AES(pc);
+		pc.getAssemblyParameters().k = 4;
+		List<DirectedEvidence> input = new ArrayList<DirectedEvidence>();
+		for (int referenceIndex = 0; referenceIndex < 3; referenceIndex++) {
+			for (int i = 1; i < 500; i += 7) {
+				input.add(SCE(FWD, withSequence("ACGTTGGTTA", Read(referenceIndex, i, "5M5S"))[0]));
+				input.add(SCE(BWD, withSequence("TTGCAACGTT", Read(referenceIndex, i + 3, "4S6M"))[0]));
+			}
+		}
+		input.sort(DirectedEvidenceOrder.ByStartEnd);
+		List<String> serial = Lists.transform(Lists.newArrayList(new PositionalAssembler(pc, aes, new SequentialIdGenerator("asm"), input.iterator())), r -> r.getSAMString());
+		pc.getAssemblyParameters().positional.pipelined = true;
+		List<String> pipelined = Lists.transform(Lists.newArrayList(new PositionalAssembler(pc, aes, new SequentialIdGenerator("asm"), input.iterator())), r -> r.getSAMString());
+		assertTrue(serial.size() > 0);
+		assertEquals(serial, pipelined);
+	}
 }
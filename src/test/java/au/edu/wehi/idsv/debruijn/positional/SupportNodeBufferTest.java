@@ -0,0 +1,69 @@
+package au.edu.wehi.idsv.debruijn.positional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import au.edu.wehi.idsv.TestHelper;
+
+
+public class SupportNodeBufferTest extends TestHelper {
+	private static KmerEvidence evidence(int position) {
+		return KmerEvidence.create(4, SCE(FWD, withSequence("ACGTTATACCG", Read(0, position, "5M6S"))[0]));
+	}
+	@Test
+	public void should_return_support_in_start_position_order() {
+		SupportNodeBuffer buffer = new SupportNodeBuffer();
+		KmerEvidence e1 = evidence(10);
+		KmerEvidence e2 = evidence(5);
+		for (int i = 0; i < e1.length(); i++) {
+			buffer.add(e1, i);
+			buffer.add(e2, i);
+		}
+		assertEquals(2 * e1.length(), buffer.size());
+		int lastPosition = Integer.MIN_VALUE;
+		while (!buffer.isEmpty()) {
+			int position = buffer.peekPosition();
+			assertEquals(buffer.peekEvidence().startPosition() + buffer.peekOffset(), position);
+			assertTrue(position >= lastPosition);
+			lastPosition = position;
+			buffer.poll();
+		}
+	}
+	@Test
+	public void should_return_same_position_support_in_insertion_order() {
+		SupportNodeBuffer buffer = new SupportNodeBuffer();
+		KmerEvidence e1 = evidence(10);
+		KmerEvidence e2 = evidence(10);
+		buffer.add(e1, 1);
+		buffer.add(e2, 1);
+		buffer.add(e1, 0);
+		assertTrue(buffer.peekEvidence() == e1);
+		assertEquals(0, buffer.peekOffset());
+		buffer.poll();
+		assertTrue(buffer.peekEvidence() == e1);
+		assertEquals(1, buffer.peekOffset());
+		buffer.poll();
+		assertTrue(buffer.peekEvidence() == e2);
+		buffer.poll();
+		assertTrue(buffer.isEmpty());
+	}
+	@Test
+	public void should_grow_to_fit_position_range() {
+		SupportNodeBuffer buffer = new SupportNodeBuffer();
+		for (int position = 1; position < 4000; position += 97) {
+			buffer.add(evidence(position), 0);
+			buffer.add(evidence(8000 - position), 0);
+		}
+		int lastPosition = Integer.MIN_VALUE;
+		int count = 0;
+		while (!buffer.isEmpty()) {
+			assertTrue(buffer.peekPosition() >= lastPosition);
+			lastPosition = buffer.peekPosition();
+			buffer.poll();
+			count++;
+		}
+		assertEquals(2 * 42, count);
+	}
+}
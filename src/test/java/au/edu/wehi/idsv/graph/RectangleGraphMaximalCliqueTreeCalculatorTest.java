@@ -0,0 +1,43 @@
+package au.edu.wehi.idsv.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RectangleGraphMaximalCliqueTreeCalculatorTest extends RectangleGraphMaximalCliqueCalculatorTest {
+	@Override
+	protected MaximalCliqueCalculator createCalculator() {
+		return new RectangleGraphMaximalCliqueTreeCalculator();
+	}
+	private static List<RectangleGraphNode> calculate(MaximalCliqueCalculator calc, RectangleGraphNode[] nodes) {
+		List<RectangleGraphNode> result = new ArrayList<>();
+		for (RectangleGraphNode node : nodes) {
+			result.addAll(calc.next(node));
+		}
+		result.addAll(calc.complete());
+		return result;
+	}
+	@Test
+	public void should_match_linked_list_scanline_cliques_and_ordering() {
+		Random rng = new Random(0);
+		for (int i = 0; i < 200; i++) {
+			int n = 1 + rng.nextInt(100);
+			int range = 5 + rng.nextInt(50);
+			RectangleGraphNode[] nodes = new RectangleGraphNode[n];
+			for (int j = 0; j < n; j++) {
+				long startX = rng.nextInt(range);
+				long startY = rng.nextInt(range);
+				nodes[j] = new RectangleGraphNode(startX, startX + rng.nextInt(10), startY, startY + rng.nextInt(10), 1 + rng.nextInt(5));
+			}
+			Arrays.sort(nodes, RectangleGraphNode.ByStartXYEndXY);
+			List<RectangleGraphNode> expected = calculate(new RectangleGraphMaximalCliqueCalculator(), nodes);
+			List<RectangleGraphNode> actual = calculate(new RectangleGraphMaximalCliqueTreeCalculator(), nodes);
+			assertEquals(expected.toString(), actual.toString());
+		}
+	}
+}
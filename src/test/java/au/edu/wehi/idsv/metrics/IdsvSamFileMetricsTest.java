@@ -9,6 +9,7 @@ import java.util.List;
 import org.junit.Test;
 
 import au.edu.wehi.idsv.TestHelper;
+import au.edu.wehi.idsv.util.MathUtil;
 import gridss.analysis.CigarDetailMetrics;
 import gridss.analysis.IdsvMetrics;
 import gridss.analysis.InsertSizeDistribution;
@@ -32,6 +33,13 @@ public class IdsvSamFileMetricsTest extends TestHelper {
 		assertEquals(mqm, metrics.getMapqMetrics());
 	}
 	@Test
+	public void getReadPairPhred_should_match_folded_cumulative_distribution() {
+		IdsvSamFileMetrics metrics = new MockMetrics();
+		for (int fragmentSize = -1; fragmentSize <= 500; fragmentSize++) {
+			assertEquals(MathUtil.prToPhred(metrics.readPairFoldedCumulativeDistribution(fragmentSize)), metrics.getReadPairPhred(fragmentSize), 0);
+		}
+	}
+	@Test
 	public void getInsertSizeMetrics_should_use_most_plentiful_orientation() {
 		InsertSizeMetrics metrics = IdsvSamFileMetrics.getInsertSizeMetrics(new File("src/test/resources/multiple.idsv.metrics.insertsize.txt"), false);
 		assertEquals(PairOrientation.FR, metrics.PAIR_ORIENTATION);
@@ -0,0 +1,104 @@
+package au.edu.wehi.idsv.picard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+import au.edu.wehi.idsv.TestHelper;
+
+
+public class MemoryMappedReferenceSequenceFileTest extends TestHelper {
+	@Rule
+	public TemporaryFolder testFolder = new TemporaryFolder();
+	private File copySmallFa() throws IOException {
+		File fa = new File(testFolder.getRoot(), "small.fa");
+		Files.copy(SMALL_FA_FILE, fa);
+		Files.copy(new File(SMALL_FA_FILE.getAbsolutePath() + ".fai"), new File(fa.getAbsolutePath() + ".fai"));
+		Files.copy(new File(SMALL_FA_FILE.getParentFile(), "small.dict"), new File(testFolder.getRoot(), "small.dict"));
+		return fa;
+	}
+	private List<String> contigs() {
+		return SMALL_FA.getSequenceDictionary().getSequences().stream().map(ssr -> ssr.getSequenceName()).collect(Collectors.toList());
+	}
+	@Test
+	public void open_should_create_2bit_reference() throws IOException {
+		File fa = copySmallFa();
+		MemoryMappedReferenceSequenceFile b = MemoryMappedReferenceSequenceFile.open(fa);
+		assertNotNull(b);
+		assertTrue(MemoryMappedReferenceSequenceFile.getTwoBitFile(fa).exists());
+		b.close();
+	}
+	@Test
+	public void getSequenceShouldMatchUnderlying() throws IOException {
+		MemoryMappedReferenceSequenceFile b = MemoryMappedReferenceSequenceFile.open(copySmallFa());
+		for (String contig : contigs()) {
+			assertEquals(S(SMALL_FA.getSequence(contig).getBases()).toUpperCase(), S(b.getSequence(contig).getBases()));
+		}
+		b.close();
+	}
+	@Test
+	public void getSubsequenceAtShouldMatchUnderlying() throws IOException {
+		MemoryMappedReferenceSequenceFile b = MemoryMappedReferenceSequenceFile.open(copySmallFa());
+		for (String contig : contigs()) {
+			for (int i = 1; i < 100; i++) {
+				for (int j = i; j < 100; j++) {
+					assertEquals(S(SMALL_FA.getSubsequenceAt(contig, i, j).getBases()).toUpperCase(), S(b.getSubsequenceAt(contig, i, j).getBases()));
+					assertEquals(SMALL_FA.getSubsequenceAt(contig, i, j).getName(), b.getSubsequenceAt(contig, i, j).getName());
+					assertEquals(SMALL_FA.getSubsequenceAt(contig, i, j).getContigIndex(), b.getSubsequenceAt(contig, i, j).getContigIndex());
+				}
+			}
+		}
+		b.close();
+	}
+	@Test
+	public void nextSequence_should_iterate_over_all_contigs() throws IOException {
+		MemoryMappedReferenceSequenceFile b = MemoryMappedReferenceSequenceFile.open(copySmallFa());
+		for (String contig : contigs()) {
+			assertEquals(contig, b.nextSequence().getName());
+		}
+		assertNull(b.nextSequence());
+		b.reset();
+		assertEquals(contigs().get(0), b.nextSequence().getName());
+		b.close();
+	}
+	@Test
+	public void should_convert_ambiguous_bases_to_Ns() throws IOException {
+		InMemoryReferenceSequenceFile ref = new InMemoryReferenceSequenceFile(new String[] { "test" }, new byte[][] { B("NANNTgcNa") });
+		File file = new File(testFolder.getRoot(), "test.2bit");
+		MemoryMappedReferenceSequenceFile.write(ref, file);
+		MemoryMappedReferenceSequenceFile b = new MemoryMappedReferenceSequenceFile(file, ref.getSequenceDictionary());
+		assertEquals("NANNTGCNA", S(b.getSequence("test").getBases()));
+		assertEquals("N", S(b.getSubsequenceAt("test", 1, 1) .getBases()));
+		assertEquals("A", S(b.getSubsequenceAt("test", 2, 2) .getBases()));
+		assertEquals("NAN", S(b.getSubsequenceAt("test", 1, 3) .getBases()));
+		assertEquals('N', b.getBase(0, 1));
+		assertEquals('A', b.getBase(0, 2));
+		assertEquals('N', b.getBase(0, 3));
+		assertEquals('N', b.getBase(0, 4));
+		assertEquals('T', b.getBase(0, 5));
+		assertEquals('G', b.getBase(0, 6));
+		assertEquals('C', b.getBase(0, 7));
+		assertEquals('N', b.getBase(0, 8));
+		assertEquals('A', b.getBase(0, 9));
+		b.close();
+	}
+	@Test(expected=IOException.class)
+	public void should_reject_mismatched_dictionary() throws IOException {
+		InMemoryReferenceSequenceFile ref = new InMemoryReferenceSequenceFile(new String[] { "test" }, new byte[][] { B("ACGT") });
+		File file = new File(testFolder.getRoot(), "test.2bit");
+		MemoryMappedReferenceSequenceFile.write(ref, file);
+		new MemoryMappedReferenceSequenceFile(file, new InMemoryReferenceSequenceFile(new String[] { "test" }, new byte[][] { B("ACG") }).getSequenceDictionary());
+	}
+}
@@ -1,12 +1,14 @@
 package au.edu.wehi.idsv.sam;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
 import org.junit.Test;
 
+import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.TextCigarCodec;
 
 
@@ -38,4 +40,22 @@ public class ChimericAlignmentTest {
 		assertEquals(1, new ChimericAlignment(null, 0, false, TextCigarCodec.decode("1S2M3S4H"), 0, 0).getFirstAlignedBaseReadOffset());
 		assertEquals(7, new ChimericAlignment(null, 0, true, TextCigarCodec.decode("1S2M3S4H"), 0, 0).getFirstAlignedBaseReadOffset());
 	}
+	@Test
+	public void getChimericAlignments_should_parse_SA_tag_once() {
+		SAMRecord r = new SAMRecord(null);
+		r.setAttribute("SA", "chr1,1,+,1S1M,0,0");
+		List<ChimericAlignment> list = ChimericAlignment.getChimericAlignments(r);
+		assertEquals(1, list.size());
+		assertSame(list, ChimericAlignment.getChimericAlignments(r));
+	}
+	@Test
+	public void getChimericAlignments_should_reparse_updated_SA_tag() {
+		SAMRecord r = new SAMRecord(null);
+		r.setAttribute("SA", "chr1,1,+,1S1M,0,0");
+		assertEquals(1, ChimericAlignment.getChimericAlignments(r).size());
+		r.setAttribute("SA", "chr1,1,+,1S1M,0,0;chr1,10,+,1M1S,0,0");
+		assertEquals(2, ChimericAlignment.getChimericAlignments(r).size());
+		r.setAttribute("SA", null);
+		assertEquals(0, ChimericAlignment.getChimericAlignments(r).size());
+	}
 }
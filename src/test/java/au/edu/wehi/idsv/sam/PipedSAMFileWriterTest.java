@@ -0,0 +1,53 @@
+package au.edu.wehi.idsv.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import au.edu.wehi.idsv.TestHelper;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.CloseableIterator;
+
+
+public class PipedSAMFileWriterTest extends TestHelper {
+	@Test
+	public void should_pass_written_records_to_reader() throws InterruptedException {
+		PipedSAMFileWriter writer = new PipedSAMFileWriter(getHeader(), 2, 3);
+		Thread t = new Thread(() -> {
+			for (int i = 1; i <= 100; i++) {
+				writer.addAlignment(Read(0, i, "1M"));
+			}
+			writer.close();
+		});
+		t.start();
+		List<SAMRecord> result = Lists.newArrayList(writer.iterator());
+		t.join();
+		assertEquals(100, result.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i + 1, result.get(i).getAlignmentStart());
+		}
+	}
+	@Test(expected=IllegalArgumentException.class)
+	public void should_rethrow_writer_error_on_reader() {
+		PipedSAMFileWriter writer = new PipedSAMFileWriter(getHeader(), 2, 3);
+		new Thread(() -> {
+			writer.addAlignment(Read(0, 1, "1M"));
+			writer.abort(new IllegalArgumentException());
+		}).start();
+		Lists.newArrayList(writer.iterator());
+	}
+	@Test(expected=IllegalStateException.class)
+	public void should_fail_writes_after_reader_closed() {
+		PipedSAMFileWriter writer = new PipedSAMFileWriter(getHeader(), 1, 1);
+		CloseableIterator<SAMRecord> it = writer.iterator();
+		it.close();
+		assertFalse(it.hasNext());
+		writer.addAlignment(Read(0, 1, "1M"));
+		writer.addAlignment(Read(0, 2, "1M"));
+	}
+}
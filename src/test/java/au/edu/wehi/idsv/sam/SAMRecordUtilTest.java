@@ -139,6 +139,25 @@ public class SAMRecordUtilTest extends TestHelper {
 		assertEquals(3, SAMRecordUtil.estimateFragmentSize(RP(0, 1, 2, 2)[1], PairOrientation.FR));
 	}
 	@Test
+	public void estimateFragmentSize_should_use_mate_cigar() {
+		SAMRecord[] rp = RP(0, 1, 20, 10);
+		rp[0].setAttribute(SAMTag.MC.name(), "5S10M5S");
+		rp[1].setCigarString("5S10M5S");
+		rp[1].setAttribute(SAMTag.MC.name(), "10M");
+		assertEquals(34, SAMRecordUtil.estimateFragmentSize(rp[0], PairOrientation.FR));
+		assertEquals(34, SAMRecordUtil.estimateFragmentSize(rp[1], PairOrientation.FR));
+	}
+	@Test
+	public void getMateCigar_should_reparse_updated_MC_tag() {
+		SAMRecord r = Read(0, 1, "10M");
+		assertNull(SAMRecordUtil.getMateCigar(r));
+		r.setAttribute(SAMTag.MC.name(), "5M");
+		assertEquals("5M", SAMRecordUtil.getMateCigar(r).toString());
+		assertTrue(SAMRecordUtil.getMateCigar(r) == SAMRecordUtil.getMateCigar(r));
+		r.setAttribute(SAMTag.MC.name(), "1S5M");
+		assertEquals("1S5M", SAMRecordUtil.getMateCigar(r).toString());
+	}
+	@Test
 	public void estimateFragmentSize_should_assume_FR_orientation() {
 		SAMRecord[] dp = DP(0, 1, "1M", true, 0, 5, "1M", true);
 		assertEquals(0, SAMRecordUtil.estimateFragmentSize(dp[0], PairOrientation.FR));
@@ -0,0 +1,60 @@
+package au.edu.wehi.idsv.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import au.edu.wehi.idsv.util.AsyncBufferedIteratorTest.CIT;
+
+
+public class AsyncPartitionedIteratorTest {
+	private static FutureTask<List<Integer>> consume(AsyncPartitionedIterator<Integer> api, int partition) {
+		FutureTask<List<Integer>> task = new FutureTask<>(() -> Lists.newArrayList(api.getPartition(partition)));
+		new Thread(task).start();
+		return task;
+	}
+	@Test
+	public void should_partition_underlying_records() throws InterruptedException, ExecutionException {
+		try (AsyncPartitionedIterator<Integer> api = new AsyncPartitionedIterator<Integer>(new CIT(1024), null, 2, x -> x % 2, 2, 3)) {
+			FutureTask<List<Integer>> even = consume(api, 0);
+			FutureTask<List<Integer>> odd = consume(api, 1);
+			assertEquals(512, even.get().size());
+			assertEquals(512, odd.get().size());
+			assertEquals(1024, (int)odd.get().get(0) + 1);
+			assertEquals(2, (int)even.get().get(even.get().size() - 1));
+			for (int i = 1; i < even.get().size(); i++) {
+				assertEquals((int)even.get().get(i - 1) - 2, (int)even.get().get(i));
+			}
+		}
+	}
+	@Test
+	public void should_drop_negative_partition() throws InterruptedException, ExecutionException {
+		try (AsyncPartitionedIterator<Integer> api = new AsyncPartitionedIterator<Integer>(new CIT(10), null, 1, x -> x > 5 ? 0 : -1, 1, 1)) {
+			assertEquals(Lists.newArrayList(10, 9, 8, 7, 6), consume(api, 0).get());
+		}
+	}
+	@Test
+	public void should_not_block_on_closed_partition() throws InterruptedException, ExecutionException {
+		CIT it = new CIT(1024);
+		try (AsyncPartitionedIterator<Integer> api = new AsyncPartitionedIterator<Integer>(it, null, 2, x -> x % 2, 1, 1)) {
+			api.getPartition(1).close();
+			assertFalse(api.getPartition(1).hasNext());
+			assertEquals(512, consume(api, 0).get().size());
+		}
+		assertTrue(it.isClosed);
+	}
+	@Test(expected=ExecutionException.class)
+	public void should_rethrow_background_exception() throws InterruptedException, ExecutionException {
+		try (AsyncPartitionedIterator<Integer> api = new AsyncPartitionedIterator<Integer>(new CIT(10), null, 1, x -> { if (x == 5) throw new IllegalStateException(); return 0; }, 1, 1)) {
+			consume(api, 0).get();
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package au.edu.wehi.idsv.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.math3.distribution.EnumeratedIntegerDistribution;
+import org.junit.Test;
+
+
+public class CachedEnumeratedIntegerDistributionTest {
+	private static final int[] SINGLETONS = new int[] { 5, 1, 7, 3, 7, 10 };
+	private static final double[] PROBABILITIES = new double[] { 1, 2, 3, 0, 4, 5 };
+	@Test
+	public void should_match_enumerated_distribution() {
+		EnumeratedIntegerDistribution expected = new EnumeratedIntegerDistribution(SINGLETONS, PROBABILITIES);
+		CachedEnumeratedIntegerDistribution result = new CachedEnumeratedIntegerDistribution(SINGLETONS, PROBABILITIES);
+		assertEquals(expected.getSupportLowerBound(), result.getSupportLowerBound());
+		assertEquals(expected.getSupportUpperBound(), result.getSupportUpperBound());
+		assertEquals(expected.getNumericalMean(), result.getNumericalMean(), 0);
+		assertEquals(expected.getNumericalVariance(), result.getNumericalVariance(), 0);
+		for (int x = -2; x <= 12; x++) {
+			assertEquals(expected.probability(x), result.probability(x), 1e-15);
+			assertEquals(expected.cumulativeProbability(x), result.cumulativeProbability(x), 1e-15);
+		}
+		assertEquals(expected.inverseCumulativeProbability(0.5), result.inverseCumulativeProbability(0.5));
+	}
+	@Test
+	public void cumulativeProbability_should_be_zero_below_support_and_one_above_support() {
+		CachedEnumeratedIntegerDistribution result = new CachedEnumeratedIntegerDistribution(SINGLETONS, PROBABILITIES);
+		assertEquals(0, result.cumulativeProbability(0), 0);
+		assertEquals(1, result.cumulativeProbability(11), 1e-15);
+		assertEquals(1, result.cumulativeProbability(Integer.MAX_VALUE), 1e-15);
+		assertEquals(0, result.probability(Integer.MIN_VALUE), 0);
+	}
+}
@@ -0,0 +1,133 @@
+package au.edu.wehi.idsv.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class CalendarQueueTest {
+	private static class Item {
+		public final long key;
+		public final int tieBreak;
+		public Item(long key, int tieBreak) {
+			this.key = key;
+			this.tieBreak = tieBreak;
+		}
+	}
+	private static final Comparator<Item> ByKeyTieBreak = Comparator.<Item>comparingLong(x -> x.key).thenComparingInt(x -> x.tieBreak);
+	@Test
+	public void should_return_elements_in_key_order() {
+		CalendarQueue<Long> q = new CalendarQueue<>(x -> x);
+		q.add(5L);
+		q.add(3L);
+		q.add(4L);
+		q.add(3L);
+		assertEquals(4, q.size());
+		assertEquals(3L, q.peekKey());
+		assertEquals(3L, (long)q.poll());
+		assertEquals(3L, (long)q.poll());
+		assertEquals(4L, (long)q.poll());
+		assertEquals(5L, (long)q.poll());
+		assertTrue(q.isEmpty());
+		assertNull(q.poll());
+		assertNull(q.peek());
+	}
+	@Test
+	public void should_return_ties_in_insertion_order() {
+		CalendarQueue<Item> q = new CalendarQueue<>(x -> x.key);
+		for (int i = 0; i < 10; i++) {
+			q.add(new Item(1, i));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, q.poll().tieBreak);
+		}
+	}
+	@Test
+	public void should_return_ties_in_tie_break_order() {
+		CalendarQueue<Item> q = new CalendarQueue<>(4, x -> x.key, ByKeyTieBreak);
+		for (int i = 0; i < 10; i++) {
+			q.add(new Item(1, 9 - i));
+		}
+		assertEquals(0, q.poll().tieBreak);
+		q.add(new Item(1, 100));
+		q.add(new Item(1, -1));
+		assertEquals(-1, q.poll().tieBreak);
+		for (int i = 1; i < 10; i++) {
+			assertEquals(i, q.poll().tieBreak);
+		}
+		assertEquals(100, q.poll().tieBreak);
+	}
+	@Test
+	public void should_grow_to_span_key_range() {
+		CalendarQueue<Long> q = new CalendarQueue<>(1, x -> x, null);
+		for (long i = 100000; i >= 0; i -= 999) {
+			q.add(i);
+		}
+		q.add(-5000L);
+		long last = Long.MIN_VALUE;
+		int count = 0;
+		while (!q.isEmpty()) {
+			long k = q.poll();
+			assertTrue(k >= last);
+			last = k;
+			count++;
+		}
+		assertEquals(102, count);
+	}
+	@Test
+	public void should_allow_keys_before_first_key() {
+		CalendarQueue<Long> q = new CalendarQueue<>(x -> x);
+		q.add(10L);
+		q.add(5L);
+		assertEquals(5L, (long)q.poll());
+		q.add(7L);
+		assertEquals(7L, (long)q.poll());
+		assertEquals(10L, (long)q.poll());
+	}
+	@Test
+	public void iterator_should_return_all_elements() {
+		CalendarQueue<Long> q = new CalendarQueue<>(x -> x);
+		q.add(3L);
+		q.add(1L);
+		q.add(1000L);
+		q.add(1L);
+		assertEquals(Lists.newArrayList(1L, 1L, 3L, 1000L), Lists.newArrayList(q));
+		assertTrue(q.contains(1000L));
+	}
+	@Test
+	public void should_match_priority_queue_order() {
+		Random rng = new Random(0);
+		CalendarQueue<Item> q = new CalendarQueue<>(16, x -> x.key, ByKeyTieBreak);
+		PriorityQueue<Item> pq = new PriorityQueue<>(ByKeyTieBreak);
+		List<Item> actual = new ArrayList<>();
+		List<Item> expected = new ArrayList<>();
+		long position = 1L << 40;
+		for (int i = 0; i < 100000; i++) {
+			position += rng.nextInt(3);
+			Item item = new Item(position + rng.nextInt(500), rng.nextInt(1000));
+			q.add(item);
+			pq.add(item);
+			while (rng.nextInt(3) == 0 && !pq.isEmpty()) {
+				expected.add(pq.poll());
+				actual.add(q.poll());
+			}
+		}
+		while (!pq.isEmpty()) {
+			expected.add(pq.poll());
+			actual.add(q.poll());
+		}
+		assertTrue(q.isEmpty());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(0, ByKeyTieBreak.compare(expected.get(i), actual.get(i)));
+		}
+	}
+}
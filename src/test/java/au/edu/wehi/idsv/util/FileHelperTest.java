@@ -49,4 +49,27 @@ public class FileHelperTest extends IntermediateFilesTest {
 		assertTrue(new File(testFolder.getRoot(), "out.bam.bai").exists());
 		assertTrue(new File(testFolder.getRoot(), "out.bam.idx").exists());
 	}
-}
\ No newline at end of file
+	@Test
+	public void should_not_treat_bam_index_as_index_of_other_file_with_same_base_name() throws IOException {
+		File cache = new File(testFolder.getRoot(), "in.sv.evidence");
+		File bamIndex = new File(testFolder.getRoot(), "in.sv.bai");
+		File cacheIndex = new File(testFolder.getRoot(), "in.sv.evidence.idx");
+		cache.createNewFile();
+		bamIndex.createNewFile();
+		cacheIndex.createNewFile();
+		FileHelper.delete(cache, true);
+		assertFalse(cache.exists());
+		assertFalse(cacheIndex.exists());
+		assertTrue(bamIndex.exists());
+	}
+	@Test
+	public void should_not_delete_indexes_when_not_requested() throws IOException {
+		File bam = new File(testFolder.getRoot(), "in.bam");
+		File bai = new File(testFolder.getRoot(), "in.bai");
+		bam.createNewFile();
+		bai.createNewFile();
+		FileHelper.delete(bam, false);
+		assertFalse(bam.exists());
+		assertTrue(bai.exists());
+	}
+}
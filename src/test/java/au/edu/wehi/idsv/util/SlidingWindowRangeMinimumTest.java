@@ -0,0 +1,69 @@
+package au.edu.wehi.idsv.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingWindowRangeMinimumTest {
+	@Test
+	public void unset_positions_should_be_zero() {
+		SlidingWindowRangeMinimum w = new SlidingWindowRangeMinimum(4);
+		assertEquals(0, w.get(0));
+		w.set(1, 5);
+		w.set(3, 5);
+		assertEquals(0, w.get(2));
+		assertEquals(0, w.get(10));
+		assertEquals(0, w.min(1, 4));
+		assertEquals(0, w.min(3, 5));
+		assertEquals(5, w.min(3, 4));
+	}
+	@Test
+	public void size_should_return_size() {
+		SlidingWindowRangeMinimum w = new SlidingWindowRangeMinimum(3);
+		assertEquals(0, w.size());
+		w.set(0, 1);
+		assertEquals(1, w.size());
+		w.set(9, 1);
+		assertEquals(10, w.size());
+	}
+	@Test(expected=IllegalArgumentException.class)
+	public void should_not_allow_access_outside_window() {
+		SlidingWindowRangeMinimum w = new SlidingWindowRangeMinimum(3);
+		w.set(10, 1);
+		w.min(7, 10);
+	}
+	@Test
+	public void should_clear_window_when_advancing_past_window() {
+		SlidingWindowRangeMinimum w = new SlidingWindowRangeMinimum(5);
+		for (int i = 0; i < 8; i++) {
+			w.set(i, 1);
+		}
+		w.set(100, 1);
+		assertEquals(0, w.min(96, 100));
+		assertEquals(1, w.min(100, 101));
+	}
+	@Test
+	public void min_should_match_linear_scan() {
+		Random rng = new Random(0);
+		int windowSize = 37;
+		SlidingWindowRangeMinimum w = new SlidingWindowRangeMinimum(windowSize);
+		int[] values = new int[1000];
+		for (int pos = 0; pos < values.length; pos++) {
+			if (rng.nextInt(10) == 0) {
+				// skip some positions
+				continue;
+			}
+			values[pos] = rng.nextInt(100);
+			w.set(pos, values[pos]);
+			for (int start = Math.max(0, pos - windowSize + 1); start <= pos; start++) {
+				int expected = Integer.MAX_VALUE;
+				for (int end = start + 1; end <= pos + 1; end++) {
+					expected = Math.min(expected, values[end - 1]);
+					assertEquals(expected, w.min(start, end));
+				}
+			}
+		}
+	}
+}
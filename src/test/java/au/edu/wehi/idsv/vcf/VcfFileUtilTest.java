@@ -1,6 +1,64 @@
 package au.edu.wehi.idsv.vcf;
 
-public class VcfFileUtilTest {
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import au.edu.wehi.idsv.IdsvVariantContext;
+import au.edu.wehi.idsv.IdsvVariantContextBuilder;
+import au.edu.wehi.idsv.IntermediateFilesTest;
+import au.edu.wehi.idsv.ProcessingContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+
+public class VcfFileUtilTest extends IntermediateFilesTest {
+	private File write(String name, int... positions) throws IOException {
+		ProcessingContext pc = getCommandlineContext();
+		File f = testFolder.newFile(name);
+		VariantContextWriter vcw = pc.getVariantContextWriter(f, false);
+		for (int i = 0; i < positions.length; i += 2) {
+			vcw.add(new IdsvVariantContextBuilder(pc).chr(pc.getDictionary().getSequence(positions[i]).getSequenceName())
+					.start(positions[i + 1]).stop(positions[i + 1]).alleles("A", "<DEL>").id(name + i).make());
+		}
+		vcw.close();
+		return f;
+	}
+	@Test
+	public void merge_should_merge_sorted_inputs() throws IOException {
+		ProcessingContext pc = getCommandlineContext();
+		List<File> input = ImmutableList.of(
+				write("a.vcf", 0, 1, 0, 100, 2, 5),
+				write("b.vcf"),
+				write("c.vcf", 0, 50, 1, 1, 1, 2, 2, 1));
+		VcfFileUtil.merge(pc.getReference().getSequenceDictionary(), input, output, IdsvVariantContext.VariantContextByLocationStart(pc.getDictionary()));
+		List<IdsvVariantContext> result = getVcf(output, null);
+		assertEquals(7, result.size());
+		for (int i = 1; i < result.size(); i++) {
+			assertEquals(-1, Integer.signum(IdsvVariantContext.VariantContextByLocationStart(pc.getDictionary()).compare(result.get(i - 1), result.get(i))));
+		}
+		assertEquals("c.vcf0", result.get(1).getID());
+	}
+	@Test
+	public void merge_should_merge_in_multiple_passes() throws IOException {
+		ProcessingContext pc = getCommandlineContext();
+		List<File> input = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			input.add(write(String.format("in%d.vcf", i), 0, 1000 - i, 1, i + 1));
+		}
+		VcfFileUtil.merge(pc.getReference().getSequenceDictionary(), input, output, IdsvVariantContext.VariantContextByLocationStart(pc.getDictionary()));
+		List<IdsvVariantContext> result = getVcf(output, null);
+		assertEquals(400, result.size());
+		for (int i = 1; i < result.size(); i++) {
+			assertEquals(-1, Integer.signum(IdsvVariantContext.VariantContextByLocationStart(pc.getDictionary()).compare(result.get(i - 1), result.get(i))));
+		}
+		assertEquals(0, testFolder.getRoot().listFiles((dir, name) -> name.startsWith("gridss.tmp.merge")).length);
+	}
 	/*
 	public class TestCommandLineProgram extends CommandLineProgram {
 		public TestCommandLineProgram() {
@@ -1,6 +1,7 @@
 package gridss;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -18,6 +19,7 @@ import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.MoreExecutors;
 
@@ -32,9 +34,17 @@ import au.edu.wehi.idsv.ProcessingContext;
 import au.edu.wehi.idsv.SAMEvidenceSource;
 import au.edu.wehi.idsv.VariantCaller;
 import au.edu.wehi.idsv.VariantContextDirectedBreakpoint;
+import au.edu.wehi.idsv.sam.SamTags;
 import au.edu.wehi.idsv.util.AutoClosingIterator;
+import gridss.analysis.StructuralVariantReadMetrics;
+import htsjdk.samtools.QueryInterval;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.Tribble;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
 
 public class AllocateEvidenceTest extends IntermediateFilesTest {
 	private void assertSymmetrical(List<VariantContextDirectedBreakpoint> breakpoints) {
@@ -166,6 +176,115 @@ public class AllocateEvidenceTest extends IntermediateFilesTest {
 		assertEquals(ses.evidence.size(), rpCalls);
 		assertEquals(expectedEvidence, annotatedEvidence, 20); // floating point truncation on VCF is severe!
 	}
+	private List<String> allocateMultimapping(ProcessingContext pc, StubSAMEvidenceSource ses, StubAssemblyEvidenceSource aes, ExecutorService threadpool) {
+		AllocateEvidence cmd = new AllocateEvidence();
+		cmd.INPUT_VCF = output;
+		cmd.setContext(pc);
+		cmd.setAssemblySource(aes);
+		cmd.setSamEvidenceSources(ImmutableList.of(ses));
+		try (CloseableIterator<VariantContextDirectedBreakpoint> it = cmd.iterator(cmd.getBreakpoints(output), threadpool)) {
+			return Lists.newArrayList(Iterators.transform(it, v -> v.getID() + " " + v.getBreakpointEvidenceCount()));
+		}
+	}
+	@Test
+	public void parallel_cache_population_should_match_single_threaded_population() throws IOException {
+		final int fragSize = 4;
+		final int testSize = 32;
+		final ProcessingContext pc = getCommandlineContext();
+		pc.getVariantCallingParameters().writeFiltered = true;
+		pc.getVariantCallingParameters().minScore = 0;
+		pc.getConfig().multimapping = true;
+		pc.getConfig().multimappingUniqueVariantAllocation = true;
+		pc.getConfig().chunkSize = 8;
+		pc.getConfig().chunkSequenceChangePenalty = 0;
+		StubSAMEvidenceSource ses = new StubSAMEvidenceSource(pc, input, 0, 0, fragSize) {
+			@Override
+			public StructuralVariantReadMetrics getSVMetrics() {
+				StructuralVariantReadMetrics m = new StructuralVariantReadMetrics();
+				m.STRUCTURAL_VARIANT_READ_PAIRS = testSize * testSize;
+				m.STRUCTURAL_VARIANT_READS = testSize * testSize;
+				return m;
+			}
+		};
+		ses.metrics.getIdsvMetrics().SECONDARY_NOT_SPLIT = 1;
+		List<SAMRecord> in = new ArrayList<SAMRecord>();
+		for (int i = 1; i < testSize; i++) {
+			for (int j = 1; j < testSize; j += 3) {
+				// each read pair aligns to multiple locations
+				SAMRecord[] dp = withReadName(String.format("read-%d", i), DP(0, i, "1M", true, 1, j, "1M", false));
+				dp[0].setAttribute(SamTags.MULTIMAPPING_FRAGMENT, testSize);
+				dp[1].setAttribute(SamTags.MULTIMAPPING_FRAGMENT, testSize);
+				ses.evidence.add(NonReferenceReadPair.create(dp[0], dp[1], ses));
+				ses.evidence.add(NonReferenceReadPair.create(dp[1], dp[0], ses));
+				in.add(dp[0]);
+				in.add(dp[1]);
+			}
+		}
+		StubAssemblyEvidenceSource aes = new StubAssemblyEvidenceSource(pc);
+		aes.fragSize = fragSize;
+		Collections.sort(ses.evidence, DirectedEvidenceOrder.ByNatural);
+		createInput(in);
+		VariantCaller vc = new VariantCaller(pc, ImmutableList.<SAMEvidenceSource>of(ses), aes);
+		vc.callBreakends(output, MoreExecutors.newDirectExecutorService());
+		
+		List<String> single = allocateMultimapping(pc, ses, aes, null);
+		ExecutorService threadpool = Executors.newFixedThreadPool(4);
+		List<String> parallel = allocateMultimapping(pc, ses, aes, threadpool);
+		threadpool.shutdown();
+		assertTrue(single.size() > 0);
+		assertEquals(single, parallel);
+	}
+	private AllocateEvidence indexingTestCommand(ProcessingContext pc) throws IOException {
+		pc.getVariantCallingParameters().writeFiltered = true;
+		pc.getVariantCallingParameters().minScore = 0;
+		StubSAMEvidenceSource ses = new StubSAMEvidenceSource(pc, input, 0, 0, 100);
+		SAMRecord[] dp = DP(0, 1, "1M", true, 1, 1, "1M", false);
+		ses.evidence.add(NonReferenceReadPair.create(dp[0], dp[1], ses));
+		ses.evidence.add(NonReferenceReadPair.create(dp[1], dp[0], ses));
+		Collections.sort(ses.evidence, DirectedEvidenceOrder.ByNatural);
+		StubAssemblyEvidenceSource aes = new StubAssemblyEvidenceSource(pc);
+		VariantCaller caller = new VariantCaller(pc, ImmutableList.<SAMEvidenceSource>of(ses), aes);
+		caller.callBreakends(output, MoreExecutors.newDirectExecutorService());
+		AllocateEvidence cmd = new AllocateEvidence();
+		cmd.setContext(pc);
+		cmd.setAssemblySource(aes);
+		cmd.setSamEvidenceSources(ImmutableList.of(ses));
+		return cmd;
+	}
+	private List<VariantContextDirectedBreakpoint> queryAll(ProcessingContext pc, AllocateEvidence cmd, File vcf) {
+		QueryInterval[] all = pc.getDictionary().getSequences().stream()
+				.map(seq -> new QueryInterval(seq.getSequenceIndex(), 1, seq.getSequenceLength()))
+				.toArray(QueryInterval[]::new);
+		try (CloseableIterator<VariantContextDirectedBreakpoint> it = cmd.getBreakpoints(vcf, all)) {
+			return Lists.newArrayList(it);
+		}
+	}
+	@Test
+	public void should_index_input_vcf_in_working_directory() throws IOException {
+		ProcessingContext pc = getCommandlineContext();
+		AllocateEvidence cmd = indexingTestCommand(pc);
+		Tribble.indexFile(output).delete();
+		assertEquals(2, queryAll(pc, cmd, output).size());
+		assertFalse(Tribble.indexFile(output).exists());
+		assertTrue(pc.getFileSystemContext().getVcfIndex(output).exists());
+	}
+	@Test
+	public void should_index_block_compressed_input_vcf() throws IOException {
+		ProcessingContext pc = getCommandlineContext();
+		AllocateEvidence cmd = indexingTestCommand(pc);
+		File gz = new File(testFolder.getRoot(), "out.vcf.gz");
+		try (VCFFileReader reader = new VCFFileReader(output, false)) {
+			try (VariantContextWriter writer = pc.getVariantContextWriter(gz, false)) {
+				for (VariantContext vc : reader) {
+					writer.add(vc);
+				}
+			}
+		}
+		assertEquals(2, queryAll(pc, cmd, gz).size());
+		assertFalse(Tribble.tabixIndexFile(gz).exists());
+		assertTrue(pc.getFileSystemContext().getVcfIndex(gz).getName().endsWith(".tbi"));
+		assertTrue(pc.getFileSystemContext().getVcfIndex(gz).exists());
+	}
 	@Test
 	public void should_filter_if_insufficient_reads() throws IOException {
 		final ProcessingContext pc = getCommandlineContext();
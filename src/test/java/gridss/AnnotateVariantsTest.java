@@ -0,0 +1,73 @@
+package gridss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import au.edu.wehi.idsv.AssemblyEvidenceSource;
+import au.edu.wehi.idsv.IntermediateFilesTest;
+import au.edu.wehi.idsv.ProcessingContext;
+import au.edu.wehi.idsv.SAMEvidenceSource;
+import au.edu.wehi.idsv.VariantCaller;
+import htsjdk.samtools.SAMRecord;
+
+public class AnnotateVariantsTest extends IntermediateFilesTest {
+	private List<String> annotate(ProcessingContext pc, SAMEvidenceSource ses, AssemblyEvidenceSource aes, File assemblyFile, File out, ExecutorService threadpool) throws IOException, InterruptedException, ExecutionException {
+		AnnotateVariants cmd = new AnnotateVariants();
+		cmd.INPUT_VCF = output;
+		cmd.OUTPUT_VCF = out;
+		cmd.ASSEMBLY = assemblyFile;
+		cmd.setContext(pc);
+		cmd.setAssemblySource(aes);
+		cmd.setSamEvidenceSources(ImmutableList.of(ses));
+		assertEquals(0, cmd.doWork(threadpool));
+		return getVcf(out, null).stream().map(v -> v.toString()).collect(Collectors.toList());
+	}
+	@Test
+	public void chunked_annotation_should_match_single_chunk_annotation() throws IOException, InterruptedException, ExecutionException {
+		final ProcessingContext pc = getCommandlineContext();
+		pc.getVariantCallingParameters().minScore = 0;
+		pc.getVariantCallingParameters().minSize = 0;
+		pc.getVariantCallingParameters().writeFiltered = true;
+		pc.getConfig().chunkSequenceChangePenalty = 0;
+		List<SAMRecord> in = new ArrayList<>();
+		for (int i = 1; i < 100; i += 7) {
+			in.add(RP(0, i, i + 20, 5)[0]);
+			in.add(RP(0, i, i + 20, 5)[1]);
+			for (SAMRecord r : DP(0, i, "5M5S", true, 1, 200 - i, "5M", true)) in.add(r);
+			for (SAMRecord r : DP(0, i + 1, "5M5S", true, 1, 200 - i, "5M", true)) in.add(r);
+		}
+		createInput(in);
+		SAMEvidenceSource ses = new SAMEvidenceSource(getContext(), input, null, 0);
+		ses.ensureMetrics();
+		File assemblyFile = new File(testFolder.getRoot(), "assembly.bam");
+		AssemblyEvidenceSource aes = new AssemblyEvidenceSource(pc, ImmutableList.of(ses), assemblyFile);
+		aes.assembleBreakends(null);
+		aes.ensureExtracted();
+		VariantCaller caller = new VariantCaller(pc, ImmutableList.of(ses), aes);
+		caller.callBreakends(output, MoreExecutors.newDirectExecutorService());
+		ExecutorService threadpool = Executors.newFixedThreadPool(4);
+		try {
+			List<String> single = annotate(pc, ses, aes, assemblyFile, new File(testFolder.getRoot(), "single.vcf"), threadpool);
+			pc.getConfig().chunkSize = 32;
+			List<String> chunked = annotate(pc, ses, aes, assemblyFile, new File(testFolder.getRoot(), "chunked.vcf"), threadpool);
+			assertTrue(single.size() > 0);
+			assertEquals(single, chunked);
+		} finally {
+			threadpool.shutdown();
+		}
+	}
+}
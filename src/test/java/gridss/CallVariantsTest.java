@@ -7,6 +7,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,7 +16,9 @@ import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 
+import au.edu.wehi.idsv.CheckpointManifest;
 import au.edu.wehi.idsv.DirectedEvidence;
 import au.edu.wehi.idsv.IntermediateFilesTest;
 import au.edu.wehi.idsv.NonReferenceReadPair;
@@ -94,4 +97,47 @@ public class CallVariantsTest extends IntermediateFilesTest {
 		assertTrue(output.exists());
 		assembly.delete();
 	}
+	@Test
+	public void should_resume_from_checkpoints() throws IOException {
+		createInput(RP(0, 1, 100, 10));
+		File assembly = new File(testFolder.getRoot(), "assembly.bam");
+		String[] args = new String[] {
+				"INPUT=" + input.toString(),
+				"ASSEMBLY=" + assembly.toString(),
+				"REFERENCE_SEQUENCE=" + reference.toString(),
+				"OUTPUT=" + output.toString(),
+				"TMP_DIR=" + super.testFolder.getRoot().toString(),
+				"WORKING_DIR=" + super.testFolder.getRoot().toString()
+		};
+		assertEquals(0, new CallVariants().instanceMain(args));
+		String checkpoint = CheckpointManifest.describe(assembly);
+		output.delete();
+		assertEquals(0, new CallVariants().instanceMain(args));
+		assertTrue(output.exists());
+		// assembly should not have been regenerated
+		assertEquals(checkpoint, CheckpointManifest.describe(assembly));
+		assembly.delete();
+	}
+	@Test
+	public void should_not_reuse_untracked_annotation_chunk() throws IOException {
+		createInput(RP(0, 1, 100, 10));
+		File assembly = new File(testFolder.getRoot(), "assembly.bam");
+		String[] args = new String[] {
+				"INPUT=" + input.toString(),
+				"ASSEMBLY=" + assembly.toString(),
+				"REFERENCE_SEQUENCE=" + reference.toString(),
+				"OUTPUT=" + output.toString(),
+				"TMP_DIR=" + super.testFolder.getRoot().toString(),
+				"WORKING_DIR=" + super.testFolder.getRoot().toString()
+		};
+		assertEquals(0, new CallVariants().instanceMain(args));
+		output.delete();
+		// chunk left over from an interrupted annotation
+		File chunk = getCommandlineContext().getFileSystemContext().getAnnotationChunkVcf(output, 0);
+		chunk.getParentFile().mkdirs();
+		Files.write("truncated", chunk, StandardCharsets.US_ASCII);
+		assertEquals(0, new CallVariants().instanceMain(args));
+		assertTrue(output.exists());
+		assembly.delete();
+	}
 }
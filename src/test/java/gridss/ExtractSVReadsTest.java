@@ -7,6 +7,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +30,7 @@ import au.edu.wehi.idsv.picard.ReferenceLookup;
 import au.edu.wehi.idsv.picard.SynchronousReferenceLookupAdapter;
 import au.edu.wehi.idsv.sam.ChimericAlignment;
 import gridss.analysis.StructuralVariantReadMetrics;
+import gridss.cmdline.ByReadNameSinglePassSamProgram;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
@@ -88,11 +91,45 @@ public class ExtractSVReadsTest extends IntermediateFilesTest {
 		StructuralVariantReadMetrics metric = Iterators.getOnlyElement(Iterables.filter(MetricsFile.readBeans(extract.METRICS_OUTPUT), StructuralVariantReadMetrics.class).iterator(), null);
 		assertEquals(1, metric.SOFT_CLIPPED_READS);
 	}
+	@Test
+	public void parallel_processing_should_match_serial_processing() throws IOException {
+		List<SAMRecord> in = new ArrayList<>();
+		for (int i = 1; i < 2000; i++) {
+			in.add(Read(1, i, "5S5M"));
+			in.add(Read(1, i, "10M"));
+			Collections.addAll(in, RP(1, i, i + 10, 5));
+			Collections.addAll(in, OEA(1, i, "5M", true));
+			Collections.addAll(in, DP(1, i, "5M", true, 0, 1, "5M", false));
+		}
+		createInput(in);
+		List<String> expected = null;
+		StructuralVariantReadMetrics expectedMetrics = null;
+		for (int threads : new int[] { 1, 4 }) {
+			ExtractSVReads extract = new ExtractSVReads();
+			extract.INPUT = input;
+			extract.OUTPUT = output;
+			extract.METRICS_OUTPUT = new File(output.getAbsolutePath() + ".metrics");
+			ByReadNameSinglePassSamProgram.makeItSo(input, null, true, 0, threads, ImmutableList.of(extract));
+			List<String> out = getRecords(output).stream().map(r -> r.getSAMString()).collect(Collectors.toList());
+			StructuralVariantReadMetrics metric = Iterators.getOnlyElement(Iterables.filter(MetricsFile.readBeans(extract.METRICS_OUTPUT), StructuralVariantReadMetrics.class).iterator(), null);
+			if (expected == null) {
+				expected = out;
+				expectedMetrics = metric;
+				assertTrue(expected.size() > 0);
+			} else {
+				assertEquals(expected, out);
+				assertEquals(expectedMetrics.STRUCTURAL_VARIANT_READS, metric.STRUCTURAL_VARIANT_READS);
+				assertEquals(expectedMetrics.SOFT_CLIPPED_READ_ALIGNMENTS, metric.SOFT_CLIPPED_READ_ALIGNMENTS);
+				assertEquals(expectedMetrics.DISCORDANT_READ_PAIRS, metric.DISCORDANT_READ_PAIRS);
+				assertEquals(expectedMetrics.UNMAPPED_MATE_READS, metric.UNMAPPED_MATE_READS);
+			}
+		}
+	}
 	/*
 	@Test
 	public void should_not_extract_unclipped_alignment_overlapping_blacklist() {
 		createInput();
-		IntervalBed blacklist = new IntervalBed(getSequenceDictionary(), new PaddedLinearGenomicCoordinate(getSequenceDictionary()));
+		IntervalBed blacklist = new IntervalBed(getSequenceDictionary());
 		blacklist.addInterval(0, 2, 2);
 				
 		ExtractSVReads extract = new ExtractSVReads();
@@ -112,7 +149,7 @@ public class ExtractSVReadsTest extends IntermediateFilesTest {
 	@Test
 	public void should_not_extract_any_read_from_fragment_overlapping_read_pair_breakend() {
 		createInput();
-		IntervalBed blacklist = new IntervalBed(getSequenceDictionary(), new PaddedLinearGenomicCoordinate(getSequenceDictionary()));
+		IntervalBed blacklist = new IntervalBed(getSequenceDictionary());
 		blacklist.addInterval(0, 2, 2);
 				
 		ExtractSVReads extract = new ExtractSVReads();
@@ -0,0 +1,96 @@
+package performancetesting;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.alignment.Aligner;
+import au.edu.wehi.idsv.alignment.AlignerFactory;
+import au.edu.wehi.idsv.alignment.JAlignerAligner;
+import au.edu.wehi.idsv.alignment.SswJniAligner;
+
+/**
+ * Smith-Waterman alignment of reads containing mismatches and
+ * an insertion against a reference window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AlignerBenchmark {
+	private static final int ALIGNMENTS = 100;
+	public enum AlignerType { SSW_JNI, JALIGNER }
+	@Param({ "SSW_JNI", "JALIGNER" })
+	public AlignerType alignerType;
+	@Param({ "150" })
+	public int readLength;
+	@Param({ "500" })
+	public int referenceLength;
+	private Aligner aligner;
+	private byte[][] seq;
+	private byte[][] ref;
+	@Setup
+	public void setup() {
+		switch (alignerType) {
+		case SSW_JNI:
+			// loads the native library
+			if (!(AlignerFactory.create() instanceof SswJniAligner)) {
+				throw new IllegalStateException("Unable to load sswjni library");
+			}
+			aligner = new SswJniAligner(1, -4, -4, 6, 1);
+			break;
+		case JALIGNER:
+			aligner = new JAlignerAligner(1, -4, -4, 6, 1);
+			break;
+		}
+		BenchmarkDataGenerator data = new BenchmarkDataGenerator(1000000, 1);
+		Random rng = new Random(1);
+		seq = new byte[ALIGNMENTS][];
+		ref = new byte[ALIGNMENTS][];
+		for (int i = 0; i < ALIGNMENTS; i++) {
+			int start = 1 + rng.nextInt(data.getReferenceLength() - referenceLength);
+			ref[i] = data.getReferenceBases(start, referenceLength);
+			int readOffset = rng.nextInt(referenceLength - readLength);
+			int insertionLength = 1 + rng.nextInt(10);
+			int insertionOffset = rng.nextInt(readLength - insertionLength);
+			byte[] read = new byte[readLength];
+			System.arraycopy(ref[i], readOffset, read, 0, insertionOffset);
+			System.arraycopy(data.getBases(insertionLength), 0, read, insertionOffset, insertionLength);
+			System.arraycopy(ref[i], readOffset + insertionOffset, read, insertionOffset + insertionLength, readLength - insertionOffset - insertionLength);
+			for (int j = 0; j < readLength / 50; j++) {
+				read[rng.nextInt(readLength)] = data.getBases(1)[0];
+			}
+			seq[i] = read;
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(ALIGNMENTS)
+	public void align(Blackhole bh) {
+		for (int i = 0; i < ALIGNMENTS; i++) {
+			bh.consume(aligner.align_smith_waterman(seq[i], ref[i]));
+		}
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(AlignerBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,148 @@
+package performancetesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import au.edu.wehi.idsv.DirectedEvidence;
+import au.edu.wehi.idsv.ProcessingContext;
+import au.edu.wehi.idsv.SAMEvidenceSource;
+import au.edu.wehi.idsv.SingleReadEvidence;
+import au.edu.wehi.idsv.TestHelper;
+import au.edu.wehi.idsv.picard.InMemoryReferenceSequenceFile;
+import au.edu.wehi.idsv.sam.SAMRecordUtil;
+import au.edu.wehi.idsv.sim.RandomBaseGenerator;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordCoordinateComparator;
+import htsjdk.samtools.SAMTag;
+
+/**
+ * Generates synthetic benchmark inputs.
+ *
+ * All inputs are deterministically generated from the given seed
+ * so benchmarks can be run offline without any external data.
+ *
+ * Benchmarks in this package can be run using:
+ * java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main performancetesting
+ */
+public class BenchmarkDataGenerator {
+	public static final String CONTIG = "synthetic";
+	private static final byte BASE_QUALITY = 30;
+	private static final int MAPQ = 60;
+	private final Random rng;
+	private final RandomBaseGenerator baseGenerator;
+	private final byte[] bases;
+	private final InMemoryReferenceSequenceFile reference;
+	private final ProcessingContext context;
+	/**
+	 * Creates a synthetic single contig reference genome
+	 * @param referenceLength length of reference contig
+	 * @param seed random seed
+	 */
+	public BenchmarkDataGenerator(int referenceLength, int seed) {
+		this.rng = new Random(seed);
+		this.baseGenerator = new RandomBaseGenerator(seed);
+		this.bases = baseGenerator.getBases(referenceLength);
+		this.reference = new InMemoryReferenceSequenceFile(new String[] { CONTIG }, new byte[][] { bases });
+		this.context = TestHelper.getContext(reference);
+	}
+	public ProcessingContext getContext() {
+		return context;
+	}
+	public InMemoryReferenceSequenceFile getReference() {
+		return reference;
+	}
+	public int getReferenceLength() {
+		return bases.length;
+	}
+	/**
+	 * Random bases
+	 */
+	public byte[] getBases(int length) {
+		return baseGenerator.getBases(length);
+	}
+	/**
+	 * Reference bases
+	 * @param start first position (1-based)
+	 * @param length number of bases
+	 */
+	public byte[] getReferenceBases(int start, int length) {
+		return Arrays.copyOfRange(bases, start - 1, start - 1 + length);
+	}
+	/**
+	 * Generates reads fully supporting the reference, uniformly distributed across the reference
+	 * @param count number of reads
+	 * @param readLength read length
+	 * @return reads in coordinate order
+	 */
+	public List<SAMRecord> getReferenceReads(int count, int readLength) {
+		List<SAMRecord> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int start = 1 + rng.nextInt(bases.length - readLength);
+			list.add(createRead(String.format("ref%d", i), start, String.format("%dM", readLength), getReferenceBases(start, readLength)));
+		}
+		Collections.sort(list, new SAMRecordCoordinateComparator());
+		return list;
+	}
+	/**
+	 * Generates soft clipped reads supporting forward breakends evenly spaced across the reference.
+	 * The soft clipped bases of every second read are also given a split read alignment.
+	 * @param breakendCount number of breakends
+	 * @param readsPerBreakend number of reads supporting each breakend
+	 * @param readLength read length
+	 * @return reads in coordinate order
+	 */
+	public List<SAMRecord> getBreakendReads(int breakendCount, int readsPerBreakend, int readLength) {
+		List<SAMRecord> list = new ArrayList<>(breakendCount * readsPerBreakend);
+		int spacing = (bases.length - 2 * readLength) / breakendCount;
+		for (int i = 0; i < breakendCount; i++) {
+			int breakendPosition = readLength + i * spacing + rng.nextInt(Math.max(1, spacing - readLength));
+			int remotePosition = 1 + rng.nextInt(bases.length - readLength);
+			byte[] novel = baseGenerator.getBases(readLength);
+			for (int j = 0; j < readsPerBreakend; j++) {
+				int anchorLength = readLength / 4 + rng.nextInt(readLength / 2);
+				int clipLength = readLength - anchorLength;
+				int start = breakendPosition - anchorLength + 1;
+				byte[] readBases = new byte[readLength];
+				System.arraycopy(bases, start - 1, readBases, 0, anchorLength);
+				System.arraycopy(novel, 0, readBases, anchorLength, clipLength);
+				SAMRecord r = createRead(String.format("be%d_%d", i, j), start, String.format("%dM%dS", anchorLength, clipLength), readBases);
+				if (j % 2 == 0) {
+					r.setAttribute(SAMTag.SA.name(), String.format("%s,%d,+,%dS%dM,%d,0", CONTIG, remotePosition, anchorLength, clipLength, MAPQ));
+				}
+				list.add(r);
+			}
+		}
+		Collections.sort(list, new SAMRecordCoordinateComparator());
+		return list;
+	}
+	private SAMRecord createRead(String name, int start, String cigar, byte[] readBases) {
+		SAMRecord r = new SAMRecord(context.getBasicSamHeader());
+		r.setReadName(name);
+		r.setReferenceIndex(0);
+		r.setAlignmentStart(start);
+		r.setCigarString(cigar);
+		r.setMappingQuality(MAPQ);
+		r.setReadBases(readBases);
+		byte[] qual = new byte[readBases.length];
+		Arrays.fill(qual, BASE_QUALITY);
+		r.setBaseQualities(qual);
+		SAMRecordUtil.ensureNmTag(reference, r);
+		return r;
+	}
+	/**
+	 * Converts the given reads to evidence
+	 * @param source evidence source
+	 * @param reads reads
+	 * @return evidence in the same order as the reads
+	 */
+	public static List<DirectedEvidence> getEvidence(SAMEvidenceSource source, List<SAMRecord> reads) {
+		List<DirectedEvidence> list = new ArrayList<>(reads.size());
+		for (SAMRecord r : reads) {
+			list.addAll(SingleReadEvidence.createEvidence(source, 1, r));
+		}
+		return list;
+	}
+}
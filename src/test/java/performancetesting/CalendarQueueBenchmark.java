@@ -0,0 +1,86 @@
+package performancetesting;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.debruijn.positional.ImmutableKmerNode;
+import au.edu.wehi.idsv.debruijn.positional.KmerNodeUtil;
+import au.edu.wehi.idsv.util.CalendarQueue;
+
+/**
+ * Position ordered buffering of a synthetic high-depth region.
+ *
+ * Nodes are added in approximate start position order, with each node
+ * added up to window bases after its start position. Nodes are removed
+ * once no earlier node can be added. Each operation adds and removes one node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CalendarQueueBenchmark {
+	private static final int NODES = 1000000;
+	@Param({ "100", "1000" })
+	public int depth;
+	@Param({ "300" })
+	public int window;
+	private ImmutableKmerNode[] nodes;
+	@Setup
+	public void setup() {
+		Random rng = new Random(0);
+		nodes = new ImmutableKmerNode[NODES];
+		for (int i = 0; i < NODES; i++) {
+			int position = i / depth;
+			int start = position + rng.nextInt(window);
+			nodes[i] = new ImmutableKmerNode(rng.nextLong(), start, start + rng.nextInt(50), false, 1);
+		}
+	}
+	private void buffer(Queue<ImmutableKmerNode> queue, Blackhole bh) {
+		for (int i = 0; i < NODES; i++) {
+			int position = i / depth;
+			while (!queue.isEmpty() && queue.peek().firstStart() < position) {
+				bh.consume(queue.poll());
+			}
+			queue.add(nodes[i]);
+		}
+		while (!queue.isEmpty()) {
+			bh.consume(queue.poll());
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(NODES)
+	public void priorityQueue(Blackhole bh) {
+		buffer(new PriorityQueue<ImmutableKmerNode>(1024, KmerNodeUtil.ByFirstStart), bh);
+	}
+	@Benchmark
+	@OperationsPerInvocation(NODES)
+	public void calendarQueue(Blackhole bh) {
+		buffer(new CalendarQueue<ImmutableKmerNode>(n -> n.firstStart()), bh);
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(CalendarQueueBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
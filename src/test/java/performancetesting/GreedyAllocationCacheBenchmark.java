@@ -0,0 +1,88 @@
+package performancetesting;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.GreedyAllocationCache;
+import htsjdk.samtools.util.Log;
+
+/**
+ * Compares load throughput and memory usage of the allocation cache lookup backends.
+ * 
+ * Each operation is a keep-highest-score update of a random read. Since reads are drawn
+ * with replacement, reads have multiple updates as is the case for multimapping reads. 
+ * 
+ * The benchmark extends GreedyAllocationCache to access the lookup types.
+ * 
+ * Run using:
+ * java -cp target/test-classes:target/classes:<test classpath> performancetesting.GreedyAllocationCacheBenchmark
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GreedyAllocationCacheBenchmark extends GreedyAllocationCache {
+	private static final Log log = Log.getInstance(GreedyAllocationCacheBenchmark.class);
+	@Param({ "CHRONICLE_MAP", "OFF_HEAP" })
+	public LookupBackend backend;
+	@Param({ "1000000" })
+	public long reads;
+	private GreedyAllocationCacheLookup<EventAlignmentScoreNode> lookup;
+	@Setup(Level.Iteration)
+	public void setup() {
+		lookup = GreedyAllocationCache.createLookup(backend, "benchmark", EventAlignmentScoreNode.class, reads);
+	}
+	@TearDown(Level.Iteration)
+	public void teardown() throws IOException {
+		long memory = 0;
+		if (lookup instanceof OffHeapLookup) {
+			memory = ((OffHeapLookup<?>)lookup).offHeapMemoryUsed();
+		} else if (lookup instanceof OpenHFTLookup) {
+			memory = ((OpenHFTLookup<?>)lookup).offHeapMemoryUsed();
+		}
+		log.info(String.format("%s: %,d bytes off-heap for %,d expected entries (%.1f bytes per entry)", backend, memory, reads, memory / (double)reads));
+		lookup.close();
+	}
+	@Benchmark
+	@Threads(4)
+	public void load() {
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		// only generate keys up to the expected entry count as the lookups have fixed capacity
+		long read = rnd.nextLong(reads);
+		Hash96bit key = new Hash96bit(read, (int)read);
+		GreedyAllocationCache.putIfHigherScore(lookup, key, new EventAlignmentScoreNode(
+				new Hash96bit(rnd.nextLong(), rnd.nextInt()),
+				rnd.nextFloat(),
+				new Hash96bit(rnd.nextLong(), rnd.nextInt())));
+	}
+	@Override
+	public void close() throws IOException {
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(GreedyAllocationCacheBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,67 @@
+package performancetesting;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.bed.IntervalBed;
+
+/**
+ * Blacklist lookups of read alignment intervals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IntervalBedBenchmark {
+	private static final int REFERENCE_LENGTH = 1000000;
+	private static final int LOOKUPS = 100000;
+	@Param({ "100", "10000" })
+	public int intervals;
+	private IntervalBed bed;
+	private int[] start;
+	@Setup
+	public void setup() {
+		BenchmarkDataGenerator data = new BenchmarkDataGenerator(REFERENCE_LENGTH, 1);
+		Random rng = new Random(1);
+		bed = new IntervalBed(data.getContext().getDictionary());
+		for (int i = 0; i < intervals; i++) {
+			int s = 1 + rng.nextInt(REFERENCE_LENGTH);
+			bed.addInterval(0, s, s + rng.nextInt(100));
+		}
+		start = new int[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			start[i] = 1 + rng.nextInt(REFERENCE_LENGTH - 100);
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void overlaps(Blackhole bh) {
+		for (int s : start) {
+			bh.consume(bed.overlaps(0, s, s + 99));
+		}
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(IntervalBedBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
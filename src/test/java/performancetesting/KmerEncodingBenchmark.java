@@ -0,0 +1,93 @@
+package performancetesting;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.debruijn.KmerEncodingHelper;
+import au.edu.wehi.idsv.debruijn.ReadKmer;
+import au.edu.wehi.idsv.debruijn.ReadKmerIterable;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Kmer encoding of read sequences.
+ * 
+ * Each operation encodes all kmers of a single read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KmerEncodingBenchmark {
+	private static final int READS = 10000;
+	@Param({ "25" })
+	public int k;
+	@Param({ "150" })
+	public int readLength;
+	private byte[][] bases;
+	private byte[][] quals;
+	@Setup
+	public void setup() {
+		BenchmarkDataGenerator data = new BenchmarkDataGenerator(1000000, 1);
+		List<SAMRecord> reads = data.getReferenceReads(READS, readLength);
+		bases = new byte[READS][];
+		quals = new byte[READS][];
+		for (int i = 0; i < READS; i++) {
+			bases[i] = reads.get(i).getReadBases();
+			quals[i] = reads.get(i).getBaseQualities();
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void picardBaseToEncoded(Blackhole bh) {
+		for (byte[] b : bases) {
+			long kmer = KmerEncodingHelper.picardBaseToEncoded(k, b);
+			bh.consume(kmer);
+			for (int i = k; i < b.length; i++) {
+				kmer = KmerEncodingHelper.nextState(k, kmer, b[i]);
+				bh.consume(kmer);
+			}
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void readKmerIterable(Blackhole bh) {
+		for (int i = 0; i < READS; i++) {
+			for (ReadKmer kmer : new ReadKmerIterable(k, bases[i], quals[i])) {
+				bh.consume(kmer.kmer);
+			}
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void reverseComplementReadKmerIterable(Blackhole bh) {
+		for (int i = 0; i < READS; i++) {
+			for (ReadKmer kmer : new ReadKmerIterable(k, bases[i], quals[i], true, true)) {
+				bh.consume(kmer.kmer);
+			}
+		}
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(KmerEncodingBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
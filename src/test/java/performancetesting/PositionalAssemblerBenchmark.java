@@ -0,0 +1,79 @@
+package performancetesting;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.ImmutableList;
+
+import au.edu.wehi.idsv.AssemblyEvidenceSource;
+import au.edu.wehi.idsv.BreakendDirection;
+import au.edu.wehi.idsv.DirectedEvidence;
+import au.edu.wehi.idsv.DirectedEvidenceOrder;
+import au.edu.wehi.idsv.ProcessingContext;
+import au.edu.wehi.idsv.SAMEvidenceSource;
+import au.edu.wehi.idsv.SequentialIdGenerator;
+import au.edu.wehi.idsv.TestHelper.MockSAMEvidenceSource;
+import au.edu.wehi.idsv.debruijn.positional.PositionalAssembler;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Positional de Bruijn graph assembly of a synthetic 1Mb region.
+ * 
+ * Each operation assembles all forward breakends in the region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PositionalAssemblerBenchmark {
+	private static final int REFERENCE_LENGTH = 1000000;
+	@Param({ "1000" })
+	public int breakends;
+	@Param({ "20" })
+	public int readsPerBreakend;
+	private ProcessingContext context;
+	private AssemblyEvidenceSource aes;
+	private List<DirectedEvidence> evidence;
+	@Setup
+	public void setup() {
+		BenchmarkDataGenerator data = new BenchmarkDataGenerator(REFERENCE_LENGTH, 1);
+		context = data.getContext();
+		SAMEvidenceSource ses = new MockSAMEvidenceSource(context);
+		aes = new AssemblyEvidenceSource(context, ImmutableList.of(ses), new File("benchmark.bam"));
+		List<SAMRecord> reads = data.getBreakendReads(breakends, readsPerBreakend, 100);
+		evidence = BenchmarkDataGenerator.getEvidence(ses, reads);
+		evidence.sort(DirectedEvidenceOrder.ByStartEnd);
+	}
+	@Benchmark
+	public void assemble(Blackhole bh) {
+		Iterator<SAMRecord> it = new PositionalAssembler(context, aes, new SequentialIdGenerator("asm"), evidence.iterator(), BreakendDirection.Forward);
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PositionalAssemblerBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,79 @@
+package performancetesting;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.graph.MaximalCliqueCalculator;
+import au.edu.wehi.idsv.graph.RectangleGraphMaximalCliqueCalculator;
+import au.edu.wehi.idsv.graph.RectangleGraphMaximalCliqueTreeCalculator;
+import au.edu.wehi.idsv.graph.RectangleGraphNode;
+
+/**
+ * Maximal clique calculation of clustered rectangles.
+ * 
+ * Rectangles are clustered around a fixed number of breakpoints
+ * to emulate discordant read pair and split read evidence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RectangleGraphMaximalCliqueCalculatorBenchmark {
+	private static final int REFERENCE_LENGTH = 1000000;
+	@Param({ "100000" })
+	public int nodeCount;
+	@Param({ "10", "100", "10000" })
+	public int nodesPerBreakpoint;
+	@Param({ "list", "tree" })
+	public String scanline;
+	private RectangleGraphNode[] nodes;
+	@Setup
+	public void setup() {
+		Random rng = new Random(1);
+		nodes = new RectangleGraphNode[nodeCount];
+		long x = 0;
+		long y = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			if (i % nodesPerBreakpoint == 0) {
+				x = rng.nextInt(REFERENCE_LENGTH);
+				y = rng.nextInt(REFERENCE_LENGTH);
+			}
+			long startX = x + rng.nextInt(300);
+			long startY = y + rng.nextInt(300);
+			nodes[i] = new RectangleGraphNode(startX, startX + rng.nextInt(300), startY, startY + rng.nextInt(300), 1 + rng.nextInt(100));
+		}
+		Arrays.sort(nodes, RectangleGraphNode.ByStartXYEndXY);
+	}
+	@Benchmark
+	public void calculateMaximalCliques(Blackhole bh) {
+		MaximalCliqueCalculator calc = scanline.equals("tree") ? new RectangleGraphMaximalCliqueTreeCalculator() : new RectangleGraphMaximalCliqueCalculator();
+		for (RectangleGraphNode node : nodes) {
+			bh.consume(calc.next(node));
+		}
+		bh.consume(calc.complete());
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RectangleGraphMaximalCliqueCalculatorBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,85 @@
+package performancetesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.DirectedEvidence;
+import au.edu.wehi.idsv.SAMEvidenceSource;
+import au.edu.wehi.idsv.TestHelper.MockSAMEvidenceSource;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Read transformation and filtering performed during evidence extraction.
+ * 
+ * The reference genome contains a blacklisted region every 10kb. Reads overlapping
+ * the blacklist are converted to unmapped by the first transform invocation.
+ * Each shouldFilterEvidence operation filters the evidence from all reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SAMEvidenceSourceBenchmark {
+	private static final int REFERENCE_LENGTH = 1000000;
+	private static final int READS = 100000;
+	private static final int BREAKENDS = 1000;
+	private static final int READS_PER_BREAKEND = 10;
+	private SAMEvidenceSource ses;
+	private List<SAMRecord> reads;
+	private List<DirectedEvidence> evidence;
+	@Setup
+	public void setup() {
+		BenchmarkDataGenerator data = new BenchmarkDataGenerator(REFERENCE_LENGTH, 1);
+		for (int i = 0; i < REFERENCE_LENGTH; i += 10000) {
+			data.getContext().getBlacklistedRegions().addInterval(0, i + 1, i + 500);
+		}
+		ses = new MockSAMEvidenceSource(data.getContext());
+		reads = new ArrayList<>(data.getReferenceReads(READS - BREAKENDS * READS_PER_BREAKEND, 100));
+		reads.addAll(data.getBreakendReads(BREAKENDS, READS_PER_BREAKEND, 100));
+		evidence = BenchmarkDataGenerator.getEvidence(ses, reads);
+	}
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void transform(Blackhole bh) {
+		for (SAMRecord r : reads) {
+			bh.consume(ses.transform(r));
+		}
+	}
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public void shouldFilterRead(Blackhole bh) {
+		for (SAMRecord r : reads) {
+			bh.consume(ses.shouldFilter(r));
+		}
+	}
+	@Benchmark
+	public void shouldFilterEvidence(Blackhole bh) {
+		for (DirectedEvidence e : evidence) {
+			bh.consume(ses.shouldFilter(e));
+		}
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(SAMEvidenceSourceBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,99 @@
+package performancetesting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.edu.wehi.idsv.BreakpointSummary;
+import au.edu.wehi.idsv.DirectedBreakpoint;
+import au.edu.wehi.idsv.DirectedEvidence;
+import au.edu.wehi.idsv.DirectedEvidenceOrder;
+import au.edu.wehi.idsv.IdsvVariantContextBuilder;
+import au.edu.wehi.idsv.ProcessingContext;
+import au.edu.wehi.idsv.SequentialEvidenceAllocator;
+import au.edu.wehi.idsv.TestHelper.MockSAMEvidenceSource;
+import au.edu.wehi.idsv.VariantContextDirectedEvidence;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Allocation of evidence to variant calls.
+ * 
+ * A breakpoint call is made for both breakends of each split read breakpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SequentialEvidenceAllocatorBenchmark {
+	private static final int REFERENCE_LENGTH = 1000000;
+	private static final int MAX_CALL_WINDOW_SIZE = 1000;
+	@Param({ "1000" })
+	public int breakends;
+	@Param({ "20" })
+	public int readsPerBreakend;
+	@Param({ "true", "false" })
+	public boolean assignEvidenceToSingleBreakpoint;
+	private ProcessingContext context;
+	private List<DirectedEvidence> evidence;
+	private List<VariantContextDirectedEvidence> calls;
+	@Setup
+	public void setup() {
+		BenchmarkDataGenerator data = new BenchmarkDataGenerator(REFERENCE_LENGTH, 1);
+		context = data.getContext();
+		MockSAMEvidenceSource ses = new MockSAMEvidenceSource(context);
+		List<SAMRecord> reads = data.getBreakendReads(breakends, readsPerBreakend, 100);
+		evidence = BenchmarkDataGenerator.getEvidence(ses, reads);
+		evidence.sort(DirectedEvidenceOrder.ByNatural);
+		Set<BreakpointSummary> breakpoints = new LinkedHashSet<>();
+		for (DirectedEvidence e : evidence) {
+			if (e instanceof DirectedBreakpoint) {
+				BreakpointSummary bp = ((DirectedBreakpoint)e).getBreakendSummary();
+				breakpoints.add(bp);
+				breakpoints.add(bp.remoteBreakpoint());
+			}
+		}
+		Random rng = new Random(1);
+		calls = new ArrayList<>(breakpoints.size());
+		for (BreakpointSummary bp : breakpoints) {
+			calls.add((VariantContextDirectedEvidence)new IdsvVariantContextBuilder(context)
+					.breakpoint(bp, "")
+					.phredScore(rng.nextInt(1000))
+					.id(String.format("call%d", calls.size()))
+					.make());
+		}
+		calls.sort(VariantContextDirectedEvidence.ByBreakendStartEnd);
+	}
+	@Benchmark
+	public void allocate(Blackhole bh) {
+		SequentialEvidenceAllocator allocator = new SequentialEvidenceAllocator(context, calls.iterator(), evidence.iterator(), MAX_CALL_WINDOW_SIZE, assignEvidenceToSingleBreakpoint);
+		while (allocator.hasNext()) {
+			bh.consume(allocator.next());
+		}
+	}
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(SequentialEvidenceAllocatorBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}